@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.npm.MetaUpdate;
+import com.artipie.npm.Tarballs;
+import com.artipie.npm.misc.DescSortedVersions;
+import com.artipie.npm.misc.JsonFromPublisher;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark for the hosted metadata paths: publish merges uploaded json
+ * into the packument, install reads packument and rewrites tarball links.
+ * Run with {@code -prof gc} to see allocations per operation.
+ * @since 0.10
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MetaBench {
+
+    /**
+     * Number of versions in the packument.
+     */
+    @Param({"10", "1000", "10000"})
+    private int versions;
+
+    /**
+     * Packument.
+     */
+    private JsonObject packument;
+
+    /**
+     * Packument bytes.
+     */
+    private byte[] bytes;
+
+    /**
+     * Json uploaded by `npm publish`.
+     */
+    private JsonObject upload;
+
+    /**
+     * Base URL of the repository.
+     */
+    private URL base;
+
+    @Setup(Level.Trial)
+    public void setup() throws MalformedURLException {
+        this.packument = Packuments.packument(this.versions);
+        this.bytes = Packuments.bytes(this.versions);
+        this.upload = Packuments.upload(Packuments.version(this.versions));
+        this.base = new URL("http://localhost:8080/npm");
+    }
+
+    /**
+     * Publish of the new version: `Meta.updatedMeta` via
+     * {@link MetaUpdate.ByJson}, which is what the meta queue applies.
+     * @return Updated packument
+     */
+    @Benchmark
+    public JsonObject updatedMeta() {
+        return new MetaUpdate.ByJson(this.upload).apply(Optional.of(this.packument));
+    }
+
+    /**
+     * Packument download: tarball links are rewritten to absolute ones.
+     * @return Response bytes
+     */
+    @Benchmark
+    public byte[] tarballs() {
+        return new PublisherAs(
+            new Tarballs(
+                new Content.From(SyntheticTgz.chunks(this.bytes)), this.base
+            ).value()
+        ).bytes().toCompletableFuture().join();
+    }
+
+    /**
+     * Packument parsing from the storage content.
+     * @return Packument
+     */
+    @Benchmark
+    public JsonObject jsonFromPublisher() {
+        return new JsonFromPublisher(SyntheticTgz.chunks(this.bytes)).json().join();
+    }
+
+    /**
+     * Versions sorting, done on unpublish to find new `latest`.
+     * @return Latest version
+     */
+    @Benchmark
+    public String descSortedVersions() {
+        return new DescSortedVersions(this.packument.getJsonObject("versions"))
+            .value().get(0);
+    }
+
+    /**
+     * Main.
+     * @param args CLI args
+     * @throws RunnerException On benchmark failure
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(MetaBench.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * Synthetic packuments shaped as the adapter stores them in `meta.json`.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class Packuments {
+
+    /**
+     * Package name.
+     */
+    static final String NAME = "@bench/package";
+
+    /**
+     * Publish time.
+     */
+    private static final String TIME = "2021-05-28T07:55:00.000Z";
+
+    /**
+     * Ctor.
+     */
+    private Packuments() {
+    }
+
+    /**
+     * Stored packument.
+     * @param count Number of versions
+     * @return Packument json
+     */
+    static JsonObject packument(final int count) {
+        final JsonObjectBuilder versions = Json.createObjectBuilder();
+        final JsonObjectBuilder time = Json.createObjectBuilder()
+            .add("created", Packuments.TIME)
+            .add("modified", Packuments.TIME);
+        for (int idx = 0; idx < count; idx += 1) {
+            final String ver = Packuments.version(idx);
+            versions.add(ver, Packuments.version(ver));
+            time.add(ver, Packuments.TIME);
+        }
+        return Json.createObjectBuilder()
+            .add("name", Packuments.NAME)
+            .add("_id", Packuments.NAME)
+            .add("readme", "Synthetic package")
+            .add("time", time)
+            .add("users", Json.createObjectBuilder())
+            .add("versions", versions)
+            .add(
+                "dist-tags",
+                Json.createObjectBuilder().add("latest", Packuments.version(count - 1))
+            )
+            .build();
+    }
+
+    /**
+     * Stored packument bytes.
+     * @param count Number of versions
+     * @return Packument bytes
+     */
+    static byte[] bytes(final int count) {
+        return Packuments.packument(count).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Json uploaded by `npm publish` for the new version.
+     * @param ver Version
+     * @return Publish json
+     */
+    static JsonObject upload(final String ver) {
+        return Json.createObjectBuilder()
+            .add("name", Packuments.NAME)
+            .add("_id", Packuments.NAME)
+            .add("versions", Json.createObjectBuilder().add(ver, Packuments.version(ver)))
+            .add("dist-tags", Json.createObjectBuilder().add("latest", ver))
+            .build();
+    }
+
+    /**
+     * Version string of the index.
+     * @param idx Index
+     * @return Semver string
+     */
+    static String version(final int idx) {
+        return String.format("%d.%d.%d", idx / 10_000, idx / 100 % 100, idx % 100);
+    }
+
+    /**
+     * Version document.
+     * @param ver Version
+     * @return Json
+     */
+    private static JsonObject version(final String ver) {
+        return Json.createObjectBuilder()
+            .add("name", Packuments.NAME)
+            .add("version", ver)
+            .add("description", "Synthetic package")
+            .add("main", "index.js")
+            .add("license", "MIT")
+            .add(
+                "dependencies",
+                Json.createObjectBuilder()
+                    .add("left-pad", "^1.3.0")
+                    .add("lodash", "^4.17.21")
+            )
+            .add(
+                "dist",
+                Json.createObjectBuilder()
+                    .add("integrity", String.format("sha512-%s==", Packuments.zeros(86)))
+                    .add("shasum", Packuments.zeros(40))
+                    .add(
+                        "tarball",
+                        String.format("/%s/-/%s-%s.tgz", Packuments.NAME, Packuments.NAME, ver)
+                    )
+            )
+            .build();
+    }
+
+    /**
+     * String of zeros.
+     * @param length Length
+     * @return String
+     */
+    private static String zeros(final int length) {
+        return String.join("", Collections.nCopies(length, "0"));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.StandardRs;
+import com.artipie.http.rt.ByMethodsRule;
+import com.artipie.http.rt.RtRule;
+import com.artipie.http.rt.RtRulePath;
+import com.artipie.http.rt.SliceRoute;
+import com.artipie.npm.http.NpmRoute;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reactivestreams.Publisher;
+
+/**
+ * Benchmark for routing of the hosted repository requests: `chain` is the
+ * chain of regex rules `NpmSlice` used before, `dispatch` is {@link NpmRoute}.
+ * Handlers return a constant response, so only routing cost is measured.
+ * @since 0.10
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RouteBench {
+
+    /**
+     * Header name `referer`.
+     */
+    private static final String REFERER = "referer";
+
+    /**
+     * Dist-tags path pattern.
+     */
+    private static final Pattern TAGS = Pattern.compile(
+        "/-/package/(?<pkg>.*)/dist-tags/(?<tag>.*)"
+    );
+
+    /**
+     * Handler.
+     */
+    private static final Slice HANDLER = (line, headers, body) -> StandardRs.OK;
+
+    /**
+     * Request.
+     */
+    @Param({"tarball", "packument", "publish", "tags"})
+    private String request;
+
+    /**
+     * Request line.
+     */
+    private String line;
+
+    /**
+     * Request headers.
+     */
+    private Headers headers;
+
+    /**
+     * Request body.
+     */
+    private Publisher<ByteBuffer> body;
+
+    /**
+     * Chain of regex rules.
+     */
+    private Slice chain;
+
+    /**
+     * Dispatcher.
+     */
+    private Slice dispatch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.headers = new Headers.From(
+            new Headers.From("user-agent", "npm/6.14.4 node/v12.16.3 linux x64"),
+            "accept", "application/json"
+        );
+        if ("tarball".equals(this.request)) {
+            this.line = new RequestLine(
+                RqMethod.GET, "/@hello/simple/-/@hello/simple-1.0.1.tgz"
+            ).toString();
+        } else if ("packument".equals(this.request)) {
+            this.line = new RequestLine(RqMethod.GET, "/@hello%2fsimple").toString();
+        } else if ("publish".equals(this.request)) {
+            this.line = new RequestLine(RqMethod.PUT, "/@hello%2fsimple").toString();
+            this.headers = new Headers.From(this.headers, RouteBench.REFERER, "publish");
+        } else {
+            this.line = new RequestLine(
+                RqMethod.GET, "/-/package/@hello%2fsimple/dist-tags"
+            ).toString();
+        }
+        this.body = Flowable.empty();
+        this.chain = RouteBench.rules();
+        final Map<NpmRoute.Kind, Slice> slices = new EnumMap<>(NpmRoute.Kind.class);
+        for (final NpmRoute.Kind kind : NpmRoute.Kind.values()) {
+            slices.put(kind, RouteBench.HANDLER);
+        }
+        this.dispatch = new NpmRoute(slices);
+    }
+
+    @Benchmark
+    public Response chain() {
+        return this.chain.response(this.line, this.headers, this.body);
+    }
+
+    @Benchmark
+    public Response dispatch() {
+        return this.dispatch.response(this.line, this.headers, this.body);
+    }
+
+    /**
+     * Main.
+     * @param args CLI args
+     * @throws RunnerException On benchmark failure
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(RouteBench.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+
+    /**
+     * Chain of regex rules in the order `NpmSlice` had them.
+     * @return Slice
+     */
+    private static Slice rules() {
+        return new SliceRoute(
+            RouteBench.rule(RqMethod.PUT, new RtRule.ByPath(RouteBench.TAGS)),
+            RouteBench.rule(RqMethod.DELETE, new RtRule.ByPath(RouteBench.TAGS)),
+            RouteBench.rule(
+                RqMethod.PUT,
+                new RtRule.ByHeader(RouteBench.REFERER, Pattern.compile("publish.*"))
+            ),
+            RouteBench.rule(
+                RqMethod.PUT,
+                new RtRule.ByHeader(RouteBench.REFERER, Pattern.compile("deprecate.*"))
+            ),
+            RouteBench.rule(
+                RqMethod.PUT,
+                new RtRule.ByHeader(RouteBench.REFERER, Pattern.compile("unpublish.*"))
+            ),
+            RouteBench.rule(RqMethod.PUT, new RtRule.ByPath(".*\\.tgz")),
+            RouteBench.rule(RqMethod.GET, new RtRule.ByPath(".*/-/v1/search$")),
+            RouteBench.rule(RqMethod.GET, new RtRule.ByPath(".*/dist-tags$")),
+            RouteBench.rule(RqMethod.GET, new RtRule.ByPath(".*(?<!\\.tgz)$")),
+            RouteBench.rule(RqMethod.GET, new RtRule.ByPath(".*\\.tgz$")),
+            RouteBench.rule(RqMethod.DELETE, new RtRule.ByPath("/.*/-rev/.*$"))
+        );
+    }
+
+    /**
+     * Rule of the chain.
+     * @param method Request method
+     * @param rule Rule
+     * @return Rule path
+     */
+    private static RtRulePath rule(final RqMethod method, final RtRule rule) {
+        return new RtRulePath(
+            new RtRule.All(new ByMethodsRule(method), rule), RouteBench.HANDLER
+        );
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import com.artipie.asto.Key;
+import com.artipie.npm.SearchIndex;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark for `/-/v1/search` queries answered from {@link SearchIndex}.
+ * Run with {@code -prof gc} to see allocations per operation.
+ * @since 0.10
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SearchBench {
+
+    /**
+     * Words of synthetic descriptions and keywords.
+     */
+    private static final String[] WORDS = {
+        "http", "json", "stream", "parser", "cli", "test", "react", "server",
+        "cache", "logger", "config", "crypto", "date", "string", "array", "promise",
+    };
+
+    /**
+     * Number of indexed packages.
+     */
+    @Param({"1000", "10000", "100000"})
+    private int packages;
+
+    /**
+     * Search index.
+     */
+    private SearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.index = new SearchIndex();
+        for (int idx = 0; idx < this.packages; idx += 1) {
+            final String name = String.format(
+                "%s-%s-%d", SearchBench.word(idx), SearchBench.word(idx / 16), idx
+            );
+            this.index.update(
+                new Key.From(name),
+                Json.createObjectBuilder()
+                    .add("name", name)
+                    .add("dist-tags", Json.createObjectBuilder().add("latest", "1.0.0"))
+                    .add(
+                        "maintainers",
+                        Json.createArrayBuilder().add(
+                            Json.createObjectBuilder()
+                                .add("name", String.format("user%d", idx % 50))
+                        )
+                    )
+                    .add(
+                        "versions",
+                        Json.createObjectBuilder().add(
+                            "1.0.0",
+                            Json.createObjectBuilder()
+                                .add(
+                                    "description",
+                                    String.format(
+                                        "Fast %s for %s apps",
+                                        SearchBench.word(idx / 3), SearchBench.word(idx / 5)
+                                    )
+                                )
+                                .add(
+                                    "keywords",
+                                    Json.createArrayBuilder()
+                                        .add(SearchBench.word(idx / 7))
+                                        .add(SearchBench.word(idx / 11))
+                                )
+                        )
+                    )
+                    .build()
+            );
+        }
+    }
+
+    /**
+     * Exact package name, one package matches.
+     * @return Search result
+     */
+    @Benchmark
+    public JsonObject name() {
+        return this.index.search("http-http-0", 0, 20);
+    }
+
+    /**
+     * Common word of names, descriptions and keywords, first page of 20.
+     * @return Search result
+     */
+    @Benchmark
+    public JsonObject word() {
+        return this.index.search("json", 0, 20);
+    }
+
+    /**
+     * Two words and a qualifier, matched sets are intersected.
+     * @return Search result
+     */
+    @Benchmark
+    public JsonObject words() {
+        return this.index.search("react stream keywords:cache", 0, 20);
+    }
+
+    /**
+     * Word prefix, every package matches.
+     * @return Search result
+     */
+    @Benchmark
+    public JsonObject prefix() {
+        return this.index.search("fa", 0, 20);
+    }
+
+    /**
+     * Main.
+     * @param args CLI args
+     * @throws RunnerException On benchmark failure
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(SearchBench.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+
+    /**
+     * Synthetic word.
+     * @param idx Index
+     * @return Word
+     */
+    private static String word(final int idx) {
+        return SearchBench.WORDS[idx % SearchBench.WORDS.length];
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import io.reactivex.Flowable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+/**
+ * Synthetic npm tarballs. Random, incompressible payload goes first and
+ * `package/package.json` is the last entry, which is the worst case for
+ * `package.json` lookup.
+ * @since 0.10
+ */
+final class SyntheticTgz {
+
+    /**
+     * Size of the chunks the storage emits.
+     */
+    private static final int CHUNK = 8192;
+
+    /**
+     * Ctor.
+     */
+    private SyntheticTgz() {
+    }
+
+    /**
+     * Tarball with payload of the size.
+     * @param size Payload size in bytes
+     * @return Tarball bytes
+     * @throws IOException On error
+     */
+    static byte[] of(final int size) throws IOException {
+        final byte[] payload = new byte[size];
+        new Random(42).nextBytes(payload);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size + 4096);
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+            new GzipCompressorOutputStream(out)
+        )) {
+            SyntheticTgz.put(tar, "package/payload.bin", payload);
+            SyntheticTgz.put(
+                tar, "package/package.json",
+                "{\"name\":\"bench\",\"version\":\"1.0.0\"}".getBytes(StandardCharsets.UTF_8)
+            );
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Bytes as storage would emit them.
+     * @param bytes Bytes
+     * @return Publisher of chunks
+     */
+    static Flowable<ByteBuffer> chunks(final byte[] bytes) {
+        final List<ByteBuffer> res = new ArrayList<>(bytes.length / SyntheticTgz.CHUNK + 1);
+        for (int idx = 0; idx < bytes.length; idx += SyntheticTgz.CHUNK) {
+            res.add(
+                ByteBuffer.wrap(
+                    bytes, idx, Math.min(SyntheticTgz.CHUNK, bytes.length - idx)
+                ).slice()
+            );
+        }
+        return Flowable.fromIterable(res);
+    }
+
+    /**
+     * Adds file to the tar.
+     * @param tar Tar stream
+     * @param name File name
+     * @param data File content
+     * @throws IOException On error
+     */
+    private static void put(final TarArchiveOutputStream tar, final String name,
+        final byte[] data) throws IOException {
+        final TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(data.length);
+        tar.putArchiveEntry(entry);
+        tar.write(data);
+        tar.closeArchiveEntry();
+    }
+}
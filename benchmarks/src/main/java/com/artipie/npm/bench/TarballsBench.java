@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.npm.Tarballs;
+import java.io.StringReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonPatchBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark for tarball links rewriting on packument download.
+ * Run with {@code -prof gc} to see allocations per operation.
+ * @since 0.10
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TarballsBench {
+
+    /**
+     * Number of versions in the packument.
+     */
+    @Param("5000")
+    private int versions;
+
+    /**
+     * Packument bytes.
+     */
+    private byte[] bytes;
+
+    /**
+     * Base URL of the repository.
+     */
+    private URL base;
+
+    @Setup(Level.Trial)
+    public void setup() throws MalformedURLException {
+        this.bytes = Packuments.bytes(this.versions);
+        this.base = new URL("http://localhost:8080/npm");
+    }
+
+    /**
+     * The way links were rewritten before streaming {@link Tarballs}:
+     * packument is parsed and patched with one `add` per version.
+     * @return Response bytes
+     */
+    @Benchmark
+    public byte[] dom() {
+        return new PublisherAs(
+            new Content.From(
+                new Concatenation(new Content.From(SyntheticTgz.chunks(this.bytes)))
+                    .single()
+                    .map(ByteBuffer::array)
+                    .map(bytes -> new String(bytes, StandardCharsets.UTF_8))
+                    .map(json -> Json.createReader(new StringReader(json)).readObject())
+                    .map(json -> TarballsBench.patched(json, this.base.toString()))
+                    .map(json -> ByteBuffer.wrap(json.toString().getBytes(StandardCharsets.UTF_8)))
+                    .toFlowable()
+            )
+        ).bytes().toCompletableFuture().join();
+    }
+
+    /**
+     * Streaming {@link Tarballs}.
+     * @return Response bytes
+     */
+    @Benchmark
+    public byte[] streaming() {
+        return new PublisherAs(
+            new Tarballs(
+                new Content.From(SyntheticTgz.chunks(this.bytes)), this.base
+            ).value()
+        ).bytes().toCompletableFuture().join();
+    }
+
+    /**
+     * Main.
+     * @param args CLI args
+     * @throws RunnerException On benchmark failure
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(TarballsBench.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+
+    /**
+     * Replaces tarball links with json patch.
+     * @param original Packument
+     * @param prefix Links prefix
+     * @return Patched packument
+     */
+    private static JsonObject patched(final JsonObject original, final String prefix) {
+        final JsonPatchBuilder builder = Json.createPatchBuilder();
+        for (final String version : original.getJsonObject("versions").keySet()) {
+            builder.add(
+                String.format("/versions/%s/dist/tarball", version),
+                String.join(
+                    "",
+                    prefix.replaceAll("/$", ""),
+                    original.getJsonObject("versions").getJsonObject(version)
+                        .getJsonObject("dist").getString("tarball")
+                )
+            );
+        }
+        return builder.build().apply(original);
+    }
+}
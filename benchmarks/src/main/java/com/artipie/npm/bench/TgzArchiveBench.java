@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import com.artipie.npm.TgzArchive;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark for `package.json` extraction from the base64 encoded tarball,
+ * the way attachments of `npm publish` json are read.
+ * Run with {@code -prof gc} to see allocations per operation.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TgzArchiveBench {
+
+    /**
+     * Tarball payload size in kilobytes.
+     */
+    @Param({"16", "1024", "16384"})
+    private int size;
+
+    /**
+     * Base64 encoded tarball.
+     */
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.encoded = Base64.getEncoder().encodeToString(SyntheticTgz.of(this.size * 1024));
+    }
+
+    /**
+     * Package json lookup.
+     * @return Package json
+     */
+    @Benchmark
+    public JsonObject packageJson() {
+        return new TgzArchive(this.encoded).packageJson().blockingGet();
+    }
+
+    /**
+     * Main.
+     * @param args CLI args
+     * @throws RunnerException On benchmark failure
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(TgzArchiveBench.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.bench;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
+import com.artipie.npm.TgzArchive;
+import com.artipie.npm.TgzScan;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark for metadata generation from a published tarball.
+ * Run with {@code -prof gc} to see allocations per operation.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TgzScanBench {
+
+    /**
+     * Tarball size in megabytes.
+     */
+    @Param({"1", "10", "100"})
+    private int size;
+
+    /**
+     * Tarball bytes.
+     */
+    private byte[] tgz;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.tgz = SyntheticTgz.of(this.size * 1024 * 1024);
+    }
+
+    /**
+     * The way metadata was generated before {@link TgzScan}: archive is
+     * collected into memory, and then decoded once per digest and once
+     * per `package.json` lookup.
+     * @param bhl Blackhole
+     */
+    @Benchmark
+    public void legacy(final Blackhole bhl) {
+        final TgzArchive archive = new TgzArchive(
+            new String(this.tgz, StandardCharsets.ISO_8859_1), false
+        );
+        final JsonObject pkg = archive.packageJson().to(SingleInterop.get())
+            .toCompletableFuture().join();
+        bhl.consume(pkg);
+        bhl.consume(
+            new ContentDigest(new Content.From(archive.bytes()), Digests.SHA512)
+                .bytes().toCompletableFuture().join()
+        );
+        bhl.consume(
+            new ContentDigest(new Content.From(archive.bytes()), Digests.SHA1)
+                .hex().toCompletableFuture().join()
+        );
+        bhl.consume(archive.packageJson().to(SingleInterop.get()).toCompletableFuture().join());
+        bhl.consume(archive.bytes());
+    }
+
+    /**
+     * Single pass over the archive with {@link TgzScan}.
+     * @param bhl Blackhole
+     */
+    @Benchmark
+    public void scan(final Blackhole bhl) {
+        final TgzScan.Scanned scanned = new TgzScan(SyntheticTgz.chunks(this.tgz)).scan().join();
+        bhl.consume(scanned.packageJson());
+        bhl.consume(scanned.integrity());
+        bhl.consume(scanned.shasum());
+    }
+
+    /**
+     * Main.
+     * @param args CLI args
+     * @throws RunnerException On benchmark failure
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(TgzScanBench.class.getSimpleName())
+                .addProfiler("gc")
+                .build()
+        ).run();
+    }
+}
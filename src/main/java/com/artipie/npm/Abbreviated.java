@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+
+/**
+ * Abbreviated packument, the document npm requests on install with
+ * `Accept: application/vnd.npm.install-v1+json`. It contains only name,
+ * modification time, dist-tags and install-relevant fields of the versions.
+ * @since 0.10
+ */
+public final class Abbreviated {
+
+    /**
+     * Media type of abbreviated packument.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.npm.install-v1+json";
+
+    /**
+     * Versions field name.
+     */
+    private static final String VERSIONS = "versions";
+
+    /**
+     * Version fields kept in abbreviated packument.
+     */
+    private static final List<String> FIELDS = Collections.unmodifiableList(
+        Arrays.asList(
+            "name", "version", "deprecated", "dependencies", "optionalDependencies",
+            "devDependencies", "bundleDependencies", "bundledDependencies",
+            "peerDependencies", "peerDependenciesMeta", "bin", "directories", "dist",
+            "engines", "os", "cpu", "_hasShrinkwrap", "hasInstallScript"
+        )
+    );
+
+    /**
+     * Packument.
+     */
+    private final JsonObject packument;
+
+    /**
+     * Ctor.
+     * @param packument Packument, versions may be `null` if they are not changed
+     */
+    public Abbreviated(final JsonObject packument) {
+        this.packument = packument;
+    }
+
+    /**
+     * Versions which are `null` in the packument and are absent in the
+     * previous abbreviated packument.
+     * @param previous Previous abbreviated packument
+     * @return Version names
+     */
+    public Set<String> missing(final JsonObject previous) {
+        final JsonObject prev = Abbreviated.versions(previous);
+        return Abbreviated.versions(this.packument).entrySet().stream()
+            .filter(ver -> ver.getValue().getValueType() == JsonValue.ValueType.NULL)
+            .map(Map.Entry::getKey)
+            .filter(ver -> !prev.containsKey(ver))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Abbreviated packument.
+     * @return Json
+     */
+    public JsonObject json() {
+        return this.json(JsonValue.EMPTY_JSON_OBJECT);
+    }
+
+    /**
+     * Abbreviated packument, not changed versions are taken from the
+     * previous abbreviated packument or from the known version documents.
+     * @param known Previous abbreviated packument or known version documents
+     *  by version names in `versions` field
+     * @return Json
+     */
+    public JsonObject json(final JsonObject known) {
+        final JsonObject prev = Abbreviated.versions(known);
+        final JsonObjectBuilder vers = Json.createObjectBuilder();
+        for (final Map.Entry<String, JsonValue> ver
+            : Abbreviated.versions(this.packument).entrySet()) {
+            final JsonValue doc;
+            if (ver.getValue().getValueType() == JsonValue.ValueType.OBJECT) {
+                doc = ver.getValue();
+            } else {
+                doc = prev.get(ver.getKey());
+            }
+            if (doc instanceof JsonObject) {
+                vers.add(ver.getKey(), Abbreviated.version((JsonObject) doc));
+            }
+        }
+        final JsonObjectBuilder res = Json.createObjectBuilder();
+        if (this.packument.containsKey("name")) {
+            res.add("name", this.packument.get("name"));
+        }
+        final JsonValue time = this.packument.get("time");
+        if (time instanceof JsonObject && ((JsonObject) time).containsKey("modified")) {
+            res.add("modified", ((JsonObject) time).get("modified"));
+        }
+        return res.add(
+            "dist-tags",
+            this.packument.getOrDefault("dist-tags", JsonValue.EMPTY_JSON_OBJECT)
+        ).add(Abbreviated.VERSIONS, vers).build();
+    }
+
+    /**
+     * Abbreviated version document. Abbreviating already abbreviated document
+     * does not change it, so previous abbreviated versions are accepted as well.
+     * @param doc Version document
+     * @return Abbreviated version document
+     */
+    private static JsonObject version(final JsonObject doc) {
+        final JsonObjectBuilder res = Json.createObjectBuilder();
+        for (final String field : Abbreviated.FIELDS) {
+            if (doc.containsKey(field)) {
+                res.add(field, doc.get(field));
+            }
+        }
+        return res.build();
+    }
+
+    /**
+     * Versions of the packument.
+     * @param json Packument
+     * @return Versions object
+     */
+    private static JsonObject versions(final JsonObject json) {
+        final JsonValue vers = json.get(Abbreviated.VERSIONS);
+        final JsonObject res;
+        if (vers instanceof JsonObject) {
+            res = (JsonObject) vers;
+        } else {
+            res = JsonValue.EMPTY_JSON_OBJECT;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.ArtipieIOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Tgz archive decoder which is fed with compressed chunks one by one.
+ * It never keeps the archive in memory: only current tar header and
+ * content of the entries accepted by the predicate are buffered.
+ * Native memory of the inflater is freed when the archive end is reached,
+ * readers which stop earlier should call {@link #release()}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle CyclomaticComplexityCheck (500 lines)
+ */
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.CyclomaticComplexity", "PMD.GodClass"})
+final class IncrementalTgz {
+
+    /**
+     * Tar block size.
+     */
+    private static final int BLOCK = 512;
+
+    /**
+     * Gzip header flag: extra field is present.
+     */
+    private static final int FEXTRA = 4;
+
+    /**
+     * Gzip header flag: file name is present.
+     */
+    private static final int FNAME = 8;
+
+    /**
+     * Gzip header flag: comment is present.
+     */
+    private static final int FCOMMENT = 16;
+
+    /**
+     * Gzip header flag: header crc is present.
+     */
+    private static final int FHCRC = 2;
+
+    /**
+     * Which entries content should be collected.
+     */
+    private final Predicate<String> capture;
+
+    /**
+     * Inflater.
+     */
+    private final Inflater inflater;
+
+    /**
+     * Not yet parsed gzip header bytes.
+     */
+    private final ByteArrayOutputStream gzhead;
+
+    /**
+     * Current tar header block.
+     */
+    private final byte[] header;
+
+    /**
+     * Inflated bytes buffer.
+     */
+    private final byte[] inflated;
+
+    /**
+     * Reusable copy of the compressed chunk, used when the chunk
+     * is not backed by an accessible array.
+     */
+    private byte[] input;
+
+    /**
+     * Filled bytes of the header block.
+     */
+    private int filled;
+
+    /**
+     * Is gzip header parsed?
+     */
+    private boolean gzparsed;
+
+    /**
+     * Is tar end reached?
+     */
+    private boolean end;
+
+    /**
+     * Is inflater released?
+     */
+    private boolean released;
+
+    /**
+     * Bytes of current entry content left to read (including padding).
+     */
+    private long left;
+
+    /**
+     * Bytes of current entry content left (without padding).
+     */
+    private long payload;
+
+    /**
+     * Current entry which is read now.
+     */
+    private TgzEntry current;
+
+    /**
+     * Collected content of the current entry.
+     */
+    private ByteArrayOutputStream content;
+
+    /**
+     * Long name from the preceding GNU or PAX header.
+     */
+    private String longname;
+
+    /**
+     * Ctor.
+     * @param capture Which entries content should be collected
+     */
+    IncrementalTgz(final Predicate<String> capture) {
+        this.capture = capture;
+        this.inflater = new Inflater(true);
+        this.gzhead = new ByteArrayOutputStream();
+        this.header = new byte[IncrementalTgz.BLOCK];
+        this.inflated = new byte[8 * IncrementalTgz.BLOCK];
+        this.input = new byte[0];
+    }
+
+    /**
+     * Accepts next compressed chunk.
+     * @param chunk Compressed bytes
+     * @return Entries which were completely read in this chunk
+     */
+    List<TgzEntry> accept(final ByteBuffer chunk) {
+        final List<TgzEntry> res = new ArrayList<>(0);
+        if (this.released) {
+            this.end = true;
+        } else if (!this.end && this.gzparsed) {
+            if (chunk.hasArray()) {
+                this.inflater.setInput(
+                    chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining()
+                );
+            } else {
+                final int len = chunk.remaining();
+                if (this.input.length < len) {
+                    this.input = new byte[len];
+                }
+                chunk.duplicate().get(this.input, 0, len);
+                this.inflater.setInput(this.input, 0, len);
+            }
+            this.inflate(res);
+        } else if (!this.end) {
+            final byte[] bytes = new byte[chunk.remaining()];
+            chunk.duplicate().get(bytes);
+            final byte[] rest = this.gzipHeader(bytes);
+            if (this.gzparsed && rest.length > 0) {
+                this.inflater.setInput(rest);
+                this.inflate(res);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Is tar end reached?
+     * @return True if no more entries are expected
+     */
+    boolean finished() {
+        return this.end;
+    }
+
+    /**
+     * Releases the inflater, no more entries are read after that.
+     * Can be called several times.
+     */
+    void release() {
+        if (!this.released) {
+            this.released = true;
+            this.inflater.end();
+        }
+    }
+
+    /**
+     * Checks that whole archive was consumed.
+     * @throws ArtipieIOException If archive is truncated
+     */
+    void complete() {
+        if (!this.gzparsed) {
+            throw new ArtipieIOException("Input is not in the .gz format");
+        }
+        if (!this.end) {
+            throw new ArtipieIOException("Unexpected end of the .tgz archive");
+        }
+    }
+
+    /**
+     * Inflates available input.
+     * @param res Completed entries
+     */
+    private void inflate(final List<TgzEntry> res) {
+        try {
+            while (!this.end && !this.inflater.finished()) {
+                final int len = this.inflater.inflate(this.inflated);
+                if (len == 0) {
+                    break;
+                }
+                this.tar(this.inflated, len, res);
+            }
+        } catch (final DataFormatException err) {
+            throw new ArtipieIOException(err);
+        }
+        if (this.inflater.finished()) {
+            this.end = true;
+        }
+        if (this.end) {
+            this.release();
+        }
+    }
+
+    /**
+     * Parses gzip header, collecting it over chunks if needed.
+     * @param bytes Next bytes
+     * @return Bytes left after the header
+     */
+    private byte[] gzipHeader(final byte[] bytes) {
+        this.gzhead.write(bytes, 0, bytes.length);
+        final byte[] all = this.gzhead.toByteArray();
+        byte[] rest = new byte[0];
+        if (all.length >= 2 && ((all[0] & 0xff) != 0x1f || (all[1] & 0xff) != 0x8b)) {
+            throw new ArtipieIOException("Input is not in the .gz format");
+        }
+        final int len = IncrementalTgz.gzipHeaderLength(all);
+        if (len >= 0) {
+            this.gzparsed = true;
+            this.gzhead.reset();
+            rest = Arrays.copyOfRange(all, len, all.length);
+        }
+        return rest;
+    }
+
+    /**
+     * Accepts inflated tar bytes.
+     * @param bytes Buffer
+     * @param len Length of data in buffer
+     * @param res Completed entries
+     */
+    private void tar(final byte[] bytes, final int len, final List<TgzEntry> res) {
+        int pos = 0;
+        while (pos < len && !this.end) {
+            if (this.left > 0) {
+                final int take = (int) Math.min(this.left, len - pos);
+                final int data = (int) Math.min(this.payload, take);
+                if (this.content != null && data > 0) {
+                    this.content.write(bytes, pos, data);
+                }
+                this.payload -= data;
+                this.left -= take;
+                pos += take;
+                if (this.left == 0) {
+                    this.entryRead(res);
+                }
+            } else {
+                final int take = Math.min(IncrementalTgz.BLOCK - this.filled, len - pos);
+                System.arraycopy(bytes, pos, this.header, this.filled, take);
+                this.filled += take;
+                pos += take;
+                if (this.filled == IncrementalTgz.BLOCK) {
+                    this.filled = 0;
+                    this.headerRead(res);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles complete tar header block.
+     * @param res Completed entries
+     */
+    private void headerRead(final List<TgzEntry> res) {
+        if (IncrementalTgz.zeros(this.header)) {
+            this.end = true;
+        } else {
+            final char type = (char) this.header[156];
+            final long size = IncrementalTgz.size(this.header);
+            final boolean meta = type == 'L' || type == 'x';
+            final String name;
+            if (this.longname == null) {
+                name = IncrementalTgz.name(this.header);
+            } else {
+                name = this.longname;
+            }
+            if (!meta) {
+                this.longname = null;
+            }
+            this.current = new TgzEntry(name, type, size, null);
+            if (meta || type != 'g' && type != 'K' && this.capture.test(name)) {
+                this.content = new ByteArrayOutputStream();
+            } else {
+                this.content = null;
+            }
+            this.payload = size;
+            this.left = (size + IncrementalTgz.BLOCK - 1)
+                / IncrementalTgz.BLOCK * IncrementalTgz.BLOCK;
+            if (this.left == 0) {
+                this.entryRead(res);
+            }
+        }
+    }
+
+    /**
+     * Handles completely read entry.
+     * @param res Completed entries
+     */
+    private void entryRead(final List<TgzEntry> res) {
+        final char type = this.current.type();
+        if (type == 'L') {
+            this.longname = IncrementalTgz.cstring(this.content.toByteArray());
+        } else if (type == 'x') {
+            this.longname = IncrementalTgz.paxPath(this.content.toByteArray()).orElse(null);
+        } else if (type != 'g' && type != 'K') {
+            final byte[] bytes;
+            if (this.content == null) {
+                bytes = null;
+            } else {
+                bytes = this.content.toByteArray();
+            }
+            res.add(new TgzEntry(this.current.name(), type, this.current.size(), bytes));
+        }
+        this.content = null;
+        this.current = null;
+    }
+
+    /**
+     * Calculates gzip header length.
+     * @param head Header bytes collected so far
+     * @return Header length or -1 if more bytes are needed
+     * @checkstyle ReturnCountCheck (50 lines)
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private static int gzipHeaderLength(final byte[] head) {
+        if (head.length < 10) {
+            return -1;
+        }
+        final int flags = head[3] & 0xff;
+        int pos = 10;
+        if ((flags & IncrementalTgz.FEXTRA) != 0) {
+            if (head.length < pos + 2) {
+                return -1;
+            }
+            pos += 2 + ((head[pos] & 0xff) | (head[pos + 1] & 0xff) << 8);
+        }
+        if ((flags & IncrementalTgz.FNAME) != 0) {
+            pos = IncrementalTgz.afterZero(head, pos);
+        }
+        if ((flags & IncrementalTgz.FCOMMENT) != 0 && pos >= 0) {
+            pos = IncrementalTgz.afterZero(head, pos);
+        }
+        if ((flags & IncrementalTgz.FHCRC) != 0 && pos >= 0) {
+            pos += 2;
+        }
+        if (pos < 0 || pos > head.length) {
+            return -1;
+        }
+        return pos;
+    }
+
+    /**
+     * Finds position after zero byte.
+     * @param bytes Bytes
+     * @param from Position to start from
+     * @return Position after zero byte or -1 if not found
+     */
+    private static int afterZero(final byte[] bytes, final int from) {
+        int res = -1;
+        for (int idx = from; idx < bytes.length; idx += 1) {
+            if (bytes[idx] == 0) {
+                res = idx + 1;
+                break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Checks whether block is filled with zeros.
+     * @param block Block
+     * @return True if all bytes are zero
+     */
+    private static boolean zeros(final byte[] block) {
+        boolean res = true;
+        for (final byte item : block) {
+            if (item != 0) {
+                res = false;
+                break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Entry name from ustar header.
+     * @param block Header block
+     * @return Entry name
+     */
+    private static String name(final byte[] block) {
+        final String name = IncrementalTgz.cstring(Arrays.copyOfRange(block, 0, 100));
+        final String res;
+        if ("ustar".equals(IncrementalTgz.cstring(Arrays.copyOfRange(block, 257, 262)).trim())) {
+            final String prefix = IncrementalTgz.cstring(Arrays.copyOfRange(block, 345, 500));
+            if (prefix.isEmpty()) {
+                res = name;
+            } else {
+                res = String.join("/", prefix, name);
+            }
+        } else {
+            res = name;
+        }
+        return res;
+    }
+
+    /**
+     * Entry size from header.
+     * @param block Header block
+     * @return Entry size
+     */
+    private static long size(final byte[] block) {
+        long res = 0;
+        if ((block[124] & 0x80) == 0) {
+            final String octal = IncrementalTgz.cstring(Arrays.copyOfRange(block, 124, 136))
+                .trim();
+            if (!octal.isEmpty()) {
+                res = Long.parseLong(octal, 8);
+            }
+        } else {
+            for (int idx = 125; idx < 136; idx += 1) {
+                res = res << 8 | block[idx] & 0xff;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * String till the first zero byte.
+     * @param bytes Bytes
+     * @return String
+     */
+    private static String cstring(final byte[] bytes) {
+        int len = 0;
+        while (len < bytes.length && bytes[len] != 0) {
+            len += 1;
+        }
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads `path` record from PAX extended header.
+     * @param bytes PAX header content
+     * @return Path if present
+     */
+    private static Optional<String> paxPath(final byte[] bytes) {
+        final String pax = new String(bytes, StandardCharsets.UTF_8);
+        Optional<String> res = Optional.empty();
+        for (final String line : pax.split("\n")) {
+            final int eqs = line.indexOf('=');
+            final int space = line.indexOf(' ');
+            if (space > 0 && eqs > space && "path".equals(line.substring(space + 1, eqs))) {
+                res = Optional.of(line.substring(eqs + 1));
+            }
+        }
+        return res;
+    }
+}
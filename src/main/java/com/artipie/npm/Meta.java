@@ -102,6 +102,14 @@ final class Meta {
         );
     }
 
+    /**
+     * Obtain meta json.
+     * @return Json object
+     */
+    JsonObject json() {
+        return this.json;
+    }
+
     /**
      * Obtain a byte flow.
      * @return The flow of bytes.
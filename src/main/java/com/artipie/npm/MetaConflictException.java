@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Packument was modified concurrently: stored revision does not match the
+ * revision the modification is based on, see {@link Revision}.
+ * @since 0.10
+ */
+public final class MetaConflictException extends ArtipieException {
+
+    /**
+     * Required serial.
+     */
+    private static final long serialVersionUID = 7181256378234563457L;
+
+    /**
+     * Ctor.
+     * @param msg Message
+     */
+    public MetaConflictException(final String msg) {
+        super(msg);
+    }
+
+    /**
+     * Ctor.
+     * @param msg Message
+     * @param cause Cause
+     */
+    public MetaConflictException(final String msg, final Throwable cause) {
+        super(msg, cause);
+    }
+
+    /**
+     * Is it a conflict error, possibly wrapped by completion stage?
+     * @param err Error
+     * @return True if error is conflict
+     */
+    public static boolean causedBy(final Throwable err) {
+        final Throwable cause;
+        if (err instanceof CompletionException && err.getCause() != null) {
+            cause = err.getCause();
+        } else {
+            cause = err;
+        }
+        return cause instanceof MetaConflictException;
+    }
+}
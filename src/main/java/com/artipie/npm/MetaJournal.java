@@ -0,0 +1,1129 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.npm.misc.DateTimeNowStr;
+import com.artipie.npm.misc.Periodic;
+import com.jcabi.log.Logger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Append-only journal of packument changes under `.npm/journal/`, written by
+ * {@link MetaLayout.Journaled}. Every change is an entry with sequence number,
+ * package name, {@link Change} type and time. Entry of the written packument
+ * also has the packument without versions, the versions which were added or
+ * changed by the write, names of removed versions and `full` flag if the
+ * package did not exist before, so entry does not repeat versions which are
+ * already in the journal. Entry of the deleted package has no packument.
+ * <p>
+ * Entries are stored in segments, JSON lines files of up to `size` entries
+ * named by the sequence number of the first entry. Last segment is kept in
+ * memory: every append adds the entry to it and saves the segment, appends
+ * which come while the segment is being saved are saved together with one
+ * next save. When the segment is full, next append starts a new segment.
+ * Index of the segments is loaded from the storage once, so readers do not
+ * list the storage: they read the segments after the requested sequence
+ * number, recent entries are read from memory.
+ * <p>
+ * Append is a part of the packument write: entry is saved before the write,
+ * but is visible to readers only when the write is complete, and is removed
+ * if the write fails, so the journal does not miss written changes and does
+ * not report failed ones. If the process stops after the entry is saved but
+ * before the packument is written, the entry is kept, so replicas may get a
+ * change the storage missed, never the opposite.
+ * <p>
+ * Full segment is compacted when all its entries are visible: entries of
+ * one package are folded into the last one. {@link #compact()}, e.g. run
+ * periodically by {@link #schedule(ScheduledExecutorService, Duration)},
+ * also drops entries followed by deletion of the package or by its
+ * `full` entry in later segments, so compacted journal keeps the latest
+ * state of every package but not every intermediate change.
+ * <p>
+ * Sequence numbers are assigned in memory, so one node should write the
+ * journal of the storage, other nodes read it, e.g. with
+ * {@link #replay(long, long, MetaLayout)}, and call {@link #refresh()} to
+ * load segments added by the writer.
+ * @since 0.10
+ * @checkstyle ClassDataAbstractionCouplingCheck (1000 lines)
+ * @checkstyle ClassFanOutComplexityCheck (1000 lines)
+ */
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.GodClass"})
+public final class MetaJournal {
+
+    /**
+     * Journal root key.
+     */
+    public static final Key ROOT = new Key.From(".npm", "journal");
+
+    /**
+     * Default max number of entries in segment.
+     */
+    private static final int SIZE = 100;
+
+    /**
+     * Number of entries replayed at once.
+     */
+    private static final int PAGE = 100;
+
+    /**
+     * Segment file extension.
+     */
+    private static final String EXT = ".log";
+
+    /**
+     * Sequence field name.
+     */
+    private static final String SEQ = "seq";
+
+    /**
+     * Package field name.
+     */
+    private static final String PACKAGE = "package";
+
+    /**
+     * Packument field name.
+     */
+    private static final String PACKUMENT = "packument";
+
+    /**
+     * Versions field name.
+     */
+    private static final String VERSIONS = "versions";
+
+    /**
+     * Removed versions field name.
+     */
+    private static final String REMOVED = "removed";
+
+    /**
+     * Full entry flag field name.
+     */
+    private static final String FULL = "full";
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Max number of entries in segment.
+     */
+    private final int size;
+
+    /**
+     * Completes when segments index is loaded from the storage.
+     */
+    private final AtomicReference<CompletableFuture<Void>> loaded;
+
+    /**
+     * Sequence numbers of the first entries of the segments, also the lock
+     * of the journal state.
+     */
+    private final NavigableSet<Long> firsts;
+
+    /**
+     * Segments kept in memory by the first sequence number: the last one
+     * and full ones which are being saved or have entries being written.
+     */
+    private final NavigableMap<Long, Segment> open;
+
+    /**
+     * Last assigned sequence number.
+     */
+    private final AtomicLong last;
+
+    /**
+     * Sequence numbers of the entries which are not visible yet.
+     */
+    private final SortedSet<Long> pending;
+
+    /**
+     * Is compaction running?
+     */
+    private final AtomicBoolean compacting;
+
+    /**
+     * Completes when the next change is visible.
+     */
+    private final AtomicReference<CompletableFuture<Void>> next;
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     */
+    public MetaJournal(final Storage storage) {
+        this(storage, MetaJournal.SIZE);
+    }
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     * @param size Max number of entries in segment
+     */
+    public MetaJournal(final Storage storage, final int size) {
+        this.storage = storage;
+        this.size = size;
+        this.loaded = new AtomicReference<>();
+        this.firsts = new TreeSet<>();
+        this.open = new TreeMap<>();
+        this.last = new AtomicLong();
+        this.pending = new TreeSet<>();
+        this.compacting = new AtomicBoolean(false);
+        this.next = new AtomicReference<>(new CompletableFuture<>());
+    }
+
+    /**
+     * Appends entry of the packument change and runs the write of the change:
+     * entry is saved before the write, becomes visible when the write is
+     * complete and is removed if the write fails.
+     * @param pkg Package key
+     * @param before Packument before the change, empty if package is new
+     * @param after Packument after the change, empty if package is deleted
+     * @param write Write of the change
+     * @return Sequence number of the entry, fails if entry was not saved or
+     *  write failed
+     */
+    public CompletableFuture<Long> append(final Key pkg, final Optional<JsonObject> before,
+        final Optional<JsonObject> after, final Supplier<CompletableFuture<Void>> write) {
+        final JsonObject entry = MetaJournal.entry(pkg, before, after);
+        return this.start().thenCompose(
+            nothing -> {
+                final long seq;
+                final Segment segment;
+                final boolean sealed;
+                final CompletableFuture<Void> saved = new CompletableFuture<>();
+                synchronized (this.firsts) {
+                    seq = this.last.incrementAndGet();
+                    this.pending.add(seq);
+                    final Map.Entry<Long, Segment> tail = this.open.lastEntry();
+                    sealed = tail == null || !tail.getKey().equals(this.firsts.last())
+                        || tail.getValue().entries.size() >= this.size;
+                    if (sealed) {
+                        segment = new Segment(seq, new ArrayList<>(this.size), 0);
+                        this.open.put(seq, segment);
+                        this.firsts.add(seq);
+                    } else {
+                        segment = tail.getValue();
+                    }
+                    segment.entries.add(
+                        Json.createObjectBuilder().add(MetaJournal.SEQ, seq)
+                            .addAll(Json.createObjectBuilder(entry)).build()
+                    );
+                    segment.version = segment.version + 1;
+                    segment.waiters.put(segment.version, saved);
+                }
+                this.flush(segment);
+                if (sealed) {
+                    this.release();
+                }
+                return saved.thenCompose(saving -> write.get()).whenComplete(
+                    (written, err) -> this.complete(seq, err == null)
+                ).thenApply(written -> seq);
+            }
+        );
+    }
+
+    /**
+     * Sequence number of the last entry visible to readers.
+     * @return Sequence number, zero if journal is empty
+     */
+    public CompletableFuture<Long> last() {
+        return this.start().thenApply(nothing -> this.committed());
+    }
+
+    /**
+     * Completes when the next change is visible, so readers wait for new
+     * entries instead of polling. Take it before reading the entries,
+     * otherwise entries appended in between are not waited for.
+     * @return Completion of the next change
+     */
+    public CompletableFuture<Void> changed() {
+        return this.next.get();
+    }
+
+    /**
+     * Entries after the given sequence number.
+     * @param since Sequence number of the last known entry, zero to read from the start
+     * @param limit Max number of entries
+     * @return Entries in the order of sequence numbers
+     */
+    public CompletableFuture<List<JsonObject>> entries(final long since, final int limit) {
+        return this.start().thenCompose(
+            nothing -> {
+                final long visible;
+                final List<Long> segments;
+                final Map<Long, List<JsonObject>> memory = new TreeMap<>();
+                synchronized (this.firsts) {
+                    visible = this.committed();
+                    final Long from = this.firsts.floor(since + 1);
+                    final NavigableSet<Long> after;
+                    if (from == null) {
+                        after = this.firsts;
+                    } else {
+                        after = this.firsts.tailSet(from, true);
+                    }
+                    segments = after.stream()
+                        .filter(first -> first <= visible)
+                        .collect(Collectors.toList());
+                    for (final Long first : segments) {
+                        final Segment segment = this.open.get(first);
+                        if (segment != null) {
+                            memory.put(first, new ArrayList<>(segment.entries));
+                        }
+                    }
+                }
+                return this.entries(
+                    segments, memory, since, visible, limit, new ArrayList<>(0)
+                );
+            }
+        );
+    }
+
+    /**
+     * Applies entries to the layout, e.g. to rebuild packuments of another
+     * storage or to catch up with the writer.
+     * @param since Sequence number of the last applied entry, zero to apply all
+     * @param until Sequence number of the last entry to apply
+     * @param target Target layout
+     * @return Sequence number of the last applied entry
+     */
+    public CompletableFuture<Long> replay(final long since, final long until,
+        final MetaLayout target) {
+        return this.entries(since, MetaJournal.PAGE).thenCompose(
+            entries -> {
+                final List<JsonObject> page = entries.stream()
+                    .filter(entry -> MetaJournal.seq(entry) <= until)
+                    .collect(Collectors.toList());
+                CompletableFuture<Void> res = CompletableFuture.allOf();
+                for (final JsonObject entry : page) {
+                    res = res.thenCompose(nothing -> MetaJournal.apply(entry, target));
+                }
+                return res.thenCompose(
+                    nothing -> {
+                        final CompletableFuture<Long> next;
+                        if (page.isEmpty()) {
+                            next = CompletableFuture.completedFuture(since);
+                        } else if (page.size() < entries.size()) {
+                            next = CompletableFuture.completedFuture(
+                                MetaJournal.seq(page.get(page.size() - 1))
+                            );
+                        } else {
+                            next = this.replay(
+                                MetaJournal.seq(page.get(page.size() - 1)), until, target
+                            );
+                        }
+                        return next;
+                    }
+                );
+            }
+        );
+    }
+
+    /**
+     * Loads segments index from the storage again, so the journal instance
+     * which does not write the journal sees segments added by the writer.
+     * @return Completion
+     */
+    public CompletableFuture<Void> refresh() {
+        final CompletableFuture<Void> res = this.load();
+        this.loaded.set(res);
+        return res;
+    }
+
+    /**
+     * Compacts full segments which are not kept in memory: folds entries of
+     * one package, drops entries followed by deletion or `full` entry of the
+     * package and deletes segments which have no entries left.
+     * @return Completion, completes at once if compaction is running already
+     */
+    public CompletableFuture<Void> compact() {
+        final CompletableFuture<Void> res;
+        if (this.compacting.compareAndSet(false, true)) {
+            res = this.start().thenCompose(
+                nothing -> {
+                    final List<Long> stored;
+                    final List<List<JsonObject>> recent = new ArrayList<>(1);
+                    synchronized (this.firsts) {
+                        final NavigableSet<Long> all;
+                        if (this.open.isEmpty()) {
+                            all = this.firsts;
+                        } else {
+                            all = this.firsts.headSet(this.open.firstKey(), false);
+                        }
+                        stored = new ArrayList<>(all);
+                        this.open.values().forEach(
+                            segment -> recent.add(new ArrayList<>(segment.entries))
+                        );
+                    }
+                    return this.segments(stored).thenCompose(
+                        segments -> this.rewrite(segments, recent)
+                    );
+                }
+            ).whenComplete(
+                (nothing, err) -> this.compacting.set(false)
+            );
+        } else {
+            res = CompletableFuture.allOf();
+        }
+        return res;
+    }
+
+    /**
+     * Runs compactions periodically, next compaction is scheduled when the
+     * previous one is complete, so scheduler threads are not blocked.
+     * @param exec Executor to schedule compactions on
+     * @param period Delay between compactions
+     * @return Future which stops compactions when cancelled
+     */
+    public CompletableFuture<Void> schedule(final ScheduledExecutorService exec,
+        final Duration period) {
+        return new Periodic(exec, period).start(
+            () -> this.compact().handle(
+                (nothing, err) -> {
+                    if (err != null) {
+                        Logger.error(this, "Journal compaction failed: %[exception]s", err);
+                    }
+                    return nothing;
+                }
+            )
+        );
+    }
+
+    /**
+     * Loads segments index from the storage on first call.
+     * @return Completion
+     */
+    private CompletableFuture<Void> start() {
+        final CompletableFuture<Void> fresh = new CompletableFuture<>();
+        CompletableFuture<Void> res = this.loaded.get();
+        if (res == null && this.loaded.compareAndSet(null, fresh)) {
+            this.load().whenComplete(
+                (nothing, err) -> {
+                    if (err == null) {
+                        fresh.complete(null);
+                    } else {
+                        this.loaded.set(null);
+                        fresh.completeExceptionally(err);
+                    }
+                }
+            );
+            res = fresh;
+        } else if (res == null) {
+            res = this.loaded.get();
+        }
+        return res;
+    }
+
+    /**
+     * Lists segments and reads the last one.
+     * @return Completion
+     */
+    private CompletableFuture<Void> load() {
+        return this.storage.list(MetaJournal.ROOT).thenCompose(
+            keys -> {
+                final List<Long> stored = MetaJournal.firsts(keys);
+                final CompletableFuture<Optional<List<JsonObject>>> tail;
+                if (stored.isEmpty()) {
+                    tail = CompletableFuture.completedFuture(Optional.empty());
+                } else {
+                    tail = this.read(stored.get(stored.size() - 1));
+                }
+                return tail.thenAccept(
+                    entries -> {
+                        synchronized (this.firsts) {
+                            this.firsts.clear();
+                            this.firsts.addAll(stored);
+                            this.open.clear();
+                            if (entries.isPresent()) {
+                                final long first = stored.get(stored.size() - 1);
+                                final List<JsonObject> list = entries.get();
+                                this.open.put(first, new Segment(first, list, 0));
+                                if (list.isEmpty()) {
+                                    this.last.set(first - 1);
+                                } else {
+                                    this.last.set(MetaJournal.seq(list.get(list.size() - 1)));
+                                }
+                            }
+                        }
+                    }
+                );
+            }
+        );
+    }
+
+    /**
+     * Makes the entry visible if its write succeeded, removes it otherwise.
+     * @param seq Sequence number of the entry
+     * @param written Was the change written?
+     */
+    private void complete(final long seq, final boolean written) {
+        Optional<Segment> changed = Optional.empty();
+        synchronized (this.firsts) {
+            this.pending.remove(seq);
+            if (!written) {
+                final Map.Entry<Long, Segment> holder = this.open.floorEntry(seq);
+                if (holder != null && holder.getValue().entries.removeIf(
+                    entry -> MetaJournal.seq(entry) == seq
+                )) {
+                    holder.getValue().version = holder.getValue().version + 1;
+                    changed = Optional.of(holder.getValue());
+                }
+            }
+        }
+        changed.ifPresent(this::flush);
+        this.next.getAndSet(new CompletableFuture<>()).complete(null);
+        this.release();
+    }
+
+    /**
+     * Saves the segment, unless it is being saved already or it was not
+     * changed since it was saved.
+     * @param segment Segment
+     */
+    private void flush(final Segment segment) {
+        final int version;
+        final Optional<byte[]> lines;
+        synchronized (this.firsts) {
+            version = segment.version;
+            if (segment.saving || segment.saved == version) {
+                lines = Optional.empty();
+            } else {
+                segment.saving = true;
+                lines = Optional.of(MetaJournal.lines(segment.entries));
+            }
+        }
+        lines.ifPresent(
+            bytes -> this.storage.save(
+                MetaJournal.segment(segment.first), new Content.From(bytes)
+            ).whenComplete((nothing, err) -> this.saved(segment, version, err))
+        );
+    }
+
+    /**
+     * Completes appends saved by the segment save and saves the changes
+     * made while it was being saved.
+     * @param segment Segment
+     * @param version Saved version of the segment
+     * @param err Save error, null if segment was saved
+     */
+    private void saved(final Segment segment, final int version, final Throwable err) {
+        final List<CompletableFuture<Void>> done;
+        final boolean again;
+        synchronized (this.firsts) {
+            segment.saving = false;
+            if (err == null) {
+                segment.saved = version;
+            }
+            final Map<Integer, CompletableFuture<Void>> head =
+                segment.waiters.headMap(version, true);
+            done = new ArrayList<>(head.values());
+            head.clear();
+            again = err == null || !segment.waiters.isEmpty();
+        }
+        for (final CompletableFuture<Void> waiter : done) {
+            if (err == null) {
+                waiter.complete(null);
+            } else {
+                waiter.completeExceptionally(err);
+            }
+        }
+        if (again) {
+            this.flush(segment);
+        }
+        this.release();
+    }
+
+    /**
+     * Compacts and releases full segments which are saved and have all the
+     * entries visible.
+     */
+    private void release() {
+        final List<Segment> folded = new ArrayList<>(0);
+        synchronized (this.firsts) {
+            final Iterator<Map.Entry<Long, Segment>> iter = this.open.entrySet().iterator();
+            while (iter.hasNext()) {
+                final Map.Entry<Long, Segment> item = iter.next();
+                final Long following = this.firsts.higher(item.getKey());
+                final Segment segment = item.getValue();
+                if (following != null && !segment.saving && segment.saved == segment.version
+                    && this.pending.subSet(item.getKey(), following).isEmpty()) {
+                    final List<JsonObject> entries = MetaJournal.fold(segment.entries);
+                    if (entries.size() < segment.entries.size()) {
+                        segment.entries.clear();
+                        segment.entries.addAll(entries);
+                        segment.version = segment.version + 1;
+                        folded.add(segment);
+                    } else {
+                        iter.remove();
+                    }
+                }
+            }
+        }
+        folded.forEach(this::flush);
+    }
+
+    /**
+     * Sequence number of the last entry which is visible with all the
+     * entries before it.
+     * @return Sequence number
+     */
+    private long committed() {
+        synchronized (this.firsts) {
+            final long res;
+            if (this.pending.isEmpty()) {
+                res = this.last.get();
+            } else {
+                res = this.pending.first() - 1;
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Reads entries of the segments.
+     * @param segments Segments to read
+     * @param memory Entries of the segments kept in memory
+     * @param since Sequence number of the last read entry
+     * @param visible Sequence number of the last visible entry
+     * @param limit Max number of entries
+     * @param acc Entries read
+     * @return Entries
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompletableFuture<List<JsonObject>> entries(final List<Long> segments,
+        final Map<Long, List<JsonObject>> memory, final long since, final long visible,
+        final int limit, final List<JsonObject> acc) {
+        final CompletableFuture<List<JsonObject>> res;
+        if (segments.isEmpty() || acc.size() >= limit) {
+            res = CompletableFuture.completedFuture(acc);
+        } else {
+            final Long first = segments.get(0);
+            final CompletableFuture<Optional<List<JsonObject>>> segment;
+            if (memory.containsKey(first)) {
+                segment = CompletableFuture.completedFuture(Optional.of(memory.get(first)));
+            } else {
+                segment = this.read(first);
+            }
+            res = segment.thenCompose(
+                entries -> {
+                    long prev = since;
+                    for (final JsonObject entry : entries.orElse(new ArrayList<>(0))) {
+                        final long seq = MetaJournal.seq(entry);
+                        if (seq > prev && seq <= visible && acc.size() < limit) {
+                            acc.add(entry);
+                            prev = seq;
+                        }
+                    }
+                    return this.entries(
+                        segments.subList(1, segments.size()), memory, prev, visible, limit, acc
+                    );
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Reads segments.
+     * @param segments Segments to read
+     * @return Entries of the segments by the segment, missing segments are skipped
+     */
+    private CompletableFuture<Map<Long, List<JsonObject>>> segments(final List<Long> segments) {
+        final Map<Long, List<JsonObject>> res = new LinkedHashMap<>();
+        CompletableFuture<Void> all = CompletableFuture.allOf();
+        for (final long first : segments) {
+            all = all.thenCompose(
+                nothing -> this.read(first).thenAccept(
+                    entries -> entries.ifPresent(list -> res.put(first, list))
+                )
+            );
+        }
+        return all.thenApply(nothing -> res);
+    }
+
+    /**
+     * Folds entries of the segments and drops entries followed by complete
+     * entries of the package, saves changed segments.
+     * @param segments Entries by segment
+     * @param recent Entries of the segments kept in memory
+     * @return Completion
+     */
+    private CompletableFuture<Void> rewrite(final Map<Long, List<JsonObject>> segments,
+        final List<List<JsonObject>> recent) {
+        final Set<String> covered = new HashSet<>();
+        recent.forEach(MetaJournal.covering(covered));
+        final List<Long> firsts = new ArrayList<>(segments.keySet());
+        CompletableFuture<Void> res = CompletableFuture.allOf();
+        for (int idx = firsts.size() - 1; idx >= 0; idx = idx - 1) {
+            final long first = firsts.get(idx);
+            final List<JsonObject> folded = MetaJournal.fold(segments.get(first));
+            final List<JsonObject> output = folded.stream()
+                .filter(entry -> !covered.contains(entry.getString(MetaJournal.PACKAGE)))
+                .collect(Collectors.toList());
+            MetaJournal.covering(covered).accept(folded);
+            if (output.size() < segments.get(first).size()) {
+                res = res.thenCompose(nothing -> this.replace(first, output));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Replaces compacted segment, deletes it if it has no entries left.
+     * @param first Sequence number of the first segment entry
+     * @param output Entries of the compacted segment
+     * @return Completion
+     */
+    private CompletableFuture<Void> replace(final long first, final List<JsonObject> output) {
+        final CompletableFuture<Void> res;
+        if (output.isEmpty()) {
+            synchronized (this.firsts) {
+                this.firsts.remove(first);
+            }
+            res = this.storage.delete(MetaJournal.segment(first));
+        } else {
+            res = this.storage.save(
+                MetaJournal.segment(first), new Content.From(MetaJournal.lines(output))
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Reads segment.
+     * @param first Sequence number of the first segment entry
+     * @return Entries, empty if there is no such segment
+     */
+    private CompletableFuture<Optional<List<JsonObject>>> read(final long first) {
+        return new MetaStore(this.storage).value(MetaJournal.segment(first)).thenCompose(
+            content -> content.map(
+                pub -> new PublisherAs(pub).string(StandardCharsets.UTF_8).thenApply(
+                    text -> Optional.of(
+                        Arrays.stream(text.split("\n"))
+                            .filter(line -> !line.isEmpty())
+                            .map(line -> MetaStore.json(line.getBytes(StandardCharsets.UTF_8)))
+                            .collect(Collectors.toList())
+                    )
+                ).toCompletableFuture()
+            ).orElse(CompletableFuture.completedFuture(Optional.empty()))
+        );
+    }
+
+    /**
+     * Entry of the packument change without sequence number.
+     * @param pkg Package key
+     * @param before Packument before the change, empty if package is new
+     * @param after Packument after the change, empty if package is deleted
+     * @return Entry
+     */
+    private static JsonObject entry(final Key pkg, final Optional<JsonObject> before,
+        final Optional<JsonObject> after) {
+        final JsonObjectBuilder res = Json.createObjectBuilder()
+            .add(MetaJournal.PACKAGE, pkg.string())
+            .add(
+                "change",
+                after.map(json -> Change.of(before, json)).orElse(Change.DELETE).value()
+            )
+            .add("time", new DateTimeNowStr().value());
+        after.ifPresent(
+            json -> {
+                final JsonObject old = before.map(MetaJournal::versions)
+                    .orElse(JsonValue.EMPTY_JSON_OBJECT);
+                final JsonObject versions = MetaJournal.versions(json);
+                final JsonObjectBuilder changed = Json.createObjectBuilder();
+                for (final Map.Entry<String, JsonValue> version : versions.entrySet()) {
+                    if (version.getValue().getValueType() != JsonValue.ValueType.NULL
+                        && !version.getValue().equals(old.get(version.getKey()))) {
+                        changed.add(version.getKey(), version.getValue());
+                    }
+                }
+                final JsonArrayBuilder removed = Json.createArrayBuilder();
+                old.keySet().stream().filter(name -> !versions.containsKey(name))
+                    .forEach(removed::add);
+                res.add(
+                    MetaJournal.PACKUMENT,
+                    Json.createObjectBuilder(json).remove(MetaJournal.VERSIONS)
+                ).add(MetaJournal.VERSIONS, changed)
+                    .add(MetaJournal.REMOVED, removed)
+                    .add(MetaJournal.FULL, !before.isPresent());
+            }
+        );
+        return res.build();
+    }
+
+    /**
+     * Applies entry to the layout.
+     * @param entry Entry
+     * @param target Layout
+     * @return Completion
+     */
+    private static CompletableFuture<Void> apply(final JsonObject entry, final MetaLayout target) {
+        final Key pkg = new Key.From(entry.getString(MetaJournal.PACKAGE));
+        final CompletableFuture<Void> res;
+        if (entry.containsKey(MetaJournal.PACKUMENT)) {
+            res = target.read(pkg, false).thenCompose(
+                before -> {
+                    final JsonObjectBuilder versions = Json.createObjectBuilder();
+                    if (before.isPresent() && !entry.getBoolean(MetaJournal.FULL, false)) {
+                        final Set<String> removed = MetaJournal.removed(entry);
+                        MetaJournal.versions(before.get()).forEach(
+                            (name, doc) -> {
+                                if (!removed.contains(name)) {
+                                    versions.add(name, doc);
+                                }
+                            }
+                        );
+                    }
+                    MetaJournal.versions(entry).forEach(versions::add);
+                    return target.write(
+                        pkg, before,
+                        Json.createObjectBuilder(entry.getJsonObject(MetaJournal.PACKUMENT))
+                            .add(MetaJournal.VERSIONS, versions).build()
+                    );
+                }
+            );
+        } else {
+            res = target.delete(pkg);
+        }
+        return res;
+    }
+
+    /**
+     * Folds entries of one package into the last one.
+     * @param entries Entries
+     * @return Folded entries in the order of sequence numbers
+     */
+    private static List<JsonObject> fold(final List<JsonObject> entries) {
+        final Map<String, JsonObject> res = new LinkedHashMap<>();
+        for (final JsonObject entry : entries) {
+            final String pkg = entry.getString(MetaJournal.PACKAGE);
+            res.put(pkg, MetaJournal.fold(res.remove(pkg), entry));
+        }
+        return new ArrayList<>(res.values());
+    }
+
+    /**
+     * Folds two entries of the package into one.
+     * @param prev Previous entry, may be null
+     * @param next Next entry
+     * @return Next entry with versions of the previous one
+     */
+    private static JsonObject fold(final JsonObject prev, final JsonObject next) {
+        final JsonObject res;
+        if (prev == null || MetaJournal.complete(next)
+            || !prev.containsKey(MetaJournal.PACKUMENT)) {
+            res = next;
+        } else {
+            final Set<String> removed = MetaJournal.removed(next);
+            final JsonObjectBuilder versions = Json.createObjectBuilder();
+            MetaJournal.versions(prev).forEach(
+                (name, doc) -> {
+                    if (!removed.contains(name)) {
+                        versions.add(name, doc);
+                    }
+                }
+            );
+            MetaJournal.versions(next).forEach(versions::add);
+            final JsonArrayBuilder gone = Json.createArrayBuilder();
+            final boolean full = prev.getBoolean(MetaJournal.FULL, false);
+            if (!full) {
+                removed.addAll(MetaJournal.removed(prev));
+                removed.removeAll(MetaJournal.versions(next).keySet());
+                removed.forEach(gone::add);
+            }
+            res = Json.createObjectBuilder(next)
+                .add(MetaJournal.VERSIONS, versions)
+                .add(MetaJournal.REMOVED, gone)
+                .add(MetaJournal.FULL, full)
+                .build();
+        }
+        return res;
+    }
+
+    /**
+     * Adds packages of complete entries to the set.
+     * @param covered Packages with complete entries
+     * @return Consumer of entries
+     */
+    private static Consumer<List<JsonObject>> covering(final Set<String> covered) {
+        return entries -> entries.stream().filter(MetaJournal::complete)
+            .forEach(entry -> covered.add(entry.getString(MetaJournal.PACKAGE)));
+    }
+
+    /**
+     * Does the entry replace all the previous entries of the package:
+     * is it a deletion or a `full` entry?
+     * @param entry Entry
+     * @return True if entry is complete
+     */
+    private static boolean complete(final JsonObject entry) {
+        return !entry.containsKey(MetaJournal.PACKUMENT)
+            || entry.getBoolean(MetaJournal.FULL, false);
+    }
+
+    /**
+     * Versions of the packument or the entry.
+     * @param json Packument or entry
+     * @return Versions
+     */
+    private static JsonObject versions(final JsonObject json) {
+        return json.getOrDefault(MetaJournal.VERSIONS, JsonValue.EMPTY_JSON_OBJECT)
+            .asJsonObject();
+    }
+
+    /**
+     * Names of the versions removed by the entry.
+     * @param entry Entry
+     * @return Version names
+     */
+    private static Set<String> removed(final JsonObject entry) {
+        return entry.getOrDefault(MetaJournal.REMOVED, JsonValue.EMPTY_JSON_ARRAY)
+            .asJsonArray().getValuesAs(JsonString.class).stream()
+            .map(JsonString::getString)
+            .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Segment content, entries as JSON lines.
+     * @param entries Entries
+     * @return Bytes
+     */
+    private static byte[] lines(final Collection<JsonObject> entries) {
+        final StringBuilder res = new StringBuilder();
+        entries.forEach(entry -> res.append(entry).append('\n'));
+        return res.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sequence numbers of the first entries of the segments.
+     * @param keys Journal keys
+     * @return Sorted sequence numbers
+     */
+    private static List<Long> firsts(final Collection<Key> keys) {
+        final int prefix = MetaJournal.ROOT.string().length() + 1;
+        return keys.stream()
+            .map(Key::string)
+            .filter(key -> key.endsWith(MetaJournal.EXT) && key.length() > prefix)
+            .map(key -> key.substring(prefix, key.length() - MetaJournal.EXT.length()))
+            .filter(name -> name.chars().allMatch(Character::isDigit))
+            .map(Long::parseLong)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Sequence number of the entry.
+     * @param entry Entry
+     * @return Sequence number
+     */
+    private static long seq(final JsonObject entry) {
+        return entry.getJsonNumber(MetaJournal.SEQ).longValue();
+    }
+
+    /**
+     * Segment key.
+     * @param first Sequence number of the first segment entry
+     * @return Key
+     */
+    private static Key segment(final long first) {
+        return new Key.From(
+            String.format("%s/%019d%s", MetaJournal.ROOT.string(), first, MetaJournal.EXT)
+        );
+    }
+
+    /**
+     * Segment kept in memory.
+     * @since 0.10
+     */
+    private static final class Segment {
+
+        /**
+         * Sequence number of the first entry.
+         */
+        private final long first;
+
+        /**
+         * Entries.
+         */
+        private final List<JsonObject> entries;
+
+        /**
+         * Waiters for the save of the segment version.
+         */
+        private final NavigableMap<Integer, CompletableFuture<Void>> waiters;
+
+        /**
+         * Version of the entries, incremented on every change.
+         */
+        private int version;
+
+        /**
+         * Saved version.
+         */
+        private int saved;
+
+        /**
+         * Is segment being saved?
+         */
+        private boolean saving;
+
+        /**
+         * Ctor.
+         * @param first Sequence number of the first entry
+         * @param entries Entries
+         * @param version Version of the saved entries
+         */
+        Segment(final long first, final List<JsonObject> entries, final int version) {
+            this.first = first;
+            this.entries = new ArrayList<>(entries);
+            this.waiters = new TreeMap<>();
+            this.version = version;
+            this.saved = version;
+        }
+    }
+
+    /**
+     * Type of packument change.
+     * @since 0.10
+     */
+    public enum Change {
+
+        /**
+         * New package or new versions.
+         */
+        PUBLISH("publish"),
+
+        /**
+         * Some versions were removed.
+         */
+        UNPUBLISH("unpublish"),
+
+        /**
+         * Dist-tags were changed.
+         */
+        DIST_TAG("dist-tag"),
+
+        /**
+         * Versions were deprecated or undeprecated.
+         */
+        DEPRECATE("deprecate"),
+
+        /**
+         * Other change of the packument.
+         */
+        UPDATE("update"),
+
+        /**
+         * Package was removed.
+         */
+        DELETE("delete");
+
+        /**
+         * Name of the change in the journal.
+         */
+        private final String name;
+
+        /**
+         * Ctor.
+         * @param name Name of the change in the journal
+         */
+        Change(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Name of the change in the journal.
+         * @return Name
+         */
+        public String value() {
+            return this.name;
+        }
+
+        /**
+         * Type of the packument write: added versions are publish, removed
+         * versions are unpublish, then dist-tags and deprecation changes.
+         * @param before Packument before write, empty if package is new
+         * @param after Written packument
+         * @return Change type
+         */
+        public static Change of(final Optional<JsonObject> before, final JsonObject after) {
+            final JsonObject versions = after.getOrDefault(
+                MetaJournal.VERSIONS, JsonValue.EMPTY_JSON_OBJECT
+            ).asJsonObject();
+            final JsonObject old = before.map(
+                json -> json.getOrDefault(MetaJournal.VERSIONS, JsonValue.EMPTY_JSON_OBJECT)
+                    .asJsonObject()
+            ).orElse(JsonValue.EMPTY_JSON_OBJECT);
+            final String tags = "dist-tags";
+            final Change res;
+            if (!before.isPresent() || !old.keySet().containsAll(versions.keySet())) {
+                res = PUBLISH;
+            } else if (!versions.keySet().containsAll(old.keySet())) {
+                res = UNPUBLISH;
+            } else if (!before.get().getOrDefault(tags, JsonValue.NULL)
+                .equals(after.getOrDefault(tags, JsonValue.NULL))) {
+                res = DIST_TAG;
+            } else if (Change.deprecated(old, versions)) {
+                res = DEPRECATE;
+            } else {
+                res = UPDATE;
+            }
+            return res;
+        }
+
+        /**
+         * Was `deprecated` field of some version changed?
+         * @param old Versions before write
+         * @param versions Written versions
+         * @return True if deprecation was changed
+         */
+        private static boolean deprecated(final JsonObject old, final JsonObject versions) {
+            final String field = "deprecated";
+            return versions.entrySet().stream().anyMatch(
+                version -> version.getValue() instanceof JsonObject
+                    && old.get(version.getKey()) instanceof JsonObject
+                    && !version.getValue().asJsonObject().getOrDefault(field, JsonValue.NULL)
+                        .equals(
+                            old.getJsonObject(version.getKey())
+                                .getOrDefault(field, JsonValue.NULL)
+                        )
+            );
+        }
+    }
+}
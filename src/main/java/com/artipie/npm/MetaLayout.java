@@ -0,0 +1,1400 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.UnderLockOperation;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.lock.storage.StorageLock;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Layout of package metadata (packument) in the storage.
+ * @since 0.10
+ */
+public interface MetaLayout {
+
+    /**
+     * Checks that package exists.
+     * @param pkg Package key
+     * @return True if package metadata exists
+     */
+    CompletableFuture<Boolean> exists(Key pkg);
+
+    /**
+     * Reads packument to be modified.
+     * @param pkg Package key
+     * @param versions Are version documents required? If false, layout
+     *  is allowed to put JSON `null` instead of existing version documents
+     * @return Packument, empty if package does not exist
+     */
+    CompletableFuture<Optional<JsonObject>> read(Key pkg, boolean versions);
+
+    /**
+     * Writes modified packument.
+     * @param pkg Package key
+     * @param before Packument as it was returned by {@link #read(Key, boolean)}
+     * @param after Modified packument
+     * @return Completion
+     */
+    CompletableFuture<Void> write(Key pkg, Optional<JsonObject> before, JsonObject after);
+
+    /**
+     * Full packument for clients.
+     * @param pkg Package key
+     * @return Packument bytes, empty if package does not exist
+     */
+    CompletableFuture<Optional<Content>> content(Key pkg);
+
+    /**
+     * Abbreviated packument for installing clients, it is stored by the layout
+     * on write, see {@link Abbreviated}.
+     * @param pkg Package key
+     * @return Abbreviated packument bytes, empty if package does not exist or
+     *  was written without it
+     */
+    CompletableFuture<Optional<Content>> abbreviated(Key pkg);
+
+    /**
+     * Value of `dist-tags` field of the packument, it is stored by the layout
+     * on write, so tags are read without reading the packument.
+     * @param pkg Package key
+     * @return Dist-tags json bytes, empty if package does not exist or
+     *  was written without them
+     */
+    CompletableFuture<Optional<Content>> distTags(Key pkg);
+
+    /**
+     * HTTP validators of the packument, they are stored by the layout on write.
+     * @param pkg Package key
+     * @return Validators, empty if package does not exist or was written without them
+     */
+    CompletableFuture<Optional<MetaValidators>> validators(Key pkg);
+
+    /**
+     * Removes packument of the package.
+     * @param pkg Package key
+     * @return Completion
+     */
+    CompletableFuture<Void> delete(Key pkg);
+
+    /**
+     * Whole packument in one `meta.json` file under the package key.
+     * Write removes validators, saves `meta.json`, then abbreviated packument
+     * and dist-tags sidecars in parallel, and validators last: four documents
+     * and one removal per write in four sequential storage round trips.
+     * @since 0.10
+     */
+    final class Whole implements MetaLayout {
+
+        /**
+         * Storage.
+         */
+        private final Storage storage;
+
+        /**
+         * Ctor.
+         * @param storage Storage
+         */
+        public Whole(final Storage storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            return this.storage.exists(Whole.meta(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return new MetaStore(this.storage).json(Whole.meta(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            final byte[] bytes = after.toString().getBytes(StandardCharsets.UTF_8);
+            final CompletableFuture<Void> invalidated;
+            if (before.isPresent()) {
+                invalidated = new MetaStore(this.storage).delete(Whole.validatorsKey(pkg));
+            } else {
+                invalidated = CompletableFuture.allOf();
+            }
+            return invalidated.thenCompose(
+                nothing -> this.storage.save(Whole.meta(pkg), new Content.From(bytes))
+            ).thenCompose(
+                nothing -> CompletableFuture.allOf(
+                    this.storage.save(
+                        Whole.abbreviatedKey(pkg),
+                        new Content.From(
+                            new Abbreviated(after).json().toString()
+                                .getBytes(StandardCharsets.UTF_8)
+                        )
+                    ),
+                    this.storage.save(Whole.distTagsKey(pkg), Whole.distTags(after))
+                )
+            ).thenCompose(
+                nothing -> new MetaValidators.Stored(this.storage)
+                    .save(Whole.validatorsKey(pkg), MetaValidators.of(bytes, after))
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return new MetaStore(this.storage).value(Whole.meta(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return new MetaStore(this.storage).value(Whole.abbreviatedKey(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return new MetaStore(this.storage).value(Whole.distTagsKey(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            return new MetaValidators.Stored(this.storage).load(Whole.validatorsKey(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            final MetaValidators.Stored stored = new MetaValidators.Stored(this.storage);
+            return stored.delete(Whole.validatorsKey(pkg))
+                .thenCompose(nothing -> stored.delete(Whole.abbreviatedKey(pkg)))
+                .thenCompose(nothing -> stored.delete(Whole.distTagsKey(pkg)))
+                .thenCompose(nothing -> stored.delete(Whole.meta(pkg)));
+        }
+
+        /**
+         * Key of `meta.json` file.
+         * @param pkg Package key
+         * @return Key
+         */
+        static Key meta(final Key pkg) {
+            return new Key.From(pkg, "meta.json");
+        }
+
+        /**
+         * Key of validators sidecar.
+         * @param pkg Package key
+         * @return Key
+         */
+        static Key validatorsKey(final Key pkg) {
+            return new Key.From(pkg, "meta.validators.json");
+        }
+
+        /**
+         * Key of abbreviated packument.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key abbreviatedKey(final Key pkg) {
+            return new Key.From(pkg, "meta.abbreviated.json");
+        }
+
+        /**
+         * Key of dist-tags sidecar.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key distTagsKey(final Key pkg) {
+            return new Key.From(pkg, "meta.dist-tags.json");
+        }
+
+        /**
+         * Dist-tags of the packument.
+         * @param packument Packument
+         * @return Dist-tags json content
+         */
+        static Content distTags(final JsonObject packument) {
+            return new Content.From(
+                packument.getOrDefault("dist-tags", JsonValue.EMPTY_JSON_OBJECT).toString()
+                    .getBytes(StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    /**
+     * Segmented packument: small index (packument where `versions` is the
+     * list of version names) in `meta/index.json`, and one document per version in
+     * `meta/versions/{version}.json` under the package key. Publish rewrites
+     * only the index and the new version, full packument is assembled on read
+     * from the stored bytes. Packages stored in `meta.json` are read as is and
+     * are converted to this layout on the first write.
+     * Publish of one version writes five documents: the version, the index,
+     * abbreviated packument and dist-tags sidecars (saved in parallel after
+     * the index) and validators after all of them.
+     * @since 0.10
+     */
+    final class Segmented implements MetaLayout {
+
+        /**
+         * Versions field name.
+         */
+        private static final String VERSIONS = "versions";
+
+        /**
+         * How many version documents are read at once.
+         */
+        private static final int PARALLEL = 16;
+
+        /**
+         * Storage.
+         */
+        private final Storage storage;
+
+        /**
+         * Ctor.
+         * @param storage Storage
+         */
+        public Segmented(final Storage storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            return this.storage.exists(Segmented.indexKey(pkg)).thenCompose(
+                exists -> {
+                    final CompletableFuture<Boolean> res;
+                    if (exists) {
+                        res = CompletableFuture.completedFuture(true);
+                    } else {
+                        res = new Whole(this.storage).exists(pkg);
+                    }
+                    return res;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return this.index(pkg).thenCompose(
+                index -> index.map(
+                    json -> this.versions(pkg, json, versions)
+                        .thenApply(Optional::of)
+                        .toCompletableFuture()
+                ).orElseGet(() -> new Whole(this.storage).read(pkg, versions))
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            return this.storage.exists(Segmented.indexKey(pkg)).thenCompose(
+                segmented -> this.invalidated(pkg, segmented, before.isPresent()).thenCompose(
+                    prev -> {
+                        final JsonObject old;
+                        if (segmented) {
+                            old = before.map(json -> json.getJsonObject(Segmented.VERSIONS))
+                                .orElse(JsonValue.EMPTY_JSON_OBJECT);
+                        } else {
+                            old = JsonValue.EMPTY_JSON_OBJECT;
+                        }
+                        final JsonObject updated = after.getJsonObject(Segmented.VERSIONS);
+                        return this.saveVersions(pkg, old, updated).thenCompose(
+                            nothing -> this.storage.save(
+                                Segmented.indexKey(pkg),
+                                new Content.From(
+                                    Segmented.indexOf(after).toString()
+                                        .getBytes(StandardCharsets.UTF_8)
+                                )
+                            )
+                        ).thenCompose(
+                            nothing -> CompletableFuture.allOf(
+                                this.saveAbbreviated(pkg, segmented, after),
+                                this.storage.save(
+                                    Segmented.distTagsKey(pkg), Whole.distTags(after)
+                                )
+                            )
+                        ).thenCompose(
+                            nothing -> this.saveValidators(pkg, prev, after)
+                        ).thenCompose(
+                            nothing -> CompletableFuture.allOf(
+                                old.keySet().stream()
+                                    .filter(ver -> !updated.containsKey(ver))
+                                    .map(ver -> this.storage.delete(Segmented.version(pkg, ver)))
+                                    .toArray(CompletableFuture[]::new)
+                            )
+                        ).thenCompose(
+                            nothing -> {
+                                final CompletableFuture<Void> res;
+                                if (segmented) {
+                                    res = CompletableFuture.allOf();
+                                } else {
+                                    res = new Whole(this.storage).delete(pkg);
+                                }
+                                return res;
+                            }
+                        );
+                    }
+                )
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return this.index(pkg).thenCompose(
+                index -> index.map(
+                    json -> CompletableFuture.completedFuture(
+                        Optional.<Content>of(new Content.From(this.assembled(pkg, json)))
+                    )
+                ).orElseGet(() -> new Whole(this.storage).content(pkg))
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return new MetaStore(this.storage).value(Segmented.abbreviatedKey(pkg)).thenCompose(
+                content -> {
+                    final CompletableFuture<Optional<Content>> res;
+                    if (content.isPresent()) {
+                        res = CompletableFuture.completedFuture(content);
+                    } else {
+                        res = new Whole(this.storage).abbreviated(pkg);
+                    }
+                    return res;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return new MetaStore(this.storage).value(Segmented.distTagsKey(pkg)).thenCompose(
+                content -> {
+                    final CompletableFuture<Optional<Content>> res;
+                    if (content.isPresent()) {
+                        res = CompletableFuture.completedFuture(content);
+                    } else {
+                        res = new Whole(this.storage).distTags(pkg);
+                    }
+                    return res;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            return new MetaValidators.Stored(this.storage).load(Segmented.validatorsKey(pkg))
+                .thenCompose(
+                    validators -> {
+                        final CompletableFuture<Optional<MetaValidators>> res;
+                        if (validators.isPresent()) {
+                            res = CompletableFuture.completedFuture(validators);
+                        } else {
+                            res = new Whole(this.storage).validators(pkg);
+                        }
+                        return res;
+                    }
+                );
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            return this.storage.list(new Key.From(pkg, "meta")).thenCompose(
+                keys -> CompletableFuture.allOf(
+                    keys.stream().map(this.storage::delete).toArray(CompletableFuture[]::new)
+                )
+            ).thenCompose(nothing -> new Whole(this.storage).delete(pkg));
+        }
+
+        /**
+         * Saves abbreviated packument. Written packument may have `null` instead
+         * of not changed versions, they are taken from the previous abbreviated
+         * packument, or are read if previous abbreviated packument does not have them.
+         * @param pkg Package key
+         * @param segmented Was package segmented before write?
+         * @param after Written packument
+         * @return Completion
+         */
+        private CompletableFuture<Void> saveAbbreviated(final Key pkg, final boolean segmented,
+            final JsonObject after) {
+            final Key key = Segmented.abbreviatedKey(pkg);
+            final CompletableFuture<JsonObject> prev;
+            if (segmented) {
+                prev = new MetaStore(this.storage).json(key)
+                    .thenApply(json -> json.orElse(JsonValue.EMPTY_JSON_OBJECT));
+            } else {
+                prev = CompletableFuture.completedFuture(JsonValue.EMPTY_JSON_OBJECT);
+            }
+            final Abbreviated abbreviated = new Abbreviated(after);
+            return prev.thenCompose(
+                old -> {
+                    final JsonObjectBuilder known = Json.createObjectBuilder(
+                        old.getOrDefault(Segmented.VERSIONS, JsonValue.EMPTY_JSON_OBJECT)
+                            .asJsonObject()
+                    );
+                    return CompletableFuture.allOf(
+                        abbreviated.missing(old).stream().map(
+                            ver -> this.storage.value(Segmented.version(pkg, ver))
+                                .thenCompose(content -> new PublisherAs(content).bytes())
+                                .thenAccept(
+                                    bytes -> {
+                                        synchronized (known) {
+                                            known.add(ver, MetaStore.json(bytes));
+                                        }
+                                    }
+                                )
+                        ).toArray(CompletableFuture[]::new)
+                    ).thenCompose(
+                        nothing -> this.storage.save(
+                            key,
+                            new Content.From(
+                                abbreviated.json(
+                                    Json.createObjectBuilder()
+                                        .add(Segmented.VERSIONS, known).build()
+                                ).toString().getBytes(StandardCharsets.UTF_8)
+                            )
+                        )
+                    );
+                }
+            );
+        }
+
+        /**
+         * Saves version documents which are changed.
+         * @param pkg Package key
+         * @param old Versions of the previous packument
+         * @param updated Versions of the written packument
+         * @return Completion
+         */
+        private CompletableFuture<Void> saveVersions(final Key pkg, final JsonObject old,
+            final JsonObject updated) {
+            return CompletableFuture.allOf(
+                updated.entrySet().stream()
+                    .filter(ver -> ver.getValue().getValueType() != JsonValue.ValueType.NULL)
+                    .filter(ver -> !ver.getValue().equals(old.get(ver.getKey())))
+                    .map(
+                        ver -> this.storage.save(
+                            Segmented.version(pkg, ver.getKey()),
+                            new Content.From(
+                                ver.getValue().toString().getBytes(StandardCharsets.UTF_8)
+                            )
+                        )
+                    ).toArray(CompletableFuture[]::new)
+            );
+        }
+
+        /**
+         * Saves validators of the written packument. Written packument may
+         * have `null` instead of not changed versions, so entity tag is chained
+         * from the entity tag of the previous packument.
+         * @param pkg Package key
+         * @param prev Validators of the previous packument, empty if it was
+         *  not segmented
+         * @param after Written packument
+         * @return Completion
+         */
+        private CompletableFuture<Void> saveValidators(final Key pkg,
+            final Optional<MetaValidators> prev, final JsonObject after) {
+            final byte[] bytes = after.toString().getBytes(StandardCharsets.UTF_8);
+            return new MetaValidators.Stored(this.storage).save(
+                Segmented.validatorsKey(pkg),
+                prev.map(val -> val.next(bytes, after))
+                    .orElseGet(() -> MetaValidators.of(bytes, after))
+            );
+        }
+
+        /**
+         * Removes validators of the package before its documents are written,
+         * so validators of the previous packument are never served with the
+         * new one if the write fails halfway. Package which is not segmented
+         * yet has validators next to its `meta.json`.
+         * @param pkg Package key
+         * @param segmented Is package segmented?
+         * @param exists Does package exist?
+         * @return Removed validators of the segmented package, empty otherwise
+         */
+        private CompletableFuture<Optional<MetaValidators>> invalidated(final Key pkg,
+            final boolean segmented, final boolean exists) {
+            final CompletableFuture<Optional<MetaValidators>> res;
+            if (segmented) {
+                final Key key = Segmented.validatorsKey(pkg);
+                res = new MetaValidators.Stored(this.storage).load(key).thenCompose(
+                    prev -> {
+                        final CompletableFuture<Optional<MetaValidators>> removed;
+                        if (prev.isPresent()) {
+                            removed = this.storage.delete(key).thenApply(nothing -> prev);
+                        } else {
+                            removed = CompletableFuture.completedFuture(prev);
+                        }
+                        return removed;
+                    }
+                );
+            } else if (exists) {
+                res = new MetaStore(this.storage).delete(Whole.validatorsKey(pkg))
+                    .thenApply(nothing -> Optional.empty());
+            } else {
+                res = CompletableFuture.completedFuture(Optional.empty());
+            }
+            return res;
+        }
+
+        /**
+         * Full packument bytes assembled from the index and the version documents.
+         * Version documents are copied as they are stored, so the result is
+         * the same json the packument was serialized to before segmentation.
+         * @param pkg Package key
+         * @param index Index
+         * @return Packument bytes
+         */
+        private Flowable<ByteBuffer> assembled(final Key pkg, final JsonObject index) {
+            final List<Flowable<ByteBuffer>> parts = new ArrayList<>(index.size() * 2 + 1);
+            String delim = "{";
+            for (final Map.Entry<String, JsonValue> field : index.entrySet()) {
+                parts.add(
+                    Segmented.text(
+                        String.format("%s%s:", delim, Json.createValue(field.getKey()))
+                    )
+                );
+                if (Segmented.VERSIONS.equals(field.getKey())) {
+                    parts.add(this.versionsBytes(pkg, field.getValue().asJsonArray()));
+                } else {
+                    parts.add(Segmented.text(field.getValue().toString()));
+                }
+                delim = ",";
+            }
+            if (index.isEmpty()) {
+                parts.add(Segmented.text(delim));
+            }
+            parts.add(Segmented.text("}"));
+            return Flowable.concat(parts);
+        }
+
+        /**
+         * Bytes of `versions` object.
+         * @param pkg Package key
+         * @param names Version names
+         * @return Bytes
+         */
+        private Flowable<ByteBuffer> versionsBytes(final Key pkg,
+            final List<JsonValue> names) {
+            final List<String> vers = names.stream()
+                .map(name -> ((JsonString) name).getString())
+                .collect(Collectors.toList());
+            return Flowable.concat(
+                Segmented.text("{"),
+                Flowable.range(0, vers.size()).concatMapEager(
+                    idx -> {
+                        final String prefix;
+                        if (idx == 0) {
+                            prefix = "";
+                        } else {
+                            prefix = ",";
+                        }
+                        return Segmented.text(
+                            String.format("%s%s:", prefix, Json.createValue(vers.get(idx)))
+                        ).concatWith(
+                            SingleInterop.fromFuture(
+                                this.storage.value(Segmented.version(pkg, vers.get(idx)))
+                            ).flatMapPublisher(content -> content)
+                        );
+                    },
+                    Segmented.PARALLEL,
+                    1
+                ),
+                Segmented.text("}")
+            );
+        }
+
+        /**
+         * Reads version documents or puts placeholders instead of them.
+         * @param pkg Package key
+         * @param index Index
+         * @param versions Read version documents?
+         * @return Packument
+         */
+        private CompletionStage<JsonObject> versions(final Key pkg, final JsonObject index,
+            final boolean versions) {
+            final List<String> names = index.getJsonArray(Segmented.VERSIONS)
+                .getValuesAs(JsonString.class).stream()
+                .map(JsonString::getString)
+                .collect(Collectors.toList());
+            final Single<JsonObject> vers;
+            if (versions) {
+                vers = Flowable.fromIterable(names).concatMapEager(
+                    name -> SingleInterop.fromFuture(
+                        this.storage.value(Segmented.version(pkg, name))
+                            .thenCompose(content -> new PublisherAs(content).bytes())
+                    ).map(MetaStore::json).toFlowable(),
+                    Segmented.PARALLEL,
+                    1
+                ).toList().map(
+                    docs -> {
+                        final JsonObjectBuilder res = Json.createObjectBuilder();
+                        for (int idx = 0; idx < names.size(); idx = idx + 1) {
+                            res.add(names.get(idx), docs.get(idx));
+                        }
+                        return res.build();
+                    }
+                );
+            } else {
+                final JsonObjectBuilder res = Json.createObjectBuilder();
+                names.forEach(name -> res.add(name, JsonValue.NULL));
+                vers = Single.just(res.build());
+            }
+            return vers.map(
+                obj -> Json.createObjectBuilder(index).add(Segmented.VERSIONS, obj).build()
+            ).to(SingleInterop.get());
+        }
+
+        /**
+         * Reads index.
+         * @param pkg Package key
+         * @return Index, empty if package is not segmented
+         */
+        private CompletableFuture<Optional<JsonObject>> index(final Key pkg) {
+            return new MetaStore(this.storage).json(Segmented.indexKey(pkg));
+        }
+
+        /**
+         * Index of the packument.
+         * @param json Packument
+         * @return Index
+         */
+        private static JsonObject indexOf(final JsonObject json) {
+            final JsonArrayBuilder names = Json.createArrayBuilder();
+            json.getJsonObject(Segmented.VERSIONS).keySet().forEach(names::add);
+            return Json.createObjectBuilder(json).add(Segmented.VERSIONS, names).build();
+        }
+
+        /**
+         * Text as bytes flow.
+         * @param text Text
+         * @return Bytes
+         */
+        private static Flowable<ByteBuffer> text(final String text) {
+            return Flowable.just(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        /**
+         * Index key.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key indexKey(final Key pkg) {
+            return new Key.From(pkg, "meta", "index.json");
+        }
+
+        /**
+         * Abbreviated packument key.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key abbreviatedKey(final Key pkg) {
+            return new Key.From(pkg, "meta", "abbreviated.json");
+        }
+
+        /**
+         * Validators sidecar key.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key validatorsKey(final Key pkg) {
+            return new Key.From(pkg, "meta", "validators.json");
+        }
+
+        /**
+         * Dist-tags sidecar key.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key distTagsKey(final Key pkg) {
+            return new Key.From(pkg, "meta", "dist-tags.json");
+        }
+
+        /**
+         * Version document key.
+         * @param pkg Package key
+         * @param version Version
+         * @return Key
+         */
+        private static Key version(final Key pkg, final String version) {
+            return new Key.From(pkg, "meta", "versions", String.format("%s.json", version));
+        }
+    }
+
+    /**
+     * Packument bytes, abbreviated packument bytes, dist-tags and validators
+     * cached in memory. Cache is bounded by the total size of cached bytes,
+     * least recently used packuments are evicted first.
+     * Packument is removed from the cache on every write and delete, so all
+     * the writers of the package must use the same instance, e.g. via shared
+     * {@link MetaQueue}. Reads are passed to the origin layout as is.
+     * @since 0.10
+     */
+    final class Cached implements MetaLayout {
+
+        /**
+         * Number of write stamp stripes.
+         */
+        private static final int STRIPES = 64;
+
+        /**
+         * Max number of cached validators.
+         */
+        private static final int VALIDATORS = 10_000;
+
+        /**
+         * Origin layout.
+         */
+        private final MetaLayout origin;
+
+        /**
+         * Cached packument bytes by package key.
+         */
+        private final Cache<String, byte[]> cache;
+
+        /**
+         * Cached validators by package key.
+         */
+        private final Cache<String, MetaValidators> valid;
+
+        /**
+         * Write stamps of the package stripes. Packument which was read from
+         * the origin is not cached if the package stripe was written meanwhile.
+         */
+        private final long[] stamps;
+
+        /**
+         * Ctor.
+         * @param origin Origin layout
+         * @param bytes Max total size of cached packuments in bytes
+         */
+        public Cached(final MetaLayout origin, final long bytes) {
+            this.origin = origin;
+            this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(bytes)
+                .weigher((String key, byte[] val) -> val.length)
+                .build();
+            this.valid = CacheBuilder.newBuilder()
+                .maximumSize(Cached.VALIDATORS)
+                .build();
+            this.stamps = new long[Cached.STRIPES];
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            final CompletableFuture<Boolean> res;
+            if (this.cache.getIfPresent(pkg.string()) == null) {
+                res = this.origin.exists(pkg);
+            } else {
+                res = CompletableFuture.completedFuture(true);
+            }
+            return res;
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return this.origin.read(pkg, versions);
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            this.invalidate(pkg);
+            return this.origin.write(pkg, before, after)
+                .whenComplete((nothing, err) -> this.invalidate(pkg));
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return this.bytes(pkg, pkg.string(), this.origin::content);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return this.bytes(pkg, Cached.abbreviatedKey(pkg), this.origin::abbreviated);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return this.bytes(pkg, Cached.distTagsKey(pkg), this.origin::distTags);
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            final MetaValidators cached = this.valid.getIfPresent(pkg.string());
+            final CompletableFuture<Optional<MetaValidators>> res;
+            if (cached == null) {
+                final long stamp = this.stamp(pkg);
+                res = this.origin.validators(pkg).thenApply(
+                    validators -> {
+                        validators.ifPresent(
+                            val -> this.cache(this.valid, pkg, pkg.string(), stamp, val)
+                        );
+                        return validators;
+                    }
+                );
+            } else {
+                res = CompletableFuture.completedFuture(Optional.of(cached));
+            }
+            return res;
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            this.invalidate(pkg);
+            return this.origin.delete(pkg)
+                .whenComplete((nothing, err) -> this.invalidate(pkg));
+        }
+
+        /**
+         * Cached bytes or bytes from the origin.
+         * @param pkg Package key
+         * @param key Cache key
+         * @param source Origin source of bytes
+         * @return Content
+         */
+        private CompletableFuture<Optional<Content>> bytes(final Key pkg, final String key,
+            final Function<Key, CompletableFuture<Optional<Content>>> source) {
+            final byte[] cached = this.cache.getIfPresent(key);
+            final CompletableFuture<Optional<Content>> res;
+            if (cached == null) {
+                final long stamp = this.stamp(pkg);
+                res = source.apply(pkg).thenCompose(
+                    content -> content.map(
+                        pub -> new PublisherAs(pub).bytes().thenApply(
+                            bytes -> {
+                                this.cache(this.cache, pkg, key, stamp, bytes);
+                                return Optional.<Content>of(new Content.From(bytes));
+                            }
+                        ).toCompletableFuture()
+                    ).orElse(CompletableFuture.completedFuture(Optional.empty()))
+                );
+            } else {
+                res = CompletableFuture.completedFuture(
+                    Optional.of(new Content.From(cached))
+                );
+            }
+            return res;
+        }
+
+        /**
+         * Current write stamp of the package.
+         * @param pkg Package key
+         * @return Stamp
+         */
+        private long stamp(final Key pkg) {
+            synchronized (this.stamps) {
+                return this.stamps[Cached.stripe(pkg)];
+            }
+        }
+
+        /**
+         * Caches value, unless package was written after the value
+         * was requested from the origin.
+         * @param target Cache
+         * @param pkg Package key
+         * @param key Cache key
+         * @param stamp Write stamp when value was requested
+         * @param value Value
+         * @param <T> Value type
+         */
+        private <T> void cache(final Cache<String, T> target, final Key pkg, final String key,
+            final long stamp, final T value) {
+            synchronized (this.stamps) {
+                if (this.stamps[Cached.stripe(pkg)] == stamp) {
+                    target.put(key, value);
+                }
+            }
+        }
+
+        /**
+         * Removes packument from the cache and marks the package as written.
+         * @param pkg Package key
+         */
+        private void invalidate(final Key pkg) {
+            synchronized (this.stamps) {
+                this.stamps[Cached.stripe(pkg)] += 1;
+                this.cache.invalidate(pkg.string());
+                this.cache.invalidate(Cached.abbreviatedKey(pkg));
+                this.cache.invalidate(Cached.distTagsKey(pkg));
+                this.valid.invalidate(pkg.string());
+            }
+        }
+
+        /**
+         * Cache key of abbreviated packument.
+         * @param pkg Package key
+         * @return Cache key
+         */
+        private static String abbreviatedKey(final Key pkg) {
+            return String.format("%s#abbreviated", pkg.string());
+        }
+
+        /**
+         * Cache key of dist-tags.
+         * @param pkg Package key
+         * @return Cache key
+         */
+        private static String distTagsKey(final Key pkg) {
+            return String.format("%s#dist-tags", pkg.string());
+        }
+
+        /**
+         * Write stamp stripe of the package.
+         * @param pkg Package key
+         * @return Stripe index
+         */
+        private static int stripe(final Key pkg) {
+            return Math.floorMod(pkg.string().hashCode(), Cached.STRIPES);
+        }
+    }
+
+    /**
+     * Layout which keeps {@link SearchIndex} up to date: package is indexed
+     * after every successful write and removed from the index after delete.
+     * @since 0.10
+     */
+    final class Indexed implements MetaLayout {
+
+        /**
+         * Origin layout.
+         */
+        private final MetaLayout origin;
+
+        /**
+         * Search index.
+         */
+        private final SearchIndex index;
+
+        /**
+         * Ctor.
+         * @param origin Origin layout
+         * @param index Search index
+         */
+        public Indexed(final MetaLayout origin, final SearchIndex index) {
+            this.origin = origin;
+            this.index = index;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            return this.origin.exists(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return this.origin.read(pkg, versions);
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            return this.origin.write(pkg, before, after)
+                .thenRun(() -> this.index.update(pkg, after));
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return this.origin.content(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return this.origin.abbreviated(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return this.origin.distTags(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            return this.origin.validators(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            return this.origin.delete(pkg).thenRun(() -> this.index.remove(pkg));
+        }
+    }
+
+    /**
+     * Layout which rejects packument writes of the package which is being
+     * purged after force unpublish with {@link PackagePurgedException}, so
+     * purge does not delete keys of the package published again meanwhile.
+     * Deletes are passed through. Costs one tombstone existence check per write.
+     * @since 0.10
+     */
+    final class Guarded implements MetaLayout {
+
+        /**
+         * Origin layout.
+         */
+        private final MetaLayout origin;
+
+        /**
+         * Package purge.
+         */
+        private final PackagePurge purge;
+
+        /**
+         * Ctor.
+         * @param origin Origin layout
+         * @param purge Package purge
+         */
+        public Guarded(final MetaLayout origin, final PackagePurge purge) {
+            this.origin = origin;
+            this.purge = purge;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            return this.origin.exists(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return this.origin.read(pkg, versions);
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            return this.purge.purging(pkg).thenCompose(
+                purging -> {
+                    final CompletableFuture<Void> res;
+                    if (purging) {
+                        res = new CompletableFuture<>();
+                        res.completeExceptionally(
+                            new PackagePurgedException(
+                                String.format("Package %s is being unpublished", pkg.string())
+                            )
+                        );
+                    } else {
+                        res = this.origin.write(pkg, before, after);
+                    }
+                    return res;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return this.origin.content(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return this.origin.abbreviated(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return this.origin.distTags(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            return this.origin.validators(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            return this.origin.delete(pkg);
+        }
+    }
+
+    /**
+     * Layout which gives every written packument a new {@link Revision} and
+     * writes it only if the stored revision is the one the packument was
+     * read with (compare-and-set), otherwise write fails with
+     * {@link MetaConflictException}, so writers re-read and re-apply their
+     * changes, see {@link MetaQueue}. Current revision is kept in
+     * `meta.rev` sidecar under the package key, revision check and write are done
+     * under storage lock of the sidecar, so writers of several nodes sharing
+     * the storage do not lose each other's updates. Lock is not waited for:
+     * if it is held by another writer, write fails with conflict as well.
+     * Lock expires after a while, so writer crash does not block the package.
+     * Every write pays for lock acquire and release and for the sidecar read
+     * and write, so this layout is needed only when several nodes write to
+     * the same storage: writers of one process are serialized by
+     * {@link MetaQueue} anyway.
+     * @since 0.10
+     */
+    final class Revisioned implements MetaLayout {
+
+        /**
+         * Default lock expiration.
+         */
+        private static final Duration EXPIRATION = Duration.ofMinutes(1);
+
+        /**
+         * Origin layout.
+         */
+        private final MetaLayout origin;
+
+        /**
+         * Storage for revisions and locks.
+         */
+        private final Storage storage;
+
+        /**
+         * Lock expiration.
+         */
+        private final Duration expiration;
+
+        /**
+         * Ctor.
+         * @param origin Origin layout
+         * @param storage Storage for revisions and locks
+         */
+        public Revisioned(final MetaLayout origin, final Storage storage) {
+            this(origin, storage, Revisioned.EXPIRATION);
+        }
+
+        /**
+         * Ctor.
+         * @param origin Origin layout
+         * @param storage Storage for revisions and locks
+         * @param expiration Lock expiration, should be longer than packument write
+         */
+        public Revisioned(final MetaLayout origin, final Storage storage,
+            final Duration expiration) {
+            this.origin = origin;
+            this.storage = storage;
+            this.expiration = expiration;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            return this.origin.exists(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return this.origin.read(pkg, versions);
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            final Key key = Revisioned.revKey(pkg);
+            final Revision expected = before.map(Revision::new)
+                .orElseGet(() -> new Revision(Optional.empty()));
+            final Revision next = expected.next();
+            final AtomicBoolean locked = new AtomicBoolean(false);
+            return new UnderLockOperation<>(
+                new StorageLock(this.storage, key, Instant.now().plus(this.expiration)),
+                sto -> {
+                    locked.set(true);
+                    return new MetaStore(sto).value(key).thenCompose(
+                        content -> content.map(
+                            pub -> new PublisherAs(pub).asciiString()
+                                .thenApply(val -> new Revision(Optional.of(val)))
+                                .toCompletableFuture()
+                        ).orElse(
+                            CompletableFuture.completedFuture(new Revision(Optional.empty()))
+                        )
+                    ).thenCompose(
+                        current -> {
+                            if (Revisioned.conflict(expected, current)) {
+                                throw new MetaConflictException(
+                                    String.format(
+                                        "Package %s was modified: revision `%s` is not `%s`",
+                                        pkg.string(), current.value().orElse(""),
+                                        expected.value().orElse("")
+                                    )
+                                );
+                            }
+                            return this.origin.write(pkg, before, next.applyTo(after));
+                        }
+                    ).thenCompose(
+                        nothing -> sto.save(
+                            key,
+                            new Content.From(
+                                next.value().get().getBytes(StandardCharsets.US_ASCII)
+                            )
+                        )
+                    );
+                }
+            ).perform(this.storage).toCompletableFuture().handle(
+                (nothing, err) -> {
+                    final CompletableFuture<Void> res = new CompletableFuture<>();
+                    if (err == null) {
+                        res.complete(null);
+                    } else if (locked.get()) {
+                        res.completeExceptionally(err);
+                    } else {
+                        res.completeExceptionally(
+                            new MetaConflictException(
+                                String.format("Package %s is being modified", pkg.string()),
+                                err
+                            )
+                        );
+                    }
+                    return res;
+                }
+            ).thenCompose(Function.identity());
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return this.origin.content(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return this.origin.abbreviated(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return this.origin.distTags(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            return this.origin.validators(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            return this.origin.delete(pkg).thenCompose(
+                nothing -> new MetaValidators.Stored(this.storage)
+                    .delete(Revisioned.revKey(pkg))
+            );
+        }
+
+        /**
+         * Is packument read with expected revision modified since then?
+         * Stored revision which is older than the expected one is left by the
+         * write which saved packument but failed to save revision, it is
+         * not a conflict. Package without stored revision was written before
+         * revisions were introduced, or was not written at all.
+         * @param expected Revision packument was read with
+         * @param current Stored revision
+         * @return True if packument was modified
+         */
+        private static boolean conflict(final Revision expected, final Revision current) {
+            return current.value().isPresent()
+                && !current.value().equals(expected.value())
+                && expected.number() <= current.number();
+        }
+
+        /**
+         * Revision sidecar key.
+         * @param pkg Package key
+         * @return Key
+         */
+        private static Key revKey(final Key pkg) {
+            return new Key.From(pkg, "meta.rev");
+        }
+    }
+
+    /**
+     * Layout which records every write and delete in the {@link MetaJournal}
+     * as a part of it: entry is saved before the origin write and is removed
+     * if the write fails, see {@link MetaJournal#append}. Change type of the
+     * write is found by comparing packuments before and after it, see
+     * {@link MetaJournal.Change#of}. Should wrap the layout of every writer
+     * of the repository.
+     * @since 0.10
+     */
+    final class Journaled implements MetaLayout {
+
+        /**
+         * Origin layout.
+         */
+        private final MetaLayout origin;
+
+        /**
+         * Journal.
+         */
+        private final MetaJournal journal;
+
+        /**
+         * Ctor.
+         * @param origin Origin layout
+         * @param journal Journal
+         */
+        public Journaled(final MetaLayout origin, final MetaJournal journal) {
+            this.origin = origin;
+            this.journal = journal;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Key pkg) {
+            return this.origin.exists(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<JsonObject>> read(final Key pkg,
+            final boolean versions) {
+            return this.origin.read(pkg, versions);
+        }
+
+        @Override
+        public CompletableFuture<Void> write(final Key pkg, final Optional<JsonObject> before,
+            final JsonObject after) {
+            return this.journal.append(
+                pkg, before, Optional.of(after), () -> this.origin.write(pkg, before, after)
+            ).thenApply(seq -> null);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> content(final Key pkg) {
+            return this.origin.content(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> abbreviated(final Key pkg) {
+            return this.origin.abbreviated(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Content>> distTags(final Key pkg) {
+            return this.origin.distTags(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Optional<MetaValidators>> validators(final Key pkg) {
+            return this.origin.validators(pkg);
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key pkg) {
+            return this.journal.append(
+                pkg, Optional.empty(), Optional.empty(), () -> this.origin.delete(pkg)
+            ).thenApply(seq -> null);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import javax.json.JsonObject;
+
+/**
+ * Queue of `meta.json` mutations.
+ * Mutations of one package are applied strictly one after another: all the
+ * mutations which were queued while previous `meta.json` write was in
+ * progress are folded into one read-modify-write (group commit). Mutations
+ * of different packages go in parallel, CPU work (parsing, patching and
+ * serialization of `meta.json`) runs on the package stripe executor.
+ * One queue instance should be shared by all the writers of the storage.
+ * If the layout rejects the write because `meta.json` was modified
+ * concurrently (e.g. by another node, see {@link MetaLayout.Revisioned}),
+ * `meta.json` is read again and pending mutations are applied again,
+ * a few times at most. Package removal goes through the queue as well, so it
+ * is ordered with the mutations queued before and after it.
+ * @since 0.10
+ */
+public final class MetaQueue {
+
+    /**
+     * Max number of read-modify-write attempts on conflicts.
+     */
+    private static final int ATTEMPTS = 5;
+
+    /**
+     * Removal of the packument.
+     */
+    private static final Mutation REMOVAL = meta -> {
+        throw new IllegalStateException("Removal is not applied to packument");
+    };
+
+    /**
+     * Packument layout.
+     */
+    private final MetaLayout layout;
+
+    /**
+     * Stripe executors.
+     */
+    private final Executor[] stripes;
+
+    /**
+     * Pending mutations by package key.
+     */
+    private final ConcurrentMap<String, Deque<Pending>> queues;
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     */
+    public MetaQueue(final Storage storage) {
+        this(new MetaLayout.Whole(storage));
+    }
+
+    /**
+     * Ctor with stripes on the common fork-join pool, pass dedicated
+     * executor with {@link #MetaQueue(MetaLayout, Executor)} in servers.
+     * @param layout Packument layout
+     */
+    public MetaQueue(final MetaLayout layout) {
+        this(layout, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Ctor with stripe per processor.
+     * @param layout Packument layout
+     * @param exec Executor to run stripes on
+     */
+    public MetaQueue(final MetaLayout layout, final Executor exec) {
+        this(layout, Runtime.getRuntime().availableProcessors(), exec);
+    }
+
+    /**
+     * Ctor.
+     * @param layout Packument layout
+     * @param stripes Number of stripes
+     * @param exec Executor to run stripes on
+     */
+    public MetaQueue(final MetaLayout layout, final int stripes, final Executor exec) {
+        this.layout = layout;
+        this.stripes = new Executor[stripes];
+        for (int idx = 0; idx < stripes; idx = idx + 1) {
+            this.stripes[idx] = MoreExecutors.newSequentialExecutor(exec);
+        }
+        this.queues = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Checks that package exists.
+     * @param pkg Package key
+     * @return True if package metadata exists
+     */
+    public CompletableFuture<Boolean> exists(final Key pkg) {
+        return this.layout.exists(pkg);
+    }
+
+    /**
+     * Queues `meta.json` mutation of the package.
+     * @param pkg Package key
+     * @param mutation Mutation
+     * @return Completes when `meta.json` with the mutation applied is saved,
+     *  fails with the mutation error or storage error
+     */
+    public CompletableFuture<Void> update(final Key pkg, final Mutation mutation) {
+        final Pending pending = new Pending(mutation);
+        final AtomicBoolean start = new AtomicBoolean(false);
+        this.queues.compute(
+            pkg.string(),
+            (key, queue) -> {
+                final Deque<Pending> res;
+                if (queue == null) {
+                    res = new ArrayDeque<>(1);
+                    start.set(true);
+                } else {
+                    res = queue;
+                }
+                res.add(pending);
+                return res;
+            }
+        );
+        if (start.get()) {
+            this.commit(pkg);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Queues removal of the package metadata, see {@link MetaLayout#delete}.
+     * Mutations queued after the removal start from empty `meta.json`.
+     * @param pkg Package key
+     * @return Completes when package metadata is removed
+     */
+    public CompletableFuture<Void> delete(final Key pkg) {
+        return this.update(pkg, MetaQueue.REMOVAL);
+    }
+
+    /**
+     * Queues `meta.json` mutation of the existing package. Package existence
+     * is checked by the same read the mutation is applied to, so callers
+     * do not check it before.
+     * @param pkg Package key
+     * @param mutation Mutation of existing `meta.json`
+     * @return Completes with true when `meta.json` with the mutation applied
+     *  is saved, with false if there is no such package, fails with the
+     *  mutation error or storage error
+     */
+    public CompletableFuture<Boolean> updateExisting(final Key pkg,
+        final UnaryOperator<JsonObject> mutation) {
+        final AtomicBoolean found = new AtomicBoolean(true);
+        return this.update(
+            pkg,
+            meta -> {
+                if (!meta.isPresent()) {
+                    found.set(false);
+                    throw new ArtipieException(
+                        String.format("Package %s not found", pkg.string())
+                    );
+                }
+                return mutation.apply(meta.get());
+            }
+        ).handle(
+            (nothing, err) -> {
+                final CompletableFuture<Boolean> res;
+                if (err == null) {
+                    res = CompletableFuture.completedFuture(true);
+                } else if (found.get()) {
+                    res = new CompletableFuture<>();
+                    res.completeExceptionally(err);
+                } else {
+                    res = CompletableFuture.completedFuture(false);
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Applies all pending mutations of the package in one read-modify-write.
+     * @param pkg Package key
+     */
+    private void commit(final Key pkg) {
+        final List<Pending> batch = new ArrayList<>(1);
+        this.queues.computeIfPresent(
+            pkg.string(),
+            (key, queue) -> {
+                batch.addAll(queue);
+                queue.clear();
+                return queue;
+            }
+        );
+        this.attempt(pkg, batch, MetaQueue.ATTEMPTS).handle(
+            (nothing, err) -> {
+                for (final Pending item : batch) {
+                    if (err == null) {
+                        item.future.complete(null);
+                    } else {
+                        item.future.completeExceptionally(err);
+                    }
+                }
+                this.next(pkg);
+                return nothing;
+            }
+        );
+    }
+
+    /**
+     * Reads `meta.json`, applies mutations which did not fail yet and writes
+     * it, starts again if write failed with conflict and there are attempts left.
+     * @param pkg Package key
+     * @param batch Batch of mutations
+     * @param left Attempts left
+     * @return Completion
+     */
+    private CompletableFuture<Void> attempt(final Key pkg, final List<Pending> batch,
+        final int left) {
+        final List<Pending> active = batch.stream()
+            .filter(item -> !item.future.isDone())
+            .collect(Collectors.toList());
+        final boolean versions = !active.stream()
+            .allMatch(
+                item -> item.mutation instanceof Append || item.mutation == MetaQueue.REMOVAL
+            );
+        return this.layout.read(pkg, versions).thenComposeAsync(
+            before -> this.apply(pkg, before, active),
+            this.stripe(pkg)
+        ).handle(
+            (nothing, err) -> {
+                final CompletableFuture<Void> res;
+                if (err == null) {
+                    res = CompletableFuture.completedFuture(null);
+                } else if (left > 1 && MetaConflictException.causedBy(err)) {
+                    res = this.attempt(pkg, batch, left - 1);
+                } else {
+                    res = new CompletableFuture<>();
+                    res.completeExceptionally(err);
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Starts next commit of the package, if there are pending mutations.
+     * @param pkg Package key
+     */
+    private void next(final Key pkg) {
+        final AtomicBoolean more = new AtomicBoolean(false);
+        this.queues.compute(
+            pkg.string(),
+            (key, queue) -> {
+                Deque<Pending> res = null;
+                if (queue != null && !queue.isEmpty()) {
+                    more.set(true);
+                    res = queue;
+                }
+                return res;
+            }
+        );
+        if (more.get()) {
+            this.commit(pkg);
+        }
+    }
+
+    /**
+     * Stripe executor of the package.
+     * @param pkg Package key
+     * @return Executor
+     */
+    private Executor stripe(final Key pkg) {
+        return this.stripes[Math.floorMod(pkg.string().hashCode(), this.stripes.length)];
+    }
+
+    /**
+     * Applies mutations of the batch one by one and writes the result: updated
+     * packument or its removal if the batch ends with removal. Failed mutation
+     * completes its future with the error right away and does not affect other
+     * mutations of the batch.
+     * @param pkg Package key
+     * @param before Current packument, empty if there is no such package
+     * @param batch Batch of mutations
+     * @return Completion of the write, completed if nothing was changed
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private CompletableFuture<Void> apply(final Key pkg, final Optional<JsonObject> before,
+        final List<Pending> batch) {
+        Optional<JsonObject> json = before;
+        boolean changed = false;
+        for (final Pending item : batch) {
+            if (item.mutation == MetaQueue.REMOVAL) {
+                json = Optional.empty();
+                changed = true;
+            } else {
+                try {
+                    json = Optional.of(item.mutation.apply(json));
+                    changed = true;
+                // @checkstyle IllegalCatchCheck (1 line)
+                } catch (final RuntimeException err) {
+                    item.future.completeExceptionally(err);
+                }
+            }
+        }
+        final CompletableFuture<Void> res;
+        if (!changed) {
+            res = CompletableFuture.allOf();
+        } else if (json.isPresent()) {
+            res = this.layout.write(pkg, before, json.get());
+        } else {
+            res = this.layout.delete(pkg);
+        }
+        return res;
+    }
+
+    /**
+     * Mutation of `meta.json`.
+     * @since 0.10
+     */
+    @FunctionalInterface
+    public interface Mutation {
+
+        /**
+         * Applies mutation.
+         * @param meta Current `meta.json`, empty if package does not exist yet
+         * @return Updated `meta.json`
+         */
+        JsonObject apply(Optional<JsonObject> meta);
+    }
+
+    /**
+     * Mutation which only adds or replaces versions and never reads
+     * existing version documents, so the layout may not load them.
+     * @since 0.10
+     */
+    public interface Append extends Mutation {
+    }
+
+    /**
+     * Pending mutation.
+     * @since 0.10
+     */
+    private static final class Pending {
+
+        /**
+         * Mutation.
+         */
+        private final Mutation mutation;
+
+        /**
+         * Completion of the mutation.
+         */
+        private final CompletableFuture<Void> future;
+
+        /**
+         * Ctor.
+         * @param mutation Mutation
+         */
+        Pending(final Mutation mutation) {
+            this.mutation = mutation;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
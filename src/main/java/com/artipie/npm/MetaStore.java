@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ValueNotFoundException;
+import com.artipie.asto.ext.PublisherAs;
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import javax.json.Json;
+import javax.json.JsonObject;
+
+/**
+ * Metadata documents of the hosted repository: packuments, their sidecars,
+ * version documents and tarball digests. Every document is read with one
+ * storage request, missing document is an empty result, so readers do not
+ * check that the key exists before reading it.
+ * @since 0.10
+ */
+public final class MetaStore {
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     */
+    public MetaStore(final Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Document content.
+     * @param key Document key
+     * @return Content, empty if there is no such document
+     */
+    public CompletableFuture<Optional<Content>> value(final Key key) {
+        return this.storage.value(key).handle(
+            (content, err) -> {
+                final CompletableFuture<Optional<Content>> res;
+                if (err == null) {
+                    res = CompletableFuture.completedFuture(Optional.of(content));
+                } else if (MetaStore.missing(err)) {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                } else {
+                    res = new CompletableFuture<>();
+                    res.completeExceptionally(err);
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Json document.
+     * @param key Document key
+     * @return Json object, empty if there is no such document
+     */
+    public CompletableFuture<Optional<JsonObject>> json(final Key key) {
+        return this.value(key).thenCompose(
+            content -> content.map(
+                pub -> new PublisherAs(pub).bytes()
+                    .thenApply(MetaStore::json)
+                    .thenApply(Optional::of)
+                    .toCompletableFuture()
+            ).orElse(CompletableFuture.completedFuture(Optional.empty()))
+        );
+    }
+
+    /**
+     * Deletes document. Storages report deletion of missing key differently,
+     * so failed deletion is checked with one more request.
+     * @param key Document key
+     * @return Completion, missing document is not an error
+     */
+    public CompletableFuture<Void> delete(final Key key) {
+        return this.storage.delete(key).handle(
+            (nothing, err) -> {
+                final CompletableFuture<Void> res;
+                if (err == null) {
+                    res = CompletableFuture.allOf();
+                } else {
+                    res = this.storage.exists(key).thenCompose(
+                        exists -> {
+                            final CompletableFuture<Void> gone = new CompletableFuture<>();
+                            if (exists) {
+                                gone.completeExceptionally(err);
+                            } else {
+                                gone.complete(null);
+                            }
+                            return gone;
+                        }
+                    );
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Parses json bytes.
+     * @param bytes Bytes
+     * @return Json object
+     */
+    static JsonObject json(final byte[] bytes) {
+        return Json.createReader(new ByteArrayInputStream(bytes)).readObject();
+    }
+
+    /**
+     * Is it an error of reading missing key?
+     * @param err Error
+     * @return True if key does not exist
+     */
+    private static boolean missing(final Throwable err) {
+        final Throwable cause;
+        if (err instanceof CompletionException && err.getCause() != null) {
+            cause = err.getCause();
+        } else {
+            cause = err;
+        }
+        return cause instanceof ValueNotFoundException;
+    }
+}
@@ -4,20 +4,17 @@
  */
 package com.artipie.npm;
 
-import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
-import com.artipie.asto.ext.ContentDigest;
-import com.artipie.asto.ext.Digests;
-import com.artipie.npm.misc.JsonFromPublisher;
-import hu.akarnokd.rxjava2.interop.SingleInterop;
-import java.util.Base64;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonPatchBuilder;
-import org.apache.commons.codec.binary.Hex;
 
 /**
  * Updating `meta.json` file.
@@ -25,18 +22,33 @@ import org.apache.commons.codec.binary.Hex;
  */
 public interface MetaUpdate {
     /**
-     * Update `meta.json` file by the specified prefix.
+     * Update `meta.json` file by the specified prefix. Update is queued, so it
+     * goes through the layout of the queue and is serialized with other
+     * mutations of the package.
+     * @param prefix The package prefix
+     * @param queue Queue of `meta.json` mutations shared by all the writers
+     * @return Completion or error signal.
+     */
+    CompletableFuture<Void> update(Key prefix, MetaQueue queue);
+
+    /**
+     * Update `meta.json` file by the specified prefix through a private queue.
      * @param prefix The package prefix
      * @param storage Abstract storage
      * @return Completion or error signal.
+     * @deprecated Update is not serialized with other writers of the storage,
+     *  use {@link #update(Key, MetaQueue)} with the shared queue
      */
-    CompletableFuture<Void> update(Key prefix, Storage storage);
+    @Deprecated
+    default CompletableFuture<Void> update(final Key prefix, final Storage storage) {
+        return this.update(prefix, new MetaQueue(storage));
+    }
 
     /**
      * Update `meta.json` by adding information from the uploaded json.
      * @since 0.9
      */
-    class ByJson implements MetaUpdate {
+    class ByJson implements MetaUpdate, MetaQueue.Append {
         /**
          * The uploaded json.
          */
@@ -52,69 +64,84 @@ public interface MetaUpdate {
         }
 
         @Override
-        public CompletableFuture<Void> update(final Key prefix, final Storage storage) {
-            final Key keymeta = new Key.From(prefix, "meta.json");
-            return storage.exists(keymeta)
-                .thenCompose(
-                    exists -> {
-                        final CompletionStage<Meta> meta;
-                        if (exists) {
-                            meta = storage.value(keymeta)
-                                .thenApply(JsonFromPublisher::new)
-                                .thenCompose(JsonFromPublisher::json)
-                                .thenApply(Meta::new);
-                        } else {
-                            meta = CompletableFuture.completedFuture(
-                                new Meta(
-                                    new NpmPublishJsonToMetaSkelethon(this.json).skeleton()
-                                )
-                            );
-                        }
-                        return meta;
-                    })
-                .thenApply(meta -> meta.updatedMeta(this.json))
-                .thenCompose(
-                    meta -> storage.save(
-                        keymeta, new Content.From(meta.byteFlow())
-                    )
-                );
+        public CompletableFuture<Void> update(final Key prefix, final MetaQueue queue) {
+            return queue.update(prefix, this);
+        }
+
+        @Override
+        public JsonObject apply(final Optional<JsonObject> meta) {
+            return meta.map(Meta::new)
+                .orElseGet(
+                    () -> new Meta(new NpmPublishJsonToMetaSkelethon(this.json).skeleton())
+                )
+                .updatedMeta(this.json)
+                .json();
         }
     }
 
     /**
      * Update `meta.json` by adding information from the package file
-     * from uploaded archive.
+     * from uploaded archive. Archive is read only once, see {@link TgzScan}.
      * @since 0.9
      */
     class ByTgz implements MetaUpdate {
         /**
-         * Uploaded tgz archive.
+         * Scan of uploaded tgz archive.
          */
-        private final TgzArchive tgz;
+        private final Supplier<CompletionStage<TgzScan.Scanned>> scanned;
 
         /**
          * Ctor.
          * @param tgz Uploaded tgz file
          */
         public ByTgz(final TgzArchive tgz) {
-            this.tgz = tgz;
+            this(
+                () -> new TgzScan(
+                    Flowable.fromCallable(() -> ByteBuffer.wrap(tgz.bytes()))
+                ).scan()
+            );
+        }
+
+        /**
+         * Ctor.
+         * @param scanned Already scanned uploaded tgz file
+         */
+        public ByTgz(final TgzScan.Scanned scanned) {
+            this(() -> CompletableFuture.completedFuture(scanned));
+        }
+
+        /**
+         * Ctor.
+         * @param scanned Scan of uploaded tgz archive
+         */
+        private ByTgz(final Supplier<CompletionStage<TgzScan.Scanned>> scanned) {
+            this.scanned = scanned;
         }
 
         @Override
-        public CompletableFuture<Void> update(final Key prefix, final Storage storage) {
+        public CompletableFuture<Void> update(final Key prefix, final MetaQueue queue) {
+            return this.byJson(prefix)
+                .thenCompose(upd -> upd.update(prefix, queue))
+                .toCompletableFuture();
+        }
+
+        /**
+         * Update by the json built from the archive.
+         * @param prefix The package prefix
+         * @return Update by json, which can also be queued to {@link MetaQueue}
+         */
+        public CompletionStage<ByJson> byJson(final Key prefix) {
             final String version = "version";
-            final JsonPatchBuilder patch = Json.createPatchBuilder();
-            patch.add("/dist", Json.createObjectBuilder().build());
-            return ByTgz.hash(this.tgz, Digests.SHA512, true)
-                .thenAccept(sha -> patch.add("/dist/integrity", String.format("sha512-%s", sha)))
-                .thenCombine(
-                    ByTgz.hash(this.tgz, Digests.SHA1, false),
-                    (nothing, sha) -> patch.add("/dist/shasum", sha)
-                ).thenCombine(
-                    this.tgz.packageJson().to(SingleInterop.get()),
-                    (nothing, pkg) -> {
+            return this.scanned.get()
+                .thenApply(
+                    tgz -> {
+                        final JsonObject pkg = tgz.packageJson();
                         final String name = pkg.getString("name");
                         final String vers = pkg.getString(version);
+                        final JsonPatchBuilder patch = Json.createPatchBuilder();
+                        patch.add("/dist", Json.createObjectBuilder().build());
+                        patch.add("/dist/integrity", tgz.integrity());
+                        patch.add("/dist/shasum", tgz.shasum());
                         patch.add("/_id", String.format("%s@%s", name, vers));
                         patch.add(
                             "/dist/tarball",
@@ -134,33 +161,7 @@ public interface MetaUpdate {
                         return upd.build().apply(base);
                     }
                 )
-                .thenCompose(json -> new ByJson(json).update(prefix, storage))
-                .toCompletableFuture();
-        }
-
-        /**
-         * Obtains specified hash value for passed archive.
-         * @param tgz Tgz archive
-         * @param dgst Digest mode
-         * @param encoded Is encoded64?
-         * @return Hash value.
-         */
-        private static CompletionStage<String> hash(
-            final TgzArchive tgz, final Digests dgst, final boolean encoded
-        ) {
-            return new ContentDigest(new Content.From(tgz.bytes()), dgst)
-                .bytes()
-                .thenApply(
-                    bytes -> {
-                        final String res;
-                        if (encoded) {
-                            res = new String(Base64.getEncoder().encode(bytes));
-                        } else {
-                            res = Hex.encodeHexString(bytes);
-                        }
-                        return res;
-                    }
-                );
+                .thenApply(ByJson::new);
         }
     }
 }
@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * HTTP validators of the packument: strong entity tag and modification time.
+ * They are calculated when packument is written and are stored next to it,
+ * so conditional requests are answered without reading the packument.
+ * Validators are maintained by {@link MetaLayout} writes only, so packuments
+ * written by the layout must not be modified directly in the storage.
+ * @since 0.10
+ */
+public final class MetaValidators {
+
+    /**
+     * Tag field.
+     */
+    private static final String TAG = "etag";
+
+    /**
+     * Modified field.
+     */
+    private static final String MODIFIED = "modified";
+
+    /**
+     * Entity tag, not quoted.
+     */
+    private final String tag;
+
+    /**
+     * Value of `time.modified` of the packument.
+     */
+    private final Optional<String> modified;
+
+    /**
+     * Ctor.
+     * @param tag Entity tag, not quoted
+     * @param modified Value of `time.modified` of the packument
+     */
+    public MetaValidators(final String tag, final Optional<String> modified) {
+        this.tag = tag;
+        this.modified = modified;
+    }
+
+    /**
+     * Ctor.
+     * @param json Stored validators
+     */
+    public MetaValidators(final JsonObject json) {
+        this(
+            json.getString(MetaValidators.TAG),
+            Optional.ofNullable(json.getString(MetaValidators.MODIFIED, null))
+        );
+    }
+
+    /**
+     * Validators of the written packument.
+     * @param bytes Written packument bytes
+     * @param packument Written packument
+     * @return Validators
+     */
+    public static MetaValidators of(final byte[] bytes, final JsonObject packument) {
+        return new MetaValidators(DigestUtils.sha1Hex(bytes), MetaValidators.modified(packument));
+    }
+
+    /**
+     * Validators of the packument written as a change of this one, used when
+     * written bytes are not the whole packument: new tag is the digest of this
+     * tag and the written bytes.
+     * @param bytes Written bytes
+     * @param packument Written packument
+     * @return Validators
+     */
+    public MetaValidators next(final byte[] bytes, final JsonObject packument) {
+        final byte[] prev = this.tag.getBytes(StandardCharsets.US_ASCII);
+        final byte[] all = new byte[prev.length + bytes.length];
+        System.arraycopy(prev, 0, all, 0, prev.length);
+        System.arraycopy(bytes, 0, all, prev.length, bytes.length);
+        return MetaValidators.of(all, packument);
+    }
+
+    /**
+     * Strong entity tag.
+     * @return Quoted ETag value
+     */
+    public String etag() {
+        return this.etag("");
+    }
+
+    /**
+     * Strong entity tag of the packument representation, e.g. of the
+     * abbreviated packument: every representation needs its own tag.
+     * @param variant Representation name, empty for the full packument
+     * @return Quoted ETag value
+     */
+    public String etag(final String variant) {
+        final String res;
+        if (variant.isEmpty()) {
+            res = String.format("\"%s\"", this.tag);
+        } else {
+            res = String.format("\"%s-%s\"", this.tag, variant);
+        }
+        return res;
+    }
+
+    /**
+     * Last modification time.
+     * @return Time, empty if packument has no or malformed `time.modified`
+     */
+    public Optional<Instant> lastModified() {
+        return this.modified.flatMap(MetaValidators::instant);
+    }
+
+    /**
+     * Validators as json to store.
+     * @return Json
+     */
+    public JsonObject json() {
+        final JsonObjectBuilder res = Json.createObjectBuilder().add(MetaValidators.TAG, this.tag);
+        this.modified.ifPresent(time -> res.add(MetaValidators.MODIFIED, time));
+        return res.build();
+    }
+
+    /**
+     * Value of `time.modified`.
+     * @param packument Packument
+     * @return Modification time string
+     */
+    private static Optional<String> modified(final JsonObject packument) {
+        final JsonValue time = packument.get("time");
+        Optional<String> res = Optional.empty();
+        if (time instanceof JsonObject) {
+            res = Optional.ofNullable(((JsonObject) time).getString(MetaValidators.MODIFIED, null));
+        }
+        return res;
+    }
+
+    /**
+     * Parses time: npm writes ISO instants, this adapter writes local UTC time.
+     * @param time Time string
+     * @return Instant, empty if time can not be parsed
+     */
+    private static Optional<Instant> instant(final String time) {
+        Optional<Instant> res;
+        try {
+            res = Optional.of(Instant.parse(time));
+        } catch (final DateTimeParseException ignored) {
+            try {
+                res = Optional.of(LocalDateTime.parse(time).toInstant(ZoneOffset.UTC));
+            } catch (final DateTimeParseException err) {
+                res = Optional.empty();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Validators stored in the sidecar next to the packument.
+     * @since 0.10
+     */
+    public static final class Stored {
+
+        /**
+         * Storage.
+         */
+        private final Storage storage;
+
+        /**
+         * Ctor.
+         * @param storage Storage
+         */
+        public Stored(final Storage storage) {
+            this.storage = storage;
+        }
+
+        /**
+         * Save validators.
+         * @param key Sidecar key
+         * @param validators Validators
+         * @return Completion
+         */
+        public CompletableFuture<Void> save(final Key key, final MetaValidators validators) {
+            return this.storage.save(
+                key,
+                new Content.From(validators.json().toString().getBytes(StandardCharsets.UTF_8))
+            );
+        }
+
+        /**
+         * Load validators.
+         * @param key Sidecar key
+         * @return Validators, empty if there is no sidecar
+         */
+        public CompletableFuture<Optional<MetaValidators>> load(final Key key) {
+            return new MetaStore(this.storage).json(key)
+                .thenApply(json -> json.map(MetaValidators::new));
+        }
+
+        /**
+         * Remove validators if they exist.
+         * @param key Sidecar key
+         * @return Completion
+         */
+        public CompletableFuture<Void> delete(final Key key) {
+            return this.storage.exists(key).thenCompose(
+                exists -> {
+                    final CompletableFuture<Void> res;
+                    if (exists) {
+                        res = this.storage.delete(key);
+                    } else {
+                        res = CompletableFuture.allOf();
+                    }
+                    return res;
+                }
+            );
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.npm.misc.DateTimeNowStr;
+import hu.akarnokd.rxjava2.interop.CompletableInterop;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+
+/**
+ * Removal of the whole package (`npm unpublish --force`) in two steps.
+ * First {@link #tombstone(Key)} saves a tombstone under `.npm/purge/`, then
+ * {@link #purge(Key)} deletes package keys (packument, tarballs and their
+ * sidecars) in batches with limited number of concurrent deletes, saves
+ * progress to the tombstone after every batch and removes the tombstone when
+ * all the keys are deleted. If purge fails or the process stops, tombstone
+ * is kept and purge is continued by {@link #resume()}.
+ * Package can not be published again until its purge is complete: packument
+ * writes are rejected while the tombstone exists, see {@link MetaLayout.Guarded}.
+ * Packages being purged are kept in memory, so {@link #purging(Key)} does not
+ * read storage: the set is filled by {@link #tombstone(Key)} and
+ * {@link #resume()} and the package leaves it when its tombstone is removed.
+ * Tombstones saved by other instances are seen after {@link #resume()}.
+ * Tombstone is checked before every batch, purge stops if it was removed.
+ * Storage lists keys by string prefix, so keys of other packages with the same
+ * prefix (`pkg-other/meta.json` for `pkg`) are skipped.
+ * @since 0.10
+ */
+public final class PackagePurge {
+
+    /**
+     * Tombstones root key.
+     */
+    public static final Key ROOT = new Key.From(".npm", "purge");
+
+    /**
+     * Default number of keys in one batch.
+     */
+    private static final int BATCH = 100;
+
+    /**
+     * Default number of concurrent deletes.
+     */
+    private static final int PARALLEL = 8;
+
+    /**
+     * Tombstone file extension.
+     */
+    private static final String EXT = ".json";
+
+    /**
+     * Deleted field name.
+     */
+    private static final String DELETED = "deleted";
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Number of keys in one batch.
+     */
+    private final int batch;
+
+    /**
+     * Max number of concurrent deletes.
+     */
+    private final int parallel;
+
+    /**
+     * Running purges by package key.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> running;
+
+    /**
+     * Packages with tombstones.
+     */
+    private final Set<String> tombstones;
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     */
+    public PackagePurge(final Storage storage) {
+        this(storage, PackagePurge.BATCH, PackagePurge.PARALLEL);
+    }
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     * @param batch Number of keys in one batch
+     * @param parallel Max number of concurrent deletes
+     */
+    public PackagePurge(final Storage storage, final int batch, final int parallel) {
+        this.storage = storage;
+        this.batch = batch;
+        this.parallel = parallel;
+        this.running = new ConcurrentHashMap<>();
+        this.tombstones = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Saves tombstone of the package, package is purged by {@link #purge(Key)}
+     * or {@link #resume()} after that.
+     * @param pkg Package key
+     * @return Completion
+     */
+    public CompletableFuture<Void> tombstone(final Key pkg) {
+        this.tombstones.add(pkg.string());
+        return this.save(
+            pkg,
+            Json.createObjectBuilder()
+                .add("package", pkg.string())
+                .add("started", new DateTimeNowStr().value())
+                .add(PackagePurge.DELETED, 0)
+                .build()
+        ).whenComplete(
+            (nothing, err) -> {
+                if (err != null) {
+                    this.tombstones.remove(pkg.string());
+                }
+            }
+        );
+    }
+
+    /**
+     * Deletes keys of the package which has tombstone. If purge of the
+     * package is running already, its completion is returned.
+     * @param pkg Package key
+     * @return Completes when all package keys and the tombstone are deleted
+     */
+    public CompletableFuture<Void> purge(final Key pkg) {
+        final CompletableFuture<Void> fresh = new CompletableFuture<>();
+        final CompletableFuture<Void> prev = this.running.putIfAbsent(pkg.string(), fresh);
+        final CompletableFuture<Void> res;
+        if (prev == null) {
+            this.deleted(pkg).whenComplete(
+                (nothing, err) -> {
+                    this.running.remove(pkg.string(), fresh);
+                    if (err == null) {
+                        fresh.complete(null);
+                    } else {
+                        fresh.completeExceptionally(err);
+                    }
+                }
+            );
+            res = fresh;
+        } else {
+            res = prev;
+        }
+        return res;
+    }
+
+    /**
+     * Continues purges of all the packages which have tombstones,
+     * one package after another.
+     * @return Completion
+     */
+    public CompletableFuture<Void> resume() {
+        return this.storage.list(PackagePurge.ROOT).thenCompose(
+            keys -> {
+                final Collection<Key> pkgs = PackagePurge.packages(keys);
+                pkgs.forEach(pkg -> this.tombstones.add(pkg.string()));
+                return Flowable.fromIterable(pkgs).concatMapCompletable(
+                    pkg -> CompletableInterop.fromFuture(this.purge(pkg))
+                ).to(CompletableInterop.<Void>await());
+            }
+        );
+    }
+
+    /**
+     * Checks that package is being purged.
+     * @param pkg Package key
+     * @return True if package has tombstone
+     */
+    public CompletableFuture<Boolean> purging(final Key pkg) {
+        return CompletableFuture.completedFuture(this.tombstones.contains(pkg.string()));
+    }
+
+    /**
+     * Purge status of the package: package name, start time and number of
+     * deleted keys, also number of keys remaining when purge is running.
+     * @param pkg Package key
+     * @return Status, empty if package is not being purged
+     */
+    public CompletableFuture<Optional<JsonObject>> status(final Key pkg) {
+        return new MetaStore(this.storage).json(PackagePurge.tombstoneKey(pkg));
+    }
+
+    /**
+     * Deletes package keys and the tombstone.
+     * @param pkg Package key
+     * @return Completion
+     */
+    private CompletableFuture<Void> deleted(final Key pkg) {
+        return this.status(pkg).thenCompose(
+            stone -> stone.map(
+                json -> this.storage.list(pkg).thenApply(
+                    all -> {
+                        this.tombstones.add(pkg.string());
+                        return all;
+                    }
+                ).thenCompose(
+                    all -> {
+                        final String prefix = String.format("%s/", pkg.string());
+                        final List<Key> keys = all.stream()
+                            .filter(key -> key.string().startsWith(prefix))
+                            .collect(Collectors.toList());
+                        final AtomicLong count = new AtomicLong(
+                            json.getJsonNumber(PackagePurge.DELETED).longValue()
+                        );
+                        final AtomicLong remaining = new AtomicLong(keys.size());
+                        return Flowable.fromIterable(keys)
+                            .buffer(this.batch)
+                            .concatMapCompletable(
+                                part -> Single.defer(
+                                    () -> SingleInterop.fromFuture(this.purging(pkg))
+                                ).flatMapCompletable(
+                                    purging -> {
+                                        final Completable res;
+                                        if (purging) {
+                                            res = this.batch(
+                                                pkg, part,
+                                                Json.createObjectBuilder(json).add(
+                                                    PackagePurge.DELETED,
+                                                    count.addAndGet(part.size())
+                                                ).add(
+                                                    "remaining",
+                                                    remaining.addAndGet(-part.size())
+                                                ).build()
+                                            );
+                                        } else {
+                                            res = Completable.complete();
+                                        }
+                                        return res;
+                                    }
+                                )
+                            ).to(CompletableInterop.<Void>await());
+                    }
+                ).thenCompose(nothing -> this.purging(pkg)).thenCompose(
+                    purging -> {
+                        final CompletableFuture<Void> res;
+                        if (purging) {
+                            res = this.storage.delete(PackagePurge.tombstoneKey(pkg))
+                                .thenRun(() -> this.tombstones.remove(pkg.string()));
+                        } else {
+                            res = CompletableFuture.allOf();
+                        }
+                        return res;
+                    }
+                )
+            ).orElse(CompletableFuture.allOf())
+        );
+    }
+
+    /**
+     * Deletes batch of package keys and saves progress to the tombstone.
+     * @param pkg Package key
+     * @param part Keys of the batch
+     * @param progress Tombstone with progress after the batch
+     * @return Completion
+     */
+    private Completable batch(final Key pkg, final List<Key> part, final JsonObject progress) {
+        return Flowable.fromIterable(part).flatMapCompletable(
+            key -> CompletableInterop.fromFuture(this.storage.delete(key)),
+            false,
+            this.parallel
+        ).andThen(
+            Completable.defer(() -> CompletableInterop.fromFuture(this.save(pkg, progress)))
+        );
+    }
+
+    /**
+     * Saves tombstone.
+     * @param pkg Package key
+     * @param json Tombstone json
+     * @return Completion
+     */
+    private CompletableFuture<Void> save(final Key pkg, final JsonObject json) {
+        return this.storage.save(
+            PackagePurge.tombstoneKey(pkg),
+            new Content.From(json.toString().getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    /**
+     * Packages of the tombstones.
+     * @param keys Tombstone keys
+     * @return Package keys
+     */
+    private static Collection<Key> packages(final Collection<Key> keys) {
+        final int prefix = PackagePurge.ROOT.string().length() + 1;
+        return keys.stream()
+            .map(Key::string)
+            .filter(key -> key.endsWith(PackagePurge.EXT))
+            .map(
+                key -> new Key.From(
+                    key.substring(prefix, key.length() - PackagePurge.EXT.length())
+                )
+            ).collect(Collectors.toList());
+    }
+
+    /**
+     * Tombstone key.
+     * @param pkg Package key
+     * @return Key
+     */
+    private static Key tombstoneKey(final Key pkg) {
+        return new Key.From(
+            String.format("%s/%s%s", PackagePurge.ROOT.string(), pkg.string(), PackagePurge.EXT)
+        );
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Package is being purged after force unpublish and can not be modified
+ * until purge is complete, see {@link PackagePurge}.
+ * @since 0.10
+ */
+public final class PackagePurgedException extends ArtipieException {
+
+    /**
+     * Required serial.
+     */
+    private static final long serialVersionUID = 2875133264790172548L;
+
+    /**
+     * Ctor.
+     * @param msg Message
+     */
+    public PackagePurgedException(final String msg) {
+        super(msg);
+    }
+
+    /**
+     * Is it a purge error, possibly wrapped by completion stage?
+     * @param err Error
+     * @return True if error is purge error
+     */
+    public static boolean causedBy(final Throwable err) {
+        Throwable cause = err;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof PackagePurgedException;
+    }
+}
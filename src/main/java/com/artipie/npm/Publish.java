@@ -17,7 +17,8 @@ public interface Publish {
      * Publish a new version of a npm package.
      *
      * @param prefix Path prefix for archives and meta information storage
-     * @param artifact Where uploaded json file is stored
+     * @param artifact Where uploaded json file is stored, implementation
+     *  is allowed to move it to the final location
      * @return Completion or error signal.
      */
     CompletableFuture<Void> publish(Key prefix, Key artifact);
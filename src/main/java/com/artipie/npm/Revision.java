@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import java.util.Optional;
+import java.util.UUID;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Revision of the packument, `_rev` field in CouchDB format `{number}-{hex}`.
+ * Number grows by one with every write, hex part is random, so revisions
+ * of concurrent writes never match. Packuments written before revisions
+ * were introduced have no revision.
+ * @since 0.10
+ */
+public final class Revision {
+
+    /**
+     * Revision field name.
+     */
+    public static final String FIELD = "_rev";
+
+    /**
+     * Revision value, empty if packument has no revision.
+     */
+    private final Optional<String> rev;
+
+    /**
+     * Ctor.
+     * @param packument Packument
+     */
+    public Revision(final JsonObject packument) {
+        this(
+            Optional.ofNullable(packument.get(Revision.FIELD))
+                .filter(val -> val.getValueType() == JsonValue.ValueType.STRING)
+                .map(val -> ((JsonString) val).getString())
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param rev Revision value, empty if there is no revision
+     */
+    public Revision(final Optional<String> rev) {
+        this.rev = rev;
+    }
+
+    /**
+     * Revision value.
+     * @return Value, empty if there is no revision
+     */
+    public Optional<String> value() {
+        return this.rev;
+    }
+
+    /**
+     * Revision number.
+     * @return Number, zero if there is no revision or it is not numbered
+     */
+    public long number() {
+        long res = 0;
+        if (this.rev.isPresent()) {
+            final String val = this.rev.get();
+            final int dash = val.indexOf('-');
+            try {
+                if (dash > 0) {
+                    res = Long.parseLong(val.substring(0, dash));
+                } else {
+                    res = Long.parseLong(val);
+                }
+            } catch (final NumberFormatException ex) {
+                res = 0;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Revision of the next write.
+     * @return Next revision
+     */
+    public Revision next() {
+        return new Revision(
+            Optional.of(
+                String.format(
+                    "%d-%s", this.number() + 1,
+                    UUID.randomUUID().toString().replace("-", "")
+                )
+            )
+        );
+    }
+
+    /**
+     * Packument with this revision.
+     * @param packument Packument
+     * @return Packument with `_rev` field
+     */
+    public JsonObject applyTo(final JsonObject packument) {
+        return this.rev.map(
+            val -> Json.createObjectBuilder(packument).add(Revision.FIELD, val).build()
+        ).orElse(packument);
+    }
+
+    /**
+     * Checks revision the client request is based on.
+     * @param client Revision sent by the client, empty if it was not sent
+     * @throws MetaConflictException If both this and client revisions are
+     *  known and they differ
+     */
+    public void check(final Optional<String> client) {
+        if (this.rev.isPresent() && client.isPresent()
+            && !this.rev.get().equals(client.get())) {
+            throw new MetaConflictException(
+                String.format(
+                    "Revision `%s` is outdated, current revision is `%s`",
+                    client.get(), this.rev.get()
+                )
+            );
+        }
+    }
+}
@@ -0,0 +1,673 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import hu.akarnokd.rxjava2.interop.CompletableInterop;
+import io.reactivex.Flowable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * In-memory search index of the hosted packages for `/-/v1/search`. Words of
+ * package name, description, keywords and maintainer names of the latest
+ * version are mapped to package names. Query words are matched as prefixes
+ * of the indexed words, every query word must match. Query word may be
+ * qualified with `keywords:` or `maintainer:` (`author:`) to match only that
+ * field, words with other qualifiers are ignored.
+ * <p>
+ * Index is built by {@link #load(Storage, MetaLayout)} from the stored
+ * packuments and then kept up to date by {@link MetaLayout.Indexed}, which
+ * must wrap the layout of every writer of the repository.
+ * @since 0.10
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class SearchIndex {
+
+    /**
+     * Name field bit.
+     */
+    private static final int NAME = 1;
+
+    /**
+     * Keywords field bit.
+     */
+    private static final int KEYWORDS = 2;
+
+    /**
+     * Description field bit.
+     */
+    private static final int DESCRIPTION = 4;
+
+    /**
+     * Maintainers field bit.
+     */
+    private static final int MAINTAINERS = 8;
+
+    /**
+     * All field bits.
+     */
+    private static final int ALL = 15;
+
+    /**
+     * How many packuments are read at once while loading.
+     */
+    private static final int PARALLEL = 16;
+
+    /**
+     * Word separators.
+     */
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Packument keys of the whole and segmented layouts.
+     */
+    private static final Pattern PACKUMENT = Pattern.compile(
+        "(.+)/(meta\\.json|meta/index\\.json)"
+    );
+
+    /**
+     * Json builders, provider is looked up once instead of on every builder.
+     */
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(
+        Collections.emptyMap()
+    );
+
+    /**
+     * Package names by indexed word.
+     */
+    private final ConcurrentSkipListMap<String, Set<String>> words;
+
+    /**
+     * Indexed packages by name.
+     */
+    private final Map<String, Entry> packages;
+
+    /**
+     * Packages updated or removed since loading was started, loading
+     * does not overwrite them.
+     */
+    private final Set<String> touched;
+
+    /**
+     * Ctor.
+     */
+    public SearchIndex() {
+        this.words = new ConcurrentSkipListMap<>();
+        this.packages = new ConcurrentHashMap<>();
+        this.touched = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Loads all the packuments of the storage into the index.
+     * @param storage Repository storage
+     * @param layout Packument layout
+     * @return Completion of loading
+     */
+    public CompletableFuture<Void> load(final Storage storage, final MetaLayout layout) {
+        this.touched.clear();
+        return storage.list(Key.ROOT).thenCompose(
+            keys -> Flowable.fromIterable(SearchIndex.names(keys)).flatMapCompletable(
+                name -> CompletableInterop.fromFuture(
+                    layout.read(new Key.From(name), true).thenAccept(
+                        json -> json.ifPresent(packument -> this.put(name, packument, false))
+                    )
+                ),
+                false,
+                SearchIndex.PARALLEL
+            ).to(CompletableInterop.<Void>await()).toCompletableFuture()
+        ).whenComplete((nothing, err) -> this.touched.clear());
+    }
+
+    /**
+     * Indexes the packument, replacing the previous one.
+     * @param pkg Package key
+     * @param packument Packument
+     */
+    public void update(final Key pkg, final JsonObject packument) {
+        this.put(pkg.string(), packument, true);
+    }
+
+    /**
+     * Removes the package from the index.
+     * @param pkg Package key
+     */
+    public void remove(final Key pkg) {
+        synchronized (this.packages) {
+            this.touched.add(pkg.string());
+            this.unindex(pkg.string());
+        }
+    }
+
+    /**
+     * Searches packages.
+     * @param text Query text
+     * @param from Offset of the first result
+     * @param size Max number of results
+     * @return Search results in the format of `/-/v1/search` response:
+     *  `objects` array and `total` number of matched packages
+     */
+    public JsonObject search(final String text, final int from, final int size) {
+        final List<Query> query = SearchIndex.query(text);
+        final String exact = text.trim().toLowerCase(Locale.US);
+        final Comparator<Scored> order = Comparator.<Scored>comparingDouble(scored -> scored.score)
+            .reversed()
+            .thenComparing(scored -> scored.entry.name);
+        final int limit = (int) Math.min(Integer.MAX_VALUE, (long) from + size);
+        final PriorityQueue<Scored> page = new PriorityQueue<>(order.reversed());
+        int total = 0;
+        double top = 0;
+        for (final String name : this.candidates(query)) {
+            final Entry entry = this.packages.get(name);
+            if (entry != null) {
+                final Scored scored = new Scored(entry, entry.score(query, exact));
+                if (scored.score > 0) {
+                    total = total + 1;
+                    top = Math.max(top, scored.score);
+                    if (page.size() < limit) {
+                        page.add(scored);
+                    } else if (limit > 0 && order.compare(scored, page.peek()) < 0) {
+                        page.poll();
+                        page.add(scored);
+                    }
+                }
+            }
+        }
+        final List<Scored> found = new ArrayList<>(page);
+        found.sort(order);
+        final JsonArrayBuilder objects = SearchIndex.JSON.createArrayBuilder();
+        for (final Scored scored : found.subList(Math.min(from, found.size()), found.size())) {
+            objects.add(SearchIndex.result(scored.entry.summary, scored.score, top));
+        }
+        return SearchIndex.JSON.createObjectBuilder()
+            .add("objects", objects)
+            .add("total", total)
+            .build();
+    }
+
+    /**
+     * Package names of the packument keys.
+     * @param keys Storage keys
+     * @return Sorted package names
+     */
+    static Collection<String> names(final Collection<Key> keys) {
+        return keys.stream()
+            .map(key -> SearchIndex.PACKUMENT.matcher(key.string()))
+            .filter(Matcher::matches)
+            .map(matcher -> matcher.group(1))
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Indexes the packument.
+     * @param name Package name
+     * @param packument Packument
+     * @param update Is it an update of the package, not loading?
+     */
+    private void put(final String name, final JsonObject packument, final boolean update) {
+        final Entry entry = SearchIndex.entry(name, packument);
+        synchronized (this.packages) {
+            if (update) {
+                this.touched.add(name);
+            }
+            if (update || !this.touched.contains(name)) {
+                this.unindex(name);
+                for (int idx = 0; idx < entry.words.length; idx = idx + 1) {
+                    final String word = entry.words[idx];
+                    this.words.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet())
+                        .add(name);
+                    entry.words[idx] = this.words.ceilingKey(word);
+                }
+                this.packages.put(name, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the package and its words from the index.
+     * @param name Package name
+     */
+    private void unindex(final String name) {
+        final Entry prev = this.packages.remove(name);
+        if (prev != null) {
+            Arrays.stream(prev.words).forEach(
+                word -> this.words.computeIfPresent(
+                    word,
+                    (key, names) -> {
+                        names.remove(name);
+                        final Set<String> res;
+                        if (names.isEmpty()) {
+                            res = null;
+                        } else {
+                            res = names;
+                        }
+                        return res;
+                    }
+                )
+            );
+        }
+    }
+
+    /**
+     * Packages which may match the query: packages with words starting
+     * with the most selective query word.
+     * @param query Query words
+     * @return Package names
+     */
+    private Set<String> candidates(final List<Query> query) {
+        Collection<Set<String>> best = new ArrayList<>(0);
+        long least = Long.MAX_VALUE;
+        for (final Query word : query) {
+            final Collection<Set<String>> postings = this.words.subMap(
+                word.prefix, true, word.prefix + Character.MAX_VALUE, true
+            ).values();
+            final long count = postings.stream().mapToLong(Set::size).sum();
+            if (count < least) {
+                least = count;
+                best = postings;
+            }
+        }
+        final Set<String> res;
+        if (best.size() == 1) {
+            res = best.iterator().next();
+        } else {
+            res = new HashSet<>();
+            best.forEach(res::addAll);
+        }
+        return res;
+    }
+
+    /**
+     * Parses query text.
+     * @param text Query text
+     * @return Query words
+     */
+    private static List<Query> query(final String text) {
+        final List<Query> res = new ArrayList<>(2);
+        for (final String term : text.trim().split("\\s+")) {
+            final int colon = term.indexOf(':');
+            final int fields;
+            if (colon < 0) {
+                fields = SearchIndex.ALL;
+            } else {
+                final String qualifier = term.substring(0, colon).toLowerCase(Locale.US);
+                if ("keywords".equals(qualifier)) {
+                    fields = SearchIndex.KEYWORDS;
+                } else if ("maintainer".equals(qualifier) || "author".equals(qualifier)) {
+                    fields = SearchIndex.MAINTAINERS;
+                } else {
+                    fields = 0;
+                }
+            }
+            if (fields != 0) {
+                SearchIndex.words(term.substring(colon + 1))
+                    .forEach(word -> res.add(new Query(word, fields)));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Index entry of the package.
+     * @param name Package name
+     * @param packument Packument
+     * @return Entry
+     */
+    private static Entry entry(final String name, final JsonObject packument) {
+        final Optional<String> latest = SearchIndex.object(packument, "dist-tags")
+            .flatMap(tags -> SearchIndex.string(tags, "latest"));
+        final JsonObject version = latest.flatMap(
+            vers -> SearchIndex.object(packument, "versions")
+                .flatMap(all -> SearchIndex.object(all, vers))
+        ).orElse(JsonValue.EMPTY_JSON_OBJECT);
+        final JsonObject source;
+        if (version.containsKey("description")) {
+            source = version;
+        } else {
+            source = packument;
+        }
+        final Optional<String> description = SearchIndex.string(source, "description");
+        final List<String> keywords = SearchIndex.strings(version, "keywords");
+        final List<JsonObject> maintainers;
+        if (packument.containsKey("maintainers")) {
+            maintainers = SearchIndex.objects(packument, "maintainers");
+        } else {
+            maintainers = SearchIndex.objects(version, "maintainers");
+        }
+        final JsonObjectBuilder summary = SearchIndex.JSON.createObjectBuilder().add("name", name);
+        if (name.startsWith("@") && name.indexOf('/') > 0) {
+            summary.add("scope", name.substring(1, name.indexOf('/')));
+        } else {
+            summary.add("scope", "unscoped");
+        }
+        latest.ifPresent(vers -> summary.add("version", vers));
+        description.ifPresent(desc -> summary.add("description", desc));
+        if (!keywords.isEmpty()) {
+            summary.add("keywords", SearchIndex.JSON.createArrayBuilder(keywords));
+        }
+        SearchIndex.object(packument, "time")
+            .flatMap(time -> SearchIndex.string(time, "modified"))
+            .ifPresent(date -> summary.add("date", date));
+        final JsonObjectBuilder links = SearchIndex.JSON.createObjectBuilder();
+        SearchIndex.string(version, "homepage").ifPresent(url -> links.add("homepage", url));
+        summary.add("links", links);
+        final JsonArrayBuilder persons = SearchIndex.JSON.createArrayBuilder();
+        maintainers.forEach(persons::add);
+        summary.add("maintainers", persons);
+        final SortedMap<String, Integer> fields = new TreeMap<>();
+        SearchIndex.words(name).forEach(
+            word -> fields.merge(word, SearchIndex.NAME, (prev, bit) -> prev | bit)
+        );
+        keywords.stream().flatMap(word -> SearchIndex.words(word).stream()).forEach(
+            word -> fields.merge(word, SearchIndex.KEYWORDS, (prev, bit) -> prev | bit)
+        );
+        description.map(SearchIndex::words).orElse(new ArrayList<>(0)).forEach(
+            word -> fields.merge(word, SearchIndex.DESCRIPTION, (prev, bit) -> prev | bit)
+        );
+        maintainers.stream()
+            .map(person -> SearchIndex.string(person, "name"))
+            .filter(Optional::isPresent)
+            .flatMap(person -> SearchIndex.words(person.get()).stream())
+            .forEach(
+                word -> fields.merge(word, SearchIndex.MAINTAINERS, (prev, bit) -> prev | bit)
+            );
+        return new Entry(name.toLowerCase(Locale.US), summary.build(), fields);
+    }
+
+    /**
+     * Weight of the matched fields.
+     * @param fields Field bits
+     * @return Weight
+     * @checkstyle MagicNumberCheck (15 lines)
+     */
+    private static double weight(final int fields) {
+        double res = 0;
+        if ((fields & SearchIndex.NAME) != 0) {
+            res = res + 4;
+        }
+        if ((fields & SearchIndex.KEYWORDS) != 0) {
+            res = res + 2;
+        }
+        if ((fields & (SearchIndex.DESCRIPTION | SearchIndex.MAINTAINERS)) != 0) {
+            res = res + 1;
+        }
+        return res;
+    }
+
+    /**
+     * Words of the text.
+     * @param text Text
+     * @return Lower case words
+     */
+    private static List<String> words(final String text) {
+        return Arrays.stream(SearchIndex.SEPARATOR.split(text.toLowerCase(Locale.US)))
+            .filter(word -> !word.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Search result object.
+     * @param summary Package summary
+     * @param score Package score
+     * @param top Score of the best matched package
+     * @return Json object
+     */
+    private static JsonObject result(final JsonObject summary, final double score,
+        final double top) {
+        final double norm = score / top;
+        return SearchIndex.JSON.createObjectBuilder()
+            .add("package", summary)
+            .add(
+                "score",
+                SearchIndex.JSON.createObjectBuilder()
+                    .add("final", norm)
+                    .add(
+                        "detail",
+                        SearchIndex.JSON.createObjectBuilder()
+                            .add("quality", norm)
+                            .add("popularity", norm)
+                            .add("maintenance", norm)
+                    )
+            )
+            .add("searchScore", score)
+            .build();
+    }
+
+    /**
+     * String field of the json object.
+     * @param json Json object
+     * @param field Field name
+     * @return String, empty if field is absent or is not a string
+     */
+    private static Optional<String> string(final JsonObject json, final String field) {
+        final JsonValue value = json.get(field);
+        final Optional<String> res;
+        if (value instanceof JsonString) {
+            res = Optional.of(((JsonString) value).getString());
+        } else {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Object field of the json object.
+     * @param json Json object
+     * @param field Field name
+     * @return Json object, empty if field is absent or is not an object
+     */
+    private static Optional<JsonObject> object(final JsonObject json, final String field) {
+        final JsonValue value = json.get(field);
+        final Optional<JsonObject> res;
+        if (value instanceof JsonObject) {
+            res = Optional.of((JsonObject) value);
+        } else {
+            res = Optional.empty();
+        }
+        return res;
+    }
+
+    /**
+     * Strings of the array field of the json object.
+     * @param json Json object
+     * @param field Field name
+     * @return Strings, empty if field is absent or is not an array
+     */
+    private static List<String> strings(final JsonObject json, final String field) {
+        return SearchIndex.elements(json, field).stream()
+            .filter(JsonString.class::isInstance)
+            .map(value -> ((JsonString) value).getString())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Objects of the array field of the json object.
+     * @param json Json object
+     * @param field Field name
+     * @return Objects, empty if field is absent or is not an array
+     */
+    private static List<JsonObject> objects(final JsonObject json, final String field) {
+        return SearchIndex.elements(json, field).stream()
+            .filter(JsonObject.class::isInstance)
+            .map(JsonObject.class::cast)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Elements of the array field of the json object.
+     * @param json Json object
+     * @param field Field name
+     * @return Elements, empty if field is absent or is not an array
+     */
+    private static List<JsonValue> elements(final JsonObject json, final String field) {
+        final JsonValue value = json.get(field);
+        final List<JsonValue> res;
+        if (value != null && value.getValueType() == JsonValue.ValueType.ARRAY) {
+            res = value.asJsonArray();
+        } else {
+            res = new ArrayList<>(0);
+        }
+        return res;
+    }
+
+    /**
+     * Package with its score.
+     * @since 0.10
+     */
+    private static final class Scored {
+
+        /**
+         * Package.
+         */
+        private final Entry entry;
+
+        /**
+         * Score.
+         */
+        private final double score;
+
+        /**
+         * Ctor.
+         * @param entry Package
+         * @param score Score
+         */
+        Scored(final Entry entry, final double score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Query word.
+     * @since 0.10
+     */
+    private static final class Query {
+
+        /**
+         * Word prefix.
+         */
+        private final String prefix;
+
+        /**
+         * Bits of the fields to match.
+         */
+        private final int fields;
+
+        /**
+         * Ctor.
+         * @param prefix Word prefix
+         * @param fields Bits of the fields to match
+         */
+        Query(final String prefix, final int fields) {
+            this.prefix = prefix;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Indexed package.
+     * @since 0.10
+     */
+    private static final class Entry {
+
+        /**
+         * Lower case package name.
+         */
+        private final String name;
+
+        /**
+         * Package summary, `package` field of the search result.
+         */
+        private final JsonObject summary;
+
+        /**
+         * Sorted package words, they are the same instances as the words
+         * of the index, so the words are shared by all the packages.
+         */
+        private final String[] words;
+
+        /**
+         * Field bits of the words.
+         */
+        private final int[] fields;
+
+        /**
+         * Ctor.
+         * @param name Lower case package name
+         * @param summary Package summary
+         * @param fields Field bits by package word
+         */
+        Entry(final String name, final JsonObject summary,
+            final SortedMap<String, Integer> fields) {
+            this.name = name;
+            this.summary = summary;
+            this.words = fields.keySet().toArray(new String[0]);
+            this.fields = fields.values().stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Score of the package: sum of the best matched field weights of every
+         * query word, exact word match counts twice, exact name match
+         * doubles the score.
+         * @param query Query words
+         * @param exact Lower case query text
+         * @return Score, zero if some query word does not match
+         */
+        double score(final List<Query> query, final String exact) {
+            double res = 0;
+            for (final Query word : query) {
+                double best = 0;
+                int idx = Arrays.binarySearch(this.words, word.prefix);
+                if (idx < 0) {
+                    idx = -idx - 1;
+                }
+                while (idx < this.words.length && this.words[idx].startsWith(word.prefix)) {
+                    double weight = SearchIndex.weight(this.fields[idx] & word.fields);
+                    if (this.words[idx].length() == word.prefix.length()) {
+                        weight = weight * 2;
+                    }
+                    best = Math.max(best, weight);
+                    idx = idx + 1;
+                }
+                if (best == 0) {
+                    res = 0;
+                    break;
+                }
+                res = res + best;
+            }
+            if (this.name.equals(exact)) {
+                res = res * 2;
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.npm.misc.Periodic;
+import com.jcabi.log.Logger;
+import hu.akarnokd.rxjava2.interop.CompletableInterop;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Garbage collector of the hosted repository storage. It removes
+ * upload staging keys (`{pkg}-{uuid}-uploaded`) left by failed publishes and
+ * tarballs (with digest sidecars) which are not referenced by the packument
+ * of their package, e.g. tarballs of unpublished versions.
+ * Storage does not tell when the key was written, so the key is garbage
+ * only if it was found by a sweep at least `age` ago and is still garbage:
+ * uploads and publishes in progress are not affected if they take less time.
+ * Packages being purged (see {@link PackagePurge}) are skipped. Keys are
+ * deleted in batches with a pause after every batch, so the sweeper does not
+ * compete with clients for the storage.
+ * Hosted repository runs the sweeper when it is enabled with
+ * {@code NpmSlice.Settings#withSweep}.
+ * @since 0.10
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+public final class StorageSweeper {
+
+    /**
+     * Staging key suffix.
+     */
+    private static final String STAGING = "-uploaded";
+
+    /**
+     * Tarball path segment.
+     */
+    private static final String TARBALLS = "/-/";
+
+    /**
+     * Tarball extension.
+     */
+    private static final String TGZ = ".tgz";
+
+    /**
+     * How many packuments are read at once.
+     */
+    private static final int PARALLEL = 8;
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Packument layout.
+     */
+    private final MetaLayout layout;
+
+    /**
+     * Min age of garbage.
+     */
+    private final Duration age;
+
+    /**
+     * Number of keys deleted at once.
+     */
+    private final int batch;
+
+    /**
+     * Pause after every batch.
+     */
+    private final Duration pause;
+
+    /**
+     * Clock.
+     */
+    private final Clock clock;
+
+    /**
+     * When garbage keys were found first.
+     */
+    private final Map<String, Instant> found;
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     * @param layout Packument layout
+     * @param age Min age of garbage
+     */
+    public StorageSweeper(final Storage storage, final MetaLayout layout, final Duration age) {
+        this(storage, layout, age, 100, Duration.ofSeconds(1), Clock.systemUTC());
+    }
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     * @param layout Packument layout
+     * @param age Min age of garbage
+     * @param batch Number of keys deleted at once
+     * @param pause Pause after every batch
+     * @param clock Clock
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public StorageSweeper(final Storage storage, final MetaLayout layout, final Duration age,
+        final int batch, final Duration pause, final Clock clock) {
+        this.storage = storage;
+        this.layout = layout;
+        this.age = age;
+        this.batch = batch;
+        this.pause = pause;
+        this.clock = clock;
+        this.found = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Runs sweeps periodically, next sweep is scheduled when the previous one
+     * is complete, so scheduler threads are not blocked by sweeps.
+     * @param exec Executor to schedule sweeps on
+     * @param period Delay between sweeps
+     * @return Future which stops sweeps when cancelled
+     */
+    public CompletableFuture<Void> schedule(final ScheduledExecutorService exec,
+        final Duration period) {
+        return new Periodic(exec, period).start(
+            () -> this.sweep().handle(
+                (report, err) -> {
+                    if (err == null) {
+                        Logger.info(this, "Storage sweep is complete: %s", report);
+                    } else {
+                        Logger.error(this, "Storage sweep failed: %[exception]s", err);
+                    }
+                    return report;
+                }
+            )
+        );
+    }
+
+    /**
+     * Finds garbage and removes keys which are garbage long enough.
+     * @return Report: numbers of deleted staging keys and tarballs
+     *  and total size of deleted keys in bytes
+     */
+    public CompletableFuture<JsonObject> sweep() {
+        final Instant now = this.clock.instant();
+        return this.storage.list(Key.ROOT).thenCompose(this::garbage).thenCompose(
+            garbage -> {
+                this.found.keySet().retainAll(
+                    garbage.stream().map(Key::string).collect(Collectors.toSet())
+                );
+                final List<Key> old = new ArrayList<>(garbage.size());
+                for (final Key key : garbage) {
+                    final Instant first = this.found.putIfAbsent(key.string(), now);
+                    if (first != null && !first.plus(this.age).isAfter(now)) {
+                        old.add(key);
+                    }
+                }
+                return this.delete(old);
+            }
+        );
+    }
+
+    /**
+     * Garbage keys of the storage.
+     * @param keys All the storage keys
+     * @return Staging keys and unreferenced tarballs with their sidecars
+     */
+    private CompletableFuture<List<Key>> garbage(final Collection<Key> keys) {
+        final Set<String> purged = keys.stream()
+            .map(Key::string)
+            .filter(key -> key.startsWith(String.format("%s/", PackagePurge.ROOT.string())))
+            .collect(Collectors.toSet());
+        final List<Key> res = new ArrayList<>(0);
+        final Map<String, List<Key>> tarballs = new TreeMap<>();
+        for (final Key key : keys) {
+            final String str = key.string();
+            final int idx = str.indexOf(StorageSweeper.TARBALLS);
+            if (str.endsWith(StorageSweeper.STAGING) && idx < 0) {
+                res.add(key);
+            } else if (idx > 0 && StorageSweeper.tarball(str) && !purged.contains(
+                String.format("%s/%s.json", PackagePurge.ROOT.string(), str.substring(0, idx))
+            )) {
+                tarballs.computeIfAbsent(str.substring(0, idx), pkg -> new ArrayList<>(1))
+                    .add(key);
+            }
+        }
+        return Flowable.fromIterable(tarballs.entrySet()).concatMapEager(
+            entry -> SingleInterop.fromFuture(
+                this.layout.read(new Key.From(entry.getKey()), true).thenApply(
+                    meta -> {
+                        final Set<String> refs = meta.map(StorageSweeper::referenced)
+                            .orElseGet(HashSet::new);
+                        return entry.getValue().stream().filter(
+                            key -> !refs.contains(StorageSweeper.file(key.string()))
+                        ).collect(Collectors.toList());
+                    }
+                )
+            ).toFlowable(),
+            StorageSweeper.PARALLEL,
+            1
+        ).reduce(
+            res,
+            (all, orphans) -> {
+                all.addAll(orphans);
+                return all;
+            }
+        ).to(SingleInterop.get()).toCompletableFuture();
+    }
+
+    /**
+     * Deletes keys in batches.
+     * @param keys Keys
+     * @return Report
+     */
+    private CompletableFuture<JsonObject> delete(final List<Key> keys) {
+        final AtomicLong staging = new AtomicLong();
+        final AtomicLong tarballs = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        return Flowable.fromIterable(keys).buffer(this.batch).concatMapCompletable(
+            part -> Flowable.fromIterable(part).flatMapCompletable(
+                key -> CompletableInterop.fromFuture(
+                    this.storage.size(key)
+                        .thenCompose(size -> this.storage.delete(key).thenRun(
+                            () -> {
+                                bytes.addAndGet(size);
+                                this.found.remove(key.string());
+                                if (key.string().endsWith(StorageSweeper.TGZ)) {
+                                    tarballs.incrementAndGet();
+                                } else if (key.string().endsWith(StorageSweeper.STAGING)) {
+                                    staging.incrementAndGet();
+                                }
+                            }
+                        ))
+                )
+            ).andThen(
+                Completable.timer(this.pause.toMillis(), TimeUnit.MILLISECONDS)
+            )
+        ).to(CompletableInterop.<Void>await()).toCompletableFuture().thenApply(
+            nothing -> Json.createObjectBuilder()
+                .add("staging", staging.get())
+                .add("tarballs", tarballs.get())
+                .add("bytes", bytes.get())
+                .build()
+        );
+    }
+
+    /**
+     * Is it a tarball or its digest sidecar?
+     * @param key Key
+     * @return True if key is tarball or sidecar
+     */
+    private static boolean tarball(final String key) {
+        return key.endsWith(StorageSweeper.TGZ)
+            || key.endsWith(TarballDigest.Stored.key(new Key.From(StorageSweeper.TGZ)).string());
+    }
+
+    /**
+     * Tarball file names referenced by the packument: file names of the
+     * `dist.tarball` URLs and `{name}-{version}.tgz` of all the versions.
+     * @param packument Packument
+     * @return File names
+     */
+    private static Set<String> referenced(final JsonObject packument) {
+        final Set<String> res = new HashSet<>();
+        final String name = packument.getString("name", "");
+        for (final Map.Entry<String, JsonValue> version
+            : packument.getOrDefault("versions", JsonValue.EMPTY_JSON_OBJECT)
+                .asJsonObject().entrySet()) {
+            res.add(String.format("%s-%s%s", name, version.getKey(), StorageSweeper.TGZ));
+            if (version.getValue().getValueType() == JsonValue.ValueType.OBJECT) {
+                final JsonValue url = version.getValue().asJsonObject()
+                    .getOrDefault("dist", JsonValue.EMPTY_JSON_OBJECT).asJsonObject()
+                    .get("tarball");
+                if (url instanceof JsonString) {
+                    res.add(StorageSweeper.file(((JsonString) url).getString()));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Tarball file name of the tarball key, digest sidecar key or tarball URL.
+     * @param path Key or URL
+     * @return File name, the part after `/-/` without digest sidecar extension
+     */
+    private static String file(final String path) {
+        final int idx = path.indexOf(StorageSweeper.TARBALLS);
+        final String res;
+        if (idx < 0) {
+            res = path;
+        } else {
+            res = path.substring(idx + StorageSweeper.TARBALLS.length());
+        }
+        return res.substring(0, res.lastIndexOf(StorageSweeper.TGZ) + StorageSweeper.TGZ.length());
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.Digests;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Digests and size of the tarball. They are calculated while tarball is
+ * written on publish and are stored in the small sidecar next to the
+ * tarball, so tarball downloads and integrity checks do not need to read
+ * and hash tarball bytes.
+ * @since 0.10
+ */
+public final class TarballDigest {
+
+    /**
+     * Size field.
+     */
+    private static final String SIZE = "size";
+
+    /**
+     * SHA-1 field.
+     */
+    private static final String SHA1 = "sha1";
+
+    /**
+     * SHA-512 field.
+     */
+    private static final String SHA512 = "sha512";
+
+    /**
+     * SHA-1 digest.
+     */
+    private final byte[] sha1;
+
+    /**
+     * SHA-512 digest.
+     */
+    private final byte[] sha512;
+
+    /**
+     * Tarball size.
+     */
+    private final long length;
+
+    /**
+     * Ctor.
+     * @param sha1 SHA-1 digest
+     * @param sha512 SHA-512 digest
+     * @param length Tarball size
+     */
+    public TarballDigest(final byte[] sha1, final byte[] sha512, final long length) {
+        this.sha1 = sha1.clone();
+        this.sha512 = sha512.clone();
+        this.length = length;
+    }
+
+    /**
+     * Ctor.
+     * @param json Sidecar json
+     */
+    public TarballDigest(final JsonObject json) {
+        this(
+            TarballDigest.hex(json.getString(TarballDigest.SHA1)),
+            Base64.getDecoder().decode(json.getString(TarballDigest.SHA512)),
+            json.getJsonNumber(TarballDigest.SIZE).longValueExact()
+        );
+    }
+
+    /**
+     * Hex encoded SHA-1 digest, `dist.shasum` of the version.
+     * @return Shasum
+     */
+    public String shasum() {
+        return Hex.encodeHexString(this.sha1);
+    }
+
+    /**
+     * Subresource integrity string, `dist.integrity` of the version.
+     * @return Integrity
+     */
+    public String integrity() {
+        return String.format("sha512-%s", Base64.getEncoder().encodeToString(this.sha512));
+    }
+
+    /**
+     * Tarball size.
+     * @return Size in bytes
+     */
+    public long size() {
+        return this.length;
+    }
+
+    /**
+     * Strong entity tag of the tarball.
+     * @return Quoted ETag value
+     */
+    public String etag() {
+        return String.format("\"%s\"", this.shasum());
+    }
+
+    /**
+     * Value of `Digest` header (RFC 3230).
+     * @return Instance digests
+     */
+    public String digest() {
+        return String.format(
+            "SHA-512=%s,SHA=%s",
+            Base64.getEncoder().encodeToString(this.sha512),
+            Base64.getEncoder().encodeToString(this.sha1)
+        );
+    }
+
+    /**
+     * Does tarball match `dist` of the version? Fields absent from `dist`
+     * are not checked.
+     * @param dist Version dist
+     * @return True if digests are the same
+     */
+    public boolean matches(final JsonObject dist) {
+        return this.shasum().equals(dist.getString("shasum", this.shasum()))
+            && this.integrity().equals(dist.getString("integrity", this.integrity()));
+    }
+
+    /**
+     * Sidecar json.
+     * @return Json
+     */
+    public JsonObject json() {
+        return Json.createObjectBuilder()
+            .add(TarballDigest.SIZE, this.length)
+            .add(TarballDigest.SHA1, this.shasum())
+            .add(TarballDigest.SHA512, Base64.getEncoder().encodeToString(this.sha512))
+            .add("etag", this.etag())
+            .build();
+    }
+
+    /**
+     * Decode hex string.
+     * @param hex Hex string
+     * @return Bytes
+     */
+    private static byte[] hex(final String hex) {
+        try {
+            return Hex.decodeHex(hex);
+        } catch (final DecoderException err) {
+            throw new IllegalArgumentException(err);
+        }
+    }
+
+    /**
+     * Digests stored in the sidecars next to tarballs.
+     * @since 0.10
+     */
+    public static final class Stored {
+
+        /**
+         * Storage.
+         */
+        private final Storage storage;
+
+        /**
+         * Ctor.
+         * @param storage Storage
+         */
+        public Stored(final Storage storage) {
+            this.storage = storage;
+        }
+
+        /**
+         * Sidecar key of the tarball.
+         * @param tgz Tarball key
+         * @return Sidecar key
+         */
+        public static Key key(final Key tgz) {
+            return new Key.From(String.format("%s.digest.json", tgz.string()));
+        }
+
+        /**
+         * Save digest of the tarball.
+         * @param tgz Tarball key
+         * @param digest Digest
+         * @return Completion
+         */
+        public CompletableFuture<Void> save(final Key tgz, final TarballDigest digest) {
+            return this.storage.save(
+                Stored.key(tgz),
+                new Content.From(digest.json().toString().getBytes(StandardCharsets.UTF_8))
+            );
+        }
+
+        /**
+         * Delete digest of the tarball. Sidecar is deleted before the tarball
+         * is replaced, so digest of the old tarball is never served with the
+         * new one.
+         * @param tgz Tarball key
+         * @return Completion
+         */
+        public CompletableFuture<Void> delete(final Key tgz) {
+            return new MetaStore(this.storage).delete(Stored.key(tgz));
+        }
+
+        /**
+         * Load digest of the tarball.
+         * @param tgz Tarball key
+         * @return Digest, empty if tarball was published without sidecar
+         */
+        public CompletableFuture<Optional<TarballDigest>> load(final Key tgz) {
+            return new MetaStore(this.storage).json(Stored.key(tgz))
+                .thenApply(json -> json.map(TarballDigest::new));
+        }
+    }
+
+    /**
+     * Digest calculation over the tarball bytes.
+     * @since 0.10
+     */
+    public static final class Calc {
+
+        /**
+         * SHA-1 digest.
+         */
+        private final MessageDigest sha1;
+
+        /**
+         * SHA-512 digest.
+         */
+        private final MessageDigest sha512;
+
+        /**
+         * Size.
+         */
+        private long size;
+
+        /**
+         * Ctor.
+         */
+        public Calc() {
+            this.sha1 = Digests.SHA1.get();
+            this.sha512 = Digests.SHA512.get();
+        }
+
+        /**
+         * Accept next chunk of the tarball, chunk position is not changed.
+         * @param buf Chunk
+         */
+        public void accept(final ByteBuffer buf) {
+            this.sha1.update(buf.duplicate());
+            this.sha512.update(buf.duplicate());
+            this.size += buf.remaining();
+        }
+
+        /**
+         * Digest of all accepted bytes.
+         * @return Digest
+         */
+        public TarballDigest result() {
+            return new TarballDigest(this.sha1.digest(), this.sha512.digest(), this.size);
+        }
+    }
+}
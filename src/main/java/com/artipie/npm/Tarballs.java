@@ -4,24 +4,24 @@
  */
 package com.artipie.npm;
 
-import com.artipie.asto.Concatenation;
 import com.artipie.asto.Content;
+import com.artipie.npm.misc.JsonPathTracker;
 import io.reactivex.Flowable;
-import java.io.StringReader;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 import javax.json.Json;
-import javax.json.JsonObject;
-import javax.json.JsonPatchBuilder;
 
 /**
  * Prepends all tarball references in the package metadata json with the prefix to build
  * absolute URL: /@scope/package-name -&gt; http://host:port/base-path/@scope/package-name.
+ * Metadata is not parsed: bytes are scanned as they go, and the prefix is inserted
+ * at the start of every `versions.*.dist.tarball` value, all other bytes are passed
+ * through as they are. Memory used does not depend on the metadata size.
  * @since 0.6
  */
-@SuppressWarnings("PMD.AvoidDuplicateLiterals")
 public final class Tarballs {
 
     /**
@@ -49,45 +49,80 @@ public final class Tarballs {
      * @return Modified content with prepended URLs
      */
     public Content value() {
+        final String escaped = Json.createValue(this.prefix.toString().replaceAll("/$", ""))
+            .toString();
+        final byte[] insert = escaped.substring(1, escaped.length() - 1)
+            .getBytes(StandardCharsets.UTF_8);
         return new Content.From(
-            new Concatenation(this.original)
-                .single()
-                .map(ByteBuffer::array)
-                .map(bytes -> new String(bytes, StandardCharsets.UTF_8))
-                .map(json -> Json.createReader(new StringReader(json)).readObject())
-                .map(json -> Tarballs.updateJson(json, this.prefix.toString()))
-                .flatMapPublisher(
-                    json -> new Content.From(
-                        Flowable.fromArray(
-                            ByteBuffer.wrap(
-                                json.toString().getBytes(StandardCharsets.UTF_8)
-                            )
-                        )
-                    )
-                )
+            Flowable.defer(
+                () -> {
+                    final Rewriter rewriter = new Rewriter(insert);
+                    return Flowable.fromPublisher(this.original)
+                        .concatMapIterable(rewriter::accept);
+                }
+            )
         );
     }
 
     /**
-     * Replaces tarball links with absolute paths based on prefix.
-     * @param original Original JSON object
-     * @param prefix Links prefix
-     * @return Transformed JSON object
+     * Json scanner which inserts the prefix into tarball values.
+     * @since 0.10
      */
-    private static JsonObject updateJson(final JsonObject original, final String prefix) {
-        final JsonPatchBuilder builder = Json.createPatchBuilder();
-        final Set<String> versions = original.getJsonObject("versions").keySet();
-        for (final String version : versions) {
-            builder.add(
-                String.format("/versions/%s/dist/tarball", version),
-                String.join(
-                    "",
-                    prefix.replaceAll("/$", ""),
-                    original.getJsonObject("versions").getJsonObject(version)
-                        .getJsonObject("dist").getString("tarball")
-                )
-            );
+    private static final class Rewriter {
+
+        /**
+         * Bytes to insert.
+         */
+        private final byte[] insert;
+
+        /**
+         * Tracker of `versions.*.dist.tarball` values.
+         */
+        private final JsonPathTracker path;
+
+        /**
+         * Ctor.
+         * @param insert Bytes to insert
+         */
+        Rewriter(final byte[] insert) {
+            this.insert = insert;
+            this.path = new JsonPathTracker("versions", "*", "dist", "tarball");
+        }
+
+        /**
+         * Accepts next chunk.
+         * @param buf Chunk of bytes
+         * @return Chunk split into parts with the prefix inserted between them
+         */
+        List<ByteBuffer> accept(final ByteBuffer buf) {
+            final List<ByteBuffer> res = new ArrayList<>(1);
+            final ByteBuffer src = buf.duplicate();
+            int from = src.position();
+            while (src.hasRemaining()) {
+                if (this.path.accept(src.get())) {
+                    res.add(Rewriter.slice(buf, from, src.position()));
+                    res.add(ByteBuffer.wrap(this.insert));
+                    from = src.position();
+                }
+            }
+            if (from < src.limit()) {
+                res.add(Rewriter.slice(buf, from, src.limit()));
+            }
+            return res;
+        }
+
+        /**
+         * Part of the buffer.
+         * @param buf Buffer
+         * @param from Start position
+         * @param till End position
+         * @return Slice sharing buffer content
+         */
+        private static ByteBuffer slice(final ByteBuffer buf, final int from, final int till) {
+            final ByteBuffer res = buf.duplicate();
+            res.limit(till);
+            res.position(from);
+            return res.slice();
         }
-        return builder.build().apply(original);
     }
 }
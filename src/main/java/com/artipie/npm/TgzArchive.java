@@ -4,26 +4,15 @@
  */
 package com.artipie.npm;
 
-import com.artipie.ArtipieException;
-import com.artipie.asto.ArtipieIOException;
-import com.artipie.asto.Concatenation;
-import com.artipie.asto.Content;
-import com.artipie.asto.Remaining;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Base64;
-import javax.json.Json;
 import javax.json.JsonObject;
-import org.apache.commons.compress.archivers.ArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
-import org.apache.commons.io.IOUtils;
 
 /**
  * A .tgz archive.
@@ -32,6 +21,11 @@ import org.apache.commons.io.IOUtils;
  */
 public final class TgzArchive {
 
+    /**
+     * Size of the chunks archive is decompressed by.
+     */
+    private static final int CHUNK = 8192;
+
     /**
      * The archive representation in a form of a base64 string.
      */
@@ -88,40 +82,39 @@ public final class TgzArchive {
     }
 
     /**
-     * Obtains package.json from archive.
+     * Obtains root package.json from archive. Archive is decompressed only
+     * till the manifest is found, see {@link TgzEntries}.
      * @return Json object from package.json file from archive.
      */
     public Single<JsonObject> packageJson() {
-        return this.file("package.json")
-            .map(Concatenation::new)
-            .flatMap(Concatenation::single)
-            .map(Remaining::new)
-            .map(Remaining::bytes)
-            .map(bytes -> Json.createReader(new StringReader(new String(bytes))).readObject());
+        return Single.defer(() -> new TgzEntries(this.chunks()).packageJson());
     }
 
     /**
-     * Obtain file by name.
-     * @param name The name of a file.
-     * @return The file content.
+     * Lazy list of the archive entries.
+     * @return Entries
      */
-    @SuppressWarnings("PMD.AssignmentInOperand")
-    private Single<Content> file(final String name) {
-        try (
-            ByteArrayInputStream bytearr = new ByteArrayInputStream(this.bytes());
-            GzipCompressorInputStream gzip = new GzipCompressorInputStream(bytearr);
-            TarArchiveInputStream tar = new TarArchiveInputStream(gzip)
-        ) {
-            ArchiveEntry entry;
-            while ((entry = tar.getNextTarEntry()) != null) {
-                final String[] parts = entry.getName().split("/");
-                if (parts[parts.length - 1].equals(name)) {
-                    return Single.just(new Content.From(IOUtils.toByteArray(tar)));
-                }
+    public Flowable<TgzEntry> entries() {
+        return new TgzEntries(this.chunks()).entries();
+    }
+
+    /**
+     * Archive bytes split into chunks, so the decompression can stop in the
+     * middle of the archive.
+     * @return Chunks of the archive
+     */
+    private Flowable<ByteBuffer> chunks() {
+        return Flowable.defer(
+            () -> {
+                final byte[] bytes = this.bytes();
+                return Flowable.range(0, (bytes.length + TgzArchive.CHUNK - 1) / TgzArchive.CHUNK)
+                    .map(
+                        idx -> ByteBuffer.wrap(
+                            bytes, idx * TgzArchive.CHUNK,
+                            Math.min(TgzArchive.CHUNK, bytes.length - idx * TgzArchive.CHUNK)
+                        ).slice()
+                    );
             }
-            throw new ArtipieException(String.format("'%s' file was not found", name));
-        } catch (final IOException exc) {
-            throw new ArtipieIOException(exc);
-        }
+        );
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Entries of .tgz archive read from the publisher. Archive is decompressed
+ * as entries are requested and is never kept in memory: listing stops
+ * reading the archive as soon as subscriber cancels, `package.json`
+ * lookup stops right after the root manifest is found.
+ * @since 0.10
+ */
+public final class TgzEntries {
+
+    /**
+     * Manifest file name.
+     */
+    private static final String MANIFEST = "package.json";
+
+    /**
+     * Archive bytes.
+     */
+    private final Publisher<ByteBuffer> archive;
+
+    /**
+     * Ctor.
+     * @param archive Archive bytes
+     */
+    public TgzEntries(final Publisher<ByteBuffer> archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Lazy list of the archive entries, content of the entries is not captured.
+     * @return Entries
+     */
+    public Flowable<TgzEntry> entries() {
+        return this.flow(name -> false);
+    }
+
+    /**
+     * Reads root `package/package.json` file of the archive. Nested
+     * `package.json` files, e.g. from bundled `node_modules`, are ignored.
+     * @return Package json
+     */
+    public Single<JsonObject> packageJson() {
+        return this.flow(TgzEntries::manifest)
+            .filter(entry -> entry.content().isPresent())
+            .firstElement()
+            .switchIfEmpty(
+                Single.error(
+                    () -> new ArtipieException(
+                        String.format("'%s' file was not found", TgzEntries.MANIFEST)
+                    )
+                )
+            )
+            .map(
+                entry -> Json.createReader(
+                    new ByteArrayInputStream(entry.content().get())
+                ).readObject()
+            );
+    }
+
+    /**
+     * Is entry the root manifest of the package? npm packs package into
+     * one top level directory, which is usually named `package`.
+     * @param name Entry name
+     * @return True for root `package.json`
+     */
+    static boolean manifest(final String name) {
+        String norm = name;
+        if (norm.startsWith("./")) {
+            norm = norm.substring(2);
+        }
+        final int slash = norm.indexOf('/');
+        return TgzEntries.MANIFEST.equals(norm)
+            || slash > 0 && norm.indexOf('/', slash + 1) < 0
+            && TgzEntries.MANIFEST.equals(norm.substring(slash + 1));
+    }
+
+    /**
+     * Archive entries flow.
+     * @param capture Which entries content should be captured
+     * @return Entries
+     */
+    private Flowable<TgzEntry> flow(final Predicate<String> capture) {
+        return Flowable.defer(
+            () -> {
+                final IncrementalTgz tgz = new IncrementalTgz(capture);
+                return Flowable.fromPublisher(this.archive)
+                    .map(tgz::accept)
+                    .takeUntil((List<TgzEntry> entries) -> tgz.finished())
+                    .concatWith(
+                        Flowable.defer(
+                            () -> {
+                                tgz.complete();
+                                return Flowable.<List<TgzEntry>>empty();
+                            }
+                        )
+                    )
+                    .concatMapIterable(entries -> entries, 1)
+                    .doFinally(tgz::release);
+            }
+        );
+    }
+}
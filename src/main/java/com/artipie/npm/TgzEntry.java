@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import java.util.Optional;
+
+/**
+ * Entry of .tgz archive.
+ * @since 0.10
+ */
+public final class TgzEntry {
+
+    /**
+     * Entry name.
+     */
+    private final String name;
+
+    /**
+     * Entry type flag.
+     */
+    private final char type;
+
+    /**
+     * Entry size.
+     */
+    private final long size;
+
+    /**
+     * Entry content if it was captured.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Ctor.
+     * @param name Entry name
+     * @param type Entry type flag
+     * @param size Entry size
+     * @param bytes Entry content if it was captured
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    TgzEntry(final String name, final char type, final long size, final byte[] bytes) {
+        this.name = name;
+        this.type = type;
+        this.size = size;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Entry name.
+     * @return Name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Is this entry a directory?
+     * @return True if directory
+     */
+    public boolean directory() {
+        return this.type == '5' || this.name.endsWith("/");
+    }
+
+    /**
+     * Entry size.
+     * @return Size in bytes
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Captured entry content.
+     * @return Content or empty if entry was not captured
+     */
+    public Optional<byte[]> content() {
+        return Optional.ofNullable(this.bytes);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Tar entry type flag.
+     * @return Type flag
+     */
+    char type() {
+        return this.type;
+    }
+}
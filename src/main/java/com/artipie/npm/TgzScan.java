@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Single pass over .tgz archive: archive bytes are read once, and in
+ * the same stream all the digests required by package metadata are
+ * calculated and `package.json` file is extracted. Decompression stops
+ * as soon as `package.json` is found, digests are calculated till the end.
+ * @since 0.10
+ */
+public final class TgzScan {
+
+    /**
+     * Archive bytes.
+     */
+    private final Publisher<ByteBuffer> archive;
+
+    /**
+     * Ctor.
+     * @param archive Archive bytes
+     */
+    public TgzScan(final Publisher<ByteBuffer> archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Scans the archive.
+     * @return Digests and package.json of the archive
+     */
+    public CompletableFuture<Scanned> scan() {
+        return Single.defer(
+            () -> {
+                final State state = new State();
+                return Flowable.fromPublisher(this.archive)
+                    .reduce(state, State::accept)
+                    .map(State::result)
+                    .doFinally(state::release);
+            }
+        ).to(SingleInterop.get()).toCompletableFuture();
+    }
+
+    /**
+     * Result of the archive scan.
+     * @since 0.10
+     */
+    public static final class Scanned {
+
+        /**
+         * Package json.
+         */
+        private final JsonObject pkg;
+
+        /**
+         * Archive digest.
+         */
+        private final TarballDigest dgst;
+
+        /**
+         * Ctor.
+         * @param pkg Package json
+         * @param dgst Archive digest
+         */
+        Scanned(final JsonObject pkg, final TarballDigest dgst) {
+            this.pkg = pkg;
+            this.dgst = dgst;
+        }
+
+        /**
+         * Content of `package.json` file from the archive.
+         * @return Json object
+         */
+        public JsonObject packageJson() {
+            return this.pkg;
+        }
+
+        /**
+         * Subresource integrity string: base64 encoded SHA-512
+         * digest with `sha512-` prefix.
+         * @return Integrity
+         */
+        public String integrity() {
+            return this.dgst.integrity();
+        }
+
+        /**
+         * Hex encoded SHA-1 digest.
+         * @return Shasum
+         */
+        public String shasum() {
+            return this.dgst.shasum();
+        }
+
+        /**
+         * Archive size.
+         * @return Size in bytes
+         */
+        public long size() {
+            return this.dgst.size();
+        }
+
+        /**
+         * Archive digest.
+         * @return Digest
+         */
+        public TarballDigest digest() {
+            return this.dgst;
+        }
+    }
+
+    /**
+     * Scan state.
+     * @since 0.10
+     */
+    private static final class State {
+
+        /**
+         * Archive digest.
+         */
+        private final TarballDigest.Calc digest;
+
+        /**
+         * Archive decoder.
+         */
+        private final IncrementalTgz tgz;
+
+        /**
+         * Package json bytes, null until found.
+         */
+        private byte[] pkg;
+
+        /**
+         * Ctor.
+         */
+        State() {
+            this.digest = new TarballDigest.Calc();
+            this.tgz = new IncrementalTgz(TgzEntries::manifest);
+        }
+
+        /**
+         * Accepts next chunk of the archive.
+         * @param buf Chunk
+         * @return Itself
+         */
+        State accept(final ByteBuffer buf) {
+            this.digest.accept(buf);
+            if (this.pkg == null) {
+                for (final TgzEntry entry : this.tgz.accept(buf)) {
+                    if (this.pkg == null && entry.content().isPresent()) {
+                        this.pkg = entry.content().get();
+                    }
+                }
+                if (this.pkg != null) {
+                    this.tgz.release();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Releases the archive decoder.
+         */
+        void release() {
+            this.tgz.release();
+        }
+
+        /**
+         * Result of the scan.
+         * @return Scanned archive
+         */
+        Scanned result() {
+            if (this.pkg == null) {
+                this.tgz.complete();
+                throw new ArtipieException("'package.json' file was not found");
+            }
+            return new Scanned(
+                Json.createReader(new ByteArrayInputStream(this.pkg)).readObject(),
+                this.digest.result()
+            );
+        }
+    }
+}
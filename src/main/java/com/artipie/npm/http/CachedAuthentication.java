@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.auth.Authentication;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication results cached in memory for a limited time, so that
+ * expensive authentication (LDAP, hashed passwords) is not done on every
+ * request. Results are cached by HMAC-SHA256 of the credentials keyed with
+ * a random secret of the instance, so neither passwords nor digests which
+ * can be brute-forced without the secret are kept in memory. Failed authentication is cached too,
+ * usually for a shorter time. Errors of the origin authentication are not
+ * cached. Changed or revoked credentials take effect after the cached
+ * result expires.
+ * @since 0.10
+ */
+public final class CachedAuthentication implements Authentication {
+
+    /**
+     * Origin authentication.
+     */
+    private final Authentication origin;
+
+    /**
+     * Credentials digest, keyed with random secret of the instance.
+     */
+    private final HashFunction hmac;
+
+    /**
+     * Authenticated users by credentials digest.
+     */
+    private final Cache<String, Authentication.User> users;
+
+    /**
+     * Digests of the credentials which failed authentication.
+     */
+    private final Cache<String, Boolean> failures;
+
+    /**
+     * Ctor.
+     * @param origin Origin authentication
+     * @param ttl How long successful authentication is cached
+     * @param failed How long failed authentication is cached
+     * @param size Max number of cached results of each kind
+     */
+    public CachedAuthentication(final Authentication origin, final Duration ttl,
+        final Duration failed, final long size) {
+        this(origin, ttl, failed, size, Ticker.systemTicker());
+    }
+
+    /**
+     * Ctor.
+     * @param origin Origin authentication
+     * @param ttl How long successful authentication is cached
+     * @param failed How long failed authentication is cached
+     * @param size Max number of cached results of each kind
+     * @param ticker Time source
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    CachedAuthentication(final Authentication origin, final Duration ttl,
+        final Duration failed, final long size, final Ticker ticker) {
+        this.origin = origin;
+        this.hmac = Hashing.hmacSha256(CachedAuthentication.secret());
+        this.users = CacheBuilder.newBuilder()
+            .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+            .maximumSize(size)
+            .ticker(ticker)
+            .build();
+        this.failures = CacheBuilder.newBuilder()
+            .expireAfterWrite(failed.toNanos(), TimeUnit.NANOSECONDS)
+            .maximumSize(size)
+            .ticker(ticker)
+            .build();
+    }
+
+    @Override
+    public Optional<Authentication.User> user(final String username, final String password) {
+        final String key = this.hmac.hashString(
+            String.join("\u0000", username, password), StandardCharsets.UTF_8
+        ).toString();
+        Optional<Authentication.User> res = Optional.ofNullable(this.users.getIfPresent(key));
+        if (!res.isPresent() && this.failures.getIfPresent(key) == null) {
+            res = this.origin.user(username, password);
+            if (res.isPresent()) {
+                this.users.put(key, res.get());
+            } else {
+                this.failures.put(key, true);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Random secret.
+     * @return Secret bytes
+     */
+    private static byte[] secret() {
+        final byte[] res = new byte[32];
+        new SecureRandom().nextBytes(res);
+        return res;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.auth.Authentication;
+import com.artipie.http.auth.Permissions;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission decisions cached in memory for a limited time by user name,
+ * user groups and action. Both granted and denied decisions are cached,
+ * errors of the origin permissions are not. Changed permissions take effect
+ * after the cached decision expires.
+ * @since 0.10
+ */
+public final class CachedPermissions implements Permissions {
+
+    /**
+     * Origin permissions.
+     */
+    private final Permissions origin;
+
+    /**
+     * Decisions by user name, user groups and action.
+     */
+    private final Cache<List<Object>, Boolean> decisions;
+
+    /**
+     * Ctor.
+     * @param origin Origin permissions
+     * @param ttl How long decision is cached
+     * @param size Max number of cached decisions
+     */
+    public CachedPermissions(final Permissions origin, final Duration ttl, final long size) {
+        this(origin, ttl, size, Ticker.systemTicker());
+    }
+
+    /**
+     * Ctor.
+     * @param origin Origin permissions
+     * @param ttl How long decision is cached
+     * @param size Max number of cached decisions
+     * @param ticker Time source
+     */
+    CachedPermissions(final Permissions origin, final Duration ttl, final long size,
+        final Ticker ticker) {
+        this.origin = origin;
+        this.decisions = CacheBuilder.newBuilder()
+            .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+            .maximumSize(size)
+            .ticker(ticker)
+            .build();
+    }
+
+    @Override
+    public boolean allowed(final Authentication.User user, final String action) {
+        final List<Object> key = Arrays.asList(
+            user.name(), new TreeSet<>(user.groups()), action
+        );
+        Boolean res = this.decisions.getIfPresent(key);
+        if (res == null) {
+            res = this.origin.allowed(user, action);
+            this.decisions.put(key, res);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.asto.Content;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rq.RqParams;
+import com.artipie.http.rs.RsFull;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.common.RsJson;
+import com.artipie.npm.MetaJournal;
+import com.artipie.npm.Revision;
+import hu.akarnokd.rxjava2.interop.CompletableInterop;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import org.reactivestreams.Publisher;
+
+/**
+ * CouchDB-style feed of the packument changes from {@link MetaJournal},
+ * `GET /_changes?since=...&limit=...&feed=longpoll|continuous&timeout=...`. Every
+ * result has sequence number (`seq`), package name (`id`), revision of
+ * the package (`changes`), change type (`type`: `publish`, `unpublish`,
+ * `dist-tag`, `deprecate`, `update` or `delete`) and `deleted` flag for
+ * removed packages; `last_seq` is the `since` of the next request.
+ * `since=now` starts from the last change. With `feed=longpoll` request
+ * without changes waits for the next change up to `timeout` milliseconds.
+ * With `feed=continuous` changes are streamed as JSON lines as they come,
+ * up to `limit` changes or until `timeout` milliseconds pass, with a newline
+ * every `heartbeat` milliseconds without changes; the last line has `last_seq`.
+ * Waiting requests do not poll the journal: they are woken by
+ * {@link MetaJournal#changed()} and read recent changes from journal memory.
+ * Compacted journal reports only the last change of the package for
+ * compacted entries.
+ * @since 0.10
+ */
+public final class ChangesSlice implements Slice {
+
+    /**
+     * Default number of results.
+     */
+    private static final int LIMIT = 1000;
+
+    /**
+     * Max number of results.
+     */
+    private static final int MAX_LIMIT = 10_000;
+
+    /**
+     * Default long poll timeout in milliseconds.
+     */
+    private static final long TIMEOUT = 60_000;
+
+    /**
+     * Sequence field name.
+     */
+    private static final String SEQ = "seq";
+
+    /**
+     * Last sequence field name.
+     */
+    private static final String LAST_SEQ = "last_seq";
+
+    /**
+     * Heartbeat line.
+     */
+    private static final byte[] NEWLINE = {'\n'};
+
+    /**
+     * Journal.
+     */
+    private final MetaJournal journal;
+
+    /**
+     * Max long poll timeout in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * Ctor.
+     * @param journal Journal
+     */
+    public ChangesSlice(final MetaJournal journal) {
+        this(journal, ChangesSlice.TIMEOUT);
+    }
+
+    /**
+     * Ctor.
+     * @param journal Journal
+     * @param timeout Max long poll timeout in milliseconds
+     */
+    public ChangesSlice(final MetaJournal journal, final long timeout) {
+        this.journal = journal;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Response response(final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        final RqParams params = new RqParams(new RequestLineFrom(line).uri());
+        final int limit = (int) Math.min(
+            ChangesSlice.MAX_LIMIT,
+            Math.max(1, ChangesSlice.number(params, "limit", ChangesSlice.LIMIT))
+        );
+        final String feed = params.value("feed").orElse("");
+        final long wait;
+        if ("longpoll".equals(feed) || "continuous".equals(feed)) {
+            wait = Math.min(this.timeout, ChangesSlice.number(params, "timeout", this.timeout));
+        } else {
+            wait = 0;
+        }
+        final CompletableFuture<Long> since;
+        if ("now".equals(params.value("since").orElse(""))) {
+            since = this.journal.last();
+        } else {
+            since = CompletableFuture.completedFuture(ChangesSlice.number(params, "since", 0));
+        }
+        final Response res;
+        if ("continuous".equals(feed)) {
+            final long heartbeat = Math.max(1, ChangesSlice.number(params, "heartbeat", wait));
+            res = new AsyncResponse(
+                since.thenApply(
+                    from -> new RsFull(
+                        RsStatus.OK,
+                        new Headers.From("Content-Type", "application/json"),
+                        new Content.From(
+                            this.stream(
+                                from, limit, System.currentTimeMillis() + wait, heartbeat
+                            )
+                        )
+                    )
+                )
+            );
+        } else {
+            res = new AsyncResponse(
+                since.thenCompose(
+                    from -> this.changes(from, limit, System.currentTimeMillis() + wait)
+                        .thenApply(entries -> new RsJson(ChangesSlice.json(from, entries)))
+                )
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Continuous feed: rounds of reading or waiting for changes until the
+     * deadline or the limit, then the line with the last sequence number.
+     * @param since Sequence number of the last known change
+     * @param limit Max number of changes
+     * @param deadline Time to stop at
+     * @param heartbeat Max time without lines in milliseconds
+     * @return Feed lines
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Flowable<ByteBuffer> stream(final long since, final int limit, final long deadline,
+        final long heartbeat) {
+        final AtomicLong last = new AtomicLong(since);
+        final AtomicInteger sent = new AtomicInteger();
+        return Flowable.defer(
+            () -> {
+                final CompletableFuture<Void> changed = this.journal.changed();
+                return SingleInterop.fromFuture(
+                    this.journal.entries(last.get(), limit - sent.get())
+                ).flatMapPublisher(
+                    entries -> {
+                        final Flowable<ByteBuffer> round;
+                        if (entries.isEmpty()) {
+                            round = CompletableInterop.fromFuture(changed).timeout(
+                                Math.max(
+                                    0, Math.min(heartbeat, deadline - System.currentTimeMillis())
+                                ),
+                                TimeUnit.MILLISECONDS
+                            ).toSingleDefault(false).onErrorReturnItem(true).flatMapPublisher(
+                                idle -> {
+                                    final Flowable<ByteBuffer> beat;
+                                    if (idle) {
+                                        beat = Flowable.just(ByteBuffer.wrap(ChangesSlice.NEWLINE));
+                                    } else {
+                                        beat = Flowable.empty();
+                                    }
+                                    return beat;
+                                }
+                            );
+                        } else {
+                            sent.addAndGet(entries.size());
+                            last.set(
+                                entries.get(entries.size() - 1)
+                                    .getJsonNumber(ChangesSlice.SEQ).longValue()
+                            );
+                            round = Flowable.fromIterable(entries)
+                                .map(entry -> ChangesSlice.line(ChangesSlice.result(entry)));
+                        }
+                        return round;
+                    }
+                );
+            }
+        ).repeatUntil(
+            () -> sent.get() >= limit || System.currentTimeMillis() >= deadline
+        ).concatWith(
+            Flowable.defer(
+                () -> Flowable.just(
+                    ChangesSlice.line(
+                        Json.createObjectBuilder().add(ChangesSlice.LAST_SEQ, last.get()).build()
+                    )
+                )
+            )
+        );
+    }
+
+    /**
+     * Reads changes, waits for the next change until the deadline if
+     * there are no changes.
+     * @param since Sequence number of the last known change
+     * @param limit Max number of changes
+     * @param deadline Time to stop waiting at
+     * @return Journal entries
+     */
+    private CompletableFuture<List<JsonObject>> changes(final long since, final int limit,
+        final long deadline) {
+        final CompletableFuture<Void> changed = this.journal.changed();
+        return this.journal.entries(since, limit).thenCompose(
+            entries -> {
+                final long left = deadline - System.currentTimeMillis();
+                final CompletableFuture<List<JsonObject>> res;
+                if (entries.isEmpty() && left > 0) {
+                    res = CompletableInterop.fromFuture(changed)
+                        .timeout(left, TimeUnit.MILLISECONDS)
+                        .onErrorComplete()
+                        .to(CompletableInterop.<Void>await())
+                        .toCompletableFuture()
+                        .thenCompose(nothing -> this.changes(since, limit, deadline));
+                } else {
+                    res = CompletableFuture.completedFuture(entries);
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Changes feed json.
+     * @param since Sequence number of the last known change
+     * @param entries Journal entries
+     * @return Json
+     */
+    private static JsonObject json(final long since, final List<JsonObject> entries) {
+        final JsonArrayBuilder results = Json.createArrayBuilder();
+        long last = since;
+        for (final JsonObject entry : entries) {
+            last = entry.getJsonNumber(ChangesSlice.SEQ).longValue();
+            results.add(ChangesSlice.result(entry));
+        }
+        return Json.createObjectBuilder()
+            .add("results", results)
+            .add(ChangesSlice.LAST_SEQ, last)
+            .build();
+    }
+
+    /**
+     * Change of the feed.
+     * @param entry Journal entry
+     * @return Json
+     */
+    private static JsonObject result(final JsonObject entry) {
+        final JsonArrayBuilder revs = Json.createArrayBuilder();
+        final JsonObjectBuilder result = Json.createObjectBuilder()
+            .add(ChangesSlice.SEQ, entry.getJsonNumber(ChangesSlice.SEQ).longValue())
+            .add("id", entry.getString("package"))
+            .add("type", entry.getString("change"));
+        if (entry.containsKey("packument")) {
+            new Revision(entry.getJsonObject("packument")).value().ifPresent(
+                rev -> revs.add(Json.createObjectBuilder().add("rev", rev))
+            );
+        } else {
+            result.add("deleted", true);
+        }
+        return result.add("changes", revs).build();
+    }
+
+    /**
+     * Line of the continuous feed.
+     * @param json Json
+     * @return Bytes of the line
+     */
+    private static ByteBuffer line(final JsonObject json) {
+        return ByteBuffer.wrap(
+            String.format("%s\n", json).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Numeric query parameter.
+     * @param params Query parameters
+     * @param name Parameter name
+     * @param def Default value
+     * @return Parameter value, default if it is absent or is not a number
+     */
+    private static long number(final RqParams params, final String name, final long def) {
+        return params.value(name)
+            .filter(val -> val.matches("\\d{1,18}"))
+            .map(Long::parseLong)
+            .orElse(def);
+    }
+}
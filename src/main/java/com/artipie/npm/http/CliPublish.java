@@ -7,13 +7,15 @@ package com.artipie.npm.http;
 import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import com.artipie.npm.MetaQueue;
 import com.artipie.npm.MetaUpdate;
 import com.artipie.npm.Publish;
-import com.artipie.npm.TgzArchive;
-import com.artipie.npm.misc.JsonFromPublisher;
+import com.artipie.npm.TarballDigest;
+import com.artipie.npm.misc.Base64Span;
+import com.artipie.npm.misc.StreamedPublishJson;
+import io.reactivex.Flowable;
 import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
-import javax.json.JsonObject;
 
 /**
  * The NPM publish front.
@@ -21,6 +23,14 @@ import javax.json.JsonObject;
  * {@code npm publish command} and to:
  *  1. to generate source archives
  *  2. meta.json file
+ *  3. digest sidecars of source archives
+ * Uploaded json is never loaded into memory as a whole: it is scanned
+ * chunk by chunk, and attachments are decoded directly into the storage.
+ * Source archives are saved before meta.json which references them, so
+ * rejected meta.json update (e.g. package is being purged) leaves only
+ * orphan archives, which are removed by {@link com.artipie.npm.StorageSweeper}.
+ * Digest sidecar of an archive is deleted before the archive is replaced and
+ * saved after it, so archive is never served with digest of another one.
  *
  * @since 0.9
  */
@@ -35,23 +45,35 @@ final class CliPublish implements Publish {
      */
     private final Storage storage;
 
+    /**
+     * Queue of meta.json mutations.
+     */
+    private final MetaQueue queue;
+
+    /**
+     * Publish workers, uploaded bytes are parsed on them.
+     */
+    private final PublishPool pool;
+
     /**
      * Constructor.
      * @param storage The storage.
+     * @param queue Queue of meta.json mutations
+     * @param pool Publish workers
      */
-    CliPublish(final Storage storage) {
+    CliPublish(final Storage storage, final MetaQueue queue, final PublishPool pool) {
         this.storage = storage;
+        this.queue = queue;
+        this.pool = pool;
     }
 
     @Override
     public CompletableFuture<Void> publish(final Key prefix, final Key artifact) {
         return this.storage.value(artifact)
-            .thenApply(JsonFromPublisher::new)
-            .thenCompose(JsonFromPublisher::json)
+            .thenCompose(content -> new StreamedPublishJson(this.pool.observed(content)).scan())
             .thenCompose(
-                uploaded -> CompletableFuture.allOf(
-                    new MetaUpdate.ByJson(uploaded).update(prefix, this.storage),
-                    this.updateSourceArchives(uploaded)
+                uploaded -> this.updateSourceArchives(artifact, uploaded).thenCompose(
+                    nothing -> this.queue.update(prefix, new MetaUpdate.ByJson(uploaded.json()))
                 )
             );
     }
@@ -59,32 +81,41 @@ final class CliPublish implements Publish {
     /**
      * Generate .tgz archives extracted from the uploaded json.
      *
-     * @param uploaded The uploaded json
+     * @param artifact Where uploaded json file is stored
+     * @param uploaded The scanned uploaded json
      * @return Completion or error signal.
      */
-    private CompletableFuture<Void> updateSourceArchives(final JsonObject uploaded) {
-        return CompletableFuture.supplyAsync(() -> uploaded.getJsonObject("_attachments"))
-            .thenCompose(
-                attach ->
-                    CompletableFuture.allOf(
-                        attach.keySet().stream()
-                        .map(
-                            attachment -> {
-                                final byte[] bytes = new TgzArchive(
-                                    attach.getJsonObject(attachment).getString("data")
-                                ).bytes();
-                                return this.storage.save(
-                                    new Key.From(
-                                        uploaded.getString("name"),
-                                        "-",
-                                        attachment
-                                    ),
-                                    new Content.From(bytes)
-                                );
-                            }
-                        ).toArray(CompletableFuture[]::new)
-                    )
-            );
+    private CompletableFuture<Void> updateSourceArchives(
+        final Key artifact, final StreamedPublishJson.Scanned uploaded
+    ) {
+        return CompletableFuture.allOf(
+            uploaded.attachments().entrySet().stream()
+                .map(
+                    attachment -> {
+                        final Key tgz = new Key.From(
+                            uploaded.json().getString("name"), "-", attachment.getKey()
+                        );
+                        final TarballDigest.Calc digest = new TarballDigest.Calc();
+                        final TarballDigest.Stored digests = new TarballDigest.Stored(this.storage);
+                        return digests.delete(tgz).thenCompose(
+                            nothing -> this.storage.value(artifact)
+                        ).thenCompose(
+                            content -> this.storage.save(
+                                tgz,
+                                new Content.From(
+                                    Flowable.fromPublisher(
+                                        new Base64Span(
+                                            this.pool.observed(content), attachment.getValue()
+                                        )
+                                    ).doOnNext(digest::accept)
+                                )
+                            )
+                        ).thenCompose(
+                            nothing -> digests.save(tgz, digest.result())
+                        );
+                    }
+                ).toArray(CompletableFuture[]::new)
+        );
     }
 
 }
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.headers.Header;
+import com.artipie.http.rq.RqHeaders;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.npm.MetaValidators;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET request (RFC 7232): `If-None-Match` and `If-Modified-Since`
+ * are checked against validators of the resource. `If-Modified-Since`
+ * is ignored when `If-None-Match` is present.
+ * @since 0.10
+ */
+final class Conditional {
+
+    /**
+     * ETag header name.
+     */
+    private static final String ETAG = "ETag";
+
+    /**
+     * Last-Modified header name.
+     */
+    private static final String LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * HTTP date format (RFC 7231, IMF-fixdate).
+     */
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+        .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+        .withZone(ZoneOffset.UTC);
+
+    /**
+     * Request headers.
+     */
+    private final Iterable<Map.Entry<String, String>> headers;
+
+    /**
+     * Ctor.
+     * @param headers Request headers
+     */
+    Conditional(final Iterable<Map.Entry<String, String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Does client have the current representation of the resource?
+     * @param etag Quoted entity tag of the resource
+     * @param modified Last modification time of the resource
+     * @return True if `304 Not Modified` should be sent
+     */
+    boolean notModified(final String etag, final Optional<Instant> modified) {
+        final List<String> tags = new RqHeaders(this.headers, "If-None-Match");
+        final boolean res;
+        if (tags.isEmpty()) {
+            res = modified.isPresent() && new RqHeaders(this.headers, "If-Modified-Since")
+                .stream().findFirst()
+                .flatMap(Conditional::time)
+                .map(since -> !modified.get().truncatedTo(ChronoUnit.SECONDS).isAfter(since))
+                .orElse(false);
+        } else {
+            final String opaque = Conditional.opaque(etag);
+            res = tags.stream()
+                .flatMap(tag -> Arrays.stream(tag.split(",")))
+                .map(String::trim)
+                .anyMatch(tag -> "*".equals(tag) || opaque.equals(Conditional.opaque(tag)));
+        }
+        return res;
+    }
+
+    /**
+     * Response to the request for the packument: `304 Not Modified` if client
+     * has the current packument, full response with validator headers otherwise.
+     * @param validators Validators of the packument
+     * @param full Full response
+     * @return Response
+     */
+    CompletionStage<Response> response(final Optional<MetaValidators> validators,
+        final Supplier<CompletionStage<Response>> full) {
+        return this.response(validators, "", full);
+    }
+
+    /**
+     * Response to the request for the packument representation.
+     * @param validators Validators of the packument
+     * @param variant Representation name, see {@link MetaValidators#etag(String)}
+     * @param full Full response
+     * @return Response
+     */
+    CompletionStage<Response> response(final Optional<MetaValidators> validators,
+        final String variant, final Supplier<CompletionStage<Response>> full) {
+        final CompletionStage<Response> res;
+        if (validators.isPresent() && this.notModified(
+            validators.get().etag(variant), validators.get().lastModified()
+        )) {
+            res = CompletableFuture.completedFuture(
+                Conditional.unchanged(
+                    validators.get().etag(variant), validators.get().lastModified()
+                )
+            );
+        } else {
+            res = full.get().thenApply(
+                rsp -> validators.<Response>map(
+                    val -> new RsWithHeaders(
+                        rsp, Conditional.validators(val.etag(variant), val.lastModified())
+                    )
+                ).orElse(rsp)
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Response `304 Not Modified`.
+     * @param etag Quoted entity tag of the resource
+     * @param modified Last modification time of the resource
+     * @return Response
+     */
+    static Response unchanged(final String etag, final Optional<Instant> modified) {
+        return new RsWithHeaders(
+            new RsWithStatus(RsStatus.NOT_MODIFIED), Conditional.validators(etag, modified)
+        );
+    }
+
+    /**
+     * Validator headers of the response.
+     * @param etag Quoted entity tag of the resource
+     * @param modified Last modification time of the resource
+     * @return Headers
+     */
+    static Headers validators(final String etag, final Optional<Instant> modified) {
+        final List<Map.Entry<String, String>> res = new ArrayList<>(2);
+        res.add(new Header(Conditional.ETAG, etag));
+        modified.ifPresent(
+            time -> res.add(
+                new Header(
+                    Conditional.LAST_MODIFIED,
+                    Conditional.HTTP_DATE.format(time)
+                )
+            )
+        );
+        return new Headers.From(res);
+    }
+
+    /**
+     * Entity tag without weakness indicator, weak comparison is used for GET.
+     * @param tag Entity tag
+     * @return Opaque tag
+     */
+    private static String opaque(final String tag) {
+        final String res;
+        if (tag.startsWith("W/")) {
+            res = tag.substring(2);
+        } else {
+            res = tag;
+        }
+        return res;
+    }
+
+    /**
+     * Parses HTTP date.
+     * @param date Date
+     * @return Time, empty if date is malformed
+     */
+    private static Optional<Instant> time(final String date) {
+        Optional<Instant> res;
+        try {
+            res = Optional.of(
+                ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+            );
+        } catch (final DateTimeParseException ex) {
+            res = Optional.empty();
+        }
+        return res;
+    }
+}
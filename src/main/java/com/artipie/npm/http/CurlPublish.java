@@ -4,23 +4,23 @@
  */
 package com.artipie.npm.http;
 
-import com.artipie.asto.Concatenation;
-import com.artipie.asto.Content;
 import com.artipie.asto.Key;
-import com.artipie.asto.Remaining;
 import com.artipie.asto.Storage;
-import com.artipie.asto.rx.RxStorageWrapper;
+import com.artipie.npm.MetaQueue;
 import com.artipie.npm.MetaUpdate;
 import com.artipie.npm.Publish;
-import com.artipie.npm.TgzArchive;
-import hu.akarnokd.rxjava2.interop.SingleInterop;
-import java.nio.charset.StandardCharsets;
+import com.artipie.npm.TarballDigest;
+import com.artipie.npm.TgzScan;
 import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 /**
  * The NPM publish front. It allows to publish new .tgz archive
- * using `curl PUT`.
+ * using `curl PUT`. Uploaded archive is read once to build package
+ * metadata and digest sidecar, and then moved to its place in the storage.
+ * Tarball is saved before meta.json which references it, see {@link CliPublish}.
+ * Digest sidecar of the replaced tarball is deleted before the move and the
+ * new one is saved after it, so tarball is never served with a wrong digest.
  * @since 0.9
  */
 final class CurlPublish implements Publish {
@@ -34,42 +34,48 @@ final class CurlPublish implements Publish {
      */
     private final Storage storage;
 
+    /**
+     * Queue of meta.json mutations.
+     */
+    private final MetaQueue queue;
+
+    /**
+     * Publish workers, uploaded bytes are parsed on them.
+     */
+    private final PublishPool pool;
+
     /**
      * Constructor.
      * @param storage The storage.
+     * @param queue Queue of meta.json mutations
+     * @param pool Publish workers
      */
-    CurlPublish(final Storage storage) {
+    CurlPublish(final Storage storage, final MetaQueue queue, final PublishPool pool) {
         this.storage = storage;
+        this.queue = queue;
+        this.pool = pool;
     }
 
     @Override
     public CompletableFuture<Void> publish(final Key prefix, final Key artifact) {
-        return new RxStorageWrapper(this.storage).value(artifact)
-            .map(Concatenation::new)
-            .flatMap(Concatenation::single)
-            .map(Remaining::new)
-            .map(Remaining::bytes)
-            .map(bytes -> new String(bytes, StandardCharsets.ISO_8859_1))
-            .map(bytes -> new TgzArchive(bytes, false))
-            .to(SingleInterop.get())
-            .toCompletableFuture()
+        return this.storage.value(artifact)
+            .thenCompose(content -> new TgzScan(this.pool.observed(content)).scan())
             .thenCompose(
-                uploaded -> uploaded.packageJson()
-                    .to(SingleInterop.get())
-                    .thenCompose(
-                        pkg -> {
-                            final String name = pkg.getString("name");
-                            final String vers = pkg.getString("version");
-                            return CompletableFuture.allOf(
-                                this.storage.save(
-                                    new Key.From(name, "-", String.format("%s-%s.tgz", name, vers)),
-                                    new Content.From(uploaded.bytes())
-                                ),
-                                new MetaUpdate.ByTgz(uploaded)
-                                    .update(new Key.From(name), this.storage)
-                            );
-                        }
-                )
+                uploaded -> {
+                    final String name = uploaded.packageJson().getString("name");
+                    final String vers = uploaded.packageJson().getString("version");
+                    final Key tgz = new Key.From(
+                        name, "-", String.format("%s-%s.tgz", name, vers)
+                    );
+                    final TarballDigest.Stored digests = new TarballDigest.Stored(this.storage);
+                    return digests.delete(tgz).thenCompose(
+                        nothing -> this.storage.move(artifact, tgz)
+                    ).thenCompose(
+                        nothing -> digests.save(tgz, uploaded.digest())
+                    ).thenCompose(
+                        nothing -> new MetaUpdate.ByTgz(uploaded).byJson(new Key.From(name))
+                    ).thenCompose(upd -> this.queue.update(new Key.From(name), upd));
+                }
             );
     }
 }
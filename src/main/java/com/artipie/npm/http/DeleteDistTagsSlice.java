@@ -4,22 +4,16 @@
  */
 package com.artipie.npm.http;
 
-import com.artipie.asto.Content;
 import com.artipie.asto.Key;
-import com.artipie.asto.Storage;
-import com.artipie.asto.ext.PublisherAs;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
 import com.artipie.http.rq.RequestLineFrom;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithStatus;
-import com.artipie.http.rs.StandardRs;
-import java.io.StringReader;
+import com.artipie.npm.MetaQueue;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import javax.json.Json;
 import org.reactivestreams.Publisher;
@@ -36,16 +30,16 @@ public final class DeleteDistTagsSlice implements Slice {
     private static final String FIELD = "dist-tags";
 
     /**
-     * Abstract storage.
+     * Queue of meta.json mutations.
      */
-    private final Storage storage;
+    private final MetaQueue queue;
 
     /**
      * Ctor.
-     * @param storage Abstract storage
+     * @param queue Queue of meta.json mutations
      */
-    public DeleteDistTagsSlice(final Storage storage) {
-        this.storage = storage;
+    public DeleteDistTagsSlice(final MetaQueue queue) {
+        this.queue = queue;
     }
 
     @Override
@@ -58,40 +52,21 @@ public final class DeleteDistTagsSlice implements Slice {
         );
         final Response resp;
         if (matcher.matches()) {
-            final Key meta = new Key.From(matcher.group("pkg"), "meta.json");
+            final Key pkg = new Key.From(matcher.group("pkg"));
             final String tag = matcher.group("tag");
             resp = new AsyncResponse(
-                this.storage.exists(meta).thenCompose(
-                    exists -> {
-                        final CompletableFuture<Response> res;
-                        if (exists) {
-                            res = this.storage.value(meta)
-                                .thenCompose(content -> new PublisherAs(content).asciiString())
-                                .thenApply(
-                                    str -> Json.createReader(new StringReader(str)).readObject()
-                                ).thenApply(
-                                    json -> Json.createObjectBuilder(json).add(
-                                        DeleteDistTagsSlice.FIELD,
-                                        Json.createObjectBuilder()
-                                            .addAll(
-                                                Json.createObjectBuilder(
-                                                    json.getJsonObject(DeleteDistTagsSlice.FIELD)
-                                                )
-                                            ).remove(tag)
-                                    ).build()
-                                ).thenApply(
-                                    json -> json.toString().getBytes(StandardCharsets.UTF_8)
-                                ).thenCompose(
-                                    bytes -> this.storage.save(meta, new Content.From(bytes))
-                                ).thenApply(
-                                    nothing -> StandardRs.OK
-                                );
-                        } else {
-                            res = CompletableFuture.completedFuture(StandardRs.NOT_FOUND);
-                        }
-                        return res;
-                    }
-                )
+                this.queue.updateExisting(
+                    pkg,
+                    json -> Json.createObjectBuilder(json).add(
+                        DeleteDistTagsSlice.FIELD,
+                        Json.createObjectBuilder()
+                            .addAll(
+                                Json.createObjectBuilder(
+                                    json.getJsonObject(DeleteDistTagsSlice.FIELD)
+                                )
+                            ).remove(tag)
+                    ).build()
+                ).handle(new MutationStatus())
             );
         } else {
             resp = new RsWithStatus(RsStatus.BAD_REQUEST);
@@ -4,20 +4,17 @@
  */
 package com.artipie.npm.http;
 
-import com.artipie.asto.Content;
 import com.artipie.asto.Key;
-import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
-import com.artipie.http.rs.StandardRs;
+import com.artipie.npm.MetaQueue;
 import com.artipie.npm.PackageNameFromUrl;
-import com.artipie.npm.misc.JsonFromPublisher;
+import com.artipie.npm.Revision;
+import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
 import java.util.regex.Pattern;
 import javax.json.Json;
 import javax.json.JsonObject;
@@ -27,6 +24,7 @@ import org.reactivestreams.Publisher;
 
 /**
  * Slice to handle `npm deprecate` command requests.
+ * Request based on outdated packument revision is rejected with `409 Conflict`.
  * @since 0.8
  */
 public final class DeprecateSlice implements Slice {
@@ -36,16 +34,16 @@ public final class DeprecateSlice implements Slice {
     static final Pattern HEADER = Pattern.compile("deprecate.*");
 
     /**
-     * Abstract storage.
+     * Queue of meta.json mutations.
      */
-    private final Storage storage;
+    private final MetaQueue queue;
 
     /**
      * Ctor.
-     * @param storage Abstract storage
+     * @param queue Queue of meta.json mutations
      */
-    public DeprecateSlice(final Storage storage) {
-        this.storage = storage;
+    public DeprecateSlice(final MetaQueue queue) {
+        this.queue = queue;
     }
 
     @Override
@@ -55,31 +53,21 @@ public final class DeprecateSlice implements Slice {
         final Publisher<ByteBuffer> publisher
     ) {
         final String pkg = new PackageNameFromUrl(line).value();
-        final Key key = new Key.From(pkg, "meta.json");
+        final Key key = new Key.From(pkg);
         return new AsyncResponse(
-            this.storage.exists(key).thenCompose(
-                exists -> {
-                    final CompletionStage<Response> res;
-                    if (exists) {
-                        res = new JsonFromPublisher(publisher).json()
-                            .thenApply(json -> json.getJsonObject("versions"))
-                            .thenCombine(
-                                this.storage.value(key)
-                                    .thenApply(JsonFromPublisher::new)
-                                    .thenCompose(JsonFromPublisher::json),
-                                (body, meta) -> DeprecateSlice.deprecate(body, meta).toString()
-                            ).thenCompose(
-                                str -> this.storage.save(
-                                    key, new Content.From(str.getBytes(StandardCharsets.UTF_8))
-                                )
-                            )
-                            .thenApply(nothing -> StandardRs.OK);
-                    } else {
-                        res = CompletableFuture.completedFuture(StandardRs.NOT_FOUND);
-                    }
-                    return res;
-                }
-            )
+            new PublisherAs(publisher).bytes()
+                .thenCompose(
+                    bytes -> this.queue.updateExisting(
+                        key,
+                        meta -> {
+                            final JsonObject body = Json.createReader(
+                                new ByteArrayInputStream(bytes)
+                            ).readObject();
+                            new Revision(meta).check(new Revision(body).value());
+                            return DeprecateSlice.deprecate(body.getJsonObject("versions"), meta);
+                        }
+                    )
+                ).handle(new MutationStatus())
         );
     }
 
@@ -5,42 +5,80 @@
 
 package com.artipie.npm.http;
 
+import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RqHeaders;
 import com.artipie.http.rs.RsFull;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithStatus;
+import com.artipie.npm.Abbreviated;
+import com.artipie.npm.MetaLayout;
 import com.artipie.npm.PackageNameFromUrl;
 import com.artipie.npm.Tarballs;
+import com.artipie.npm.misc.GzipVariants;
+import com.artipie.npm.misc.JsonFromPublisher;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.cactoos.iterable.IterableOf;
 import org.cactoos.map.MapEntry;
 import org.reactivestreams.Publisher;
 
 /**
  * Download package endpoint. Return package metadata, all tarball links will be rewritten
- * based on requested URL.
+ * based on requested URL. Conditional requests matching stored validators of the
+ * packument are answered with `304 Not Modified`, packument is not read.
+ * Clients accepting `application/vnd.npm.install-v1+json` get abbreviated packument.
+ * Clients accepting gzip get compressed packument, it is compressed once per packument
+ * change and is kept in memory.
  *
  * @since 0.6
  * @checkstyle ClassDataAbstractionCouplingCheck (250 lines)
  */
 public final class DownloadPackageSlice implements Slice {
 
+    /**
+     * Name of abbreviated packument representation.
+     */
+    private static final String INSTALL = "install";
+
+    /**
+     * Content-Type header name.
+     */
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    /**
+     * Vary header name.
+     */
+    private static final String VARY = "Vary";
+
+    /**
+     * Request headers packument response depends on.
+     */
+    private static final String VARIES = "Accept, Accept-Encoding";
+
     /**
      * Base URL.
      */
     private final URL base;
 
     /**
-     * Abstract Storage.
+     * Packument layout.
+     */
+    private final MetaLayout layout;
+
+    /**
+     * Gzip compressed packuments.
      */
-    private final Storage storage;
+    private final GzipVariants gzip;
 
     /**
      * Ctor.
@@ -49,41 +87,206 @@ public final class DownloadPackageSlice implements Slice {
      * @param storage Abstract storage
      */
     public DownloadPackageSlice(final URL base, final Storage storage) {
+        this(base, new MetaLayout.Whole(storage));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param base Base URL
+     * @param layout Packument layout
+     */
+    public DownloadPackageSlice(final URL base, final MetaLayout layout) {
+        this(base, layout, new GzipVariants());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param base Base URL
+     * @param layout Packument layout
+     * @param gzip Gzip compressed packuments
+     */
+    public DownloadPackageSlice(final URL base, final MetaLayout layout,
+        final GzipVariants gzip) {
         this.base = base;
-        this.storage = storage;
+        this.layout = layout;
+        this.gzip = gzip;
     }
 
-    // @checkstyle ReturnCountCheck (50 lines)
     @Override
     public Response response(final String line,
         final Iterable<Map.Entry<String, String>> headers,
         final Publisher<ByteBuffer> body) {
-        final String pkg = new PackageNameFromUrl(line).value();
-        final Key key = new Key.From(pkg, "meta.json");
+        final Key pkg = new Key.From(new PackageNameFromUrl(line).value());
+        final boolean install = new RqHeaders(headers, "Accept").stream()
+            .anyMatch(accept -> accept.contains(Abbreviated.MEDIA_TYPE));
+        final boolean gzip = GzipVariants.accepted(headers);
+        final String variant = DownloadPackageSlice.variant(install, gzip);
         return new AsyncResponse(
-            this.storage.exists(key).thenCompose(
-                exists -> {
-                    if (exists) {
-                        return this.storage.value(key)
-                            .thenApply(content -> new Tarballs(content, this.base).value())
-                            .thenApply(
-                                content -> new RsFull(
-                                    RsStatus.OK,
-                                    new IterableOf<Map.Entry<String, String>>(
-                                        new MapEntry<>(
-                                            "Content-Type", "application/json"
-                                        )
-                                    ),
-                                    content
-                            )
-                            );
-                    } else {
-                        return CompletableFuture.completedFuture(
-                            new RsWithStatus(RsStatus.NOT_FOUND)
-                        );
-                    }
-                }
+            this.layout.validators(pkg).thenCompose(
+                validators -> new Conditional(headers).response(
+                    validators, variant,
+                    () -> this.packument(
+                        pkg, install,
+                        validators.filter(val -> gzip).map(
+                            val -> String.format("%s %s", pkg.string(), val.etag(variant))
+                        )
+                    )
+                )
             )
         );
     }
+
+    /**
+     * Packument response, abbreviated packument is sent to installing client.
+     * If abbreviated packument is not stored (package was written before it was
+     * introduced), it is built from the full packument, so the response always
+     * matches the entity tag of the requested representation.
+     * @param pkg Package key
+     * @param install Does client accept abbreviated packument?
+     * @param compressed Gzip variant key, empty if response is not compressed
+     * @return Response
+     */
+    private CompletionStage<Response> packument(final Key pkg, final boolean install,
+        final Optional<String> compressed) {
+        final Optional<byte[]> cached = compressed.flatMap(this.gzip::cached);
+        final CompletionStage<Response> res;
+        if (cached.isPresent()) {
+            res = CompletableFuture.completedFuture(
+                DownloadPackageSlice.gzipped(cached.get(), DownloadPackageSlice.type(install))
+            );
+        } else if (install) {
+            res = this.layout.abbreviated(pkg).thenCompose(
+                content -> content.map(
+                    pub -> this.json(pub, Abbreviated.MEDIA_TYPE, compressed)
+                ).orElseGet(() -> this.abbreviated(pkg, compressed))
+            );
+        } else {
+            res = this.full(pkg, compressed);
+        }
+        return res;
+    }
+
+    /**
+     * Full packument response.
+     * @param pkg Package key
+     * @param compressed Gzip variant key, empty if response is not compressed
+     * @return Response
+     */
+    private CompletionStage<Response> full(final Key pkg, final Optional<String> compressed) {
+        return this.layout.content(pkg).thenCompose(
+            packument -> packument.map(
+                content -> this.json(content, DownloadPackageSlice.type(false), compressed)
+            ).orElseGet(
+                () -> CompletableFuture.completedFuture(new RsWithStatus(RsStatus.NOT_FOUND))
+            )
+        );
+    }
+
+    /**
+     * Abbreviated packument response built from the full packument.
+     * @param pkg Package key
+     * @param compressed Gzip variant key, empty if response is not compressed
+     * @return Response
+     */
+    private CompletionStage<Response> abbreviated(final Key pkg,
+        final Optional<String> compressed) {
+        return this.layout.content(pkg).thenCompose(
+            packument -> packument.map(
+                content -> new JsonFromPublisher(content).json().thenCompose(
+                    json -> this.json(
+                        new Content.From(
+                            new Abbreviated(json).json().toString()
+                                .getBytes(StandardCharsets.UTF_8)
+                        ),
+                        Abbreviated.MEDIA_TYPE, compressed
+                    )
+                )
+            ).orElseGet(
+                () -> CompletableFuture.completedFuture(new RsWithStatus(RsStatus.NOT_FOUND))
+            )
+        );
+    }
+
+    /**
+     * Packument json response with rewritten tarball links.
+     * @param content Packument bytes
+     * @param type Media type
+     * @param compressed Gzip variant key, empty if response is not compressed
+     * @return Response
+     */
+    private CompletionStage<Response> json(final Content content, final String type,
+        final Optional<String> compressed) {
+        final Content json = new Tarballs(content, this.base).value();
+        return compressed.map(
+            key -> this.gzip.compress(key, json).<Response>thenApply(
+                bytes -> DownloadPackageSlice.gzipped(bytes, type)
+            )
+        ).orElseGet(
+            () -> CompletableFuture.completedFuture(
+                new RsFull(
+                    RsStatus.OK,
+                    new IterableOf<Map.Entry<String, String>>(
+                        new MapEntry<>(DownloadPackageSlice.CONTENT_TYPE, type),
+                        new MapEntry<>(DownloadPackageSlice.VARY, DownloadPackageSlice.VARIES)
+                    ),
+                    json
+                )
+            )
+        );
+    }
+
+    /**
+     * Gzip compressed packument response.
+     * @param bytes Compressed bytes
+     * @param type Media type
+     * @return Response
+     */
+    private static Response gzipped(final byte[] bytes, final String type) {
+        return new RsFull(
+            RsStatus.OK,
+            new IterableOf<Map.Entry<String, String>>(
+                new MapEntry<>(DownloadPackageSlice.CONTENT_TYPE, type),
+                new MapEntry<>("Content-Encoding", "gzip"),
+                new MapEntry<>(DownloadPackageSlice.VARY, DownloadPackageSlice.VARIES)
+            ),
+            new Content.From(bytes)
+        );
+    }
+
+    /**
+     * Packument media type.
+     * @param install Is it abbreviated packument?
+     * @return Media type
+     */
+    private static String type(final boolean install) {
+        final String res;
+        if (install) {
+            res = Abbreviated.MEDIA_TYPE;
+        } else {
+            res = "application/json";
+        }
+        return res;
+    }
+
+    /**
+     * Name of packument representation.
+     * @param install Is it abbreviated packument?
+     * @param gzip Is it gzip compressed?
+     * @return Name, see {@link com.artipie.npm.MetaValidators#etag(String)}
+     */
+    private static String variant(final boolean install, final boolean gzip) {
+        final StringBuilder res = new StringBuilder();
+        if (install) {
+            res.append(DownloadPackageSlice.INSTALL);
+        }
+        if (gzip) {
+            if (res.length() > 0) {
+                res.append('-');
+            }
+            res.append("gzip");
+        }
+        return res.toString();
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.ContentFileName;
+import com.artipie.http.headers.Header;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rs.RsFull;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.slice.KeyFromPath;
+import com.artipie.npm.MetaStore;
+import com.artipie.npm.PackagePurge;
+import com.artipie.npm.TarballDigest;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+
+/**
+ * Download tarball endpoint. If tarball was published with digest sidecar,
+ * response has `ETag` and `Digest` headers taken from the sidecar, tarball is
+ * not hashed on download. `Content-Length` is the size of the stored tarball,
+ * not the sidecar size, so body framing is correct even if the sidecar is
+ * behind the tarball. Requests with `If-None-Match` matching the sidecar ETag
+ * are answered with `304 Not Modified`, tarball is not read.
+ * Tarballs of the package which is being purged after force unpublish are
+ * not found, see {@link PackagePurge}.
+ * @since 0.10
+ * @checkstyle ClassDataAbstractionCouplingCheck (250 lines)
+ */
+public final class DownloadTarballSlice implements Slice {
+
+    /**
+     * Byte ranges are not served: HTTP library has no `206 Partial Content`
+     * status, so `Range` and `If-Range` are ignored and full body is sent.
+     */
+    private static final Header NO_RANGES = new Header("Accept-Ranges", "none");
+
+    /**
+     * Storage.
+     */
+    private final Storage storage;
+
+    /**
+     * Package purge.
+     */
+    private final PackagePurge purge;
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     */
+    public DownloadTarballSlice(final Storage storage) {
+        this(storage, new PackagePurge(storage));
+    }
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     * @param purge Package purge
+     */
+    public DownloadTarballSlice(final Storage storage, final PackagePurge purge) {
+        this.storage = storage;
+        this.purge = purge;
+    }
+
+    @Override
+    public Response response(
+        final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body
+    ) {
+        final URI uri = new RequestLineFrom(line).uri();
+        final Key key = new KeyFromPath(uri.getPath());
+        return new AsyncResponse(
+            new TarballDigest.Stored(this.storage).load(key).thenCombine(
+                this.purging(key),
+                (digest, purging) -> {
+                    final CompletionStage<Response> res;
+                    if (purging) {
+                        res = CompletableFuture.completedFuture(
+                            new RsWithStatus(RsStatus.NOT_FOUND)
+                        );
+                    } else if (digest.isPresent() && new Conditional(headers)
+                        .notModified(digest.get().etag(), Optional.empty())) {
+                        res = CompletableFuture.completedFuture(
+                            Conditional.unchanged(digest.get().etag(), Optional.empty())
+                        );
+                    } else {
+                        res = this.tarball(uri, key, digest);
+                    }
+                    return res;
+                }
+            ).thenCompose(Function.identity())
+        );
+    }
+
+    /**
+     * Checks that package of the tarball is being purged.
+     * @param tgz Tarball key, `[@scope/]pkg/-/file.tgz`
+     * @return True if package of the tarball has tombstone
+     */
+    private CompletableFuture<Boolean> purging(final Key tgz) {
+        final String path = tgz.string();
+        final int idx = path.indexOf("/-/");
+        final CompletableFuture<Boolean> res;
+        if (idx > 0) {
+            res = this.purge.purging(new Key.From(path.substring(0, idx)));
+        } else {
+            res = CompletableFuture.completedFuture(false);
+        }
+        return res;
+    }
+
+    /**
+     * Full tarball response.
+     * @param uri Request URI
+     * @param key Tarball key
+     * @param digest Tarball digest from the sidecar, for validators only
+     * @return Response
+     */
+    private CompletionStage<Response> tarball(final URI uri, final Key key,
+        final Optional<TarballDigest> digest) {
+        return new MetaStore(this.storage).value(key).thenApply(
+            tgz -> tgz.<Response>map(
+                content -> digest.<Response>map(
+                    dgst -> new RsFull(
+                        RsStatus.OK,
+                        new Headers.From(
+                            new ContentFileName(uri),
+                            new Header("ETag", dgst.etag()),
+                            new Header("Digest", dgst.digest()),
+                            DownloadTarballSlice.NO_RANGES
+                        ),
+                        content
+                    )
+                ).orElseGet(
+                    () -> new RsFull(
+                        RsStatus.OK,
+                        new Headers.From(
+                            new ContentFileName(uri), DownloadTarballSlice.NO_RANGES
+                        ),
+                        content
+                    )
+                )
+            ).orElseGet(() -> new RsWithStatus(RsStatus.NOT_FOUND))
+        );
+    }
+}
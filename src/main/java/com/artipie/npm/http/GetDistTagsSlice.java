@@ -7,31 +7,36 @@ package com.artipie.npm.http;
 
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
-import com.artipie.asto.ext.PublisherAs;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.headers.ContentType;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.StandardRs;
 import com.artipie.http.rs.common.RsJson;
+import com.artipie.npm.MetaLayout;
 import com.artipie.npm.PackageNameFromUrl;
-import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import javax.json.Json;
+import java.util.concurrent.CompletionStage;
 import org.reactivestreams.Publisher;
 
 /**
  * Returns value of the `dist-tags` field from package `meta.json`.
  * Request line to this slice looks like /-/package/@hello%2fsimple-npm-project/dist-tags.
+ * Validators of the packument are used to answer conditional requests.
+ * Tags are served from the sidecar stored by {@link MetaLayout} on write,
+ * packument is read only for packages written without the sidecar.
  * @since 0.8
  */
 public final class GetDistTagsSlice implements Slice {
 
     /**
-     * Abstract Storage.
+     * Packument layout.
      */
-    private final Storage storage;
+    private final MetaLayout layout;
 
     /**
      * Ctor.
@@ -39,7 +44,16 @@ public final class GetDistTagsSlice implements Slice {
      * @param storage Abstract storage
      */
     public GetDistTagsSlice(final Storage storage) {
-        this.storage = storage;
+        this(new MetaLayout.Whole(storage));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param layout Packument layout
+     */
+    public GetDistTagsSlice(final MetaLayout layout) {
+        this.layout = layout;
     }
 
     @Override
@@ -49,23 +63,28 @@ public final class GetDistTagsSlice implements Slice {
         final String pkg = new PackageNameFromUrl(
             line.replace("/dist-tags", "").replace("/-/package", "")
         ).value();
-        final Key key = new Key.From(pkg, "meta.json");
+        final Key key = new Key.From(pkg);
         return new AsyncResponse(
-            this.storage.exists(key).thenCompose(
-                exists -> {
-                    final CompletableFuture<Response> res;
-                    if (exists) {
-                        res = this.storage.value(key)
-                            .thenCompose(content -> new PublisherAs(content).asciiString())
-                            .thenApply(
-                                str -> Json.createReader(new StringReader(str)).readObject()
+            this.layout.validators(key).thenCompose(
+                validators -> new Conditional(headers).response(
+                    validators,
+                    () -> this.layout.distTags(key).thenCompose(
+                        tags -> tags.<CompletionStage<Response>>map(
+                            content -> CompletableFuture.completedFuture(
+                                new RsWithHeaders(
+                                    new RsWithBody(StandardRs.OK, content),
+                                    new ContentType("application/json; charset=UTF-8")
+                                )
+                            )
+                        ).orElseGet(
+                            () -> this.layout.read(key, false).thenApply(
+                                meta -> meta.<Response>map(
+                                    json -> new RsJson(json.getJsonObject("dist-tags"))
+                                ).orElse(StandardRs.NOT_FOUND)
                             )
-                            .thenApply(json -> new RsJson(json.getJsonObject("dist-tags")));
-                    } else {
-                        res = CompletableFuture.completedFuture(StandardRs.NOT_FOUND);
-                    }
-                    return res;
-                }
+                        )
+                    )
+                )
             )
         );
     }
@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.Response;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.http.rs.StandardRs;
+import com.artipie.npm.MetaConflictException;
+import com.artipie.npm.MetaQueue;
+import com.artipie.npm.PackagePurgedException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+
+/**
+ * Response to the mutation of existing packument, see
+ * {@link MetaQueue#updateExisting}: `200 OK` if packument was updated,
+ * `404 Not Found` if there is no such package, `409 Conflict` if request is
+ * based on outdated revision, packument is modified concurrently too often
+ * or package is being purged.
+ * Other errors are passed as is.
+ * @since 0.10
+ */
+final class MutationStatus implements BiFunction<Boolean, Throwable, Response> {
+
+    @Override
+    public Response apply(final Boolean found, final Throwable err) {
+        final Response res;
+        if (err == null) {
+            if (found) {
+                res = StandardRs.OK;
+            } else {
+                res = StandardRs.NOT_FOUND;
+            }
+        } else if (MetaConflictException.causedBy(err)) {
+            res = new RsWithBody(
+                new RsWithStatus(RsStatus.CONFLICT),
+                "Document update conflict", StandardCharsets.UTF_8
+            );
+        } else if (PackagePurgedException.causedBy(err)) {
+            res = new RsWithBody(
+                new RsWithStatus(RsStatus.CONFLICT),
+                "Package is being unpublished", StandardCharsets.UTF_8
+            );
+        } else if (err instanceof CompletionException) {
+            throw (CompletionException) err;
+        } else {
+            throw new CompletionException(err);
+        }
+        return res;
+    }
+}
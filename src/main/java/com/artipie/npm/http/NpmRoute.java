@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithStatus;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.reactivestreams.Publisher;
+
+/**
+ * Routing of the npm registry requests. Request line is parsed once and
+ * request is classified by method, path suffix and npm command, which is
+ * taken from `referer` header (npm 6 and older) or `npm-command` header
+ * (npm 7 and newer), then the slice of the request kind is called.
+ * Requests of other kinds are answered with `404 Not Found`.
+ * @since 0.10
+ */
+public final class NpmRoute implements Slice {
+
+    /**
+     * Dist-tags path of the package.
+     */
+    private static final String PACKAGE = "/-/package/";
+
+    /**
+     * Dist-tags path segment.
+     */
+    private static final String DIST_TAGS = "/dist-tags";
+
+    /**
+     * Tarball extension.
+     */
+    private static final String TGZ = ".tgz";
+
+    /**
+     * Slices by request kind.
+     */
+    private final Map<Kind, Slice> slices;
+
+    /**
+     * Ctor.
+     * @param slices Slices by request kind, requests of other kinds are not found
+     */
+    public NpmRoute(final Map<Kind, Slice> slices) {
+        this.slices = new EnumMap<>(Kind.class);
+        this.slices.putAll(slices);
+    }
+
+    @Override
+    public Response response(final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        final Slice slice = NpmRoute.kind(line, headers).map(this.slices::get).orElse(null);
+        final Response res;
+        if (slice == null) {
+            res = new RsWithBody(
+                new RsWithStatus(RsStatus.NOT_FOUND), "not found", StandardCharsets.UTF_8
+            );
+        } else {
+            res = slice.response(line, headers, body);
+        }
+        return res;
+    }
+
+    /**
+     * Kind of the request.
+     * @param line Request line
+     * @param headers Request headers
+     * @return Request kind, empty if request is not supported
+     * @checkstyle CyclomaticComplexityCheck (50 lines)
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    static Optional<Kind> kind(final String line,
+        final Iterable<Map.Entry<String, String>> headers) {
+        final String trimmed = line.trim();
+        final int first = trimmed.indexOf(' ');
+        final Kind res;
+        if (first < 0) {
+            res = null;
+        } else {
+            final String method = trimmed.substring(0, first);
+            final String path = NpmRoute.path(trimmed, first + 1);
+            final boolean tags = path.startsWith(NpmRoute.PACKAGE)
+                && path.indexOf("/dist-tags/", NpmRoute.PACKAGE.length() - 1) >= 0;
+            if ("GET".equals(method)) {
+                if (path.endsWith("/-/v1/search")) {
+                    res = Kind.SEARCH;
+                } else if (path.endsWith("/_changes")) {
+                    res = Kind.CHANGES;
+                } else if (path.endsWith(NpmRoute.DIST_TAGS)) {
+                    res = Kind.DIST_TAGS;
+                } else if (path.endsWith(NpmRoute.TGZ)) {
+                    res = Kind.TARBALL;
+                } else {
+                    res = Kind.PACKUMENT;
+                }
+            } else if ("PUT".equals(method)) {
+                final String command = NpmRoute.command(headers);
+                if (tags) {
+                    res = Kind.ADD_DIST_TAG;
+                } else if (command.startsWith("publish")) {
+                    res = Kind.PUBLISH;
+                } else if (command.startsWith("deprecate")) {
+                    res = Kind.DEPRECATE;
+                } else if (command.startsWith("unpublish")) {
+                    res = Kind.UNPUBLISH;
+                } else if (path.endsWith(NpmRoute.TGZ)) {
+                    res = Kind.PUBLISH_TARBALL;
+                } else {
+                    res = null;
+                }
+            } else if ("DELETE".equals(method)) {
+                if (tags) {
+                    res = Kind.DELETE_DIST_TAG;
+                } else if (path.indexOf("/-rev/", 1) > 0 && path.charAt(0) == '/') {
+                    res = Kind.UNPUBLISH_FORCE;
+                } else {
+                    res = null;
+                }
+            } else {
+                res = null;
+            }
+        }
+        return Optional.ofNullable(res);
+    }
+
+    /**
+     * Decoded path of the request target.
+     * @param line Trimmed request line
+     * @param start Target start position
+     * @return Path
+     */
+    private static String path(final String line, final int start) {
+        int end = line.indexOf(' ', start);
+        if (end < 0) {
+            end = line.length();
+        }
+        final String target = line.substring(start, end);
+        int query = target.indexOf('?');
+        if (query < 0) {
+            query = target.length();
+        }
+        final String res;
+        if (target.indexOf('%') >= 0 || target.isEmpty() || target.charAt(0) != '/') {
+            res = Optional.ofNullable(URI.create(target).getPath()).orElse("");
+        } else {
+            res = target.substring(0, query);
+        }
+        return res;
+    }
+
+    /**
+     * Npm command of the request.
+     * @param headers Request headers
+     * @return Lower case command, empty if there is no command
+     */
+    private static String command(final Iterable<Map.Entry<String, String>> headers) {
+        String res = "";
+        for (final Map.Entry<String, String> header : headers) {
+            if ("referer".equalsIgnoreCase(header.getKey())
+                || "npm-command".equalsIgnoreCase(header.getKey())) {
+                res = header.getValue().toLowerCase(Locale.US);
+                if ("referer".equalsIgnoreCase(header.getKey())) {
+                    break;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Kind of npm registry request.
+     * @since 0.10
+     */
+    public enum Kind {
+        /**
+         * Packument download, `GET /{package}`.
+         */
+        PACKUMENT,
+
+        /**
+         * Tarball download, `GET /{package}/-/{tarball}.tgz`.
+         */
+        TARBALL,
+
+        /**
+         * Dist-tags of the package, `GET /-/package/{package}/dist-tags`.
+         */
+        DIST_TAGS,
+
+        /**
+         * Search, `GET /-/v1/search`.
+         */
+        SEARCH,
+
+        /**
+         * Changes feed, `GET /_changes`.
+         */
+        CHANGES,
+
+        /**
+         * Dist-tag add, `PUT /-/package/{package}/dist-tags/{tag}`.
+         */
+        ADD_DIST_TAG,
+
+        /**
+         * Dist-tag removal, `DELETE /-/package/{package}/dist-tags/{tag}`.
+         */
+        DELETE_DIST_TAG,
+
+        /**
+         * Publish with `npm publish`, `PUT /{package}`.
+         */
+        PUBLISH,
+
+        /**
+         * Deprecate with `npm deprecate`, `PUT /{package}`.
+         */
+        DEPRECATE,
+
+        /**
+         * Unpublish of the version with `npm unpublish`, `PUT /{package}/-rev/{rev}`.
+         */
+        UNPUBLISH,
+
+        /**
+         * Tarball upload with curl, `PUT /{package}/-/{tarball}.tgz`.
+         */
+        PUBLISH_TARBALL,
+
+        /**
+         * Package removal with `npm unpublish --force`,
+         * `DELETE /{package}/-rev/{rev}`.
+         */
+        UNPUBLISH_FORCE
+    }
+}
@@ -13,19 +13,42 @@ import com.artipie.http.auth.Authentication;
 import com.artipie.http.auth.BasicAuthSlice;
 import com.artipie.http.auth.Permission;
 import com.artipie.http.auth.Permissions;
-import com.artipie.http.rq.RqMethod;
-import com.artipie.http.rt.ByMethodsRule;
-import com.artipie.http.rt.RtRule;
-import com.artipie.http.rt.RtRulePath;
-import com.artipie.http.rt.SliceRoute;
-import com.artipie.http.slice.SliceDownload;
+import com.artipie.npm.MetaJournal;
+import com.artipie.npm.MetaLayout;
+import com.artipie.npm.MetaQueue;
+import com.artipie.npm.PackagePurge;
+import com.artipie.npm.SearchIndex;
+import com.artipie.npm.StorageSweeper;
+import com.jcabi.log.Logger;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.reactivestreams.Publisher;
 
 /**
  * NpmSlice is a http layer in npm adapter.
+ * Every request is authenticated and authorized, wrap expensive
+ * authentication and permissions with {@link CachedAuthentication} and
+ * {@link CachedPermissions} to reuse recent decisions.
+ * Packument writes of one package are serialized in process by {@link MetaQueue},
+ * which runs on the workers of the {@link PublishPool}.
+ * If several nodes share the storage, set packument layout wrapped with
+ * {@link MetaLayout.Revisioned} in {@link Settings}, so concurrent writes of
+ * different nodes are detected and retried.
+ * Packages being purged after force unpublish can not be published again
+ * until purge is complete, see {@link MetaLayout.Guarded}. Purges interrupted
+ * by restart are resumed in the background on the first request.
+ * Journal of packument changes and `/_changes` feed are enabled only with
+ * {@link Settings#withJournal(MetaJournal)}: journal sequence numbers are
+ * assigned in memory, so only one node of the storage should write it.
+ * Storage garbage is removed by {@link StorageSweeper} only if it is enabled
+ * with {@link Settings#withSweep(ScheduledExecutorService, Duration, Duration)},
+ * sweeps are started on the first request.
  *
  * @since 0.3
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
@@ -34,14 +57,24 @@ import org.reactivestreams.Publisher;
 public final class NpmSlice implements Slice {
 
     /**
-     * Header name `referer`.
+     * Route, see {@link NpmRoute} for the supported requests.
      */
-    private static final String REFERER = "referer";
+    private final NpmRoute route;
 
     /**
-     * Route.
+     * Purge of unpublished packages.
      */
-    private final SliceRoute route;
+    private final PackagePurge purge;
+
+    /**
+     * Storage sweeps, started on the first request.
+     */
+    private final Optional<Runnable> sweeps;
+
+    /**
+     * Were interrupted purges resumed?
+     */
+    private final AtomicBoolean resumed;
 
     /**
      * Ctor with existing front and default parameters for free access.
@@ -53,7 +86,7 @@ public final class NpmSlice implements Slice {
     }
 
     /**
-     * Ctor.
+     * Ctor with default settings.
      *
      * @param base Base URL.
      * @param storage Storage for package.
@@ -66,118 +99,107 @@ public final class NpmSlice implements Slice {
         final Storage storage,
         final Permissions perms,
         final Authentication auth) {
-        this.route = new SliceRoute(
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.PUT),
-                    new RtRule.ByPath(AddDistTagsSlice.PTRN)
-                ),
-                new BasicAuthSlice(
-                    new AddDistTagsSlice(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.WRITE)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.DELETE),
-                    new RtRule.ByPath(AddDistTagsSlice.PTRN)
-                ),
-                new BasicAuthSlice(
-                    new DeleteDistTagsSlice(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.WRITE)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.PUT),
-                    new RtRule.ByHeader(NpmSlice.REFERER, CliPublish.HEADER)
-                ),
-                new BasicAuthSlice(
-                    new UploadSlice(new CliPublish(storage), storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.WRITE)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.PUT),
-                    new RtRule.ByHeader(NpmSlice.REFERER, DeprecateSlice.HEADER)
-                ),
-                new BasicAuthSlice(
-                    new DeprecateSlice(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.WRITE)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.PUT),
-                    new RtRule.ByHeader(NpmSlice.REFERER, UnpublishPutSlice.HEADER)
-                ),
-                new BasicAuthSlice(
-                    new UnpublishPutSlice(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.WRITE)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.PUT),
-                    new RtRule.ByPath(CurlPublish.PTRN)
-                ),
-                new BasicAuthSlice(
-                    new UploadSlice(new CurlPublish(storage), storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.WRITE)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.GET),
-                    new RtRule.ByPath(".*/dist-tags$")
-                ),
-                new BasicAuthSlice(
-                    new GetDistTagsSlice(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.READ)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.GET),
-                    new RtRule.ByPath(".*(?<!\\.tgz)$")
-                ),
-                new BasicAuthSlice(
-                    new DownloadPackageSlice(base, storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.READ)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.GET),
-                    new RtRule.ByPath(".*\\.tgz$")
-                ),
-                new BasicAuthSlice(
-                    new SliceDownload(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.READ)
-                )
-            ),
-            new RtRulePath(
-                new RtRule.All(
-                    new ByMethodsRule(RqMethod.DELETE),
-                    new RtRule.ByPath(UnpublishForceSlice.PTRN)
-                ),
-                new BasicAuthSlice(
-                    new UnpublishForceSlice(storage),
-                    auth,
-                    new Permission.ByName(perms, Action.Standard.DELETE)
-                )
+        this(base, storage, perms, auth, new Settings());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param base Base URL.
+     * @param storage Storage for package.
+     * @param perms Access permissions.
+     * @param auth Authentication.
+     * @param settings Optional collaborators, defaults are used for not set ones
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    public NpmSlice(
+        final URL base,
+        final Storage storage,
+        final Permissions perms,
+        final Authentication auth,
+        final Settings settings) {
+        final MetaLayout origin = settings.layout(storage);
+        final PublishPool pool = settings.pool();
+        final SearchIndex index = settings.index();
+        final PackagePurge purge = settings.purge(storage);
+        final Optional<MetaJournal> journal = settings.journal();
+        final MetaLayout indexed = new MetaLayout.Indexed(
+            new MetaLayout.Guarded(origin, purge), index
+        );
+        final MetaLayout layout = journal.<MetaLayout>map(
+            jrnl -> new MetaLayout.Journaled(indexed, jrnl)
+        ).orElse(indexed);
+        final MetaQueue queue = new MetaQueue(layout, pool.executor());
+        final Map<NpmRoute.Kind, Slice> slices = new EnumMap<>(NpmRoute.Kind.class);
+        slices.put(
+            NpmRoute.Kind.ADD_DIST_TAG,
+            NpmSlice.secured(new AddDistTagsSlice(queue), auth, perms, Action.Standard.WRITE)
+        );
+        slices.put(
+            NpmRoute.Kind.DELETE_DIST_TAG,
+            NpmSlice.secured(new DeleteDistTagsSlice(queue), auth, perms, Action.Standard.WRITE)
+        );
+        slices.put(
+            NpmRoute.Kind.PUBLISH,
+            NpmSlice.secured(
+                new UploadSlice(new CliPublish(storage, queue, pool), storage, pool),
+                auth, perms, Action.Standard.WRITE
+            )
+        );
+        slices.put(
+            NpmRoute.Kind.DEPRECATE,
+            NpmSlice.secured(new DeprecateSlice(queue), auth, perms, Action.Standard.WRITE)
+        );
+        slices.put(
+            NpmRoute.Kind.UNPUBLISH,
+            NpmSlice.secured(new UnpublishPutSlice(queue), auth, perms, Action.Standard.WRITE)
+        );
+        slices.put(
+            NpmRoute.Kind.PUBLISH_TARBALL,
+            NpmSlice.secured(
+                new UploadSlice(new CurlPublish(storage, queue, pool), storage, pool),
+                auth, perms, Action.Standard.WRITE
+            )
+        );
+        slices.put(
+            NpmRoute.Kind.SEARCH,
+            NpmSlice.secured(
+                new SearchSlice(index, () -> index.load(storage, origin)),
+                auth, perms, Action.Standard.READ
+            )
+        );
+        journal.ifPresent(
+            jrnl -> slices.put(
+                NpmRoute.Kind.CHANGES,
+                NpmSlice.secured(new ChangesSlice(jrnl), auth, perms, Action.Standard.READ)
+            )
+        );
+        slices.put(
+            NpmRoute.Kind.DIST_TAGS,
+            NpmSlice.secured(new GetDistTagsSlice(layout), auth, perms, Action.Standard.READ)
+        );
+        slices.put(
+            NpmRoute.Kind.PACKUMENT,
+            NpmSlice.secured(
+                new DownloadPackageSlice(base, layout), auth, perms, Action.Standard.READ
+            )
+        );
+        slices.put(
+            NpmRoute.Kind.TARBALL,
+            NpmSlice.secured(
+                new DownloadTarballSlice(storage, purge), auth, perms, Action.Standard.READ
             )
         );
+        slices.put(
+            NpmRoute.Kind.UNPUBLISH_FORCE,
+            NpmSlice.secured(
+                new UnpublishForceSlice(queue, purge), auth, perms, Action.Standard.DELETE
+            )
+        );
+        this.route = new NpmRoute(slices);
+        this.purge = purge;
+        this.sweeps = settings.sweeps(storage, origin);
+        this.resumed = new AtomicBoolean(false);
     }
 
     @Override
@@ -185,6 +207,273 @@ public final class NpmSlice implements Slice {
         final String line,
         final Iterable<Map.Entry<String, String>> headers,
         final Publisher<ByteBuffer> body) {
+        if (!this.resumed.get() && this.resumed.compareAndSet(false, true)) {
+            this.purge.resume().whenComplete(
+                (nothing, err) -> {
+                    if (err != null) {
+                        Logger.error(
+                            NpmSlice.class, "Failed to resume package purges: %[exception]s", err
+                        );
+                    }
+                }
+            );
+            this.sweeps.ifPresent(Runnable::run);
+        }
         return this.route.response(line, headers, body);
     }
+
+    /**
+     * Slice which checks that user has permission for the action.
+     * @param slice Origin slice
+     * @param auth Authentication
+     * @param perms Access permissions
+     * @param action Action
+     * @return Slice
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Slice secured(final Slice slice, final Authentication auth,
+        final Permissions perms, final Action action) {
+        return new BasicAuthSlice(slice, auth, new Permission.ByName(perms, action));
+    }
+
+    /**
+     * Optional collaborators of {@link NpmSlice}. Settings are immutable, every
+     * `with` method returns new settings; collaborators which are not set are
+     * created with defaults by the slice.
+     * @since 0.10
+     */
+    public static final class Settings {
+
+        /**
+         * Packument layout.
+         */
+        private final Optional<MetaLayout> layout;
+
+        /**
+         * Publish workers.
+         */
+        private final Optional<PublishPool> pool;
+
+        /**
+         * Search index.
+         */
+        private final Optional<SearchIndex> index;
+
+        /**
+         * Purge of unpublished packages.
+         */
+        private final Optional<PackagePurge> purge;
+
+        /**
+         * Journal of packument changes.
+         */
+        private final Optional<MetaJournal> journal;
+
+        /**
+         * Storage sweeps.
+         */
+        private final Optional<Sweep> sweep;
+
+        /**
+         * Ctor with defaults only.
+         */
+        public Settings() {
+            this(
+                Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty()
+            );
+        }
+
+        /**
+         * Ctor.
+         * @param layout Packument layout
+         * @param pool Publish workers
+         * @param index Search index
+         * @param purge Purge of unpublished packages
+         * @param journal Journal of packument changes
+         * @param sweep Storage sweeps
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        private Settings(final Optional<MetaLayout> layout, final Optional<PublishPool> pool,
+            final Optional<SearchIndex> index, final Optional<PackagePurge> purge,
+            final Optional<MetaJournal> journal, final Optional<Sweep> sweep) {
+            this.layout = layout;
+            this.pool = pool;
+            this.index = index;
+            this.purge = purge;
+            this.journal = journal;
+            this.sweep = sweep;
+        }
+
+        /**
+         * With packument layout, {@link MetaLayout.Whole} by default. Wrap it with
+         * {@link MetaLayout.Cached} to serve packuments from memory, and with
+         * {@link MetaLayout.Revisioned} if several nodes share the storage.
+         * @param value Packument layout
+         * @return Settings
+         */
+        public Settings withLayout(final MetaLayout value) {
+            return new Settings(
+                Optional.of(value), this.pool, this.index, this.purge, this.journal,
+                this.sweep
+            );
+        }
+
+        /**
+         * With publish workers, pool should be shared by the slices of the process.
+         * @param value Publish workers
+         * @return Settings
+         */
+        public Settings withPool(final PublishPool value) {
+            return new Settings(
+                this.layout, Optional.of(value), this.index, this.purge, this.journal,
+                this.sweep
+            );
+        }
+
+        /**
+         * With search index, it is loaded on the first search request and is
+         * updated on every packument write.
+         * @param value Search index
+         * @return Settings
+         */
+        public Settings withIndex(final SearchIndex value) {
+            return new Settings(
+                this.layout, this.pool, Optional.of(value), this.purge, this.journal,
+                this.sweep
+            );
+        }
+
+        /**
+         * With purge of unpublished packages.
+         * @param value Purge
+         * @return Settings
+         */
+        public Settings withPurge(final PackagePurge value) {
+            return new Settings(
+                this.layout, this.pool, this.index, Optional.of(value), this.journal,
+                this.sweep
+            );
+        }
+
+        /**
+         * With journal of packument changes, it is served as `/_changes` feed.
+         * Without journal packument changes are not journaled and the feed
+         * is not found. Set journal on one node of the storage only.
+         * @param value Journal
+         * @return Settings
+         */
+        public Settings withJournal(final MetaJournal value) {
+            return new Settings(
+                this.layout, this.pool, this.index, this.purge, Optional.of(value),
+                this.sweep
+            );
+        }
+
+        /**
+         * With storage sweeps, see {@link StorageSweeper}. Sweeps are not run by
+         * default. Enable them on one node of the storage only.
+         * @param exec Executor to schedule sweeps on
+         * @param period Delay between sweeps
+         * @param age Min age of garbage
+         * @return Settings
+         */
+        public Settings withSweep(final ScheduledExecutorService exec, final Duration period,
+            final Duration age) {
+            return new Settings(
+                this.layout, this.pool, this.index, this.purge, this.journal,
+                Optional.of(new Sweep(exec, period, age))
+            );
+        }
+
+        /**
+         * Packument layout.
+         * @param storage Storage
+         * @return Layout
+         */
+        MetaLayout layout(final Storage storage) {
+            return this.layout.orElseGet(() -> new MetaLayout.Whole(storage));
+        }
+
+        /**
+         * Publish workers.
+         * @return Pool
+         */
+        PublishPool pool() {
+            return this.pool.orElseGet(PublishPool::new);
+        }
+
+        /**
+         * Search index.
+         * @return Index
+         */
+        SearchIndex index() {
+            return this.index.orElseGet(SearchIndex::new);
+        }
+
+        /**
+         * Purge of unpublished packages.
+         * @param storage Storage
+         * @return Purge
+         */
+        PackagePurge purge(final Storage storage) {
+            return this.purge.orElseGet(() -> new PackagePurge(storage));
+        }
+
+        /**
+         * Journal of packument changes.
+         * @return Journal, empty if changes are not journaled
+         */
+        Optional<MetaJournal> journal() {
+            return this.journal;
+        }
+
+        /**
+         * Storage sweeps.
+         * @param storage Storage
+         * @param layout Packument layout
+         * @return Action which starts sweeps, empty if sweeps are not enabled
+         */
+        Optional<Runnable> sweeps(final Storage storage, final MetaLayout layout) {
+            return this.sweep.map(
+                swp -> () -> new StorageSweeper(storage, layout, swp.age)
+                    .schedule(swp.exec, swp.period)
+            );
+        }
+
+        /**
+         * Storage sweeps parameters.
+         * @since 0.10
+         */
+        private static final class Sweep {
+
+            /**
+             * Executor to schedule sweeps on.
+             */
+            private final ScheduledExecutorService exec;
+
+            /**
+             * Delay between sweeps.
+             */
+            private final Duration period;
+
+            /**
+             * Min age of garbage.
+             */
+            private final Duration age;
+
+            /**
+             * Ctor.
+             * @param exec Executor to schedule sweeps on
+             * @param period Delay between sweeps
+             * @param age Min age of garbage
+             */
+            Sweep(final ScheduledExecutorService exec, final Duration period,
+                final Duration age) {
+                this.exec = exec;
+                this.period = period;
+                this.age = age;
+            }
+        }
+    }
 }
@@ -0,0 +1,422 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.reactivestreams.Publisher;
+
+/**
+ * Dedicated pool of publish workers. Publish is CPU heavy: uploaded json
+ * is scanned and attachments are decoded from base64, so this work is isolated
+ * from the request path and from the common fork-join pool: publish reads
+ * uploaded bytes through {@link #observed(Publisher)}, and every chunk is
+ * parsed on a worker. Workers are never blocked on I/O, a worker is free
+ * while the next chunk is read from the storage. Number of publishes in
+ * progress is bounded, publishes which do not fit are rejected right away
+ * with {@link RejectedExecutionException}. Place of the publish can be reserved
+ * with {@link #reserve()} before the publish input is received, so rejected
+ * publish does not wait for the upload. The pool should be shared by all
+ * the upload slices.
+ * @since 0.10
+ */
+public final class PublishPool {
+
+    /**
+     * Default max number of publishes in progress above the number of workers.
+     */
+    private static final int QUEUE = 64;
+
+    /**
+     * Workers.
+     */
+    private final ThreadPoolExecutor exec;
+
+    /**
+     * Scheduler of the workers.
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * Max number of publishes in progress.
+     */
+    private final int limit;
+
+    /**
+     * Number of publishes in progress.
+     */
+    private final AtomicInteger active;
+
+    /**
+     * Number of publishes waiting for a worker to start, worker queue has
+     * also tasks of {@link #observed(Publisher)} which are not counted.
+     */
+    private final AtomicInteger waiting;
+
+    /**
+     * Delay clients are advised to wait before retrying rejected publish.
+     */
+    private final Duration retry;
+
+    /**
+     * Metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Ctor with worker per processor.
+     */
+    public PublishPool() {
+        this(Runtime.getRuntime().availableProcessors(), PublishPool.QUEUE);
+    }
+
+    /**
+     * Ctor.
+     * @param workers Number of workers
+     * @param queue Max number of publishes in progress above the number of workers
+     */
+    public PublishPool(final int workers, final int queue) {
+        this(workers, queue, Duration.ofSeconds(1), new Metrics.Stats());
+    }
+
+    /**
+     * Ctor.
+     * @param workers Number of workers
+     * @param queue Max number of publishes in progress above the number of workers
+     * @param retry Delay clients are advised to wait before retrying rejected publish
+     * @param metrics Metrics
+     */
+    public PublishPool(
+        final int workers, final int queue, final Duration retry, final Metrics metrics
+    ) {
+        this.exec = new ThreadPoolExecutor(
+            workers, workers, 1L, TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("npm-publish-%d").setDaemon(true).build()
+        );
+        this.exec.allowCoreThreadTimeOut(true);
+        this.scheduler = Schedulers.from(this.exec);
+        this.limit = workers + queue;
+        this.active = new AtomicInteger();
+        this.waiting = new AtomicInteger();
+        this.retry = retry;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Submit publish to the pool. Publish is started by the worker, the
+     * worker is released as soon as publish returns its completion stage,
+     * the publish is counted as in progress until the stage completes.
+     * @param publish Publish
+     * @param <T> Result type
+     * @return Result of the publish, or failed with
+     *  {@link RejectedExecutionException} if too many publishes are in progress
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<CompletionStage<T>> publish) {
+        return this.reserve().thenCompose(slot -> slot.submit(publish));
+    }
+
+    /**
+     * Reserve place of the publish in progress. Reserved place is counted
+     * as publish in progress until the publish is submitted to the slot and
+     * completed, or until the slot is released.
+     * @return Slot, or failed with {@link RejectedExecutionException} if too
+     *  many publishes are in progress
+     */
+    public CompletableFuture<Slot> reserve() {
+        final CompletableFuture<Slot> res = new CompletableFuture<>();
+        if (this.active.incrementAndGet() > this.limit) {
+            this.active.decrementAndGet();
+            this.metrics.rejected();
+            res.completeExceptionally(
+                new RejectedExecutionException(
+                    String.format("Too many publishes in progress: %d", this.limit)
+                )
+            );
+        } else {
+            res.complete(new Slot(this));
+        }
+        return res;
+    }
+
+    /**
+     * Bytes delivered to the subscriber on the workers, so parsing or
+     * decoding of the bytes runs on the pool.
+     * @param bytes Bytes
+     * @return Bytes observed on the workers
+     */
+    public Publisher<ByteBuffer> observed(final Publisher<ByteBuffer> bytes) {
+        return Flowable.fromPublisher(bytes).observeOn(this.scheduler);
+    }
+
+    /**
+     * Delay clients are advised to wait before retrying rejected publish.
+     * @return Delay
+     */
+    public Duration retryAfter() {
+        return this.retry;
+    }
+
+    /**
+     * Workers as executor, for other CPU work of publishes which never
+     * blocks, e.g. for {@link com.artipie.npm.MetaQueue} stripes. Tasks
+     * submitted here are not counted as publishes.
+     * @return Executor
+     */
+    public Executor executor() {
+        return this.exec;
+    }
+
+    /**
+     * Runs publish which has reserved place on a worker.
+     * @param publish Publish
+     * @param <T> Result type
+     * @return Result of the publish
+     */
+    private <T> CompletableFuture<T> run(final Supplier<CompletionStage<T>> publish) {
+        final CompletableFuture<T> res = new CompletableFuture<>();
+        final long queued = System.nanoTime();
+        this.metrics.queued(this.waiting.incrementAndGet());
+        this.exec.execute(
+            () -> {
+                final long started = System.nanoTime();
+                this.metrics.queued(this.waiting.decrementAndGet());
+                this.metrics.waited(Duration.ofNanos(started - queued));
+                PublishPool.started(publish).whenComplete(
+                    (val, err) -> {
+                        this.active.decrementAndGet();
+                        this.metrics.processed(
+                            Duration.ofNanos(System.nanoTime() - started)
+                        );
+                        if (err == null) {
+                            res.complete(val);
+                        } else if (err instanceof CompletionException
+                            && err.getCause() != null) {
+                            res.completeExceptionally(err.getCause());
+                        } else {
+                            res.completeExceptionally(err);
+                        }
+                    }
+                );
+            }
+        );
+        return res;
+    }
+
+    /**
+     * Started publish.
+     * @param publish Publish
+     * @param <T> Result type
+     * @return Completion of the publish
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private static <T> CompletableFuture<T> started(final Supplier<CompletionStage<T>> publish) {
+        CompletableFuture<T> res;
+        try {
+            res = publish.get().toCompletableFuture();
+        // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final RuntimeException err) {
+            res = new CompletableFuture<>();
+            res.completeExceptionally(err);
+        }
+        return res;
+    }
+
+    /**
+     * Reserved place of the publish in progress, see {@link #reserve()}.
+     * Slot is used once: either publish is submitted to it, or it is released.
+     * @since 0.10
+     */
+    public static final class Slot {
+
+        /**
+         * Pool.
+         */
+        private final PublishPool pool;
+
+        /**
+         * Was the slot used?
+         */
+        private final AtomicBoolean used;
+
+        /**
+         * Ctor.
+         * @param pool Pool
+         */
+        private Slot(final PublishPool pool) {
+            this.pool = pool;
+            this.used = new AtomicBoolean();
+        }
+
+        /**
+         * Submit publish to the reserved place, see
+         * {@link PublishPool#submit(Supplier)}.
+         * @param publish Publish
+         * @param <T> Result type
+         * @return Result of the publish
+         */
+        public <T> CompletableFuture<T> submit(final Supplier<CompletionStage<T>> publish) {
+            final CompletableFuture<T> res;
+            if (this.used.compareAndSet(false, true)) {
+                res = this.pool.run(publish);
+            } else {
+                res = new CompletableFuture<>();
+                res.completeExceptionally(
+                    new IllegalStateException("Publish slot was already used")
+                );
+            }
+            return res;
+        }
+
+        /**
+         * Release the place if no publish was submitted to it, e.g. when
+         * publish input could not be received. Does nothing after submit.
+         */
+        public void release() {
+            if (this.used.compareAndSet(false, true)) {
+                this.pool.active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Publish pool metrics.
+     * @since 0.10
+     */
+    public interface Metrics {
+
+        /**
+         * Number of publishes waiting for a worker changed.
+         * @param depth Number of waiting publishes
+         */
+        void queued(int depth);
+
+        /**
+         * Publish was waiting for a worker to start.
+         * @param wait Wait time
+         */
+        void waited(Duration wait);
+
+        /**
+         * Publish was completed.
+         * @param processing Time from publish start till completion
+         */
+        void processed(Duration processing);
+
+        /**
+         * Publish was rejected as too many publishes are in progress.
+         */
+        void rejected();
+
+        /**
+         * Metrics accumulated in memory.
+         * @since 0.10
+         */
+        final class Stats implements Metrics {
+
+            /**
+             * Current queue depth.
+             */
+            private final AtomicInteger depth = new AtomicInteger();
+
+            /**
+             * Number of processed publishes.
+             */
+            private final LongAdder count = new LongAdder();
+
+            /**
+             * Total wait time in nanoseconds.
+             */
+            private final LongAdder wait = new LongAdder();
+
+            /**
+             * Total processing time in nanoseconds.
+             */
+            private final LongAdder processing = new LongAdder();
+
+            /**
+             * Number of rejected publishes.
+             */
+            private final LongAdder rejects = new LongAdder();
+
+            @Override
+            public void queued(final int current) {
+                this.depth.set(current);
+            }
+
+            @Override
+            public void waited(final Duration time) {
+                this.wait.add(time.toNanos());
+            }
+
+            @Override
+            public void processed(final Duration time) {
+                this.count.increment();
+                this.processing.add(time.toNanos());
+            }
+
+            @Override
+            public void rejected() {
+                this.rejects.increment();
+            }
+
+            /**
+             * Current queue depth.
+             * @return Number of publishes waiting for a worker
+             */
+            public int depth() {
+                return this.depth.get();
+            }
+
+            /**
+             * Number of processed publishes.
+             * @return Count
+             */
+            public long processed() {
+                return this.count.sum();
+            }
+
+            /**
+             * Number of rejected publishes.
+             * @return Count
+             */
+            public long rejects() {
+                return this.rejects.sum();
+            }
+
+            /**
+             * Total time publishes were waiting for a worker.
+             * @return Wait time
+             */
+            public Duration waitTime() {
+                return Duration.ofNanos(this.wait.sum());
+            }
+
+            /**
+             * Total time from publishes start till their completion.
+             * @return Processing time
+             */
+            public Duration processingTime() {
+                return Duration.ofNanos(this.processing.sum());
+            }
+        }
+    }
+}
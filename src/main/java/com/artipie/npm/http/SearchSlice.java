@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rq.RqParams;
+import com.artipie.http.rs.common.RsJson;
+import com.artipie.npm.SearchIndex;
+import com.artipie.npm.misc.DateTimeNowStr;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Search of the hosted packages, `GET /-/v1/search?text=...&size=...&from=...`.
+ * Queries are answered from {@link SearchIndex}, index is loaded from the
+ * storage on the first request and is not loaded again unless loading fails.
+ * @since 0.10
+ */
+public final class SearchSlice implements Slice {
+
+    /**
+     * Default number of results.
+     */
+    private static final int SIZE = 20;
+
+    /**
+     * Max number of results.
+     */
+    private static final int MAX_SIZE = 250;
+
+    /**
+     * Search index.
+     */
+    private final SearchIndex index;
+
+    /**
+     * Loads the index.
+     */
+    private final Supplier<CompletableFuture<Void>> load;
+
+    /**
+     * Index loading, one element array, empty until the first request.
+     */
+    private final CompletableFuture<?>[] loading;
+
+    /**
+     * Ctor.
+     * @param index Search index
+     * @param load Loads the index
+     */
+    public SearchSlice(final SearchIndex index, final Supplier<CompletableFuture<Void>> load) {
+        this.index = index;
+        this.load = load;
+        this.loading = new CompletableFuture<?>[1];
+    }
+
+    @Override
+    public Response response(final String line,
+        final Iterable<Map.Entry<String, String>> headers,
+        final Publisher<ByteBuffer> body) {
+        final RqParams params = new RqParams(new RequestLineFrom(line).uri());
+        final String text = params.value("text").orElse("");
+        final int size = Math.min(
+            SearchSlice.MAX_SIZE,
+            Math.max(1, SearchSlice.number(params, "size", SearchSlice.SIZE))
+        );
+        final int from = Math.max(0, SearchSlice.number(params, "from", 0));
+        return new AsyncResponse(
+            this.loaded().thenApply(
+                nothing -> {
+                    final JsonObject found = this.index.search(text, from, size);
+                    return new RsJson(
+                        Json.createObjectBuilder(found)
+                            .add("time", new DateTimeNowStr().value())
+                    );
+                }
+            )
+        );
+    }
+
+    /**
+     * Loaded index, loading is started on the first call and is started
+     * again if it failed.
+     * @return Completion of loading
+     */
+    private CompletableFuture<?> loaded() {
+        synchronized (this.loading) {
+            if (this.loading[0] == null || this.loading[0].isCompletedExceptionally()) {
+                this.loading[0] = this.load.get();
+            }
+            return this.loading[0];
+        }
+    }
+
+    /**
+     * Numeric query parameter.
+     * @param params Query parameters
+     * @param name Parameter name
+     * @param def Default value
+     * @return Parameter value, default if it is absent or is not a number
+     */
+    private static int number(final RqParams params, final String name, final int def) {
+        return params.value(name)
+            .filter(val -> val.matches("\\d{1,9}"))
+            .map(Integer::parseInt)
+            .orElse(def);
+    }
+}
@@ -5,7 +5,6 @@
 package com.artipie.npm.http;
 
 import com.artipie.asto.Key;
-import com.artipie.asto.Storage;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
@@ -13,10 +12,12 @@ import com.artipie.http.rq.RequestLineFrom;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithStatus;
 import com.artipie.http.rs.StandardRs;
+import com.artipie.npm.MetaQueue;
+import com.artipie.npm.PackagePurge;
 import com.artipie.npm.PackageNameFromUrl;
+import com.jcabi.log.Logger;
 import java.nio.ByteBuffer;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.reactivestreams.Publisher;
@@ -25,7 +26,12 @@ import org.reactivestreams.Publisher;
  * Slice to handle `npm unpublish` command requests.
  * Request line to this slice looks like `/[<@scope>/]pkg/-rev/undefined`.
  * It unpublishes the whole package or a single version of package
- * when only one version is published.
+ * when only one version is published. Tombstone of the package is saved
+ * and packument is removed through {@link MetaQueue} before the response,
+ * so the package is not found right away and can not be published again
+ * until purge is complete. Other package keys are deleted in the background,
+ * see {@link PackagePurge}, purge interrupted by restart is continued
+ * by {@link PackagePurge#resume()}.
  * @since 0.8
  */
 final class UnpublishForceSlice implements Slice {
@@ -35,16 +41,23 @@ final class UnpublishForceSlice implements Slice {
     static final Pattern PTRN = Pattern.compile("/.*/-rev/.*$");
 
     /**
-     * Abstract Storage.
+     * Package purge.
      */
-    private final Storage storage;
+    private final PackagePurge purge;
+
+    /**
+     * Packument mutations queue.
+     */
+    private final MetaQueue queue;
 
     /**
      * Ctor.
-     * @param storage Abstract storage
+     * @param queue Packument mutations queue
+     * @param purge Package purge
      */
-    UnpublishForceSlice(final Storage storage) {
-        this.storage = storage;
+    UnpublishForceSlice(final MetaQueue queue, final PackagePurge purge) {
+        this.queue = queue;
+        this.purge = purge;
     }
 
     @Override
@@ -65,14 +78,25 @@ final class UnpublishForceSlice implements Slice {
                     rqline.version()
                 )
             ).value();
+            final Key key = new Key.From(pkg);
             resp = new AsyncResponse(
-                this.storage.list(new Key.From(pkg))
-                    .thenCompose(
-                        keys -> CompletableFuture.allOf(
-                            keys.stream()
-                                .map(this.storage::delete)
-                                .toArray(CompletableFuture[]::new)
-                        ).thenApply(nothing -> StandardRs.OK)
+                this.purge.tombstone(key)
+                    .thenCompose(nothing -> this.queue.delete(key))
+                    .thenApply(
+                        nothing -> {
+                            this.purge.purge(key).whenComplete(
+                                (done, err) -> {
+                                    if (err != null) {
+                                        Logger.error(
+                                            UnpublishForceSlice.class,
+                                            "Failed to purge package %s: %[exception]s",
+                                            pkg, err
+                                        );
+                                    }
+                                }
+                            );
+                            return StandardRs.OK;
+                        }
                     )
             );
         } else {
@@ -5,24 +5,23 @@
 package com.artipie.npm.http;
 
 import com.artipie.ArtipieException;
-import com.artipie.asto.Content;
 import com.artipie.asto.Key;
-import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
-import com.artipie.http.rs.StandardRs;
+import com.artipie.npm.MetaQueue;
 import com.artipie.npm.PackageNameFromUrl;
+import com.artipie.npm.Revision;
 import com.artipie.npm.misc.DateTimeNowStr;
 import com.artipie.npm.misc.DescSortedVersions;
-import com.artipie.npm.misc.JsonFromPublisher;
 import com.google.common.collect.Sets;
+import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.json.Json;
 import javax.json.JsonObject;
@@ -32,7 +31,8 @@ import org.reactivestreams.Publisher;
 /**
  * Slice to handle `npm unpublish package@0.0.0` command requests.
  * It unpublishes a single version of package when multiple
- * versions are published.
+ * versions are published. Request based on outdated packument revision
+ * (`/-rev/{rev}` of the request) is rejected with `409 Conflict`.
  * @since 0.9
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
@@ -44,16 +44,21 @@ final class UnpublishPutSlice implements Slice {
     public static final Pattern HEADER = Pattern.compile("unpublish.*");
 
     /**
-     * Abstract Storage.
+     * Pattern for packument revision in request line.
      */
-    private final Storage asto;
+    private static final Pattern REV = Pattern.compile("/-rev/([^\\s/?]+)");
+
+    /**
+     * Queue of meta.json mutations.
+     */
+    private final MetaQueue queue;
 
     /**
      * Ctor.
-     * @param storage Abstract storage
+     * @param queue Queue of meta.json mutations
      */
-    UnpublishPutSlice(final Storage storage) {
-        this.asto = storage;
+    UnpublishPutSlice(final MetaQueue queue) {
+        this.queue = queue;
     }
 
     @Override
@@ -65,29 +70,28 @@ final class UnpublishPutSlice implements Slice {
         final String pkg = new PackageNameFromUrl(
             line.replaceFirst("/-rev/[^\\s]+", "")
         ).value();
-        final Key key = new Key.From(pkg, "meta.json");
+        final Key key = new Key.From(pkg);
+        final Matcher rev = UnpublishPutSlice.REV.matcher(line);
+        final Optional<String> client;
+        if (rev.find() && !"undefined".equals(rev.group(1))) {
+            client = Optional.of(rev.group(1));
+        } else {
+            client = Optional.empty();
+        }
         return new AsyncResponse(
-            this.asto.exists(key).thenCompose(
-                exists -> {
-                    final CompletionStage<Response> res;
-                    if (exists) {
-                        res = new JsonFromPublisher(publisher).json()
-                            .thenCombine(
-                                this.asto.value(key)
-                                    .thenApply(JsonFromPublisher::new)
-                                    .thenCompose(JsonFromPublisher::json),
-                                UnpublishPutSlice::updateMeta
-                            ).thenCompose(
-                                meta -> this.asto.save(
-                                    key, new Content.From(meta.getBytes(StandardCharsets.UTF_8))
-                                )
-                            ).thenApply(nothing -> StandardRs.OK);
-                    } else {
-                        res = CompletableFuture.completedFuture(StandardRs.NOT_FOUND);
-                    }
-                    return res;
-                }
-            )
+            new PublisherAs(publisher).bytes()
+                .thenCompose(
+                    update -> this.queue.updateExisting(
+                        key,
+                        meta -> {
+                            new Revision(meta).check(client);
+                            return UnpublishPutSlice.updateMeta(
+                                Json.createReader(new ByteArrayInputStream(update)).readObject(),
+                                meta
+                            );
+                        }
+                    )
+                ).handle(new MutationStatus())
         );
     }
 
@@ -98,7 +102,7 @@ final class UnpublishPutSlice implements Slice {
      * @param source Meta json from storage
      * @return Meta json with removed information about unpublished version.
      */
-    private static String updateMeta(final JsonObject update, final JsonObject source) {
+    private static JsonObject updateMeta(final JsonObject update, final JsonObject source) {
         final JsonPatchBuilder patch = Json.createPatchBuilder();
         final String diff = versionToRemove(update, source);
         patch.remove(String.format("/versions/%s", diff));
@@ -111,7 +115,7 @@ final class UnpublishPutSlice implements Slice {
         ).value().get(0);
         patch.add("/dist-tags/latest", latest);
         patch.add("/time/modified", new DateTimeNowStr().value());
-        return patch.build().apply(source).toString();
+        return patch.build().apply(source);
     }
 
     /**
@@ -5,26 +5,40 @@
 
 package com.artipie.npm.http;
 
-import com.artipie.asto.Concatenation;
 import com.artipie.asto.Content;
 import com.artipie.asto.Key;
-import com.artipie.asto.Remaining;
 import com.artipie.asto.Storage;
 import com.artipie.http.Response;
 import com.artipie.http.Slice;
 import com.artipie.http.async.AsyncResponse;
 import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.RsWithStatus;
 import com.artipie.npm.PackageNameFromUrl;
+import com.artipie.npm.PackagePurgedException;
 import com.artipie.npm.Publish;
-import hu.akarnokd.rxjava2.interop.SingleInterop;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import org.reactivestreams.Publisher;
 
 /**
  * UploadSlice.
+ * Request body is streamed to the storage as is, and then passed
+ * to the publish front by the key it was saved with. Publish front
+ * may move uploaded item to its final location, otherwise it is removed.
+ * Place in the {@link PublishPool} is reserved before the body is read, and
+ * the publish is started on the pool after the body is saved, so slow clients
+ * do not hold the workers. If too many publishes are in progress, 503 with
+ * `Retry-After` header is returned right away, the body is not read.
+ * Publish of the package which is being purged after force unpublish is
+ * rejected with 409, see {@link PackagePurgedException}.
  *
  * @since 0.1
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
@@ -42,14 +56,35 @@ public final class UploadSlice implements Slice {
     private final Storage storage;
 
     /**
-     * Ctor.
+     * Publish workers.
+     */
+    private final PublishPool pool;
+
+    /**
+     * Ctor with a private pool of publish workers.
      *
      * @param npm Npm publish front
      * @param storage Abstract storage
+     * @deprecated Publishes of this slice are not bounded together with
+     *  other upload slices, use {@link #UploadSlice(Publish, Storage, PublishPool)}
+     *  with the shared pool
      */
+    @Deprecated
     public UploadSlice(final Publish npm, final Storage storage) {
+        this(npm, storage, new PublishPool());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param npm Npm publish front
+     * @param storage Abstract storage
+     * @param pool Publish workers, shared by all the upload slices
+     */
+    public UploadSlice(final Publish npm, final Storage storage, final PublishPool pool) {
         this.npm = npm;
         this.storage = storage;
+        this.pool = pool;
     }
 
     @Override
@@ -66,14 +101,76 @@ public final class UploadSlice implements Slice {
             )
         );
         return new AsyncResponse(
-            new Concatenation(body).single()
-                .map(Remaining::new)
-                .map(Remaining::bytes)
-                .to(SingleInterop.get())
-                .thenCompose(bytes -> this.storage.save(uploaded, new Content.From(bytes)))
-                .thenCompose(ignored -> this.npm.publish(new Key.From(pkg), uploaded))
-                .thenCompose(ignored -> this.storage.delete(uploaded))
-                .thenApply(ignored -> new RsWithStatus(RsStatus.OK))
+            this.pool.reserve()
+                .thenCompose(
+                    slot -> this.storage.save(uploaded, new Content.From(body))
+                        .thenCompose(
+                            nothing -> slot.submit(
+                                () -> this.npm.publish(new Key.From(pkg), uploaded)
+                            )
+                        )
+                        .whenComplete((nothing, err) -> slot.release())
+                        .handle((nothing, err) -> Optional.ofNullable(err))
+                        .thenCompose(err -> this.remove(uploaded).thenApply(nothing -> err))
+                )
+                .exceptionally(Optional::of)
+                .thenApply(
+                    err -> {
+                        final Response rsp;
+                        if (!err.isPresent()) {
+                            rsp = new RsWithStatus(RsStatus.OK);
+                        } else if (UploadSlice.cause(err.get())
+                            instanceof RejectedExecutionException) {
+                            rsp = new RsWithHeaders(
+                                new RsWithStatus(RsStatus.UNAVAILABLE),
+                                "Retry-After",
+                                String.valueOf(this.pool.retryAfter().getSeconds())
+                            );
+                        } else if (PackagePurgedException.causedBy(err.get())) {
+                            rsp = new RsWithBody(
+                                new RsWithStatus(RsStatus.CONFLICT),
+                                "Package is being unpublished", StandardCharsets.UTF_8
+                            );
+                        } else {
+                            throw new CompletionException(UploadSlice.cause(err.get()));
+                        }
+                        return rsp;
+                    }
+                )
+        );
+    }
+
+    /**
+     * Removes uploaded body, unless publish front moved it.
+     * @param uploaded Key body was saved with
+     * @return Completion
+     */
+    private CompletableFuture<Void> remove(final Key uploaded) {
+        return this.storage.exists(uploaded).thenCompose(
+            exists -> {
+                final CompletableFuture<Void> res;
+                if (exists) {
+                    res = this.storage.delete(uploaded);
+                } else {
+                    res = CompletableFuture.allOf();
+                }
+                return res;
+            }
         );
     }
+
+    /**
+     * Error without completion wrapper.
+     * @param err Error
+     * @return Cause of the error
+     */
+    private static Throwable cause(final Throwable err) {
+        final Throwable res;
+        if (err instanceof CompletionException && err.getCause() != null) {
+            res = err.getCause();
+        } else {
+            res = err;
+        }
+        return res;
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import io.reactivex.Flowable;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+/**
+ * Bytes decoded from base64 json string value located at the
+ * {@link StreamedPublishJson.Span} of the source publisher. Source is read
+ * chunk by chunk and the reading stops right after the span end.
+ * @since 0.10
+ */
+public final class Base64Span implements Publisher<ByteBuffer> {
+
+    /**
+     * Source publisher.
+     */
+    private final Publisher<ByteBuffer> source;
+
+    /**
+     * Span of base64 data in the source.
+     */
+    private final StreamedPublishJson.Span span;
+
+    /**
+     * Ctor.
+     * @param source Source publisher
+     * @param span Span of base64 data in the source
+     */
+    public Base64Span(final Publisher<ByteBuffer> source, final StreamedPublishJson.Span span) {
+        this.source = source;
+        this.span = span;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super ByteBuffer> subscriber) {
+        Flowable.defer(
+            () -> {
+                final Decoder decoder = new Decoder(this.span);
+                return Flowable.fromPublisher(this.source)
+                    .takeWhile(buf -> !decoder.finished())
+                    .map(decoder::decode)
+                    .concatWith(Flowable.fromCallable(decoder::rest))
+                    .filter(ByteBuffer::hasRemaining);
+            }
+        ).subscribe(subscriber);
+    }
+
+    /**
+     * Incremental base64 decoder.
+     * @since 0.10
+     */
+    private static final class Decoder {
+
+        /**
+         * Base64 quantum size.
+         */
+        private static final int QUANTUM = 4;
+
+        /**
+         * Span to decode.
+         */
+        private final StreamedPublishJson.Span span;
+
+        /**
+         * Not yet decoded base64 symbols.
+         */
+        private final ByteArrayOutputStream carry;
+
+        /**
+         * Current source offset.
+         */
+        private long pos;
+
+        /**
+         * Is previous symbol an escape symbol?
+         */
+        private boolean esc;
+
+        /**
+         * Ctor.
+         * @param span Span to decode
+         */
+        Decoder(final StreamedPublishJson.Span span) {
+            this.span = span;
+            this.carry = new ByteArrayOutputStream(Decoder.QUANTUM);
+        }
+
+        /**
+         * Is whole span read?
+         * @return True if so
+         */
+        boolean finished() {
+            return this.pos >= this.span.end();
+        }
+
+        /**
+         * Decodes next source chunk.
+         * @param buf Source chunk
+         * @return Decoded bytes
+         */
+        ByteBuffer decode(final ByteBuffer buf) {
+            final ByteBuffer src = buf.duplicate();
+            final long from = Math.max(this.span.start() - this.pos, 0);
+            final long until = Math.min(this.span.end() - this.pos, src.remaining());
+            this.pos += src.remaining();
+            for (long idx = from; idx < until; idx += 1) {
+                this.accept(src.get(src.position() + (int) idx));
+            }
+            final byte[] syms = this.carry.toByteArray();
+            final int ready = syms.length - syms.length % Decoder.QUANTUM;
+            this.carry.reset();
+            this.carry.write(syms, ready, syms.length - ready);
+            return ByteBuffer.wrap(
+                Base64.getDecoder().decode(Arrays.copyOf(syms, ready))
+            );
+        }
+
+        /**
+         * Decodes symbols left after the last chunk.
+         * @return Decoded bytes
+         */
+        ByteBuffer rest() {
+            return ByteBuffer.wrap(Base64.getDecoder().decode(this.carry.toByteArray()));
+        }
+
+        /**
+         * Accepts symbol of json string, json escapes are
+         * resolved: only escaped solidus is a valid base64 symbol.
+         * @param chr Symbol
+         */
+        private void accept(final byte chr) {
+            if (this.esc) {
+                this.esc = false;
+                if (chr == '/') {
+                    this.carry.write(chr);
+                }
+            } else if (chr == '\\') {
+                this.esc = true;
+            } else {
+                this.carry.write(chr);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.http.rq.RqHeaders;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+import org.reactivestreams.Publisher;
+
+/**
+ * Gzip compressed variants of metadata responses cached in memory. Variant
+ * is compressed once for the cache key, the key must change when metadata
+ * changes, e.g. it may include metadata entity tag. Cache is bounded by the
+ * total size of compressed variants, least recently used are evicted first.
+ * @since 0.10
+ */
+public final class GzipVariants {
+
+    /**
+     * Default max total size of variants.
+     */
+    private static final long BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Compressed variants by key.
+     */
+    private final Cache<String, byte[]> cache;
+
+    /**
+     * Ctor.
+     */
+    public GzipVariants() {
+        this(GzipVariants.BYTES);
+    }
+
+    /**
+     * Ctor.
+     * @param bytes Max total size of compressed variants in bytes
+     */
+    public GzipVariants(final long bytes) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(bytes)
+            .weigher((String key, byte[] val) -> val.length)
+            .build();
+    }
+
+    /**
+     * Does client accept gzip content coding?
+     * @param headers Request headers
+     * @return True if `Accept-Encoding` allows gzip
+     */
+    public static boolean accepted(final Iterable<Map.Entry<String, String>> headers) {
+        return new RqHeaders(headers, "Accept-Encoding").stream()
+            .flatMap(header -> Arrays.stream(header.split(",")))
+            .map(coding -> coding.trim().toLowerCase(Locale.US).split(";"))
+            .filter(coding -> "gzip".equals(coding[0].trim()) || "*".equals(coding[0].trim()))
+            .anyMatch(coding -> Arrays.stream(coding).skip(1).map(String::trim).noneMatch(
+                param -> param.matches("q=0(\\.0*)?")
+            ));
+    }
+
+    /**
+     * Cached variant.
+     * @param key Cache key
+     * @return Compressed bytes, empty if variant is not cached
+     */
+    public Optional<byte[]> cached(final String key) {
+        return Optional.ofNullable(this.cache.getIfPresent(key));
+    }
+
+    /**
+     * Compresses and caches variant.
+     * @param key Cache key
+     * @param content Variant content
+     * @return Compressed bytes
+     */
+    public CompletableFuture<byte[]> compress(final String key,
+        final Publisher<ByteBuffer> content) {
+        return new PublisherAs(content).bytes()
+            .thenApply(bytes -> this.compress(key, bytes))
+            .toCompletableFuture();
+    }
+
+    /**
+     * Compresses and caches variant.
+     * @param key Cache key
+     * @param bytes Variant bytes
+     * @return Compressed bytes
+     */
+    public byte[] compress(final String key, final byte[] bytes) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (final IOException err) {
+            throw new UncheckedIOException(err);
+        }
+        final byte[] res = out.toByteArray();
+        this.cache.put(key, res);
+        return res;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.json.Json;
+import javax.json.JsonString;
+
+/**
+ * Tracks the path of the current position in json which is read byte by
+ * byte, so json streams can be scanned without parsing. Tracker watches one
+ * path of object keys, `*` matches any key, and reports string values which
+ * start at this path. Keys are remembered only down to the watched depth,
+ * so memory used does not depend on the json size.
+ * @since 0.10
+ * @checkstyle CyclomaticComplexityCheck (200 lines)
+ */
+@SuppressWarnings("PMD.CyclomaticComplexity")
+public final class JsonPathTracker {
+
+    /**
+     * Any key.
+     */
+    private static final String ANY = "*";
+
+    /**
+     * Watched path.
+     */
+    private final String[] path;
+
+    /**
+     * Current key bytes.
+     */
+    private final ByteArrayOutputStream key;
+
+    /**
+     * Opened objects and arrays.
+     */
+    private final List<Frame> frames;
+
+    /**
+     * Is inside of a string?
+     */
+    private boolean str;
+
+    /**
+     * Is previous byte an escape symbol?
+     */
+    private boolean esc;
+
+    /**
+     * Is current string a key?
+     */
+    private boolean iskey;
+
+    /**
+     * Ctor.
+     * @param path Watched path of object keys, `*` for any key
+     */
+    public JsonPathTracker(final String... path) {
+        this.path = path.clone();
+        this.key = new ByteArrayOutputStream();
+        this.frames = new ArrayList<>(path.length + 1);
+    }
+
+    /**
+     * Accepts next byte.
+     * @param chr Byte
+     * @return True if string value at the watched path starts right after this byte
+     */
+    public boolean accept(final byte chr) {
+        final boolean res;
+        if (this.str) {
+            this.inString(chr);
+            res = false;
+        } else {
+            res = this.structural(chr);
+        }
+        return res;
+    }
+
+    /**
+     * Is current byte inside of a string?
+     * @return True if so
+     */
+    public boolean inString() {
+        return this.str;
+    }
+
+    /**
+     * Key of the object at the level of the current path.
+     * @param level Level, zero for the key of the root object
+     * @return Key name
+     */
+    public String name(final int level) {
+        return this.frames.get(level).name;
+    }
+
+    /**
+     * Handles byte of a string.
+     * @param chr Byte
+     */
+    private void inString(final byte chr) {
+        if (this.esc) {
+            this.esc = false;
+            this.keyByte(chr);
+        } else if (chr == '\\') {
+            this.esc = true;
+            this.keyByte(chr);
+        } else if (chr == '"') {
+            this.str = false;
+            if (this.iskey) {
+                this.frames.get(this.frames.size() - 1).name = this.keyName();
+            }
+        } else {
+            this.keyByte(chr);
+        }
+    }
+
+    /**
+     * Handles structural byte.
+     * @param chr Byte
+     * @return True if string value at the watched path starts right after this byte
+     */
+    private boolean structural(final byte chr) {
+        final Frame top;
+        if (this.frames.isEmpty()) {
+            top = null;
+        } else {
+            top = this.frames.get(this.frames.size() - 1);
+        }
+        boolean watched = false;
+        if (chr == '{') {
+            this.frames.add(new Frame(true));
+        } else if (chr == '[') {
+            this.frames.add(new Frame(false));
+        } else if ((chr == '}' || chr == ']') && top != null) {
+            this.frames.remove(this.frames.size() - 1);
+        } else if (chr == ':' && top != null) {
+            top.expectkey = false;
+        } else if (chr == ',' && top != null) {
+            top.expectkey = top.object;
+        } else if (chr == '"') {
+            this.str = true;
+            this.iskey = top != null && top.object && top.expectkey;
+            this.key.reset();
+            watched = !this.iskey && this.watched();
+        }
+        return watched;
+    }
+
+    /**
+     * Is current value located at the watched path?
+     * @return True if so
+     */
+    private boolean watched() {
+        boolean res = this.frames.size() == this.path.length;
+        for (int idx = 0; res && idx < this.path.length; idx = idx + 1) {
+            final Frame frame = this.frames.get(idx);
+            res = frame.object
+                && (JsonPathTracker.ANY.equals(this.path[idx])
+                || this.path[idx].equals(frame.name));
+        }
+        return res;
+    }
+
+    /**
+     * Remembers a byte of the key if key is needed to track the path.
+     * @param chr Byte
+     */
+    private void keyByte(final byte chr) {
+        if (this.iskey && this.frames.size() <= this.path.length) {
+            this.key.write(chr);
+        }
+    }
+
+    /**
+     * Decodes current key.
+     * @return Key name
+     */
+    private String keyName() {
+        final String raw = new String(this.key.toByteArray(), StandardCharsets.UTF_8);
+        final String res;
+        if (raw.indexOf('\\') < 0) {
+            res = raw;
+        } else {
+            res = ((JsonString) Json.createReader(
+                new StringReader(String.format("\"%s\"", raw))
+            ).readValue()).getString();
+        }
+        return res;
+    }
+
+    /**
+     * Opened json object or array.
+     * @since 0.10
+     */
+    private static final class Frame {
+
+        /**
+         * Is it an object?
+         */
+        private final boolean object;
+
+        /**
+         * Is a key expected next?
+         */
+        private boolean expectkey;
+
+        /**
+         * Current key name.
+         */
+        private String name;
+
+        /**
+         * Ctor.
+         * @param object Is it an object?
+         */
+        Frame(final boolean object) {
+            this.object = object;
+            this.expectkey = object;
+        }
+    }
+}
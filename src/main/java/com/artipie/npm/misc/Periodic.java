@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodic asynchronous task. Next run is scheduled when the future of the
+ * previous run completes, so runs never overlap and scheduler threads are
+ * not blocked while the task is in progress.
+ * @since 0.10
+ */
+public final class Periodic {
+
+    /**
+     * Scheduler.
+     */
+    private final ScheduledExecutorService exec;
+
+    /**
+     * Delay between runs.
+     */
+    private final Duration period;
+
+    /**
+     * Ctor.
+     * @param exec Scheduler
+     * @param period Delay between the end of a run and the start of the next one
+     */
+    public Periodic(final ScheduledExecutorService exec, final Duration period) {
+        this.exec = exec;
+        this.period = period;
+    }
+
+    /**
+     * Starts running the task.
+     * @param task Task, failed runs do not stop next ones
+     * @return Future which stops runs when cancelled or completed, it fails
+     *  if the scheduler rejects next run
+     */
+    public CompletableFuture<Void> start(final Supplier<? extends CompletionStage<?>> task) {
+        final CompletableFuture<Void> stop = new CompletableFuture<>();
+        this.next(task, stop);
+        return stop;
+    }
+
+    /**
+     * Schedules next run unless runs are stopped.
+     * @param task Task
+     * @param stop Stop future
+     */
+    private void next(final Supplier<? extends CompletionStage<?>> task,
+        final CompletableFuture<Void> stop) {
+        if (!stop.isDone()) {
+            try {
+                this.exec.schedule(
+                    () -> {
+                        if (!stop.isDone()) {
+                            CompletableFuture.allOf()
+                                .thenCompose(nothing -> task.get().thenRun(() -> { }))
+                                .whenComplete((nothing, err) -> this.next(task, stop));
+                        }
+                    },
+                    this.period.toMillis(), TimeUnit.MILLISECONDS
+                );
+            } catch (final RejectedExecutionException err) {
+                stop.completeExceptionally(err);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Json generated by {@code npm publish} command read chunk by chunk.
+ * Values of `_attachments.*.data` fields are not kept in memory: they are
+ * replaced with empty strings in resulting json, and their positions
+ * in the original stream are reported as {@link Span}s, so the attachments
+ * can be decoded later directly from the source with {@link Base64Span}.
+ * @since 0.10
+ */
+public final class StreamedPublishJson {
+
+    /**
+     * Publisher of json bytes.
+     */
+    private final Publisher<ByteBuffer> bytes;
+
+    /**
+     * Ctor.
+     * @param bytes Publisher of json bytes
+     */
+    public StreamedPublishJson(final Publisher<ByteBuffer> bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Scans the json.
+     * @return Json without attachments data and attachments positions
+     */
+    public CompletableFuture<Scanned> scan() {
+        return Flowable.fromPublisher(this.bytes)
+            .reduceWith(Scanner::new, Scanner::accept)
+            .map(Scanner::result)
+            .to(SingleInterop.get())
+            .toCompletableFuture();
+    }
+
+    /**
+     * Result of the scan.
+     * @since 0.10
+     */
+    public static final class Scanned {
+
+        /**
+         * Json with empty attachments data.
+         */
+        private final JsonObject jsn;
+
+        /**
+         * Attachments positions by names.
+         */
+        private final Map<String, Span> spans;
+
+        /**
+         * Ctor.
+         * @param json Json with empty attachments data
+         * @param spans Attachments positions by names
+         */
+        Scanned(final JsonObject json, final Map<String, Span> spans) {
+            this.jsn = json;
+            this.spans = spans;
+        }
+
+        /**
+         * Json with empty attachments data.
+         * @return Json object
+         */
+        public JsonObject json() {
+            return this.jsn;
+        }
+
+        /**
+         * Positions of attachments base64 data in the scanned stream.
+         * @return Attachments spans by attachments names
+         */
+        public Map<String, Span> attachments() {
+            return Collections.unmodifiableMap(this.spans);
+        }
+    }
+
+    /**
+     * Position of a string value in the stream.
+     * @since 0.10
+     */
+    public static final class Span {
+
+        /**
+         * Offset of the first value byte.
+         */
+        private final long first;
+
+        /**
+         * Offset of the byte right after the value.
+         */
+        private final long last;
+
+        /**
+         * Ctor.
+         * @param start Offset of the first value byte, inclusive
+         * @param end Offset of the byte right after the value, exclusive
+         */
+        public Span(final long start, final long end) {
+            this.first = start;
+            this.last = end;
+        }
+
+        /**
+         * Offset of the first value byte, inclusive.
+         * @return Offset
+         */
+        public long start() {
+            return this.first;
+        }
+
+        /**
+         * Offset of the byte right after the value, exclusive.
+         * @return Offset
+         */
+        public long end() {
+            return this.last;
+        }
+    }
+
+    /**
+     * Json structure tracking state machine.
+     * @since 0.10
+     */
+    private static final class Scanner {
+
+        /**
+         * Json without attachments data.
+         */
+        private final ByteArrayOutputStream out;
+
+        /**
+         * Tracker of `_attachments.name.data` values.
+         */
+        private final JsonPathTracker path;
+
+        /**
+         * Attachments positions.
+         */
+        private final Map<String, Span> spans;
+
+        /**
+         * Current position.
+         */
+        private long pos;
+
+        /**
+         * Start position of current attachment data.
+         */
+        private long start;
+
+        /**
+         * Is current string an attachment data?
+         */
+        private boolean data;
+
+        /**
+         * Ctor.
+         */
+        Scanner() {
+            this.out = new ByteArrayOutputStream();
+            this.path = new JsonPathTracker("_attachments", "*", "data");
+            this.spans = new LinkedHashMap<>();
+        }
+
+        /**
+         * Accepts next chunk.
+         * @param buf Chunk of bytes
+         * @return Itself
+         */
+        Scanner accept(final ByteBuffer buf) {
+            final ByteBuffer src = buf.duplicate();
+            while (src.hasRemaining()) {
+                final byte chr = src.get();
+                final boolean started = this.path.accept(chr);
+                if (this.data) {
+                    this.inData(chr);
+                } else {
+                    this.out.write(chr);
+                    if (started) {
+                        this.data = true;
+                        this.start = this.pos + 1;
+                    }
+                }
+                this.pos += 1;
+            }
+            return this;
+        }
+
+        /**
+         * Scan result.
+         * @return Json with attachments positions
+         */
+        Scanned result() {
+            return new Scanned(
+                Json.createReader(new ByteArrayInputStream(this.out.toByteArray())).readObject(),
+                this.spans
+            );
+        }
+
+        /**
+         * Handles byte of attachment data, data is not kept.
+         * @param chr Byte
+         */
+        private void inData(final byte chr) {
+            if (!this.path.inString()) {
+                this.data = false;
+                this.out.write(chr);
+                this.spans.put(this.path.name(1), new Span(this.start, this.pos));
+            }
+        }
+    }
+}
@@ -14,9 +14,20 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * NPM Proxy.
+ * Concurrent requests of the same package or asset which are not cached
+ * share one upstream fetch and one storage write (single flight): the
+ * first request fetches, the others wait for its result.
  * @since 0.1
  * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
  */
@@ -41,6 +52,21 @@ public class NpmProxy {
      */
     private final NpmRemote remote;
 
+    /**
+     * Metrics.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Upstream fetches of the packages in progress by package name.
+     */
+    private final ConcurrentMap<String, Maybe<NpmPackage>> packages;
+
+    /**
+     * Upstream fetches of the assets in progress by asset path.
+     */
+    private final ConcurrentMap<String, Maybe<Boolean>> assets;
+
     /**
      * Ctor.
      * @param config NPM Proxy configuration
@@ -48,11 +74,24 @@ public class NpmProxy {
      * @param storage Adapter storage
      */
     public NpmProxy(final NpmProxyConfig config, final Vertx vertx, final Storage storage) {
+        this(config, vertx, storage, new Metrics.Stats());
+    }
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy configuration
+     * @param vertx Vertx instance
+     * @param storage Adapter storage
+     * @param metrics Metrics
+     */
+    public NpmProxy(final NpmProxyConfig config, final Vertx vertx, final Storage storage,
+        final Metrics metrics) {
         this(
             config,
             vertx,
             new RxNpmProxyStorage(new RxStorageWrapper(storage)),
-            new HttpNpmRemote(config, vertx)
+            new HttpNpmRemote(config, vertx),
+            metrics
         );
     }
 
@@ -68,10 +107,30 @@ public class NpmProxy {
         final Vertx vertx,
         final NpmProxyStorage storage,
         final NpmRemote remote) {
+        this(config, vertx, storage, remote, new Metrics.Stats());
+    }
+
+    /**
+     * Default-scoped ctor (for tests).
+     * @param config NPM Proxy configuration
+     * @param vertx Vertx instance
+     * @param storage NPM storage
+     * @param remote Remote repository client
+     * @param metrics Metrics
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    NpmProxy(final NpmProxyConfig config,
+        final Vertx vertx,
+        final NpmProxyStorage storage,
+        final NpmRemote remote,
+        final Metrics metrics) {
         this.config = config;
         this.vertx = vertx;
         this.storage = storage;
         this.remote = remote;
+        this.metrics = metrics;
+        this.packages = new ConcurrentHashMap<>();
+        this.assets = new ConcurrentHashMap<>();
     }
 
     /**
@@ -100,16 +159,9 @@ public class NpmProxy {
      */
     public Maybe<NpmAsset> getAsset(final String path) {
         return this.storage.getAsset(path).switchIfEmpty(
-            Maybe.defer(
-                () -> this.vertx.fileSystem().rxCreateTempFile("npm-asset-", ".tmp")
-                    .flatMapMaybe(
-                        tmp -> this.remote.loadAsset(path, Paths.get(tmp)).flatMap(
-                            asset -> this.storage.save(asset)
-                                .andThen(Maybe.defer(() -> this.storage.getAsset(path)))
-                                .doOnTerminate(() -> this.vertx.fileSystem().rxDelete(tmp))
-                        )
-                    )
-            )
+            this.shared(
+                this.assets, path, Metrics.Resource.ASSET, () -> this.remoteAsset(path)
+            ).flatMap(saved -> this.storage.getAsset(path))
         );
     }
 
@@ -127,8 +179,160 @@ public class NpmProxy {
      * @return Npm Package
      */
     private Maybe<NpmPackage> remotePackage(final String name) {
-        return this.remote.loadPackage(name).flatMap(
-            pkg -> this.storage.save(pkg).andThen(Maybe.just(pkg))
+        return this.shared(
+            this.packages, name, Metrics.Resource.PACKAGE,
+            () -> this.remote.loadPackage(name).flatMap(
+                pkg -> this.storage.save(pkg).andThen(Maybe.just(pkg))
+            )
         );
     }
+
+    /**
+     * Get asset from remote repository and save it to storage. Asset content
+     * can be read once, so callers read saved asset from the storage.
+     * @param path Asset path
+     * @return True if asset was saved, empty if there is no such asset
+     */
+    private Maybe<Boolean> remoteAsset(final String path) {
+        return this.vertx.fileSystem().rxCreateTempFile("npm-asset-", ".tmp").flatMapMaybe(
+            tmp -> this.remote.loadAsset(path, Paths.get(tmp)).flatMap(
+                asset -> this.storage.save(asset).andThen(Maybe.just(true))
+            ).doFinally(
+                () -> this.vertx.fileSystem().rxDelete(tmp).onErrorComplete().subscribe()
+            )
+        );
+    }
+
+    /**
+     * Fetch which is shared by concurrent requests of the same key: first
+     * request starts the fetch, requests which come before it is complete
+     * get the same result.
+     * @param flights Fetches in progress by key
+     * @param key Package name or asset path
+     * @param resource Kind of the fetched resource
+     * @param fetch Fetch
+     * @param <T> Result type
+     * @return Result of the fetch
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private <T> Maybe<T> shared(final ConcurrentMap<String, Maybe<T>> flights,
+        final String key, final Metrics.Resource resource, final Supplier<Maybe<T>> fetch) {
+        return Maybe.defer(
+            () -> {
+                final AtomicBoolean first = new AtomicBoolean(false);
+                final Maybe<T> flight = flights.computeIfAbsent(
+                    key,
+                    ignored -> {
+                        first.set(true);
+                        final AtomicReference<Maybe<T>> self = new AtomicReference<>();
+                        self.set(
+                            Maybe.defer(fetch::get)
+                                .doFinally(() -> flights.remove(key, self.get()))
+                                .cache()
+                        );
+                        return self.get();
+                    }
+                );
+                if (first.get()) {
+                    this.metrics.fetched(resource);
+                } else {
+                    this.metrics.coalesced(resource);
+                }
+                return flight;
+            }
+        );
+    }
+
+    /**
+     * Upstream fetch metrics.
+     * @since 0.10
+     */
+    public interface Metrics {
+
+        /**
+         * Request started upstream fetch.
+         * @param resource Fetched resource
+         */
+        void fetched(Resource resource);
+
+        /**
+         * Request got the result of upstream fetch started by another request.
+         * @param resource Fetched resource
+         */
+        void coalesced(Resource resource);
+
+        /**
+         * Fetched resource.
+         * @since 0.10
+         */
+        enum Resource {
+            /**
+             * Package metadata.
+             */
+            PACKAGE,
+
+            /**
+             * Asset (tarball).
+             */
+            ASSET
+        }
+
+        /**
+         * Metrics accumulated in memory.
+         * @since 0.10
+         */
+        final class Stats implements Metrics {
+
+            /**
+             * Numbers of upstream fetches by resource.
+             */
+            private final Map<Resource, LongAdder> fetches;
+
+            /**
+             * Numbers of coalesced requests by resource.
+             */
+            private final Map<Resource, LongAdder> coalesced;
+
+            /**
+             * Ctor.
+             */
+            public Stats() {
+                this.fetches = new EnumMap<>(Resource.class);
+                this.coalesced = new EnumMap<>(Resource.class);
+                for (final Resource resource : Resource.values()) {
+                    this.fetches.put(resource, new LongAdder());
+                    this.coalesced.put(resource, new LongAdder());
+                }
+            }
+
+            @Override
+            public void fetched(final Resource resource) {
+                this.fetches.get(resource).increment();
+            }
+
+            @Override
+            public void coalesced(final Resource resource) {
+                this.coalesced.get(resource).increment();
+            }
+
+            /**
+             * Number of upstream fetches.
+             * @param resource Fetched resource
+             * @return Count
+             */
+            public long fetches(final Resource resource) {
+                return this.fetches.get(resource).sum();
+            }
+
+            /**
+             * Number of requests which got the result of upstream fetch
+             * started by another request.
+             * @param resource Fetched resource
+             * @return Count
+             */
+            public long coalescedRequests(final Resource resource) {
+                return this.coalesced.get(resource).sum();
+            }
+        }
+    }
 }
@@ -64,7 +64,8 @@ public final class DownloadAssetSlice implements Slice {
                         ),
                         new ListOf<Map.Entry<String, String>>(
                             new MapEntry<>("Content-Type", asset.meta().contentType()),
-                            new MapEntry<>("Last-Modified", asset.meta().lastModified())
+                            new MapEntry<>("Last-Modified", asset.meta().lastModified()),
+                            new MapEntry<>("Accept-Ranges", "none")
                         )
                     )
                 )
@@ -13,10 +13,12 @@ import com.artipie.http.rs.RsStatus;
 import com.artipie.http.rs.RsWithBody;
 import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.RsWithStatus;
+import com.artipie.npm.misc.GzipVariants;
 import com.artipie.npm.proxy.NpmProxy;
 import com.artipie.npm.proxy.json.ClientContent;
 import hu.akarnokd.rxjava2.interop.SingleInterop;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.StringUtils;
@@ -25,7 +27,8 @@ import org.cactoos.map.MapEntry;
 import org.reactivestreams.Publisher;
 
 /**
- * HTTP slice for download package requests.
+ * HTTP slice for download package requests. Clients accepting gzip get compressed
+ * package, it is compressed once per package refresh and is kept in memory.
  * @since 0.1
  * @checkstyle ReturnCountCheck (200 lines)
  * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
@@ -41,6 +44,11 @@ public final class DownloadPackageSlice implements Slice {
      */
     private final PackagePath path;
 
+    /**
+     * Gzip compressed packages.
+     */
+    private final GzipVariants gzip;
+
     /**
      * Ctor.
      *
@@ -48,8 +56,21 @@ public final class DownloadPackageSlice implements Slice {
      * @param path Package path helper
      */
     public DownloadPackageSlice(final NpmProxy npm, final PackagePath path) {
+        this(npm, path, new GzipVariants());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param npm NPM Proxy facade
+     * @param path Package path helper
+     * @param gzip Gzip compressed packages
+     */
+    public DownloadPackageSlice(final NpmProxy npm, final PackagePath path,
+        final GzipVariants gzip) {
         this.npm = npm;
         this.path = path;
+        this.gzip = gzip;
     }
 
     @Override
@@ -57,40 +78,71 @@ public final class DownloadPackageSlice implements Slice {
     public Response response(final String line,
         final Iterable<Map.Entry<String, String>> headers,
         final Publisher<ByteBuffer> body) {
+        final boolean compress = GzipVariants.accepted(headers);
         return new AsyncResponse(
             this.npm.getPackage(this.path.value(new RequestLineFrom(line).uri().getPath()))
                 .map(
-                    pkg -> (Response) new RsWithHeaders(
-                        new RsWithBody(
-                            new RsWithStatus(RsStatus.OK),
-                            new Content.From(
-                                this.clientFormat(pkg.content(), headers).getBytes()
-                            )
-                        ),
-                        new ListOf<Map.Entry<String, String>>(
-                            new MapEntry<>("Content-Type", "application/json"),
-                            new MapEntry<>("Last-Modified", pkg.meta().lastModified())
-                        )
-                    )
+                    pkg -> {
+                        final String prefix = this.assetPrefix(DownloadPackageSlice.host(headers));
+                        final Response res;
+                        if (compress) {
+                            final String key = String.join(
+                                " ", pkg.name(), pkg.meta().lastRefreshed().toString(), prefix
+                            );
+                            res = new RsWithHeaders(
+                                new RsWithBody(
+                                    new RsWithStatus(RsStatus.OK),
+                                    new Content.From(
+                                        this.gzip.cached(key).orElseGet(
+                                            () -> this.gzip.compress(
+                                                key,
+                                                new ClientContent(pkg.content(), prefix).value()
+                                                    .getBytes(StandardCharsets.UTF_8)
+                                            )
+                                        )
+                                    )
+                                ),
+                                new ListOf<Map.Entry<String, String>>(
+                                    new MapEntry<>("Content-Type", "application/json"),
+                                    new MapEntry<>("Content-Encoding", "gzip"),
+                                    new MapEntry<>("Vary", "Accept-Encoding"),
+                                    new MapEntry<>("Last-Modified", pkg.meta().lastModified())
+                                )
+                            );
+                        } else {
+                            res = new RsWithHeaders(
+                                new RsWithBody(
+                                    new RsWithStatus(RsStatus.OK),
+                                    new Content.From(
+                                        new ClientContent(pkg.content(), prefix).value()
+                                            .getBytes()
+                                    )
+                                ),
+                                new ListOf<Map.Entry<String, String>>(
+                                    new MapEntry<>("Content-Type", "application/json"),
+                                    new MapEntry<>("Vary", "Accept-Encoding"),
+                                    new MapEntry<>("Last-Modified", pkg.meta().lastModified())
+                                )
+                            );
+                        }
+                        return res;
+                    }
                 ).toSingle(new RsNotFound())
                 .to(SingleInterop.get())
         );
     }
 
     /**
-     * Transform internal package format for external clients.
-     * @param data Internal package data
+     * External host of the request.
      * @param headers Request headers
-     * @return External client package
+     * @return Host
      */
-    private String clientFormat(final String data,
-        final Iterable<Map.Entry<String, String>> headers) {
-        final String host = StreamSupport.stream(headers.spliterator(), false)
+    private static String host(final Iterable<Map.Entry<String, String>> headers) {
+        return StreamSupport.stream(headers.spliterator(), false)
             .filter(e -> e.getKey().equalsIgnoreCase("Host"))
             .findAny().orElseThrow(
                 () -> new RuntimeException("Could not find Host header in request")
             ).getValue();
-        return new ClientContent(data, this.assetPrefix(host)).value();
     }
 
     /**
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.test.TestResource;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Abbreviated}.
+ * @since 0.10
+ */
+final class AbbreviatedTest {
+
+    @Test
+    void keepsInstallFieldsOnly() {
+        final JsonObject abbreviated = new Abbreviated(
+            Json.createReader(
+                new TestResource("storage/@hello/simple-npm-project/meta.json").asInputStream()
+            ).readObject()
+        ).json();
+        MatcherAssert.assertThat(
+            "Packument fields",
+            abbreviated.keySet(),
+            Matchers.contains("name", "modified", "dist-tags", "versions")
+        );
+        MatcherAssert.assertThat(
+            "Modification time",
+            abbreviated.getString("modified"),
+            new IsEqual<>("2021-02-04T16:30:30.381999")
+        );
+        MatcherAssert.assertThat(
+            "Version fields",
+            abbreviated.getJsonObject("versions").getJsonObject("1.0.1").keySet(),
+            Matchers.contains("name", "version", "dist")
+        );
+    }
+
+    @Test
+    void takesNotChangedVersionsFromPrevious() {
+        final JsonObject prev = new Abbreviated(AbbreviatedTest.packument("1.0.0")).json();
+        final Abbreviated next = new Abbreviated(
+            Json.createObjectBuilder()
+                .add(
+                    "versions",
+                    Json.createObjectBuilder()
+                        .add("1.0.0", JsonValue.NULL)
+                        .add("1.0.1", JsonValue.NULL)
+                        .add("2.0.0", AbbreviatedTest.version("2.0.0"))
+                ).build()
+        );
+        MatcherAssert.assertThat(
+            "Version absent in previous packument is missing",
+            next.missing(prev),
+            Matchers.contains("1.0.1")
+        );
+        MatcherAssert.assertThat(
+            "Versions are taken from previous packument",
+            next.json(prev).getJsonObject("versions").keySet(),
+            Matchers.contains("1.0.0", "2.0.0")
+        );
+    }
+
+    /**
+     * Packument with one version.
+     * @param version Version
+     * @return Packument
+     */
+    private static JsonObject packument(final String version) {
+        return Json.createObjectBuilder()
+            .add("versions", Json.createObjectBuilder().add(version, version(version)))
+            .build();
+    }
+
+    /**
+     * Version document.
+     * @param version Version
+     * @return Version document
+     */
+    private static JsonObject version(final String version) {
+        return Json.createObjectBuilder()
+            .add("version", version)
+            .add("readme", "long readme")
+            .build();
+    }
+}
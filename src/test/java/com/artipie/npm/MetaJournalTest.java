@@ -0,0 +1,349 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaJournal}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class MetaJournalTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple");
+
+    /**
+     * Other package key.
+     */
+    private static final Key OTHER = new Key.From("@hello", "other");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+    }
+
+    @Test
+    void readsEntriesAfterSequence() {
+        final MetaJournal journal = new MetaJournal(this.storage);
+        MetaJournalTest.publish(journal, MetaJournalTest.PKG, "1.0.0");
+        MetaJournalTest.publish(journal, MetaJournalTest.OTHER, "1.0.0");
+        MetaJournalTest.delete(journal, MetaJournalTest.PKG);
+        MatcherAssert.assertThat(
+            "All entries are read",
+            MetaJournalTest.seqs(journal.entries(0, 10).join()),
+            Matchers.contains(1L, 2L, 3L)
+        );
+        MatcherAssert.assertThat(
+            "Entries after sequence are read up to limit",
+            MetaJournalTest.seqs(journal.entries(1, 1).join()),
+            Matchers.contains(2L)
+        );
+        MatcherAssert.assertThat(
+            "Entry has change type",
+            journal.entries(2, 1).join().get(0).getString("change"),
+            new IsEqual<>("delete")
+        );
+    }
+
+    @Test
+    void continuesSequenceAfterRestart() {
+        MetaJournalTest.publish(new MetaJournal(this.storage), MetaJournalTest.PKG, "1.0.0");
+        MetaJournalTest.publish(new MetaJournal(this.storage), MetaJournalTest.PKG, "1.0.1");
+        MatcherAssert.assertThat(
+            new MetaJournal(this.storage).last().join(),
+            new IsEqual<>(2L)
+        );
+    }
+
+    @Test
+    void storesEntriesInSegments() {
+        final MetaJournal journal = new MetaJournal(this.storage, 2);
+        for (int idx = 0; idx < 5; idx = idx + 1) {
+            MetaJournalTest.publish(
+                journal, new Key.From(String.format("pkg%d", idx)), "1.0.0"
+            );
+        }
+        MatcherAssert.assertThat(
+            "Entries are saved in segments of up to size entries",
+            this.storage.list(MetaJournal.ROOT).join(),
+            Matchers.hasSize(3)
+        );
+        MatcherAssert.assertThat(
+            "Entries are read by another instance",
+            MetaJournalTest.seqs(new MetaJournal(this.storage, 2).entries(0, 10).join()),
+            Matchers.contains(1L, 2L, 3L, 4L, 5L)
+        );
+    }
+
+    @Test
+    void storesChangedVersionsOnly() {
+        final MetaJournal journal = new MetaJournal(this.storage);
+        MetaJournalTest.publish(journal, MetaJournalTest.PKG, "1.0.0");
+        journal.append(
+            MetaJournalTest.PKG,
+            Optional.of(MetaJournalTest.packument("1.0.0")),
+            Optional.of(MetaJournalTest.packument("1.0.1", "1.0.0")),
+            CompletableFuture::allOf
+        ).join();
+        final JsonObject entry = journal.entries(1, 1).join().get(0);
+        MatcherAssert.assertThat(
+            "Entry has added version only",
+            entry.getJsonObject("versions").keySet(),
+            Matchers.contains("1.0.1")
+        );
+        MatcherAssert.assertThat(
+            "Entry packument has no versions",
+            entry.getJsonObject("packument").containsKey("versions"),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void showsEntryWhenWriteIsComplete() {
+        final MetaJournal journal = new MetaJournal(this.storage);
+        final CompletableFuture<Void> started = new CompletableFuture<>();
+        final CompletableFuture<Void> write = new CompletableFuture<>();
+        final CompletableFuture<Long> seq = journal.append(
+            MetaJournalTest.PKG, Optional.empty(),
+            Optional.of(MetaJournalTest.packument("1.0.0")),
+            () -> {
+                started.complete(null);
+                return write;
+            }
+        );
+        started.join();
+        MatcherAssert.assertThat(
+            "Entry is saved before write",
+            this.storage.list(MetaJournal.ROOT).join(),
+            Matchers.hasSize(1)
+        );
+        MatcherAssert.assertThat(
+            "Entry is not visible until write is complete",
+            journal.entries(0, 10).join(),
+            Matchers.empty()
+        );
+        write.complete(null);
+        seq.join();
+        MatcherAssert.assertThat(
+            "Entry is visible when write is complete",
+            MetaJournalTest.seqs(journal.entries(0, 10).join()),
+            Matchers.contains(1L)
+        );
+    }
+
+    @Test
+    void removesEntryOfFailedWrite() {
+        final MetaJournal journal = new MetaJournal(this.storage);
+        final CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new ArtipieException("Write failed"));
+        MatcherAssert.assertThat(
+            "Append fails with write",
+            journal.append(
+                MetaJournalTest.PKG, Optional.empty(),
+                Optional.of(MetaJournalTest.packument("1.0.0")), () -> failed
+            ).handle((seq, err) -> err != null).join(),
+            new IsEqual<>(true)
+        );
+        MetaJournalTest.publish(journal, MetaJournalTest.OTHER, "1.0.0");
+        MatcherAssert.assertThat(
+            "Entry of failed write is removed",
+            new MetaJournal(this.storage).entries(0, 10).join().stream()
+                .map(entry -> entry.getString("package"))
+                .collect(Collectors.toList()),
+            Matchers.contains(MetaJournalTest.OTHER.string())
+        );
+    }
+
+    @Test
+    void foldsEntriesOfFullSegment() {
+        final MetaJournal journal = new MetaJournal(this.storage, 2);
+        MetaJournalTest.publish(journal, MetaJournalTest.PKG, "1.0.0");
+        journal.append(
+            MetaJournalTest.PKG,
+            Optional.of(MetaJournalTest.packument("1.0.0")),
+            Optional.of(MetaJournalTest.packument("1.0.1", "1.0.0")),
+            CompletableFuture::allOf
+        ).join();
+        MetaJournalTest.publish(journal, MetaJournalTest.OTHER, "1.0.0");
+        final List<JsonObject> entries = new MetaJournal(this.storage, 2)
+            .entries(0, 10).join();
+        MatcherAssert.assertThat(
+            "Entries of the package are folded",
+            MetaJournalTest.seqs(entries),
+            Matchers.contains(2L, 3L)
+        );
+        MatcherAssert.assertThat(
+            "Versions of folded entries are kept",
+            entries.get(0).getJsonObject("versions").keySet(),
+            Matchers.containsInAnyOrder("1.0.0", "1.0.1")
+        );
+        MatcherAssert.assertThat(
+            "Folded entry is full",
+            entries.get(0).getBoolean("full"),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void dropsEntriesReplacedInLaterSegments() {
+        final MetaJournal journal = new MetaJournal(this.storage, 2);
+        MetaJournalTest.publish(journal, MetaJournalTest.PKG, "1.0.0");
+        MetaJournalTest.publish(journal, MetaJournalTest.OTHER, "1.0.0");
+        MetaJournalTest.delete(journal, MetaJournalTest.OTHER);
+        journal.append(
+            MetaJournalTest.PKG,
+            Optional.of(MetaJournalTest.packument("1.0.0")),
+            Optional.of(MetaJournalTest.packument("1.0.1", "1.0.0")),
+            CompletableFuture::allOf
+        ).join();
+        MetaJournalTest.publish(journal, new Key.From("next"), "1.0.0");
+        journal.compact().join();
+        MatcherAssert.assertThat(
+            "Replaced entries are dropped",
+            MetaJournalTest.seqs(journal.entries(0, 10).join()),
+            Matchers.contains(1L, 3L, 4L, 5L)
+        );
+        MatcherAssert.assertThat(
+            "Entries after compacted ones are read",
+            MetaJournalTest.seqs(journal.entries(3, 10).join()),
+            Matchers.contains(4L, 5L)
+        );
+    }
+
+    @Test
+    void replaysEntriesToLayout() {
+        final MetaJournal journal = new MetaJournal(this.storage);
+        MetaJournalTest.publish(journal, MetaJournalTest.PKG, "1.0.0");
+        MetaJournalTest.publish(journal, MetaJournalTest.OTHER, "1.0.0");
+        journal.append(
+            MetaJournalTest.PKG,
+            Optional.of(MetaJournalTest.packument("1.0.0")),
+            Optional.of(MetaJournalTest.packument("1.0.1", "1.0.0")),
+            CompletableFuture::allOf
+        ).join();
+        MetaJournalTest.delete(journal, MetaJournalTest.OTHER);
+        final Storage replica = new InMemoryStorage();
+        final MetaLayout layout = new MetaLayout.Whole(replica);
+        MatcherAssert.assertThat(
+            "Returns last applied entry",
+            journal.replay(0, Long.MAX_VALUE, layout).join(),
+            new IsEqual<>(4L)
+        );
+        MatcherAssert.assertThat(
+            "Package has all versions",
+            layout.read(MetaJournalTest.PKG, true).join().get().getJsonObject("versions"),
+            new IsEqual<>(
+                Json.createObjectBuilder()
+                    .add("1.0.0", MetaJournalTest.version("1.0.0"))
+                    .add("1.0.1", MetaJournalTest.version("1.0.1"))
+                    .build()
+            )
+        );
+        MatcherAssert.assertThat(
+            "Deleted package does not exist",
+            layout.exists(MetaJournalTest.OTHER).join(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void replaysEntriesUntilSequence() {
+        final MetaJournal journal = new MetaJournal(this.storage);
+        MetaJournalTest.publish(journal, MetaJournalTest.PKG, "1.0.0");
+        MetaJournalTest.publish(journal, MetaJournalTest.OTHER, "1.0.0");
+        final MetaLayout layout = new MetaLayout.Whole(new InMemoryStorage());
+        journal.replay(0, 1, layout).join();
+        MatcherAssert.assertThat(
+            layout.exists(MetaJournalTest.OTHER).join(),
+            new IsEqual<>(false)
+        );
+    }
+
+    /**
+     * Appends publish of the new package with one version.
+     * @param journal Journal
+     * @param pkg Package key
+     * @param version Version
+     */
+    private static void publish(final MetaJournal journal, final Key pkg,
+        final String version) {
+        journal.append(
+            pkg, Optional.empty(), Optional.of(MetaJournalTest.packument(version)),
+            CompletableFuture::allOf
+        ).join();
+    }
+
+    /**
+     * Appends deletion of the package.
+     * @param journal Journal
+     * @param pkg Package key
+     */
+    private static void delete(final MetaJournal journal, final Key pkg) {
+        journal.append(pkg, Optional.empty(), Optional.empty(), CompletableFuture::allOf)
+            .join();
+    }
+
+    /**
+     * Packument with the version, other versions are not loaded.
+     * @param version Version
+     * @param others Versions which are not loaded
+     * @return Packument
+     */
+    private static JsonObject packument(final String version, final String... others) {
+        final JsonObjectBuilder versions = Json.createObjectBuilder()
+            .add(version, MetaJournalTest.version(version));
+        for (final String other : others) {
+            versions.addNull(other);
+        }
+        return Json.createObjectBuilder()
+            .add("name", "@hello/simple")
+            .add("versions", versions)
+            .build();
+    }
+
+    /**
+     * Version document.
+     * @param version Version
+     * @return Json object
+     */
+    private static JsonObject version(final String version) {
+        return Json.createObjectBuilder().add("version", version).build();
+    }
+
+    /**
+     * Sequence numbers of the entries.
+     * @param entries Entries
+     * @return Sequence numbers
+     */
+    private static List<Long> seqs(final List<JsonObject> entries) {
+        return entries.stream()
+            .map(entry -> entry.getJsonNumber("seq").longValue())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaLayout.Cached}.
+ * @since 0.10
+ */
+final class MetaLayoutCachedTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    /**
+     * Storage calls counter.
+     */
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+        this.calls = new AtomicInteger();
+        new MetaLayout.Whole(this.storage).write(
+            MetaLayoutCachedTest.PKG, Optional.empty(),
+            Json.createObjectBuilder().add("name", "first").build()
+        ).join();
+    }
+
+    @Test
+    void servesPackumentFromMemory() {
+        final MetaLayout layout = new MetaLayout.Cached(this.counted(), 1024);
+        MatcherAssert.assertThat(
+            "Reads packument",
+            MetaLayoutCachedTest.content(layout),
+            new IsEqual<>("{\"name\":\"first\"}")
+        );
+        final int before = this.calls.get();
+        MatcherAssert.assertThat(
+            "Reads packument again",
+            MetaLayoutCachedTest.content(layout),
+            new IsEqual<>("{\"name\":\"first\"}")
+        );
+        MatcherAssert.assertThat(
+            "Does not touch storage",
+            this.calls.get(),
+            new IsEqual<>(before)
+        );
+    }
+
+    @Test
+    void invalidatesOnWrite() {
+        final MetaLayout layout = new MetaLayout.Cached(this.counted(), 1024);
+        MetaLayoutCachedTest.content(layout);
+        new MetaQueue(layout).update(
+            MetaLayoutCachedTest.PKG,
+            meta -> Json.createObjectBuilder().add("name", "second").build()
+        ).join();
+        MatcherAssert.assertThat(
+            MetaLayoutCachedTest.content(layout),
+            new IsEqual<>("{\"name\":\"second\"}")
+        );
+    }
+
+    @Test
+    void invalidatesValidatorsOnWrite() {
+        final MetaLayout layout = new MetaLayout.Cached(this.counted(), 1024);
+        final String first = layout.validators(MetaLayoutCachedTest.PKG).join().get().etag();
+        final int before = this.calls.get();
+        MatcherAssert.assertThat(
+            "Serves validators from memory",
+            layout.validators(MetaLayoutCachedTest.PKG).join().get().etag(),
+            new IsEqual<>(first)
+        );
+        MatcherAssert.assertThat(
+            "Does not touch storage",
+            this.calls.get(),
+            new IsEqual<>(before)
+        );
+        new MetaQueue(layout).update(
+            MetaLayoutCachedTest.PKG,
+            meta -> Json.createObjectBuilder().add("name", "second").build()
+        ).join();
+        MatcherAssert.assertThat(
+            "Validators are updated",
+            layout.validators(MetaLayoutCachedTest.PKG).join().get().etag(),
+            new IsNot<>(new IsEqual<>(first))
+        );
+    }
+
+    @Test
+    void invalidatesOnDelete() {
+        final MetaLayout layout = new MetaLayout.Cached(this.counted(), 1024);
+        MetaLayoutCachedTest.content(layout);
+        layout.delete(MetaLayoutCachedTest.PKG).join();
+        MatcherAssert.assertThat(
+            "Package does not exist",
+            layout.exists(MetaLayoutCachedTest.PKG).join(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Packument is not found",
+            layout.content(MetaLayoutCachedTest.PKG).join().isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void doesNotCachePackumentsLargerThanLimit() {
+        final MetaLayout layout = new MetaLayout.Cached(this.counted(), 8);
+        MetaLayoutCachedTest.content(layout);
+        final int before = this.calls.get();
+        MetaLayoutCachedTest.content(layout);
+        MatcherAssert.assertThat(
+            this.calls.get(),
+            new IsEqual<>(before * 2)
+        );
+    }
+
+    /**
+     * Whole layout over storage counting calls.
+     * @return Layout
+     */
+    private MetaLayout counted() {
+        return new MetaLayout.Whole(
+            (Storage) Proxy.newProxyInstance(
+                Storage.class.getClassLoader(),
+                new Class<?>[]{Storage.class},
+                (proxy, method, args) -> {
+                    this.calls.incrementAndGet();
+                    return method.invoke(this.storage, args);
+                }
+            )
+        );
+    }
+
+    /**
+     * Packument content as string.
+     * @param layout Layout
+     * @return Packument
+     */
+    private static String content(final MetaLayout layout) {
+        return new PublisherAs(layout.content(MetaLayoutCachedTest.PKG).join().get())
+            .asciiString().toCompletableFuture().join();
+    }
+}
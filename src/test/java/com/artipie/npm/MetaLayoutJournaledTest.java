@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaLayout.Journaled}.
+ * @since 0.10
+ */
+final class MetaLayoutJournaledTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple");
+
+    @Test
+    void recordsChangesOfPackument() {
+        final Storage storage = new InMemoryStorage();
+        final MetaJournal journal = new MetaJournal(storage);
+        final MetaLayout layout = new MetaLayout.Journaled(new MetaLayout.Whole(storage), journal);
+        final JsonObject first = MetaLayoutJournaledTest.packument("latest", false, "1.0.0");
+        final JsonObject second = MetaLayoutJournaledTest.packument(
+            "latest", false, "1.0.0", "1.0.1"
+        );
+        final JsonObject tagged = MetaLayoutJournaledTest.packument(
+            "beta", false, "1.0.0", "1.0.1"
+        );
+        final JsonObject deprecated = MetaLayoutJournaledTest.packument(
+            "beta", true, "1.0.0", "1.0.1"
+        );
+        final JsonObject unpublished = MetaLayoutJournaledTest.packument("beta", true, "1.0.1");
+        layout.write(MetaLayoutJournaledTest.PKG, Optional.empty(), first).join();
+        layout.write(MetaLayoutJournaledTest.PKG, Optional.of(first), second).join();
+        layout.write(MetaLayoutJournaledTest.PKG, Optional.of(second), tagged).join();
+        layout.write(MetaLayoutJournaledTest.PKG, Optional.of(tagged), deprecated).join();
+        layout.write(MetaLayoutJournaledTest.PKG, Optional.of(deprecated), unpublished).join();
+        layout.write(MetaLayoutJournaledTest.PKG, Optional.of(unpublished), unpublished).join();
+        layout.delete(MetaLayoutJournaledTest.PKG).join();
+        MatcherAssert.assertThat(
+            journal.entries(0, 10).join().stream()
+                .map(entry -> entry.getString("change"))
+                .collect(Collectors.toList()),
+            Matchers.contains(
+                "publish", "publish", "dist-tag", "deprecate", "unpublish", "update", "delete"
+            )
+        );
+    }
+
+    /**
+     * Packument.
+     * @param tag Tag of the last version
+     * @param deprecated Are versions deprecated?
+     * @param versions Versions
+     * @return Packument
+     */
+    private static JsonObject packument(final String tag, final boolean deprecated,
+        final String... versions) {
+        final JsonObjectBuilder all = Json.createObjectBuilder();
+        for (final String version : versions) {
+            final JsonObjectBuilder doc = Json.createObjectBuilder().add("version", version);
+            if (deprecated) {
+                doc.add("deprecated", "Do not use");
+            }
+            all.add(version, doc);
+        }
+        return Json.createObjectBuilder()
+            .add("name", "@hello/simple")
+            .add("dist-tags", Json.createObjectBuilder().add(tag, versions[versions.length - 1]))
+            .add("versions", all)
+            .build();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.lock.storage.StorageLock;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsInstanceOf;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaLayout.Revisioned}.
+ * @since 0.10
+ */
+final class MetaLayoutRevisionedTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    /**
+     * Layout.
+     */
+    private MetaLayout layout;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+        this.layout = new MetaLayout.Revisioned(new MetaLayout.Whole(this.storage), this.storage);
+    }
+
+    @Test
+    void writesNextRevision() {
+        this.layout.write(MetaLayoutRevisionedTest.PKG, Optional.empty(), named("first")).join();
+        final Optional<JsonObject> first = this.read();
+        this.layout.write(MetaLayoutRevisionedTest.PKG, first, named("second")).join();
+        MatcherAssert.assertThat(
+            "First write has first revision",
+            first.get().getString(Revision.FIELD),
+            Matchers.startsWith("1-")
+        );
+        MatcherAssert.assertThat(
+            "Second write has second revision",
+            this.read().get().getString(Revision.FIELD),
+            Matchers.startsWith("2-")
+        );
+    }
+
+    @Test
+    void rejectsWriteOfModifiedPackument() {
+        this.layout.write(MetaLayoutRevisionedTest.PKG, Optional.empty(), named("first")).join();
+        final Optional<JsonObject> before = this.read();
+        this.layout.write(MetaLayoutRevisionedTest.PKG, before, named("second")).join();
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> this.layout.write(MetaLayoutRevisionedTest.PKG, before, named("third")).join()
+        );
+        MatcherAssert.assertThat(
+            "Fails with conflict",
+            err.getCause(),
+            new IsInstanceOf(MetaConflictException.class)
+        );
+        MatcherAssert.assertThat(
+            "Keeps concurrent write",
+            this.read().get().getString("name"),
+            new IsEqual<>("second")
+        );
+    }
+
+    @Test
+    void rejectsConcurrentCreation() {
+        this.layout.write(MetaLayoutRevisionedTest.PKG, Optional.empty(), named("first")).join();
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> this.layout.write(
+                MetaLayoutRevisionedTest.PKG, Optional.empty(), named("other")
+            ).join()
+        );
+        MatcherAssert.assertThat(
+            err.getCause(),
+            new IsInstanceOf(MetaConflictException.class)
+        );
+    }
+
+    @Test
+    void writesPackumentWithoutRevision() {
+        new MetaLayout.Whole(this.storage)
+            .write(MetaLayoutRevisionedTest.PKG, Optional.empty(), named("legacy")).join();
+        this.layout.write(MetaLayoutRevisionedTest.PKG, this.read(), named("revised")).join();
+        MatcherAssert.assertThat(
+            this.read().get().getString(Revision.FIELD),
+            Matchers.startsWith("1-")
+        );
+    }
+
+    @Test
+    void rejectsWriteWhilePackageIsLocked() {
+        new StorageLock(
+            this.storage, new Key.From(MetaLayoutRevisionedTest.PKG, "meta.rev"),
+            Instant.now().plusSeconds(60)
+        ).acquire().toCompletableFuture().join();
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> this.layout.write(
+                MetaLayoutRevisionedTest.PKG, Optional.empty(), named("first")
+            ).join()
+        );
+        MatcherAssert.assertThat(
+            err.getCause(),
+            new IsInstanceOf(MetaConflictException.class)
+        );
+    }
+
+    @Test
+    void removesRevisionOnDelete() {
+        this.layout.write(MetaLayoutRevisionedTest.PKG, Optional.empty(), named("first")).join();
+        this.layout.delete(MetaLayoutRevisionedTest.PKG).join();
+        this.layout.write(MetaLayoutRevisionedTest.PKG, Optional.empty(), named("again")).join();
+        MatcherAssert.assertThat(
+            this.read().get().getString(Revision.FIELD),
+            Matchers.startsWith("1-")
+        );
+    }
+
+    /**
+     * Reads packument.
+     * @return Packument
+     */
+    private Optional<JsonObject> read() {
+        return this.layout.read(MetaLayoutRevisionedTest.PKG, true).join();
+    }
+
+    /**
+     * Packument with name.
+     * @param name Name
+     * @return Packument
+     */
+    private static JsonObject named(final String name) {
+        return Json.createObjectBuilder().add("name", name).build();
+    }
+}
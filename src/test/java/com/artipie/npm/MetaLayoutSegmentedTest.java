@@ -0,0 +1,361 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.blocking.BlockingStorage;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaLayout.Segmented}.
+ * @since 0.10
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+final class MetaLayoutSegmentedTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple-npm-project");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+    }
+
+    @Test
+    void assemblesSamePackumentAsWhole() throws Exception {
+        final JsonObject meta = MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2", "1.0.0");
+        final MetaLayout whole = new MetaLayout.Whole(new InMemoryStorage());
+        whole.write(MetaLayoutSegmentedTest.PKG, Optional.empty(), meta).join();
+        final MetaLayout segmented = new MetaLayout.Segmented(this.storage);
+        segmented.write(MetaLayoutSegmentedTest.PKG, Optional.empty(), meta).join();
+        final URL base = new URL("http://localhost/ctx");
+        MatcherAssert.assertThat(
+            "Packument bytes are the same",
+            MetaLayoutSegmentedTest.bytes(segmented),
+            new IsEqual<>(MetaLayoutSegmentedTest.bytes(whole))
+        );
+        MatcherAssert.assertThat(
+            "Bytes with rewritten tarballs are the same",
+            new PublisherAs(
+                new Tarballs(
+                    segmented.content(MetaLayoutSegmentedTest.PKG).join().get(), base
+                ).value()
+            ).asciiString().toCompletableFuture().join(),
+            new IsEqual<>(
+                new PublisherAs(
+                    new Tarballs(
+                        whole.content(MetaLayoutSegmentedTest.PKG).join().get(), base
+                    ).value()
+                ).asciiString().toCompletableFuture().join()
+            )
+        );
+    }
+
+    @Test
+    void publishWritesOnlyIndexAndNewVersion() {
+        new MetaLayout.Segmented(this.storage).write(
+            MetaLayoutSegmentedTest.PKG, Optional.empty(),
+            MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2")
+        ).join();
+        final List<String> touched = Collections.synchronizedList(new ArrayList<>(0));
+        new MetaQueue(
+            new MetaLayout.Segmented(
+                (Storage) Proxy.newProxyInstance(
+                    Storage.class.getClassLoader(),
+                    new Class<?>[]{Storage.class},
+                    (proxy, method, args) -> {
+                        if ("save".equals(method.getName())
+                            || "value".equals(method.getName())) {
+                            touched.add(((Key) args[0]).string());
+                        }
+                        return method.invoke(this.storage, args);
+                    }
+                )
+            )
+        ).update(
+            MetaLayoutSegmentedTest.PKG,
+            new MetaUpdate.ByJson(
+                Json.createReader(
+                    new TestResource("json/cli_publish.json").asInputStream()
+                ).readObject()
+            )
+        ).join();
+        MatcherAssert.assertThat(
+            "Only index, sidecars and new version are read and written",
+            touched,
+            Matchers.containsInAnyOrder(
+                "@hello/simple-npm-project/meta/abbreviated.json",
+                "@hello/simple-npm-project/meta/abbreviated.json",
+                "@hello/simple-npm-project/meta/dist-tags.json",
+                "@hello/simple-npm-project/meta/index.json",
+                "@hello/simple-npm-project/meta/versions/1.0.1.json",
+                "@hello/simple-npm-project/meta/index.json",
+                "@hello/simple-npm-project/meta/validators.json",
+                "@hello/simple-npm-project/meta/validators.json"
+            )
+        );
+        MatcherAssert.assertThat(
+            "Packument contains all versions",
+            MetaLayoutSegmentedTest.json(new MetaLayout.Segmented(this.storage))
+                .getJsonObject("versions").keySet(),
+            Matchers.contains("0.0.1", "0.0.2", "1.0.1")
+        );
+    }
+
+    @Test
+    void convertsWholePackumentOnWrite() {
+        final JsonObject meta = MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2");
+        new MetaLayout.Whole(this.storage)
+            .write(MetaLayoutSegmentedTest.PKG, Optional.empty(), meta).join();
+        final MetaLayout segmented = new MetaLayout.Segmented(this.storage);
+        MatcherAssert.assertThat(
+            "Reads whole packument before conversion",
+            MetaLayoutSegmentedTest.json(segmented),
+            new IsEqual<>(meta)
+        );
+        new MetaQueue(segmented).update(
+            MetaLayoutSegmentedTest.PKG,
+            current -> Json.createObjectBuilder(current.get())
+                .add("dist-tags", Json.createObjectBuilder().add("latest", "0.0.1"))
+                .build()
+        ).join();
+        MatcherAssert.assertThat(
+            "Whole packument is removed",
+            this.storage.exists(new Key.From(MetaLayoutSegmentedTest.PKG, "meta.json")).join(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Version documents are written",
+            new BlockingStorage(this.storage).list(
+                new Key.From(MetaLayoutSegmentedTest.PKG, "meta", "versions")
+            ),
+            Matchers.hasSize(2)
+        );
+        MatcherAssert.assertThat(
+            "Packument is updated",
+            MetaLayoutSegmentedTest.json(segmented).getJsonObject("dist-tags")
+                .getString("latest"),
+            new IsEqual<>("0.0.1")
+        );
+    }
+
+    @Test
+    void removesVersionDocument() {
+        final MetaLayout segmented = new MetaLayout.Segmented(this.storage);
+        segmented.write(
+            MetaLayoutSegmentedTest.PKG, Optional.empty(),
+            MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2")
+        ).join();
+        new MetaQueue(segmented).update(
+            MetaLayoutSegmentedTest.PKG,
+            current -> Json.createObjectBuilder(current.get())
+                .add(
+                    "versions",
+                    Json.createObjectBuilder(current.get().getJsonObject("versions"))
+                        .remove("0.0.1")
+                ).build()
+        ).join();
+        MatcherAssert.assertThat(
+            "Version document is removed",
+            this.storage.exists(
+                new Key.From(MetaLayoutSegmentedTest.PKG, "meta", "versions", "0.0.1.json")
+            ).join(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Version is removed from packument",
+            MetaLayoutSegmentedTest.json(segmented).getJsonObject("versions").keySet(),
+            Matchers.contains("0.0.2")
+        );
+    }
+
+    @Test
+    void keepsAbbreviatedPackumentOnAppend() {
+        final MetaLayout segmented = new MetaLayout.Segmented(this.storage);
+        segmented.write(
+            MetaLayoutSegmentedTest.PKG, Optional.empty(),
+            MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2")
+        ).join();
+        this.storage.delete(new Key.From(MetaLayoutSegmentedTest.PKG, "meta", "abbreviated.json"))
+            .join();
+        new MetaQueue(segmented).update(
+            MetaLayoutSegmentedTest.PKG,
+            new MetaUpdate.ByJson(
+                Json.createReader(
+                    new TestResource("json/cli_publish.json").asInputStream()
+                ).readObject()
+            )
+        ).join();
+        MatcherAssert.assertThat(
+            new PublisherAs(segmented.abbreviated(MetaLayoutSegmentedTest.PKG).join().get())
+                .asciiString().toCompletableFuture().join(),
+            new IsEqual<>(
+                new Abbreviated(MetaLayoutSegmentedTest.json(segmented)).json().toString()
+            )
+        );
+    }
+
+    @Test
+    void changesEntityTagOnWrite() {
+        final MetaLayout segmented = new MetaLayout.Segmented(this.storage);
+        segmented.write(
+            MetaLayoutSegmentedTest.PKG, Optional.empty(),
+            MetaLayoutSegmentedTest.packument("0.0.1")
+        ).join();
+        final String first = segmented.validators(MetaLayoutSegmentedTest.PKG).join()
+            .get().etag();
+        new MetaQueue(segmented).update(
+            MetaLayoutSegmentedTest.PKG,
+            current -> Json.createObjectBuilder(current.get())
+                .add("dist-tags", Json.createObjectBuilder().add("latest", "0.0.1"))
+                .build()
+        ).join();
+        MatcherAssert.assertThat(
+            segmented.validators(MetaLayoutSegmentedTest.PKG).join().get().etag(),
+            new IsNot<>(new IsEqual<>(first))
+        );
+    }
+
+    @Test
+    void dropsValidatorsWhenWriteFails() {
+        new MetaLayout.Segmented(this.storage).write(
+            MetaLayoutSegmentedTest.PKG, Optional.empty(),
+            MetaLayoutSegmentedTest.packument("0.0.1")
+        ).join();
+        final MetaLayout failing = new MetaLayout.Segmented(
+            (Storage) Proxy.newProxyInstance(
+                Storage.class.getClassLoader(),
+                new Class<?>[]{Storage.class},
+                (proxy, method, args) -> {
+                    final Object res;
+                    if ("save".equals(method.getName())
+                        && ((Key) args[0]).string().endsWith("index.json")) {
+                        final CompletableFuture<Void> err = new CompletableFuture<>();
+                        err.completeExceptionally(new ArtipieIOException("Save failed"));
+                        res = err;
+                    } else {
+                        res = method.invoke(this.storage, args);
+                    }
+                    return res;
+                }
+            )
+        );
+        Assertions.assertThrows(
+            CompletionException.class,
+            () -> new MetaQueue(failing).update(
+                MetaLayoutSegmentedTest.PKG,
+                current -> MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2")
+            ).join()
+        );
+        MatcherAssert.assertThat(
+            new MetaLayout.Segmented(this.storage).validators(MetaLayoutSegmentedTest.PKG)
+                .join().isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void removesPackument() {
+        final MetaLayout segmented = new MetaLayout.Segmented(this.storage);
+        segmented.write(
+            MetaLayoutSegmentedTest.PKG, Optional.empty(),
+            MetaLayoutSegmentedTest.packument("0.0.1", "0.0.2")
+        ).join();
+        segmented.delete(MetaLayoutSegmentedTest.PKG).join();
+        MatcherAssert.assertThat(
+            new BlockingStorage(this.storage).list(MetaLayoutSegmentedTest.PKG),
+            Matchers.empty()
+        );
+    }
+
+    /**
+     * Packument content as string.
+     * @param layout Layout
+     * @return Packument string
+     */
+    private static String bytes(final MetaLayout layout) {
+        return new PublisherAs(
+            layout.content(MetaLayoutSegmentedTest.PKG).join().get()
+        ).asciiString().toCompletableFuture().join();
+    }
+
+    /**
+     * Packument content as json.
+     * @param layout Layout
+     * @return Packument json
+     */
+    private static JsonObject json(final MetaLayout layout) {
+        return Json.createReader(
+            new StringReader(MetaLayoutSegmentedTest.bytes(layout))
+        ).readObject();
+    }
+
+    /**
+     * Synthetic packument.
+     * @param versions Versions
+     * @return Packument
+     */
+    private static JsonObject packument(final String... versions) {
+        final JsonObjectBuilder vers = Json.createObjectBuilder();
+        final JsonObjectBuilder time = Json.createObjectBuilder()
+            .add("created", "2021-02-04T16:30:30.381999");
+        for (final String ver : versions) {
+            vers.add(
+                ver,
+                Json.createObjectBuilder()
+                    .add("name", "@hello/simple-npm-project")
+                    .add("version", ver)
+                    .add(
+                        "dist",
+                        Json.createObjectBuilder().add(
+                            "tarball",
+                            String.format(
+                                "/@hello/simple-npm-project/-/@hello/simple-npm-project-%s.tgz",
+                                ver
+                            )
+                        )
+                    )
+            );
+            time.add(ver, "2021-02-04T16:30:30.381999");
+        }
+        return Json.createObjectBuilder()
+            .add("name", "@hello/simple-npm-project")
+            .add("_id", "@hello/simple-npm-project")
+            .add("time", time)
+            .add("versions", vers)
+            .add("dist-tags", Json.createObjectBuilder().add("latest", versions[0]))
+            .build();
+    }
+}
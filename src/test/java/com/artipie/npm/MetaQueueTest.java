@@ -0,0 +1,290 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.blocking.BlockingStorage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsInstanceOf;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaQueue}.
+ * @since 0.10
+ */
+final class MetaQueueTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello/simple");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+    }
+
+    @Test
+    void appliesAllConcurrentMutations() {
+        final MetaQueue queue = new MetaQueue(
+            new MetaLayout.Whole(this.storage), 4, Executors.newFixedThreadPool(4)
+        );
+        final int count = 50;
+        CompletableFuture.allOf(
+            IntStream.range(0, count).parallel().mapToObj(
+                idx -> queue.update(MetaQueueTest.PKG, MetaQueueTest.added(idx))
+            ).toArray(CompletableFuture[]::new)
+        ).join();
+        MatcherAssert.assertThat(
+            this.meta().keySet(),
+            Matchers.hasSize(count)
+        );
+    }
+
+    @Test
+    void foldsPendingMutationsIntoOneWrite() {
+        final AtomicInteger saves = new AtomicInteger();
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        final MetaQueue queue = new MetaQueue(
+            new MetaLayout.Whole(
+                (Storage) Proxy.newProxyInstance(
+                    Storage.class.getClassLoader(),
+                    new Class<?>[]{Storage.class},
+                    (proxy, method, args) -> {
+                        if ("save".equals(method.getName())
+                            && ((Key) args[0]).string().endsWith("meta.json")) {
+                            saves.incrementAndGet();
+                        }
+                        return method.invoke(this.storage, args);
+                    }
+                )
+            ),
+            1,
+            tasks::add
+        );
+        final List<CompletableFuture<Void>> res = IntStream.range(0, 10)
+            .mapToObj(idx -> queue.update(MetaQueueTest.PKG, MetaQueueTest.added(idx)))
+            .collect(Collectors.toList());
+        while (!res.stream().allMatch(CompletableFuture::isDone)) {
+            final Runnable task = tasks.poll();
+            if (task != null) {
+                task.run();
+            }
+        }
+        MatcherAssert.assertThat(
+            "All mutations are applied",
+            this.meta().keySet(),
+            Matchers.hasSize(10)
+        );
+        MatcherAssert.assertThat(
+            "Mutations queued while first write was in progress are written at once",
+            saves.get(),
+            new IsEqual<>(2)
+        );
+    }
+
+    @Test
+    void failedMutationDoesNotAffectOthers() {
+        final MetaQueue queue = new MetaQueue(this.storage);
+        final CompletableFuture<Void> first = queue.update(
+            MetaQueueTest.PKG, MetaQueueTest.added(0)
+        );
+        final CompletableFuture<Void> failed = queue.update(
+            MetaQueueTest.PKG,
+            meta -> {
+                throw new ArtipieException("Failed mutation");
+            }
+        );
+        final CompletableFuture<Void> last = queue.update(
+            MetaQueueTest.PKG, MetaQueueTest.added(1)
+        );
+        first.join();
+        last.join();
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class, failed::join
+        );
+        MatcherAssert.assertThat(
+            "Failed mutation fails with its error",
+            err.getCause(),
+            new IsInstanceOf(ArtipieException.class)
+        );
+        MatcherAssert.assertThat(
+            "Other mutations are applied",
+            new ArrayList<>(this.meta().keySet()),
+            Matchers.containsInAnyOrder("v0", "v1")
+        );
+    }
+
+    @Test
+    void updatesOnlyExistingPackage() {
+        final MetaQueue queue = new MetaQueue(this.storage);
+        MatcherAssert.assertThat(
+            "Missing package is not created",
+            queue.updateExisting(
+                MetaQueueTest.PKG, meta -> Json.createObjectBuilder(meta).add("v0", 0).build()
+            ).join(),
+            new IsEqual<>(false)
+        );
+        queue.update(MetaQueueTest.PKG, MetaQueueTest.added(0)).join();
+        MatcherAssert.assertThat(
+            "Existing package is updated",
+            queue.updateExisting(
+                MetaQueueTest.PKG, meta -> Json.createObjectBuilder(meta).add("v1", 1).build()
+            ).join(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Mutation is applied",
+            new ArrayList<>(this.meta().keySet()),
+            Matchers.containsInAnyOrder("v0", "v1")
+        );
+    }
+
+    @Test
+    void ordersRemovalWithMutations() {
+        final MetaQueue queue = new MetaQueue(this.storage);
+        final CompletableFuture<Void> first = queue.update(
+            MetaQueueTest.PKG, MetaQueueTest.added(0)
+        );
+        final CompletableFuture<Void> removed = queue.delete(MetaQueueTest.PKG);
+        CompletableFuture.allOf(
+            first, removed, queue.update(MetaQueueTest.PKG, MetaQueueTest.added(1))
+        ).join();
+        MatcherAssert.assertThat(
+            "Mutation queued after removal starts from empty packument",
+            new ArrayList<>(this.meta().keySet()),
+            Matchers.contains("v1")
+        );
+        queue.delete(MetaQueueTest.PKG).join();
+        MatcherAssert.assertThat(
+            "Packument is removed",
+            queue.exists(MetaQueueTest.PKG).join(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void reappliesMutationsOnConflict() {
+        final MetaLayout origin = new MetaLayout.Revisioned(
+            new MetaLayout.Whole(this.storage), this.storage
+        );
+        final AtomicInteger writes = new AtomicInteger();
+        final MetaLayout layout = (MetaLayout) Proxy.newProxyInstance(
+            MetaLayout.class.getClassLoader(),
+            new Class<?>[]{MetaLayout.class},
+            (proxy, method, args) -> {
+                if ("write".equals(method.getName()) && writes.getAndIncrement() == 0) {
+                    origin.write(
+                        MetaQueueTest.PKG, Optional.empty(),
+                        MetaQueueTest.added(0).apply(Optional.empty())
+                    ).join();
+                }
+                return method.invoke(origin, args);
+            }
+        );
+        new MetaQueue(layout).update(MetaQueueTest.PKG, MetaQueueTest.added(1)).join();
+        MatcherAssert.assertThat(
+            "Write is repeated",
+            writes.get(),
+            new IsEqual<>(2)
+        );
+        MatcherAssert.assertThat(
+            "Concurrent write is not lost",
+            new ArrayList<>(this.meta().keySet()),
+            Matchers.containsInAnyOrder("v0", "v1", Revision.FIELD)
+        );
+    }
+
+    @Test
+    void failsAfterFewConflicts() {
+        final MetaLayout origin = new MetaLayout.Whole(this.storage);
+        final AtomicInteger writes = new AtomicInteger();
+        final MetaLayout layout = (MetaLayout) Proxy.newProxyInstance(
+            MetaLayout.class.getClassLoader(),
+            new Class<?>[]{MetaLayout.class},
+            (proxy, method, args) -> {
+                final Object res;
+                if ("write".equals(method.getName())) {
+                    writes.incrementAndGet();
+                    final CompletableFuture<Void> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new MetaConflictException("Conflict"));
+                    res = failed;
+                } else {
+                    res = method.invoke(origin, args);
+                }
+                return res;
+            }
+        );
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> new MetaQueue(layout).update(MetaQueueTest.PKG, MetaQueueTest.added(1)).join()
+        );
+        MatcherAssert.assertThat(
+            "Fails with conflict",
+            err.getCause(),
+            new IsInstanceOf(MetaConflictException.class)
+        );
+        MatcherAssert.assertThat(
+            "Write is attempted few times",
+            writes.get(),
+            new IsEqual<>(5)
+        );
+    }
+
+    /**
+     * Mutation which adds field.
+     * @param idx Index of the field
+     * @return Mutation
+     */
+    private static MetaQueue.Mutation added(final int idx) {
+        return meta -> Json.createObjectBuilder(meta.orElse(Json.createObjectBuilder().build()))
+            .add(String.format("v%d", idx), idx)
+            .build();
+    }
+
+    /**
+     * Reads meta.json from storage.
+     * @return Json
+     */
+    private JsonObject meta() {
+        return Json.createReader(
+            new StringReader(
+                new String(
+                    new BlockingStorage(this.storage)
+                        .value(new Key.From(MetaQueueTest.PKG, "meta.json")),
+                    StandardCharsets.UTF_8
+                )
+            )
+        ).readObject();
+    }
+}
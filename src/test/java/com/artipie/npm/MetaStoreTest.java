@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsInstanceOf;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MetaStore}.
+ * @since 0.10
+ */
+final class MetaStoreTest {
+
+    /**
+     * Document key.
+     */
+    private static final Key KEY = new Key.From("pkg", "meta.validators.json");
+
+    @Test
+    void readsDocumentWithOneRequest() {
+        final InMemoryStorage origin = new InMemoryStorage();
+        origin.save(
+            MetaStoreTest.KEY,
+            new Content.From("{\"etag\":\"abc\"}".getBytes(StandardCharsets.UTF_8))
+        ).join();
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>(1));
+        MatcherAssert.assertThat(
+            "Document is read",
+            new MetaStore(MetaStoreTest.counting(origin, calls)).json(MetaStoreTest.KEY).join(),
+            new IsEqual<>(Optional.of(Json.createObjectBuilder().add("etag", "abc").build()))
+        );
+        MatcherAssert.assertThat(
+            "Storage is requested once",
+            calls,
+            Matchers.contains("value")
+        );
+    }
+
+    @Test
+    void returnsEmptyForMissingDocument() {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>(1));
+        MatcherAssert.assertThat(
+            "Missing document is empty",
+            new MetaStore(MetaStoreTest.counting(new InMemoryStorage(), calls))
+                .value(MetaStoreTest.KEY).join().isPresent(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Storage is requested once",
+            calls,
+            Matchers.contains("value")
+        );
+    }
+
+    @Test
+    void deletesMissingDocument() {
+        final InMemoryStorage storage = new InMemoryStorage();
+        storage.save(MetaStoreTest.KEY, Content.EMPTY).join();
+        final MetaStore store = new MetaStore(storage);
+        store.delete(MetaStoreTest.KEY).join();
+        store.delete(MetaStoreTest.KEY).join();
+        MatcherAssert.assertThat(
+            storage.exists(MetaStoreTest.KEY).join(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void failsOnStorageError() {
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> new MetaStore(
+                (Storage) Proxy.newProxyInstance(
+                    Storage.class.getClassLoader(),
+                    new Class<?>[]{Storage.class},
+                    (proxy, method, args) -> {
+                        final CompletableFuture<Content> res = new CompletableFuture<>();
+                        res.completeExceptionally(new ArtipieIOException("Storage is down"));
+                        return res;
+                    }
+                )
+            ).value(MetaStoreTest.KEY).join()
+        );
+        MatcherAssert.assertThat(
+            err.getCause(),
+            new IsInstanceOf(ArtipieIOException.class)
+        );
+    }
+
+    /**
+     * Storage which records names of called methods.
+     * @param origin Origin storage
+     * @param calls Called methods
+     * @return Storage
+     */
+    private static Storage counting(final Storage origin, final List<String> calls) {
+        return (Storage) Proxy.newProxyInstance(
+            Storage.class.getClassLoader(),
+            new Class<?>[]{Storage.class},
+            (proxy, method, args) -> {
+                calls.add(method.getName());
+                return method.invoke(origin, args);
+            }
+        );
+    }
+}
@@ -36,7 +36,7 @@ final class MetaUpdateByJsonTest {
     void createsMetaFileWhenItNotExist() {
         final Key prefix = new Key.From("prefix");
         new MetaUpdate.ByJson(this.cliMeta())
-            .update(new Key.From(prefix), this.asto)
+            .update(new Key.From(prefix), new MetaQueue(this.asto))
             .join();
         MatcherAssert.assertThat(
             this.asto.exists(new Key.From(prefix, "meta.json")).join(),
@@ -50,7 +50,7 @@ final class MetaUpdateByJsonTest {
         new TestResource("json/simple-project-1.0.2.json")
             .saveTo(this.asto, new Key.From(prefix, "meta.json"));
         new MetaUpdate.ByJson(this.cliMeta())
-            .update(new Key.From(prefix), this.asto)
+            .update(new Key.From(prefix), new MetaQueue(this.asto))
             .join();
         MatcherAssert.assertThat(
             new JsonFromMeta(this.asto, prefix).json()
@@ -60,6 +60,19 @@ final class MetaUpdateByJsonTest {
         );
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    void updatesThroughStorage() {
+        final Key prefix = new Key.From("prefix");
+        new MetaUpdate.ByJson(this.cliMeta()).update(prefix, this.asto).join();
+        MatcherAssert.assertThat(
+            new JsonFromMeta(this.asto, prefix).json()
+                .getJsonObject("versions")
+                .keySet(),
+            Matchers.contains("1.0.1")
+        );
+    }
+
     private JsonObject cliMeta() {
         return Json.createReader(
             new TestResource("json/cli_publish.json").asInputStream()
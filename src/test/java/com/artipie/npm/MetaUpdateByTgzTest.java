@@ -91,7 +91,7 @@ final class MetaUpdateByTgzTest {
                     StandardCharsets.ISO_8859_1
                 ), false
             )
-        ).update(new Key.From(prefix), this.asto)
+        ).update(new Key.From(prefix), new MetaQueue(this.asto))
             .join();
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link MetaValidators}.
+ * @since 0.10
+ */
+final class MetaValidatorsTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "2021-02-04T16:30:30.381Z,2021-02-04T16:30:30.381Z",
+        "2021-02-04T16:30:30.381999,2021-02-04T16:30:30.381999Z"
+    })
+    void readsModificationTime(final String modified, final String expected) {
+        MatcherAssert.assertThat(
+            MetaValidatorsTest.validators("{}", MetaValidatorsTest.packument(modified))
+                .lastModified(),
+            new IsEqual<>(Optional.of(Instant.parse(expected)))
+        );
+    }
+
+    @Test
+    void ignoresMalformedModificationTime() {
+        MatcherAssert.assertThat(
+            MetaValidatorsTest.validators("{}", MetaValidatorsTest.packument("yesterday"))
+                .lastModified(),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void chainsEntityTag() {
+        final JsonObject json = Json.createObjectBuilder().build();
+        final MetaValidators first = MetaValidatorsTest.validators("{\"a\":1}", json);
+        final byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+        MatcherAssert.assertThat(
+            "Tag depends on the previous tag",
+            first.next(bytes, json).etag(),
+            new IsNot<>(
+                new IsEqual<>(
+                    MetaValidatorsTest.validators("{\"a\":2}", json).next(bytes, json).etag()
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Tag is quoted",
+            first.etag(),
+            new IsEqual<>("\"9f89c740ceb46d7418c924a78ac57941d5e96520\"")
+        );
+    }
+
+    @Test
+    void storesAndLoadsSidecar() {
+        final InMemoryStorage storage = new InMemoryStorage();
+        final Key key = new Key.From("pkg", "meta.validators.json");
+        final MetaValidators validators = MetaValidatorsTest.validators(
+            "{}", MetaValidatorsTest.packument("2021-02-04T16:30:30.381Z")
+        );
+        new MetaValidators.Stored(storage).save(key, validators).join();
+        MatcherAssert.assertThat(
+            "Sidecar is loaded",
+            new MetaValidators.Stored(storage).load(key).join().get().json(),
+            new IsEqual<>(validators.json())
+        );
+        new MetaValidators.Stored(storage).delete(key).join();
+        MatcherAssert.assertThat(
+            "Sidecar is removed",
+            new MetaValidators.Stored(storage).load(key).join(),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    /**
+     * Validators of the bytes.
+     * @param bytes Packument bytes
+     * @param json Packument
+     * @return Validators
+     */
+    private static MetaValidators validators(final String bytes, final JsonObject json) {
+        return MetaValidators.of(bytes.getBytes(StandardCharsets.UTF_8), json);
+    }
+
+    /**
+     * Packument with modification time.
+     * @param modified Modification time
+     * @return Packument
+     */
+    private static JsonObject packument(final String modified) {
+        return Json.createObjectBuilder()
+            .add("time", Json.createObjectBuilder().add("modified", modified))
+            .build();
+    }
+}
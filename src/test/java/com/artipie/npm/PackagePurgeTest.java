@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link PackagePurge}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class PackagePurgeTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple");
+
+    /**
+     * Other package key.
+     */
+    private static final Key OTHER = new Key.From("@hello", "simple-other");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+        IntStream.range(0, 25).forEach(
+            idx -> this.storage.save(
+                new Key.From(PackagePurgeTest.PKG, "-", String.format("simple-1.0.%d.tgz", idx)),
+                Content.EMPTY
+            ).join()
+        );
+        this.storage.save(new Key.From(PackagePurgeTest.PKG, "meta.json"), Content.EMPTY).join();
+        this.storage.save(new Key.From(PackagePurgeTest.OTHER, "meta.json"), Content.EMPTY)
+            .join();
+    }
+
+    @Test
+    void purgesPackageWithTombstone() {
+        final PackagePurge purge = new PackagePurge(this.storage, 10, 2);
+        purge.tombstone(PackagePurgeTest.PKG).join();
+        purge.purge(PackagePurgeTest.PKG).join();
+        MatcherAssert.assertThat(
+            "Package keys are deleted",
+            this.keys(PackagePurgeTest.PKG),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            "Other package is kept",
+            this.keys(PackagePurgeTest.OTHER),
+            Matchers.hasSize(1)
+        );
+        MatcherAssert.assertThat(
+            "Tombstone is removed",
+            purge.status(PackagePurgeTest.PKG).join(),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void tracksPurgingPackagesInMemory() {
+        final PackagePurge saved = new PackagePurge(this.storage);
+        saved.tombstone(PackagePurgeTest.PKG).join();
+        final PackagePurge purge = new PackagePurge(this.storage);
+        MatcherAssert.assertThat(
+            "Tombstone of other instance is not seen before resume",
+            purge.purging(PackagePurgeTest.PKG).join(),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Package is purging after tombstone",
+            saved.purging(PackagePurgeTest.PKG).join(),
+            new IsEqual<>(true)
+        );
+        purge.resume().join();
+        MatcherAssert.assertThat(
+            "Package is not purging after resumed purge is complete",
+            purge.purging(PackagePurgeTest.PKG).join(),
+            new IsEqual<>(false)
+        );
+    }
+
+    @Test
+    void doesNotPurgePackageWithoutTombstone() {
+        new PackagePurge(this.storage).purge(PackagePurgeTest.PKG).join();
+        MatcherAssert.assertThat(
+            this.keys(PackagePurgeTest.PKG),
+            Matchers.hasSize(26)
+        );
+    }
+
+    @Test
+    void limitsConcurrentDeletes() {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final PackagePurge purge = new PackagePurge(
+            this.storage(
+                (method, args) -> {
+                    final Object res;
+                    if ("delete".equals(method.getName())) {
+                        max.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        res = CompletableFuture.runAsync(
+                            () -> active.decrementAndGet(),
+                            CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS)
+                        ).thenCompose(nothing -> this.storage.delete((Key) args[0]));
+                    } else {
+                        res = null;
+                    }
+                    return res;
+                }
+            ),
+            10, 3
+        );
+        purge.tombstone(PackagePurgeTest.PKG).join();
+        purge.purge(PackagePurgeTest.PKG).join();
+        MatcherAssert.assertThat(
+            "Deletes are concurrent, but limited",
+            max.get(),
+            Matchers.allOf(Matchers.greaterThan(1), Matchers.lessThanOrEqualTo(3))
+        );
+        MatcherAssert.assertThat(
+            "Package keys are deleted",
+            this.keys(PackagePurgeTest.PKG),
+            Matchers.empty()
+        );
+    }
+
+    @Test
+    void resumesFailedPurge() {
+        final Key broken = new Key.From(PackagePurgeTest.PKG, "meta.json");
+        final PackagePurge failing = new PackagePurge(
+            this.storage(
+                (method, args) -> {
+                    final Object res;
+                    if ("delete".equals(method.getName()) && broken.equals(args[0])) {
+                        final CompletableFuture<Void> err = new CompletableFuture<>();
+                        err.completeExceptionally(new IllegalStateException("Storage failure"));
+                        res = err;
+                    } else {
+                        res = null;
+                    }
+                    return res;
+                }
+            ),
+            10, 1
+        );
+        failing.tombstone(PackagePurgeTest.PKG).join();
+        Assertions.assertThrows(
+            CompletionException.class,
+            () -> failing.purge(PackagePurgeTest.PKG).join()
+        );
+        final PackagePurge purge = new PackagePurge(this.storage);
+        MatcherAssert.assertThat(
+            "Tombstone keeps progress",
+            purge.status(PackagePurgeTest.PKG).join().get().getInt("deleted"),
+            new IsEqual<>(20)
+        );
+        purge.resume().join();
+        MatcherAssert.assertThat(
+            "Package keys are deleted on resume",
+            this.keys(PackagePurgeTest.PKG),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            "Tombstone is removed on resume",
+            this.storage.list(PackagePurge.ROOT).join(),
+            Matchers.empty()
+        );
+    }
+
+    /**
+     * Keys of the package.
+     * @param pkg Package key
+     * @return Keys
+     */
+    private List<Key> keys(final Key pkg) {
+        return this.storage.list(pkg).join().stream()
+            .filter(key -> key.string().startsWith(String.format("%s/", pkg.string())))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Storage which intercepts calls.
+     * @param intercept Interceptor, returns null to call the storage
+     * @return Storage
+     */
+    private Storage storage(final BiFunction<Method, Object[], Object> intercept) {
+        return (Storage) Proxy.newProxyInstance(
+            Storage.class.getClassLoader(),
+            new Class<?>[]{Storage.class},
+            (proxy, method, args) -> {
+                Object res = intercept.apply(method, args);
+                if (res == null) {
+                    res = method.invoke(this.storage, args);
+                }
+                return res;
+            }
+        );
+    }
+}
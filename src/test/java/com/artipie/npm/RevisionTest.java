@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import java.util.Optional;
+import javax.json.Json;
+import javax.json.JsonValue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsNot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link Revision}.
+ * @since 0.10
+ */
+final class RevisionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "3-a1b2c3,3",
+        "12,12",
+        "x-a1b2c3,0",
+        "'',0"
+    })
+    void readsNumber(final String rev, final long number) {
+        MatcherAssert.assertThat(
+            new Revision(Json.createObjectBuilder().add(Revision.FIELD, rev).build()).number(),
+            new IsEqual<>(number)
+        );
+    }
+
+    @Test
+    void readsPackumentWithoutRevision() {
+        MatcherAssert.assertThat(
+            new Revision(JsonValue.EMPTY_JSON_OBJECT).value(),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void nextRevisionIsNumberedAndUnique() {
+        final Revision rev = new Revision(Optional.of("7-abc"));
+        final String next = rev.next().value().get();
+        MatcherAssert.assertThat(
+            "Next revision has next number",
+            next,
+            Matchers.matchesPattern("8-[0-9a-f]{32}")
+        );
+        MatcherAssert.assertThat(
+            "Next revisions of the same revision differ",
+            next,
+            new IsNot<>(new IsEqual<>(rev.next().value().get()))
+        );
+    }
+
+    @Test
+    void addsRevisionToPackument() {
+        MatcherAssert.assertThat(
+            new Revision(Optional.of("1-a")).applyTo(
+                Json.createObjectBuilder().add("name", "simple").add(Revision.FIELD, "0-b").build()
+            ),
+            new IsEqual<>(
+                Json.createObjectBuilder().add("name", "simple").add(Revision.FIELD, "1-a").build()
+            )
+        );
+    }
+
+    @Test
+    void rejectsOutdatedClientRevision() {
+        Assertions.assertThrows(
+            MetaConflictException.class,
+            () -> new Revision(Optional.of("2-b")).check(Optional.of("1-a"))
+        );
+    }
+
+    @Test
+    void acceptsCurrentOrUnknownClientRevision() {
+        new Revision(Optional.of("2-b")).check(Optional.of("2-b"));
+        new Revision(Optional.of("2-b")).check(Optional.empty());
+        new Revision(Optional.empty()).check(Optional.of("1-a"));
+        MatcherAssert.assertThat("Does not throw", true);
+    }
+}
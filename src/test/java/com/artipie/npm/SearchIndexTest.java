@@ -0,0 +1,279 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link SearchIndex}.
+ * @since 0.10
+ */
+final class SearchIndexTest {
+
+    /**
+     * Search index.
+     */
+    private SearchIndex index;
+
+    @BeforeEach
+    void init() {
+        this.index = new SearchIndex();
+        this.index.update(
+            new Key.From("left-pad"),
+            SearchIndexTest.packument(
+                "left-pad", "String left pad", "Alice", "pad", "string"
+            )
+        );
+        this.index.update(
+            new Key.From("@corp/pad-utils"),
+            SearchIndexTest.packument(
+                "@corp/pad-utils", "Padding helpers", "Bob", "padding"
+            )
+        );
+        this.index.update(
+            new Key.From("right-trim"),
+            SearchIndexTest.packument(
+                "right-trim", "Trims strings, no padding", "Alice", "trim"
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "left-pad,left-pad",
+        "pad,left-pad @corp/pad-utils right-trim",
+        "PAD LEFT,left-pad",
+        "corp,@corp/pad-utils",
+        "keywords:trim,right-trim",
+        "maintainer:alice,left-pad right-trim",
+        "author:bob pad,@corp/pad-utils",
+        "string,left-pad right-trim",
+        "absent,''",
+        "keywords:alice,''"
+    })
+    void findsPackages(final String text, final String names) {
+        MatcherAssert.assertThat(
+            SearchIndexTest.names(this.index.search(text, 0, 10)),
+            new IsEqual<>(SearchIndexTest.split(names))
+        );
+    }
+
+    @Test
+    void returnsPageAndTotal() {
+        final JsonObject found = this.index.search("pad", 1, 1);
+        MatcherAssert.assertThat(
+            found.getInt("total"),
+            new IsEqual<>(3)
+        );
+        MatcherAssert.assertThat(
+            SearchIndexTest.names(found),
+            Matchers.contains("@corp/pad-utils")
+        );
+    }
+
+    @Test
+    void returnsPackageSummary() {
+        MatcherAssert.assertThat(
+            this.index.search("left-pad", 0, 1).getJsonArray("objects")
+                .getJsonObject(0).getJsonObject("package"),
+            new IsEqual<>(
+                Json.createObjectBuilder()
+                    .add("name", "left-pad")
+                    .add("scope", "unscoped")
+                    .add("version", "1.0.0")
+                    .add("description", "String left pad")
+                    .add("keywords", Json.createArrayBuilder().add("pad").add("string"))
+                    .add("date", "2021-01-01T00:00:00.000Z")
+                    .add("links", Json.createObjectBuilder())
+                    .add(
+                        "maintainers",
+                        Json.createArrayBuilder()
+                            .add(Json.createObjectBuilder().add("name", "Alice"))
+                    )
+                    .build()
+            )
+        );
+    }
+
+    @Test
+    void updatesAndRemovesPackage() {
+        this.index.update(
+            new Key.From("left-pad"),
+            SearchIndexTest.packument("left-pad", "Moved", "Carol", "moved")
+        );
+        this.index.remove(new Key.From("right-trim"));
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                SearchIndexTest.names(this.index.search("string", 0, 10)),
+                SearchIndexTest.names(this.index.search("moved", 0, 10))
+            ),
+            new IsEqual<>(
+                Arrays.asList(Collections.emptyList(), Collections.singletonList("left-pad"))
+            )
+        );
+    }
+
+    @Test
+    void loadsPackumentsFromStorage() {
+        final Storage storage = new InMemoryStorage();
+        storage.save(
+            new Key.From("one", "meta.json"),
+            new Content.From(
+                SearchIndexTest.packument("one", "First", "Alice", "uno")
+                    .toString().getBytes(StandardCharsets.UTF_8)
+            )
+        ).join();
+        final MetaLayout layout = new MetaLayout.Segmented(storage);
+        layout.write(
+            new Key.From("@scope", "two"), Optional.empty(),
+            SearchIndexTest.packument("@scope/two", "Second", "Bob", "dos")
+        ).join();
+        final SearchIndex loaded = new SearchIndex();
+        loaded.load(storage, layout).join();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                SearchIndexTest.names(loaded.search("uno", 0, 10)),
+                SearchIndexTest.names(loaded.search("second", 0, 10))
+            ),
+            new IsEqual<>(
+                Arrays.asList(
+                    Collections.singletonList("one"), Collections.singletonList("@scope/two")
+                )
+            )
+        );
+    }
+
+    @Test
+    void doesNotLoadOverUpdatedPackage() {
+        final Storage storage = new InMemoryStorage();
+        final MetaLayout layout = new MetaLayout.Whole(storage);
+        layout.write(
+            new Key.From("pkg"), Optional.empty(),
+            SearchIndexTest.packument("pkg", "Stale", "Alice", "old")
+        ).join();
+        final SearchIndex loaded = new SearchIndex();
+        final MetaLayout racing = new MetaLayout.Indexed(layout, loaded);
+        loaded.load(
+            storage,
+            (MetaLayout) Proxy.newProxyInstance(
+                MetaLayout.class.getClassLoader(),
+                new Class<?>[]{MetaLayout.class},
+                (proxy, method, args) -> {
+                    final Object res;
+                    if ("read".equals(method.getName())) {
+                        res = layout.read((Key) args[0], (boolean) args[1]).thenCompose(
+                            stale -> racing.write(
+                                (Key) args[0], Optional.empty(),
+                                SearchIndexTest.packument("pkg", "Fresh", "Alice", "new")
+                            ).thenApply(nothing -> stale)
+                        );
+                    } else {
+                        res = method.invoke(layout, args);
+                    }
+                    return res;
+                }
+            )
+        ).join();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                SearchIndexTest.names(loaded.search("stale", 0, 10)),
+                SearchIndexTest.names(loaded.search("fresh", 0, 10))
+            ),
+            new IsEqual<>(
+                Arrays.asList(Collections.emptyList(), Collections.singletonList("pkg"))
+            )
+        );
+    }
+
+    @Test
+    void listsPackagesOfPackumentKeys() {
+        MatcherAssert.assertThat(
+            SearchIndex.names(
+                Arrays.asList(
+                    new Key.From("a", "meta.json"),
+                    new Key.From("a", "-", "a-1.0.0.tgz"),
+                    new Key.From("@s", "b", "meta", "index.json"),
+                    new Key.From("@s", "b", "meta", "versions", "1.0.0.json"),
+                    new Key.From("c", "meta.abbreviated.json")
+                )
+            ),
+            Matchers.contains("@s/b", "a")
+        );
+    }
+
+    /**
+     * Names of found packages.
+     * @param found Search result
+     * @return Package names
+     */
+    private static List<String> names(final JsonObject found) {
+        return found.getJsonArray("objects").getValuesAs(JsonObject.class).stream()
+            .map(obj -> obj.getJsonObject("package").getString("name"))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Splits space separated names.
+     * @param names Names
+     * @return List of names
+     */
+    private static List<String> split(final String names) {
+        return Arrays.stream(names.split(" "))
+            .filter(name -> !name.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Packument with one version.
+     * @param name Package name
+     * @param description Description
+     * @param maintainer Maintainer name
+     * @param keywords Keywords
+     * @return Packument
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static JsonObject packument(final String name, final String description,
+        final String maintainer, final String... keywords) {
+        return Json.createObjectBuilder()
+            .add("name", name)
+            .add("dist-tags", Json.createObjectBuilder().add("latest", "1.0.0"))
+            .add("time", Json.createObjectBuilder().add("modified", "2021-01-01T00:00:00.000Z"))
+            .add(
+                "maintainers",
+                Json.createArrayBuilder().add(Json.createObjectBuilder().add("name", maintainer))
+            )
+            .add(
+                "versions",
+                Json.createObjectBuilder().add(
+                    "1.0.0",
+                    Json.createObjectBuilder()
+                        .add("name", name)
+                        .add("version", "1.0.0")
+                        .add("description", description)
+                        .add("keywords", Json.createArrayBuilder(Arrays.asList(keywords)))
+                )
+            )
+            .build();
+    }
+}
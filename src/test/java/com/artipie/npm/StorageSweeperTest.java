@@ -0,0 +1,192 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link StorageSweeper}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class StorageSweeperTest {
+
+    /**
+     * Package key.
+     */
+    private static final Key PKG = new Key.From("@hello", "simple");
+
+    /**
+     * Published tarball.
+     */
+    private static final Key PUBLISHED = new Key.From("@hello/simple/-/@hello/simple-1.0.1.tgz");
+
+    /**
+     * Unpublished tarball.
+     */
+    private static final Key UNPUBLISHED =
+        new Key.From("@hello/simple/-/@hello/simple-1.0.2.tgz");
+
+    /**
+     * Staging key.
+     */
+    private static final Key STAGING = new Key.From("@hello/simple-0a1b2c-uploaded");
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+        this.storage.save(
+            new Key.From(StorageSweeperTest.PKG, "meta.json"),
+            new Content.From(
+                Json.createObjectBuilder()
+                    .add("name", "@hello/simple")
+                    .add(
+                        "versions",
+                        Json.createObjectBuilder().add(
+                            "1.0.1",
+                            Json.createObjectBuilder().add(
+                                "dist",
+                                Json.createObjectBuilder().add(
+                                    "tarball",
+                                    String.format("/%s", StorageSweeperTest.PUBLISHED.string())
+                                )
+                            )
+                        )
+                    ).build().toString().getBytes(StandardCharsets.UTF_8)
+            )
+        ).join();
+        this.storage.save(StorageSweeperTest.PUBLISHED, new Content.From(new byte[10])).join();
+        this.storage.save(StorageSweeperTest.UNPUBLISHED, new Content.From(new byte[20])).join();
+        this.storage.save(
+            TarballDigest.Stored.key(StorageSweeperTest.UNPUBLISHED),
+            new Content.From(new byte[3])
+        ).join();
+        this.storage.save(StorageSweeperTest.STAGING, new Content.From(new byte[5])).join();
+        this.storage.save(
+            new Key.From("@hello/orphan/-/@hello/orphan-1.0.0.tgz"), new Content.From(new byte[7])
+        ).join();
+    }
+
+    @Test
+    void deletesGarbageFoundBefore() {
+        final StorageSweeper sweeper = this.sweeper(Duration.ZERO);
+        MatcherAssert.assertThat(
+            "Garbage is not deleted on first sight",
+            sweeper.sweep().join(),
+            new IsEqual<>(StorageSweeperTest.report(0, 0, 0))
+        );
+        MatcherAssert.assertThat(
+            "Garbage is deleted on second sight",
+            sweeper.sweep().join(),
+            new IsEqual<>(StorageSweeperTest.report(1, 2, 35))
+        );
+        MatcherAssert.assertThat(
+            this.keys(),
+            Matchers.containsInAnyOrder(
+                "@hello/simple/meta.json", StorageSweeperTest.PUBLISHED.string()
+            )
+        );
+    }
+
+    @Test
+    void keepsRecentGarbage() {
+        final StorageSweeper sweeper = this.sweeper(Duration.ofHours(1));
+        sweeper.sweep().join();
+        MatcherAssert.assertThat(
+            sweeper.sweep().join(),
+            new IsEqual<>(StorageSweeperTest.report(0, 0, 0))
+        );
+        MatcherAssert.assertThat(this.keys(), Matchers.hasSize(6));
+    }
+
+    @Test
+    void keepsKeysWhichAreNotGarbageAnymore() {
+        final StorageSweeper sweeper = this.sweeper(Duration.ZERO);
+        sweeper.sweep().join();
+        this.storage.save(
+            new Key.From("@hello/orphan/meta.json"),
+            new Content.From(
+                "{\"name\":\"@hello/orphan\",\"versions\":{\"1.0.0\":{}}}"
+                    .getBytes(StandardCharsets.UTF_8)
+            )
+        ).join();
+        sweeper.sweep().join();
+        MatcherAssert.assertThat(
+            "Referenced tarball is kept",
+            this.keys(),
+            Matchers.hasItem("@hello/orphan/-/@hello/orphan-1.0.0.tgz")
+        );
+    }
+
+    @Test
+    void skipsPackagesBeingPurged() {
+        final StorageSweeper sweeper = this.sweeper(Duration.ZERO);
+        new PackagePurge(this.storage).tombstone(new Key.From("@hello", "orphan")).join();
+        sweeper.sweep().join();
+        sweeper.sweep().join();
+        MatcherAssert.assertThat(
+            this.keys(),
+            Matchers.hasItem("@hello/orphan/-/@hello/orphan-1.0.0.tgz")
+        );
+    }
+
+    /**
+     * Sweeper without pauses.
+     * @param age Min age of garbage
+     * @return Sweeper
+     */
+    private StorageSweeper sweeper(final Duration age) {
+        return new StorageSweeper(
+            this.storage, new MetaLayout.Segmented(this.storage), age,
+            2, Duration.ZERO, Clock.systemUTC()
+        );
+    }
+
+    /**
+     * Storage keys besides purge tombstones.
+     * @return Keys
+     */
+    private List<String> keys() {
+        return this.storage.list(Key.ROOT).join().stream()
+            .map(Key::string)
+            .filter(key -> !key.startsWith(".npm/"))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Expected sweep report.
+     * @param staging Deleted staging keys
+     * @param tarballs Deleted tarballs
+     * @param bytes Deleted bytes
+     * @return Report
+     */
+    private static JsonObject report(final int staging, final int tarballs, final int bytes) {
+        return Json.createObjectBuilder()
+            .add("staging", staging)
+            .add("tarballs", tarballs)
+            .add("bytes", bytes)
+            .build();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import javax.json.Json;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link TarballDigest}.
+ * @since 0.10
+ */
+final class TarballDigestTest {
+
+    @Test
+    void calculatesDigestsOfTarball() {
+        final TarballDigest digest = TarballDigestTest.digest();
+        MatcherAssert.assertThat(
+            "Digest matches dist of the version",
+            digest.matches(
+                Json.createObjectBuilder()
+                    .add("shasum", "e4e9b1a9ae3bf5a4c8bd2dd12d85fe1b7d2e3bbf")
+                    .build()
+            ),
+            new IsEqual<>(false)
+        );
+        MatcherAssert.assertThat(
+            "Etag is quoted shasum",
+            digest.etag(),
+            new IsEqual<>(String.format("\"%s\"", digest.shasum()))
+        );
+    }
+
+    @Test
+    void storesAndLoadsSidecar() {
+        final InMemoryStorage storage = new InMemoryStorage();
+        final Key tgz = new Key.From("pkg", "-", "pkg-1.0.0.tgz");
+        final TarballDigest digest = TarballDigestTest.digest();
+        new TarballDigest.Stored(storage).save(tgz, digest).join();
+        MatcherAssert.assertThat(
+            "Sidecar is loaded",
+            new TarballDigest.Stored(storage).load(tgz).join().get().json(),
+            new IsEqual<>(digest.json())
+        );
+        MatcherAssert.assertThat(
+            "Sidecar is absent",
+            new TarballDigest.Stored(storage).load(new Key.From("pkg-2.0.0.tgz")).join(),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void matchesDistOfScannedArchive() {
+        final TgzScan.Scanned scanned = new TgzScan(
+            new Content.From(new TestResource("binaries/simple-npm-project-1.0.2.tgz").asBytes())
+        ).scan().join();
+        MatcherAssert.assertThat(
+            TarballDigestTest.digest().matches(
+                Json.createObjectBuilder()
+                    .add("shasum", scanned.shasum())
+                    .add("integrity", scanned.integrity())
+                    .build()
+            ),
+            new IsEqual<>(true)
+        );
+    }
+
+    /**
+     * Digest of test tarball.
+     * @return Digest
+     */
+    private static TarballDigest digest() {
+        final TarballDigest.Calc calc = new TarballDigest.Calc();
+        calc.accept(
+            ByteBuffer.wrap(new TestResource("binaries/simple-npm-project-1.0.2.tgz").asBytes())
+        );
+        return calc.result();
+    }
+}
@@ -6,6 +6,8 @@ package com.artipie.npm;
 
 import com.artipie.asto.Concatenation;
 import com.artipie.asto.Content;
+import com.artipie.asto.ext.PublisherAs;
+import io.reactivex.Flowable;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URL;
@@ -16,6 +18,7 @@ import javax.json.JsonObject;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -59,4 +62,49 @@ public class TarballsTest {
             new IsEqual<>(expected)
         );
     }
+
+    @Test
+    void rewritesOnlyDistTarballValues() throws IOException {
+        final String json = String.join(
+            "",
+            "{\"dist\":{\"tarball\":\"/root.tgz\"},",
+            "\"versions\": {\"1.0.0\": {\"tarball\":\"/a\", \"list\":[\"dist\"],",
+            "\"dist\" : { \"shasum\":\"0\", \"tarball\" : \"/pkg/-/pkg-1.0.0.tgz\" }},",
+            "\"1.0.1\":{\"dist\":{\"tar\\u0062all\":\"/pkg/-/pkg-1.0.1.tgz\"}}}}"
+        );
+        MatcherAssert.assertThat(
+            TarballsTest.rewritten(
+                Flowable.just(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)))
+            ),
+            new IsEqual<>(
+                json.replace("\"/pkg/-/", "\"http://example.com/repo/pkg/-/")
+            )
+        );
+    }
+
+    @Test
+    void rewritesContentSplitIntoChunks() throws IOException {
+        final byte[] data = IOUtils.resourceToByteArray(
+            "/storage/@hello/simple-npm-project/meta.json"
+        );
+        MatcherAssert.assertThat(
+            TarballsTest.rewritten(
+                Flowable.range(0, data.length)
+                    .map(idx -> ByteBuffer.wrap(data, idx, 1))
+            ),
+            new IsEqual<>(TarballsTest.rewritten(Flowable.just(ByteBuffer.wrap(data))))
+        );
+    }
+
+    /**
+     * Rewrites content with tarballs.
+     * @param content Content
+     * @return Rewritten content
+     * @throws IOException On error
+     */
+    private static String rewritten(final Flowable<ByteBuffer> content) throws IOException {
+        return new PublisherAs(
+            new Tarballs(new Content.From(content), new URL("http://example.com/repo/")).value()
+        ).asciiString().toCompletableFuture().join();
+    }
 }
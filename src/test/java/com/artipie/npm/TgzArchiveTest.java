@@ -7,6 +7,7 @@ package com.artipie.npm;
 import com.artipie.ArtipieException;
 import com.artipie.asto.ArtipieIOException;
 import com.artipie.asto.test.TestResource;
+import io.reactivex.Single;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -48,6 +49,14 @@ final class TgzArchiveTest {
         );
     }
 
+    @Test
+    void readsPackageJsonOnSubscription() {
+        final Single<JsonObject> json = Assertions.assertDoesNotThrow(
+            () -> new TgzArchive("not an archive", false).packageJson()
+        );
+        Assertions.assertThrows(ArtipieIOException.class, json::blockingGet);
+    }
+
     @Test
     void getArchiveEncoded() {
         final byte[] pkgjson =
@@ -89,7 +98,7 @@ final class TgzArchiveTest {
         MatcherAssert.assertThat(
             Assertions.assertThrows(
                 ArtipieIOException.class,
-                tgz::packageJson
+                () -> tgz.packageJson().blockingGet()
             ),
             new HasPropertyWithValue<>(
                 "message",
@@ -112,7 +121,7 @@ final class TgzArchiveTest {
         MatcherAssert.assertThat(
             Assertions.assertThrows(
                 ArtipieException.class,
-                tgz::packageJson
+                () -> tgz.packageJson().blockingGet()
             ),
             new HasPropertyWithValue<>(
                 "message",
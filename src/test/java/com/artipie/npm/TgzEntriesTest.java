@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.asto.ArtipieIOException;
+import com.artipie.asto.test.TestResource;
+import io.reactivex.Flowable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.StringContains;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link TgzEntries}.
+ * @since 0.10
+ */
+final class TgzEntriesTest {
+
+    /**
+     * Chunk size.
+     */
+    private static final int CHUNK = 1024;
+
+    @Test
+    void listsEntries() {
+        final List<String> names = new TgzEntries(
+            TgzEntriesTest.chunks(
+                new TestResource("binaries/vue-cli-plugin-liveapp-1.2.5.tgz").asBytes(),
+                new AtomicInteger()
+            )
+        ).entries().map(TgzEntry::name).toList().blockingGet();
+        MatcherAssert.assertThat(
+            "Lists all entries",
+            names,
+            Matchers.hasSize(21)
+        );
+        MatcherAssert.assertThat(
+            "Lists root and nested manifests",
+            names,
+            Matchers.hasItems(
+                "package/package.json",
+                "package/generator/template/monorepos/src/microapps/my-card/__package.json"
+            )
+        );
+    }
+
+    @Test
+    void stopsReadingWhenListingIsCancelled() {
+        final byte[] bytes = new TestResource("binaries/jQuery-1.7.4.tgz").asBytes();
+        final AtomicInteger read = new AtomicInteger();
+        new TgzEntries(TgzEntriesTest.chunks(bytes, read)).entries().take(1).blockingLast();
+        MatcherAssert.assertThat(
+            read.get(),
+            Matchers.lessThan(bytes.length / TgzEntriesTest.CHUNK / 2)
+        );
+    }
+
+    @Test
+    void stopsDecodingWhenReleased() {
+        final byte[] bytes = new TestResource("binaries/jQuery-1.7.4.tgz").asBytes();
+        final IncrementalTgz tgz = new IncrementalTgz(name -> false);
+        tgz.accept(ByteBuffer.wrap(bytes, 0, TgzEntriesTest.CHUNK));
+        tgz.release();
+        tgz.release();
+        MatcherAssert.assertThat(
+            "No entries are read after release",
+            tgz.accept(ByteBuffer.wrap(bytes, TgzEntriesTest.CHUNK, TgzEntriesTest.CHUNK)),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            "Decoder is finished after release",
+            tgz.finished(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void stopsReadingAfterRootManifest() {
+        final byte[] bytes = new TestResource("binaries/jQuery-1.7.4.tgz").asBytes();
+        final AtomicInteger read = new AtomicInteger();
+        MatcherAssert.assertThat(
+            "Reads package json",
+            new TgzEntries(TgzEntriesTest.chunks(bytes, read)).packageJson()
+                .blockingGet().getString("name"),
+            new IsEqual<>("jQuery")
+        );
+        MatcherAssert.assertThat(
+            "Does not read the whole archive",
+            read.get(),
+            Matchers.lessThan(bytes.length / TgzEntriesTest.CHUNK / 2)
+        );
+    }
+
+    @Test
+    void ignoresNestedManifests() throws IOException {
+        MatcherAssert.assertThat(
+            new TgzEntries(
+                TgzEntriesTest.chunks(
+                    TgzEntriesTest.tgz(
+                        "package/node_modules/dep/package.json", "{\"name\":\"dep\"}",
+                        "package/package.json", "{\"name\":\"root\"}"
+                    ),
+                    new AtomicInteger()
+                )
+            ).packageJson().blockingGet().getString("name"),
+            new IsEqual<>("root")
+        );
+    }
+
+    @Test
+    void failsOnTruncatedArchive() throws IOException {
+        final byte[] bytes = TgzEntriesTest.tgz(
+            "package/index.js", String.join("", Collections.nCopies(4096, "x;")),
+            "package/package.json", "{}"
+        );
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                ArtipieIOException.class,
+                () -> new TgzEntries(
+                    Flowable.just(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length / 2)))
+                ).entries().toList().blockingGet()
+            ).getMessage(),
+            new StringContains("Unexpected end of the .tgz archive")
+        );
+    }
+
+    /**
+     * Creates tgz archive.
+     * @param files Pairs of file name and content
+     * @return Archive bytes
+     * @throws IOException On error
+     */
+    private static byte[] tgz(final String... files) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+            new GzipCompressorOutputStream(out)
+        )) {
+            for (int idx = 0; idx < files.length; idx += 2) {
+                final byte[] data = files[idx + 1].getBytes(StandardCharsets.UTF_8);
+                final TarArchiveEntry entry = new TarArchiveEntry(files[idx]);
+                entry.setSize(data.length);
+                tar.putArchiveEntry(entry);
+                tar.write(data);
+                tar.closeArchiveEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Splits bytes into chunks counting read chunks.
+     * @param bytes Bytes
+     * @param read Counter of read chunks
+     * @return Publisher of chunks
+     */
+    private static Flowable<ByteBuffer> chunks(final byte[] bytes, final AtomicInteger read) {
+        return Flowable.fromIterable(
+            IntStream.range(0, (bytes.length - 1) / TgzEntriesTest.CHUNK + 1)
+                .mapToObj(
+                    idx -> ByteBuffer.wrap(
+                        Arrays.copyOfRange(
+                            bytes, idx * TgzEntriesTest.CHUNK,
+                            Math.min((idx + 1) * TgzEntriesTest.CHUNK, bytes.length)
+                        )
+                    )
+                ).collect(Collectors.toList())
+        ).doOnNext(buf -> read.incrementAndGet());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm;
+
+import com.artipie.ArtipieException;
+import com.artipie.asto.Content;
+import com.artipie.asto.ext.ContentDigest;
+import com.artipie.asto.ext.Digests;
+import com.artipie.asto.test.TestResource;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsInstanceOf;
+import org.hamcrest.core.StringContains;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link TgzScan}.
+ * @since 0.10
+ */
+final class TgzScanTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "simple-npm-project-1.0.2.tgz,@hello/simple-npm-project,1",
+        "simple-npm-project-1.0.2.tgz,@hello/simple-npm-project,8192",
+        "vue-cli-plugin-liveapp-1.2.5.tgz,@aurora/vue-cli-plugin-liveapp,13",
+        "vue-cli-plugin-liveapp-1.2.5.tgz,@aurora/vue-cli-plugin-liveapp,100000",
+        "jQuery-1.7.4.tgz,jQuery,512"
+    })
+    void readsPackageJsonAndDigests(final String file, final String name, final int chunk) {
+        final byte[] bytes = new TestResource(String.format("binaries/%s", file)).asBytes();
+        final TgzScan.Scanned scanned = new TgzScan(TgzScanTest.chunks(bytes, chunk))
+            .scan().join();
+        MatcherAssert.assertThat(
+            "Reads package name",
+            scanned.packageJson().getString("name"),
+            new IsEqual<>(name)
+        );
+        MatcherAssert.assertThat(
+            "Calculates sha512",
+            scanned.integrity(),
+            new IsEqual<>(
+                String.format(
+                    "sha512-%s",
+                    Base64.getEncoder().encodeToString(
+                        new ContentDigest(new Content.From(bytes), Digests.SHA512)
+                            .bytes().toCompletableFuture().join()
+                    )
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Calculates sha1",
+            scanned.shasum(),
+            new IsEqual<>(
+                new ContentDigest(new Content.From(bytes), Digests.SHA1)
+                    .hex().toCompletableFuture().join()
+            )
+        );
+        MatcherAssert.assertThat(
+            "Calculates size",
+            scanned.size(),
+            new IsEqual<>((long) bytes.length)
+        );
+    }
+
+    @Test
+    void readsFromDirectBuffers() {
+        final byte[] bytes = new TestResource("binaries/vue-cli-plugin-liveapp-1.2.5.tgz")
+            .asBytes();
+        MatcherAssert.assertThat(
+            new TgzScan(
+                TgzScanTest.chunks(bytes, 1000).map(
+                    buf -> {
+                        final ByteBuffer direct = ByteBuffer.allocateDirect(buf.remaining());
+                        direct.put(buf).flip();
+                        return direct;
+                    }
+                )
+            ).scan().join().packageJson().getString("name"),
+            new IsEqual<>("@aurora/vue-cli-plugin-liveapp")
+        );
+    }
+
+    @Test
+    void failsOnMalformedArchive() {
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> new TgzScan(new Content.From("not an archive".getBytes())).scan().join()
+        );
+        MatcherAssert.assertThat(
+            err.getCause().getMessage(),
+            new StringContains("Input is not in the .gz format")
+        );
+    }
+
+    @Test
+    void failsOnMissingPackageJson() {
+        final CompletionException err = Assertions.assertThrows(
+            CompletionException.class,
+            () -> new TgzScan(
+                new Content.From(
+                    Base64.getDecoder().decode(
+                        "H4sIAAAAAAAAA+3BAQ0AAADCoPdPbQ43oAAAAAAAAAAAAIA3A5reHScAKAAA"
+                    )
+                )
+            ).scan().join()
+        );
+        MatcherAssert.assertThat(
+            err.getCause(),
+            new IsInstanceOf(ArtipieException.class)
+        );
+    }
+
+    /**
+     * Splits bytes into publisher of chunks.
+     * @param bytes Bytes
+     * @param size Chunk size
+     * @return Publisher of chunks
+     */
+    private static Flowable<ByteBuffer> chunks(final byte[] bytes, final int size) {
+        final List<ByteBuffer> res = new ArrayList<>(bytes.length / size + 1);
+        for (int idx = 0; idx < bytes.length; idx += size) {
+            res.add(
+                ByteBuffer.wrap(Arrays.copyOfRange(bytes, idx, Math.min(idx + size, bytes.length)))
+            );
+        }
+        return Flowable.fromIterable(res);
+    }
+}
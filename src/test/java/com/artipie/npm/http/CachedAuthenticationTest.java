@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.auth.Authentication;
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CachedAuthentication}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class CachedAuthenticationTest {
+
+    /**
+     * User name.
+     */
+    private static final String ALICE = "alice";
+
+    /**
+     * Valid password.
+     */
+    private static final String SECRET = "secret";
+
+    /**
+     * Origin calls.
+     */
+    private AtomicInteger calls;
+
+    /**
+     * Current time in nanoseconds.
+     */
+    private AtomicLong now;
+
+    /**
+     * Authentication under test.
+     */
+    private Authentication auth;
+
+    @BeforeEach
+    void setUp() {
+        this.calls = new AtomicInteger();
+        this.now = new AtomicLong();
+        this.auth = new CachedAuthentication(
+            (name, pass) -> {
+                this.calls.incrementAndGet();
+                final Optional<Authentication.User> res;
+                if (CachedAuthenticationTest.SECRET.equals(pass)) {
+                    res = Optional.of(new Authentication.User(name));
+                } else {
+                    res = Optional.empty();
+                }
+                return res;
+            },
+            Duration.ofMinutes(5), Duration.ofSeconds(30), 100,
+            new Ticker() {
+                @Override
+                public long read() {
+                    return CachedAuthenticationTest.this.now.get();
+                }
+            }
+        );
+    }
+
+    @Test
+    void cachesAuthenticatedUser() {
+        this.auth.user(CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET);
+        MatcherAssert.assertThat(
+            this.auth.user(CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET),
+            new IsEqual<>(Optional.of(new Authentication.User(CachedAuthenticationTest.ALICE)))
+        );
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(1));
+    }
+
+    @Test
+    void cachesFailedAuthentication() {
+        this.auth.user(CachedAuthenticationTest.ALICE, "wrong");
+        MatcherAssert.assertThat(
+            this.auth.user(CachedAuthenticationTest.ALICE, "wrong"),
+            new IsEqual<>(Optional.empty())
+        );
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(1));
+    }
+
+    @Test
+    void doesNotShareResultsBetweenCredentials() {
+        this.auth.user(CachedAuthenticationTest.ALICE, "wrong");
+        MatcherAssert.assertThat(
+            this.auth.user(CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET),
+            new IsEqual<>(Optional.of(new Authentication.User(CachedAuthenticationTest.ALICE)))
+        );
+        MatcherAssert.assertThat(
+            this.auth.user("bob", CachedAuthenticationTest.SECRET),
+            new IsEqual<>(Optional.of(new Authentication.User("bob")))
+        );
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(3));
+    }
+
+    @Test
+    void expiresFailedAuthenticationBeforeSuccessful() {
+        this.auth.user(CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET);
+        this.auth.user(CachedAuthenticationTest.ALICE, "wrong");
+        this.now.addAndGet(Duration.ofMinutes(1).toNanos());
+        this.auth.user(CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET);
+        this.auth.user(CachedAuthenticationTest.ALICE, "wrong");
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(3));
+        this.now.addAndGet(Duration.ofMinutes(5).toNanos());
+        this.auth.user(CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET);
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(4));
+    }
+
+    @Test
+    void doesNotCacheErrors() {
+        final AtomicInteger count = new AtomicInteger();
+        final Authentication failing = new CachedAuthentication(
+            (name, pass) -> {
+                count.incrementAndGet();
+                throw new IllegalStateException("LDAP is not available");
+            },
+            Duration.ofMinutes(5), Duration.ofSeconds(30), 100
+        );
+        for (int idx = 0; idx < 2; ++idx) {
+            Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> failing.user(
+                    CachedAuthenticationTest.ALICE, CachedAuthenticationTest.SECRET
+                )
+            );
+        }
+        MatcherAssert.assertThat(count.get(), new IsEqual<>(2));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.auth.Authentication;
+import com.artipie.http.auth.Permissions;
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CachedPermissions}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class CachedPermissionsTest {
+
+    /**
+     * Action.
+     */
+    private static final String WRITE = "write";
+
+    /**
+     * Origin calls.
+     */
+    private AtomicInteger calls;
+
+    /**
+     * Current time in nanoseconds.
+     */
+    private AtomicLong now;
+
+    /**
+     * Permissions under test.
+     */
+    private Permissions perms;
+
+    @BeforeEach
+    void setUp() {
+        this.calls = new AtomicInteger();
+        this.now = new AtomicLong();
+        this.perms = new CachedPermissions(
+            (user, action) -> {
+                this.calls.incrementAndGet();
+                return user.groups().contains("admins");
+            },
+            Duration.ofMinutes(1), 100,
+            new Ticker() {
+                @Override
+                public long read() {
+                    return CachedPermissionsTest.this.now.get();
+                }
+            }
+        );
+    }
+
+    @Test
+    void cachesGrantedAndDeniedDecisions() {
+        final Authentication.User admin = new Authentication.User(
+            "alice", Arrays.asList("users", "admins")
+        );
+        final Authentication.User user = new Authentication.User("bob");
+        for (int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                this.perms.allowed(admin, CachedPermissionsTest.WRITE),
+                new IsEqual<>(true)
+            );
+            MatcherAssert.assertThat(
+                this.perms.allowed(user, CachedPermissionsTest.WRITE),
+                new IsEqual<>(false)
+            );
+        }
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(2));
+    }
+
+    @Test
+    void cachesDecisionByGroupsAndAction() {
+        this.perms.allowed(new Authentication.User("alice"), CachedPermissionsTest.WRITE);
+        MatcherAssert.assertThat(
+            this.perms.allowed(
+                new Authentication.User("alice", Arrays.asList("admins")),
+                CachedPermissionsTest.WRITE
+            ),
+            new IsEqual<>(true)
+        );
+        this.perms.allowed(new Authentication.User("alice"), "read");
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(3));
+    }
+
+    @Test
+    void expiresDecision() {
+        final Authentication.User user = new Authentication.User("bob");
+        this.perms.allowed(user, CachedPermissionsTest.WRITE);
+        this.now.addAndGet(Duration.ofMinutes(2).toNanos());
+        this.perms.allowed(user, CachedPermissionsTest.WRITE);
+        MatcherAssert.assertThat(this.calls.get(), new IsEqual<>(2));
+    }
+}
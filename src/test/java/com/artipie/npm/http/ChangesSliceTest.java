@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.npm.MetaJournal;
+import io.reactivex.Flowable;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link ChangesSlice}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class ChangesSliceTest {
+
+    /**
+     * Journal.
+     */
+    private MetaJournal journal;
+
+    @BeforeEach
+    void init() {
+        this.journal = new MetaJournal(new InMemoryStorage());
+        this.append("@hello/simple", MetaJournal.Change.PUBLISH);
+        this.append("@hello/other", MetaJournal.Change.DIST_TAG);
+        this.append("@hello/simple", MetaJournal.Change.DELETE);
+    }
+
+    @Test
+    void returnsChangesAfterSequence() {
+        final JsonObject feed = ChangesSliceTest.json(
+            new ChangesSlice(this.journal).response(
+                new RequestLine(RqMethod.GET, "/_changes?since=1&limit=10").toString(),
+                Headers.EMPTY, Flowable.empty()
+            )
+        );
+        MatcherAssert.assertThat(
+            "Returns changes after sequence",
+            ChangesSliceTest.ids(feed),
+            Matchers.contains("@hello/other", "@hello/simple")
+        );
+        MatcherAssert.assertThat(
+            "Returns last sequence",
+            feed.getInt("last_seq"),
+            new IsEqual<>(3)
+        );
+        MatcherAssert.assertThat(
+            "Returns change details",
+            feed.getJsonArray("results").getJsonObject(0),
+            new IsEqual<>(
+                Json.createObjectBuilder()
+                    .add("seq", 2)
+                    .add("id", "@hello/other")
+                    .add("type", "dist-tag")
+                    .add(
+                        "changes",
+                        Json.createArrayBuilder().add(Json.createObjectBuilder().add("rev", "1-a"))
+                    ).build()
+            )
+        );
+        MatcherAssert.assertThat(
+            "Marks deleted package",
+            feed.getJsonArray("results").getJsonObject(1).getBoolean("deleted"),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void limitsChanges() {
+        final JsonObject feed = ChangesSliceTest.json(
+            new ChangesSlice(this.journal).response(
+                new RequestLine(RqMethod.GET, "/_changes?limit=1").toString(),
+                Headers.EMPTY, Flowable.empty()
+            )
+        );
+        MatcherAssert.assertThat(
+            ChangesSliceTest.ids(feed),
+            Matchers.contains("@hello/simple")
+        );
+        MatcherAssert.assertThat(
+            feed.getInt("last_seq"),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void returnsNothingSinceNow() {
+        final JsonObject feed = ChangesSliceTest.json(
+            new ChangesSlice(this.journal).response(
+                new RequestLine(RqMethod.GET, "/_changes?since=now").toString(),
+                Headers.EMPTY, Flowable.empty()
+            )
+        );
+        MatcherAssert.assertThat(
+            ChangesSliceTest.ids(feed),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            feed.getInt("last_seq"),
+            new IsEqual<>(3)
+        );
+    }
+
+    @Test
+    void waitsForNextChange() {
+        final CompletableFuture<JsonObject> feed = CompletableFuture.supplyAsync(
+            () -> ChangesSliceTest.json(
+                new ChangesSlice(this.journal).response(
+                    new RequestLine(
+                        RqMethod.GET, "/_changes?since=3&feed=longpoll&timeout=10000"
+                    ).toString(),
+                    Headers.EMPTY, Flowable.empty()
+                )
+            )
+        );
+        this.append("@hello/next", MetaJournal.Change.PUBLISH);
+        MatcherAssert.assertThat(
+            ChangesSliceTest.ids(feed.join()),
+            Matchers.contains("@hello/next")
+        );
+    }
+
+    @Test
+    void stopsWaitingOnTimeout() {
+        final JsonObject feed = ChangesSliceTest.json(
+            new ChangesSlice(this.journal).response(
+                new RequestLine(
+                    RqMethod.GET, "/_changes?since=3&feed=longpoll&timeout=100"
+                ).toString(),
+                Headers.EMPTY, Flowable.empty()
+            )
+        );
+        MatcherAssert.assertThat(
+            ChangesSliceTest.ids(feed),
+            Matchers.empty()
+        );
+    }
+
+    @Test
+    void streamsContinuousFeed() {
+        final CompletableFuture<String> feed = CompletableFuture.supplyAsync(
+            () -> ChangesSliceTest.body(
+                new ChangesSlice(this.journal).response(
+                    new RequestLine(
+                        RqMethod.GET, "/_changes?since=2&feed=continuous&limit=2&timeout=10000"
+                    ).toString(),
+                    Headers.EMPTY, Flowable.empty()
+                )
+            )
+        );
+        this.append("@hello/next", MetaJournal.Change.PUBLISH);
+        MatcherAssert.assertThat(
+            Arrays.stream(feed.join().split("\n"))
+                .filter(line -> !line.isEmpty())
+                .map(line -> Json.createReader(new StringReader(line)).readObject())
+                .map(json -> json.getOrDefault("id", json.get("last_seq")).toString())
+                .collect(Collectors.toList()),
+            Matchers.contains("\"@hello/simple\"", "\"@hello/next\"", "4")
+        );
+    }
+
+    @Test
+    void sendsHeartbeatsUntilTimeout() {
+        MatcherAssert.assertThat(
+            ChangesSliceTest.body(
+                new ChangesSlice(this.journal).response(
+                    new RequestLine(
+                        RqMethod.GET,
+                        "/_changes?since=3&feed=continuous&timeout=300&heartbeat=50"
+                    ).toString(),
+                    Headers.EMPTY, Flowable.empty()
+                )
+            ),
+            Matchers.allOf(
+                Matchers.startsWith("\n\n"),
+                Matchers.endsWith("{\"last_seq\":3}\n")
+            )
+        );
+    }
+
+    /**
+     * Appends journal entry.
+     * @param pkg Package name
+     * @param change Change type: publish of new package, dist-tag change
+     *  or deletion
+     */
+    private void append(final String pkg, final MetaJournal.Change change) {
+        final Optional<JsonObject> before;
+        final Optional<JsonObject> after;
+        if (change == MetaJournal.Change.DELETE) {
+            before = Optional.empty();
+            after = Optional.empty();
+        } else if (change == MetaJournal.Change.DIST_TAG) {
+            before = Optional.of(ChangesSliceTest.packument(pkg, "beta"));
+            after = Optional.of(ChangesSliceTest.packument(pkg, "latest"));
+        } else {
+            before = Optional.empty();
+            after = Optional.of(ChangesSliceTest.packument(pkg, "latest"));
+        }
+        this.journal.append(new Key.From(pkg), before, after, CompletableFuture::allOf).join();
+    }
+
+    /**
+     * Packument with revision `1-a`.
+     * @param pkg Package name
+     * @param tag Dist-tag
+     * @return Packument
+     */
+    private static JsonObject packument(final String pkg, final String tag) {
+        return Json.createObjectBuilder()
+            .add("name", pkg)
+            .add("_rev", "1-a")
+            .add("dist-tags", Json.createObjectBuilder().add(tag, "1.0.0"))
+            .build();
+    }
+
+    /**
+     * Response json.
+     * @param response Response
+     * @return Json
+     */
+    private static JsonObject json(final Response response) {
+        return Json.createReader(new StringReader(ChangesSliceTest.body(response))).readObject();
+    }
+
+    /**
+     * Response body.
+     * @param response Response
+     * @return Body
+     */
+    private static String body(final Response response) {
+        final StringBuilder body = new StringBuilder();
+        response.send(
+            (status, headers, content) -> new PublisherAs(content).asciiString()
+                .thenAccept(body::append)
+                .toCompletableFuture()
+        ).toCompletableFuture().join();
+        return body.toString();
+    }
+
+    /**
+     * Package names of the changes.
+     * @param feed Changes feed
+     * @return Package names
+     */
+    private static List<String> ids(final JsonObject feed) {
+        return feed.getJsonArray("results").getValuesAs(JsonObject.class).stream()
+            .map(obj -> obj.getString("id"))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.Headers;
+import java.time.Instant;
+import java.util.Optional;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link Conditional}.
+ * @since 0.10
+ */
+final class ConditionalTest {
+
+    /**
+     * Entity tag of the resource.
+     */
+    private static final String ETAG = "\"abc\"";
+
+    /**
+     * Modification time of the resource.
+     */
+    private static final Optional<Instant> MODIFIED =
+        Optional.of(Instant.parse("2021-02-04T16:30:30.381Z"));
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "If-None-Match|\"abc\"|true",
+        "If-None-Match|W/\"abc\"|true",
+        "If-None-Match|\"xyz\", \"abc\"|true",
+        "If-None-Match|*|true",
+        "If-None-Match|\"xyz\"|false",
+        "If-Modified-Since|Thu, 04 Feb 2021 16:30:30 GMT|true",
+        "If-Modified-Since|Thu, 04 Feb 2021 16:30:29 GMT|false",
+        "If-Modified-Since|yesterday|false",
+        "Accept|application/json|false"
+    })
+    void checksValidators(final String name, final String value, final boolean expected) {
+        MatcherAssert.assertThat(
+            new Conditional(new Headers.From(name, value))
+                .notModified(ConditionalTest.ETAG, ConditionalTest.MODIFIED),
+            new IsEqual<>(expected)
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "\"abc\",true",
+        "\"xyz\",false"
+    })
+    void prefersEntityTagToModificationTime(final String etag, final boolean expected) {
+        MatcherAssert.assertThat(
+            new Conditional(
+                new Headers.From(
+                    new Headers.From("If-None-Match", etag),
+                    "If-Modified-Since", "Thu, 04 Feb 2021 16:30:30 GMT"
+                )
+            ).notModified(ConditionalTest.ETAG, ConditionalTest.MODIFIED),
+            new IsEqual<>(expected)
+        );
+    }
+}
@@ -8,6 +8,9 @@ import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.asto.memory.InMemoryStorage;
 import com.artipie.asto.test.TestResource;
+import com.artipie.npm.JsonFromMeta;
+import com.artipie.npm.MetaQueue;
+import com.artipie.npm.TarballDigest;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.Test;
@@ -24,7 +27,8 @@ final class CurlPublishTest {
         final Key prefix = new Key.From("@hello/simple-npm-project");
         final Key name = new Key.From("uploaded-artifact");
         new TestResource("binaries/simple-npm-project-1.0.2.tgz").saveTo(asto, name);
-        new CurlPublish(asto).publish(prefix, name).join();
+        new CurlPublish(asto, new MetaQueue(asto), new PublishPool())
+            .publish(prefix, name).join();
         MatcherAssert.assertThat(
             "Tgz archive was created",
             asto.exists(new Key.From(String.format("%s/-/%s-1.0.2.tgz", prefix, prefix))).join(),
@@ -35,5 +39,15 @@ final class CurlPublishTest {
             asto.exists(new Key.From(prefix, "meta.json")).join(),
             new IsEqual<>(true)
         );
+        MatcherAssert.assertThat(
+            "Digest sidecar matches meta json",
+            new TarballDigest.Stored(asto).load(
+                new Key.From(String.format("%s/-/%s-1.0.2.tgz", prefix, prefix))
+            ).join().get().matches(
+                new JsonFromMeta(asto, prefix).json()
+                    .getJsonObject("versions").getJsonObject("1.0.2").getJsonObject("dist")
+            ),
+            new IsEqual<>(true)
+        );
     }
 }
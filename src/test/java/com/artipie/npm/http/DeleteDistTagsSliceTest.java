@@ -14,6 +14,7 @@ import com.artipie.http.hm.SliceHasResponse;
 import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
 import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.MetaQueue;
 import java.nio.charset.StandardCharsets;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
@@ -63,7 +64,7 @@ class DeleteDistTagsSliceTest {
     void returnsOkAndUpdatesTags() {
         MatcherAssert.assertThat(
             "Response status is OK",
-            new DeleteDistTagsSlice(this.storage),
+            new DeleteDistTagsSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.OK),
                 new RequestLine(
@@ -85,7 +86,7 @@ class DeleteDistTagsSliceTest {
     @Test
     void returnsNotFoundIfMetaIsNotFound() {
         MatcherAssert.assertThat(
-            new DeleteDistTagsSlice(this.storage),
+            new DeleteDistTagsSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.NOT_FOUND),
                 new RequestLine(RqMethod.GET, "/-/package/@hello%2ftest-project/dist-tags/second")
@@ -96,7 +97,7 @@ class DeleteDistTagsSliceTest {
     @Test
     void returnsBadRequest() {
         MatcherAssert.assertThat(
-            new DeleteDistTagsSlice(this.storage),
+            new DeleteDistTagsSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.BAD_REQUEST),
                 new RequestLine(RqMethod.GET, "/abc/123")
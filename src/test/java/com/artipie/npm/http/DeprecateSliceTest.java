@@ -15,6 +15,7 @@ import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.npm.JsonFromMeta;
+import com.artipie.npm.MetaQueue;
 import java.nio.charset.StandardCharsets;
 import javax.json.Json;
 import javax.json.JsonObjectBuilder;
@@ -67,7 +68,7 @@ class DeprecateSliceTest {
         final String value = "This version is deprecated!";
         MatcherAssert.assertThat(
             "Response status is OK",
-            new DeprecateSlice(this.storage),
+            new DeprecateSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.OK),
                 new RequestLine(
@@ -123,7 +124,7 @@ class DeprecateSliceTest {
         final String value = "Do not use!";
         MatcherAssert.assertThat(
             "Response status is OK",
-            new DeprecateSlice(this.storage),
+            new DeprecateSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.OK),
                 new RequestLine(
@@ -178,7 +179,7 @@ class DeprecateSliceTest {
         this.storage.save(this.meta, this.createMetaJson(true)).join();
         MatcherAssert.assertThat(
             "Response status is OK",
-            new DeprecateSlice(this.storage),
+            new DeprecateSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.OK),
                 new RequestLine(
@@ -215,7 +216,7 @@ class DeprecateSliceTest {
     @Test
     void returnsNotFoundIfMetaIsNotFound() {
         MatcherAssert.assertThat(
-            new DeprecateSlice(this.storage),
+            new DeprecateSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.NOT_FOUND),
                 new RequestLine(RqMethod.PUT, "/some/project")
@@ -8,18 +8,40 @@ package com.artipie.npm.http;
 import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import com.artipie.asto.ext.PublisherAs;
 import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.test.TestResource;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.hm.IsHeader;
+import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
 import com.artipie.http.slice.TrimPathSlice;
+import com.artipie.npm.Abbreviated;
+import com.artipie.npm.MetaLayout;
 import com.artipie.npm.RandomFreePort;
+import com.artipie.npm.Tarballs;
 import com.artipie.vertx.VertxSliceServer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.reactivex.core.Vertx;
 import io.vertx.reactivex.ext.web.client.WebClient;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
+import javax.json.Json;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.Test;
 
@@ -68,4 +90,182 @@ public class DownloadPackageSliceTest {
         server.stop();
         vertx.close();
     }
+
+    @Test
+    void returnsNotModifiedForMatchingEntityTag() throws IOException {
+        final Storage storage = new InMemoryStorage();
+        final MetaLayout layout = new MetaLayout.Whole(storage);
+        final Key pkg = new Key.From("@hello", "simple-npm-project");
+        layout.write(
+            pkg, Optional.empty(),
+            Json.createReader(
+                new TestResource("storage/@hello/simple-npm-project/meta.json").asInputStream()
+            ).readObject()
+        ).join();
+        final String etag = layout.validators(pkg).join().get().etag();
+        final Slice slice = new DownloadPackageSlice(new URL("http://localhost/ctx"), layout);
+        MatcherAssert.assertThat(
+            "Full response has entity tag",
+            slice,
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.OK),
+                    new RsHasHeaders(
+                        new IsHeader("ETag", etag),
+                        new IsHeader("Last-Modified", "Thu, 04 Feb 2021 16:30:30 GMT"),
+                        new IsHeader("Content-Type", "application/json"),
+                        new IsHeader("Vary", "Accept, Accept-Encoding")
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/@hello/simple-npm-project")
+            )
+        );
+        MatcherAssert.assertThat(
+            "Not modified response",
+            slice,
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_MODIFIED),
+                new RequestLine(RqMethod.GET, "/@hello/simple-npm-project"),
+                new Headers.From("If-None-Match", etag),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @Test
+    void returnsAbbreviatedPackumentToInstallingClient() throws IOException {
+        final MetaLayout layout = new MetaLayout.Whole(new InMemoryStorage());
+        final javax.json.JsonObject meta = Json.createReader(
+            new TestResource("storage/@hello/simple-npm-project/meta.json").asInputStream()
+        ).readObject();
+        layout.write(new Key.From("@hello", "simple-npm-project"), Optional.empty(), meta)
+            .join();
+        final URL base = new URL("http://localhost/ctx");
+        final Response response = new DownloadPackageSlice(base, layout).response(
+            new RequestLine(RqMethod.GET, "/@hello/simple-npm-project").toString(),
+            new Headers.From(
+                "Accept",
+                "application/vnd.npm.install-v1+json; q=1.0, application/json; q=0.8, */*"
+            ),
+            Content.EMPTY
+        );
+        MatcherAssert.assertThat(
+            "Abbreviated packument media type",
+            response,
+            new RsHasHeaders(
+                new IsHeader("Content-Type", "application/vnd.npm.install-v1+json"),
+                new IsHeader("Vary", "Accept, Accept-Encoding"),
+                new IsHeader("ETag", Matchers.endsWith("-install\"")),
+                new IsHeader("Last-Modified", Matchers.any(String.class))
+            )
+        );
+        MatcherAssert.assertThat(
+            "Abbreviated packument with rewritten tarballs",
+            response,
+            new RsHasBody(
+                new PublisherAs(
+                    new Tarballs(
+                        new Content.From(
+                            new Abbreviated(meta).json().toString()
+                                .getBytes(StandardCharsets.UTF_8)
+                        ),
+                        base
+                    ).value()
+                ).asciiString().toCompletableFuture().join(),
+                StandardCharsets.UTF_8
+            )
+        );
+    }
+
+    @Test
+    void buildsAbbreviatedPackumentIfItIsNotStored() throws IOException {
+        final Storage storage = new InMemoryStorage();
+        final MetaLayout layout = new MetaLayout.Whole(storage);
+        final Key pkg = new Key.From("@hello", "simple-npm-project");
+        final javax.json.JsonObject meta = Json.createReader(
+            new TestResource("storage/@hello/simple-npm-project/meta.json").asInputStream()
+        ).readObject();
+        layout.write(pkg, Optional.empty(), meta).join();
+        storage.delete(new Key.From(pkg, "meta.abbreviated.json")).join();
+        final URL base = new URL("http://localhost/ctx");
+        MatcherAssert.assertThat(
+            new DownloadPackageSlice(base, layout),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasHeaders(
+                        new IsHeader("Content-Type", Abbreviated.MEDIA_TYPE),
+                        new IsHeader("ETag", Matchers.endsWith("-install\"")),
+                        new IsHeader("Vary", "Accept, Accept-Encoding"),
+                        new IsHeader("Last-Modified", Matchers.any(String.class))
+                    ),
+                    new RsHasBody(
+                        new PublisherAs(
+                            new Tarballs(
+                                new Content.From(
+                                    new Abbreviated(meta).json().toString()
+                                        .getBytes(StandardCharsets.UTF_8)
+                                ),
+                                base
+                            ).value()
+                        ).bytes().toCompletableFuture().join()
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/@hello/simple-npm-project"),
+                new Headers.From("Accept", Abbreviated.MEDIA_TYPE),
+                Content.EMPTY
+            )
+        );
+    }
+
+    @Test
+    void sendsCompressedPackumentFromMemory() throws IOException {
+        final Storage storage = new InMemoryStorage();
+        final MetaLayout layout = new MetaLayout.Whole(storage);
+        final Key pkg = new Key.From("@hello", "simple-npm-project");
+        layout.write(
+            pkg, Optional.empty(),
+            Json.createReader(
+                new TestResource("storage/@hello/simple-npm-project/meta.json").asInputStream()
+            ).readObject()
+        ).join();
+        final URL base = new URL("http://localhost/ctx");
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(expected)) {
+            gzip.write(
+                new PublisherAs(new Tarballs(layout.content(pkg).join().get(), base).value())
+                    .bytes().toCompletableFuture().join()
+            );
+        }
+        final Slice slice = new DownloadPackageSlice(base, layout);
+        final Headers headers = new Headers.From("Accept-Encoding", "gzip, deflate");
+        MatcherAssert.assertThat(
+            "Compressed packument",
+            slice,
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasHeaders(
+                        new IsHeader("Content-Type", "application/json"),
+                        new IsHeader("Content-Encoding", "gzip"),
+                        new IsHeader("Vary", "Accept, Accept-Encoding"),
+                        new IsHeader("ETag", Matchers.endsWith("-gzip\"")),
+                        new IsHeader("Last-Modified", Matchers.any(String.class)),
+                        new IsHeader("Content-Length", Matchers.any(String.class))
+                    ),
+                    new RsHasBody(expected.toByteArray())
+                ),
+                new RequestLine(RqMethod.GET, "/@hello/simple-npm-project"),
+                headers, Content.EMPTY
+            )
+        );
+        storage.delete(new Key.From(pkg, "meta.json")).join();
+        MatcherAssert.assertThat(
+            "Compressed packument is not read again",
+            slice,
+            new SliceHasResponse(
+                new RsHasBody(expected.toByteArray()),
+                new RequestLine(RqMethod.GET, "/@hello/simple-npm-project"),
+                headers, Content.EMPTY
+            )
+        );
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.Headers;
+import com.artipie.http.headers.Header;
+import com.artipie.http.hm.IsHeader;
+import com.artipie.http.hm.ResponseMatcher;
+import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.PackagePurge;
+import com.artipie.npm.TarballDigest;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsNot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link DownloadTarballSlice}.
+ * @since 0.10
+ */
+final class DownloadTarballSliceTest {
+
+    /**
+     * Tarball key.
+     */
+    private static final Key TGZ = new Key.From("pkg", "-", "pkg-1.0.0.tgz");
+
+    /**
+     * Tarball bytes.
+     */
+    private static final byte[] BYTES = "tarball".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+        this.storage.save(
+            DownloadTarballSliceTest.TGZ, new Content.From(DownloadTarballSliceTest.BYTES)
+        ).join();
+    }
+
+    @Test
+    void servesHeadersFromSidecar() {
+        final TarballDigest.Calc calc = new TarballDigest.Calc();
+        calc.accept(ByteBuffer.wrap(DownloadTarballSliceTest.BYTES));
+        final TarballDigest digest = calc.result();
+        new TarballDigest.Stored(this.storage).save(DownloadTarballSliceTest.TGZ, digest).join();
+        MatcherAssert.assertThat(
+            new DownloadTarballSlice(this.storage).response(
+                "GET /pkg/-/pkg-1.0.0.tgz HTTP/1.1", Collections.emptyList(), Flowable.empty()
+            ),
+            new ResponseMatcher(
+                RsStatus.OK,
+                DownloadTarballSliceTest.BYTES,
+                new Header("Content-Disposition", "attachment; filename=\"pkg-1.0.0.tgz\""),
+                new Header("ETag", digest.etag()),
+                new Header("Digest", digest.digest()),
+                new Header("Accept-Ranges", "none"),
+                new Header("Content-Length", "7")
+            )
+        );
+    }
+
+    @Test
+    void framesBodyByStoredTarballSize() {
+        final TarballDigest.Calc calc = new TarballDigest.Calc();
+        calc.accept(ByteBuffer.wrap("older tarball".getBytes(StandardCharsets.UTF_8)));
+        final TarballDigest stale = calc.result();
+        new TarballDigest.Stored(this.storage).save(DownloadTarballSliceTest.TGZ, stale).join();
+        MatcherAssert.assertThat(
+            new DownloadTarballSlice(this.storage).response(
+                "GET /pkg/-/pkg-1.0.0.tgz HTTP/1.1", Collections.emptyList(), Flowable.empty()
+            ),
+            new ResponseMatcher(
+                RsStatus.OK,
+                DownloadTarballSliceTest.BYTES,
+                new Header("Content-Disposition", "attachment; filename=\"pkg-1.0.0.tgz\""),
+                new Header("ETag", stale.etag()),
+                new Header("Digest", stale.digest()),
+                new Header("Accept-Ranges", "none"),
+                new Header("Content-Length", "7")
+            )
+        );
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingEntityTag() {
+        final TarballDigest.Calc calc = new TarballDigest.Calc();
+        calc.accept(ByteBuffer.wrap(DownloadTarballSliceTest.BYTES));
+        final TarballDigest digest = calc.result();
+        new TarballDigest.Stored(this.storage).save(DownloadTarballSliceTest.TGZ, digest).join();
+        MatcherAssert.assertThat(
+            new DownloadTarballSlice(this.storage).response(
+                "GET /pkg/-/pkg-1.0.0.tgz HTTP/1.1",
+                new Headers.From("If-None-Match", digest.etag()),
+                Flowable.empty()
+            ),
+            new ResponseMatcher(
+                RsStatus.NOT_MODIFIED,
+                new Header("ETag", digest.etag())
+            )
+        );
+    }
+
+    @Test
+    void servesTarballWithoutSidecar() {
+        MatcherAssert.assertThat(
+            new DownloadTarballSlice(this.storage).response(
+                "GET /pkg/-/pkg-1.0.0.tgz HTTP/1.1", Collections.emptyList(), Flowable.empty()
+            ),
+            Matchers.allOf(
+                new ResponseMatcher(RsStatus.OK, DownloadTarballSliceTest.BYTES),
+                new IsNot<>(
+                    new RsHasHeaders(new IsHeader("ETag", Matchers.any(String.class)))
+                )
+            )
+        );
+    }
+
+    @Test
+    void returnsNotFound() {
+        MatcherAssert.assertThat(
+            new DownloadTarballSlice(this.storage).response(
+                "GET /pkg/-/pkg-2.0.0.tgz HTTP/1.1", Collections.emptyList(), Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.NOT_FOUND)
+        );
+    }
+
+    @Test
+    void returnsNotFoundWhilePackageIsPurged() {
+        final PackagePurge purge = new PackagePurge(this.storage);
+        purge.tombstone(new Key.From("pkg")).join();
+        MatcherAssert.assertThat(
+            new DownloadTarballSlice(this.storage, purge).response(
+                "GET /pkg/-/pkg-1.0.0.tgz HTTP/1.1", Collections.emptyList(), Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.NOT_FOUND)
+        );
+    }
+}
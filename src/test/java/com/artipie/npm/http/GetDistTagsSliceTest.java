@@ -8,14 +8,26 @@ import com.artipie.asto.Content;
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.Headers;
+import com.artipie.http.hm.IsHeader;
 import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
 import com.artipie.http.hm.RsHasStatus;
 import com.artipie.http.hm.SliceHasResponse;
 import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
 import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.MetaLayout;
+import com.artipie.npm.MetaQueue;
+import java.lang.reflect.Proxy;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.json.Json;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -65,6 +77,54 @@ class GetDistTagsSliceTest {
         );
     }
 
+    @Test
+    void readsUpdatedDistTagsFromSidecar() {
+        MatcherAssert.assertThat(
+            "Tag is added",
+            new AddDistTagsSlice(new MetaQueue(this.storage)),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.OK),
+                new RequestLine(
+                    RqMethod.PUT, "/-/package/@hello%2fsimple-npm-project/dist-tags/next"
+                ),
+                Headers.EMPTY,
+                new Content.From("\"1.0.4\"".getBytes(StandardCharsets.UTF_8))
+            )
+        );
+        final List<String> read = Collections.synchronizedList(new ArrayList<>(0));
+        MatcherAssert.assertThat(
+            "Tags are served from the sidecar",
+            new GetDistTagsSlice(
+                (Storage) Proxy.newProxyInstance(
+                    Storage.class.getClassLoader(),
+                    new Class<?>[]{Storage.class},
+                    (proxy, method, args) -> {
+                        if ("value".equals(method.getName())) {
+                            read.add(((Key) args[0]).string());
+                        }
+                        return method.invoke(this.storage, args);
+                    }
+                )
+            ),
+            new SliceHasResponse(
+                new RsHasBody(
+                    String.join(
+                        "",
+                        "{\"latest\":\"1.0.3\",\"second\":\"1.0.2\",",
+                        "\"first\":\"1.0.1\",\"next\":\"1.0.4\"}"
+                    ),
+                    StandardCharsets.UTF_8
+                ),
+                new RequestLine(RqMethod.GET, "/-/package/@hello%2fsimple-npm-project/dist-tags")
+            )
+        );
+        MatcherAssert.assertThat(
+            "Packument is not read",
+            read,
+            Matchers.not(Matchers.hasItem("@hello/simple-npm-project/meta.json"))
+        );
+    }
+
     @Test
     void returnsNotFoundIfMetaIsNotFound() {
         MatcherAssert.assertThat(
@@ -76,4 +136,31 @@ class GetDistTagsSliceTest {
         );
     }
 
+    @Test
+    void returnsNotModifiedIfModificationTimeMatches() {
+        final MetaLayout layout = new MetaLayout.Whole(this.storage);
+        final Key pkg = new Key.From("@hello/simple-npm-project");
+        layout.write(
+            pkg, Optional.empty(),
+            Json.createObjectBuilder()
+                .add("dist-tags", Json.createObjectBuilder().add("latest", "1.0.3"))
+                .add("time", Json.createObjectBuilder().add("modified", "2021-02-04T16:30:30Z"))
+                .build()
+        ).join();
+        MatcherAssert.assertThat(
+            new GetDistTagsSlice(layout),
+            new SliceHasResponse(
+                Matchers.allOf(
+                    new RsHasStatus(RsStatus.NOT_MODIFIED),
+                    new RsHasHeaders(
+                        new IsHeader("ETag", Matchers.any(String.class)),
+                        new IsHeader("Last-Modified", "Thu, 04 Feb 2021 16:30:30 GMT")
+                    )
+                ),
+                new RequestLine(RqMethod.GET, "/-/package/@hello%2fsimple-npm-project/dist-tags"),
+                new Headers.From("If-Modified-Since", "Thu, 04 Feb 2021 16:30:30 GMT"),
+                Content.EMPTY
+            )
+        );
+    }
 }
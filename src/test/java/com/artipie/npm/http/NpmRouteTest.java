@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.http.Headers;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.StandardRs;
+import java.util.Collections;
+import java.util.Optional;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link NpmRoute}.
+ * @since 0.10
+ */
+final class NpmRouteTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "GET,/@hello/simple,'',PACKUMENT",
+        "GET,/@hello%2fsimple?write=true,'',PACKUMENT",
+        "GET,/ctx/simple/-/simple-1.0.0.tgz,'',TARBALL",
+        "GET,/-/package/@hello%2fsimple/dist-tags,'',DIST_TAGS",
+        "GET,/-/v1/search?text=simple&size=20,'',SEARCH",
+        "GET,/_changes?since=10&feed=longpoll,'',CHANGES",
+        "PUT,/-/package/@hello%2fsimple/dist-tags/latest,'',ADD_DIST_TAG",
+        "DELETE,/-/package/@hello%2fsimple/dist-tags/beta,'',DELETE_DIST_TAG",
+        "PUT,/@hello%2fsimple,referer:publish,PUBLISH",
+        "PUT,/@hello%2fsimple,npm-command:publish,PUBLISH",
+        "PUT,/@hello%2fsimple,Referer:deprecate @hello/simple,DEPRECATE",
+        "PUT,/@hello%2fsimple/-rev/1,referer:unpublish @hello/simple@1.0.0,UNPUBLISH",
+        "PUT,/@hello%2fsimple/-rev/1,npm-command:unpublish,UNPUBLISH",
+        "PUT,/simple/-/simple-1.0.0.tgz,'',PUBLISH_TARBALL",
+        "DELETE,/@hello%2fsimple/-rev/1,'',UNPUBLISH_FORCE"
+    })
+    void classifiesRequest(final String method, final String path, final String header,
+        final NpmRoute.Kind kind) {
+        MatcherAssert.assertThat(
+            NpmRoute.kind(
+                new RequestLine(method, path).toString(), NpmRouteTest.headers(header)
+            ),
+            new IsEqual<>(Optional.of(kind))
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "PUT,/@hello%2fsimple,''",
+        "PUT,/@hello%2fsimple,npm-command:access",
+        "DELETE,/@hello%2fsimple,''",
+        "HEAD,/@hello%2fsimple,''",
+        "POST,/-/v1/login,''"
+    })
+    void doesNotClassifyUnsupportedRequest(final String method, final String path,
+        final String header) {
+        MatcherAssert.assertThat(
+            NpmRoute.kind(
+                new RequestLine(method, path).toString(), NpmRouteTest.headers(header)
+            ),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void prefersRefererToNpmCommand() {
+        MatcherAssert.assertThat(
+            NpmRoute.kind(
+                new RequestLine(RqMethod.PUT, "/simple").toString(),
+                new Headers.From(
+                    new Headers.From("npm-command", "deprecate"), "referer", "publish"
+                )
+            ),
+            new IsEqual<>(Optional.of(NpmRoute.Kind.PUBLISH))
+        );
+    }
+
+    @Test
+    void callsSliceOfRequestKind() {
+        MatcherAssert.assertThat(
+            new NpmRoute(
+                Collections.singletonMap(
+                    NpmRoute.Kind.TARBALL, (line, headers, body) -> StandardRs.NO_CONTENT
+                )
+            ),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NO_CONTENT),
+                new RequestLine(RqMethod.GET, "/simple/-/simple-1.0.0.tgz")
+            )
+        );
+    }
+
+    @Test
+    void returnsNotFoundIfThereIsNoSlice() {
+        MatcherAssert.assertThat(
+            new NpmRoute(
+                Collections.singletonMap(
+                    NpmRoute.Kind.TARBALL, (line, headers, body) -> StandardRs.NO_CONTENT
+                )
+            ),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.NOT_FOUND),
+                new RequestLine(RqMethod.GET, "/simple")
+            )
+        );
+    }
+
+    /**
+     * Request headers.
+     * @param header Header as `name:value` or empty string
+     * @return Headers
+     */
+    private static Headers headers(final String header) {
+        final Headers res;
+        if (header.isEmpty()) {
+            res = Headers.EMPTY;
+        } else {
+            final int colon = header.indexOf(':');
+            res = new Headers.From(header.substring(0, colon), header.substring(colon + 1));
+        }
+        return res;
+    }
+}
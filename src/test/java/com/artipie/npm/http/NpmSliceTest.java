@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.Headers;
+import com.artipie.http.auth.Authentication;
+import com.artipie.http.auth.Permissions;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.MetaJournal;
+import io.reactivex.Flowable;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link NpmSlice}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class NpmSliceTest {
+
+    /**
+     * Changes feed request line.
+     */
+    private static final String CHANGES =
+        new RequestLine(RqMethod.GET, "/_changes?since=0").toString();
+
+    /**
+     * Storage.
+     */
+    private Storage storage;
+
+    @BeforeEach
+    void init() {
+        this.storage = new InMemoryStorage();
+    }
+
+    @Test
+    void doesNotServeChangesWithoutJournal() throws Exception {
+        MatcherAssert.assertThat(
+            new NpmSlice(new URL("http://localhost"), this.storage).response(
+                NpmSliceTest.CHANGES, Headers.EMPTY, Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.NOT_FOUND)
+        );
+    }
+
+    @Test
+    void servesChangesWithJournal() throws Exception {
+        MatcherAssert.assertThat(
+            new NpmSlice(
+                new URL("http://localhost"), this.storage,
+                Permissions.FREE, Authentication.ANONYMOUS,
+                new NpmSlice.Settings().withJournal(new MetaJournal(this.storage))
+            ).response(NpmSliceTest.CHANGES, Headers.EMPTY, Flowable.empty()),
+            new RsHasStatus(RsStatus.OK)
+        );
+    }
+
+    @Test
+    void sweepsStorageWhenEnabled() throws Exception {
+        final Key staging = new Key.From("@hello/simple-0a1b2c-uploaded");
+        this.storage.save(staging, new Content.From(new byte[1])).join();
+        final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor();
+        try {
+            new NpmSlice(
+                new URL("http://localhost"), this.storage,
+                Permissions.FREE, Authentication.ANONYMOUS,
+                new NpmSlice.Settings().withSweep(exec, Duration.ofMillis(1), Duration.ZERO)
+            ).response(NpmSliceTest.CHANGES, Headers.EMPTY, Flowable.empty());
+            final long deadline = System.currentTimeMillis() + 5_000;
+            while (this.storage.exists(staging).join()
+                && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            MatcherAssert.assertThat(
+                this.storage.exists(staging).join(),
+                new IsEqual<>(false)
+            );
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.ArtipieException;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsInstanceOf;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link PublishPool}.
+ * @since 0.10
+ */
+final class PublishPoolTest {
+
+    @Test
+    void rejectsWhenQueueIsFullAndCollectsMetrics() {
+        final PublishPool.Metrics.Stats stats = new PublishPool.Metrics.Stats();
+        final PublishPool pool = new PublishPool(1, 1, Duration.ofSeconds(1), stats);
+        final CompletableFuture<String> blocked = new CompletableFuture<>();
+        final CompletableFuture<String> first = pool.submit(() -> blocked);
+        final CompletableFuture<String> second = pool.submit(
+            () -> blocked.thenApply(val -> "second")
+        );
+        MatcherAssert.assertThat(
+            "Third publish is rejected",
+            Assertions.assertThrows(
+                CompletionException.class,
+                () -> pool.submit(() -> CompletableFuture.completedFuture("third")).join()
+            ).getCause(),
+            new IsInstanceOf(RejectedExecutionException.class)
+        );
+        blocked.complete("first");
+        MatcherAssert.assertThat(
+            "Accepted publishes are completed",
+            first.join() + second.join(),
+            new IsEqual<>("firstsecond")
+        );
+        MatcherAssert.assertThat(
+            "Processed and rejected publishes are counted",
+            new long[]{stats.processed(), stats.rejects(), stats.depth()},
+            new IsEqual<>(new long[]{2L, 1L, 0L})
+        );
+        MatcherAssert.assertThat(
+            "Processing time is measured",
+            stats.processingTime(),
+            Matchers.greaterThan(Duration.ZERO)
+        );
+    }
+
+    @Test
+    void releasesReservedPlace() {
+        final PublishPool.Metrics.Stats stats = new PublishPool.Metrics.Stats();
+        final PublishPool pool = new PublishPool(1, 0, Duration.ofSeconds(1), stats);
+        final PublishPool.Slot slot = pool.reserve().join();
+        MatcherAssert.assertThat(
+            "Reserved place is taken",
+            Assertions.assertThrows(CompletionException.class, () -> pool.reserve().join())
+                .getCause(),
+            new IsInstanceOf(RejectedExecutionException.class)
+        );
+        slot.release();
+        MatcherAssert.assertThat(
+            "Released place is free",
+            pool.submit(() -> CompletableFuture.completedFuture("published")).join(),
+            new IsEqual<>("published")
+        );
+    }
+
+    @Test
+    void countsOnlyWaitingPublishesInQueueDepth() throws Exception {
+        final PublishPool.Metrics.Stats stats = new PublishPool.Metrics.Stats();
+        final PublishPool pool = new PublishPool(1, 2, Duration.ofSeconds(1), stats);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CompletableFuture<String> busy = pool.submit(
+            () -> {
+                started.countDown();
+                try {
+                    latch.await();
+                } catch (final InterruptedException err) {
+                    Thread.currentThread().interrupt();
+                }
+                return CompletableFuture.completedFuture("busy");
+            }
+        );
+        started.await();
+        final CompletableFuture<List<ByteBuffer>> bytes = Flowable.fromPublisher(
+            pool.observed(Flowable.just(ByteBuffer.allocate(1), ByteBuffer.allocate(1)))
+        ).toList().to(SingleInterop.get()).toCompletableFuture();
+        final CompletableFuture<String> waiting = pool.submit(
+            () -> CompletableFuture.completedFuture("waiting")
+        );
+        MatcherAssert.assertThat(
+            "Only waiting publish is counted",
+            stats.depth(),
+            new IsEqual<>(1)
+        );
+        latch.countDown();
+        MatcherAssert.assertThat(
+            "All the tasks are completed",
+            busy.join() + waiting.join() + bytes.join().size(),
+            new IsEqual<>("busywaiting2")
+        );
+    }
+
+    @Test
+    void failsWithPublishError() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                CompletionException.class,
+                () -> new PublishPool().submit(
+                    () -> CompletableFuture.supplyAsync(
+                        () -> {
+                            throw new ArtipieException("Publish failed");
+                        }
+                    ).thenApply(Object::toString)
+                ).join()
+            ).getCause(),
+            new IsInstanceOf(ArtipieException.class)
+        );
+    }
+
+    @Test
+    void doesNotHoldWorkerWhilePublishIsWaiting() throws Exception {
+        final PublishPool pool = new PublishPool(1, 1);
+        final CompletableFuture<String> blocked = new CompletableFuture<>();
+        final CompletableFuture<String> first = pool.submit(() -> blocked);
+        MatcherAssert.assertThat(
+            "Second publish is completed while the first one waits",
+            pool.submit(() -> CompletableFuture.completedFuture("second"))
+                .get(1, TimeUnit.MINUTES),
+            new IsEqual<>("second")
+        );
+        blocked.complete("first");
+        MatcherAssert.assertThat(first.join(), new IsEqual<>("first"));
+    }
+
+    @Test
+    void deliversBytesOnWorkers() {
+        final List<String> threads = Flowable.fromPublisher(
+            new PublishPool().observed(
+                Flowable.just(ByteBuffer.wrap(new byte[]{1}), ByteBuffer.wrap(new byte[]{2}))
+            )
+        ).map(buf -> Thread.currentThread().getName()).toList().blockingGet();
+        MatcherAssert.assertThat(
+            threads,
+            Matchers.everyItem(Matchers.startsWith("npm-publish-"))
+        );
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.http;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.hm.SliceHasResponse;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.SearchIndex;
+import io.reactivex.Flowable;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link SearchSlice}.
+ * @since 0.10
+ */
+final class SearchSliceTest {
+
+    /**
+     * Search index.
+     */
+    private SearchIndex index;
+
+    @BeforeEach
+    void init() {
+        this.index = new SearchIndex();
+        IntStream.range(0, 30).forEach(
+            num -> this.index.update(
+                new Key.From(String.format("pkg-%02d", num)),
+                Json.createObjectBuilder().add("name", String.format("pkg-%02d", num)).build()
+            )
+        );
+    }
+
+    @Test
+    void returnsFirstPageByDefault() {
+        final JsonObject found = SearchSliceTest.json(
+            new SearchSlice(this.index, () -> CompletableFuture.allOf())
+                .response(
+                    new RequestLine(RqMethod.GET, "/-/v1/search?text=pkg").toString(),
+                    Headers.EMPTY, Flowable.empty()
+                )
+        );
+        MatcherAssert.assertThat(
+            found.getInt("total"),
+            new IsEqual<>(30)
+        );
+        MatcherAssert.assertThat(
+            SearchSliceTest.names(found),
+            Matchers.hasSize(20)
+        );
+        MatcherAssert.assertThat(
+            found.containsKey("time"),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void returnsRequestedPage() {
+        MatcherAssert.assertThat(
+            SearchSliceTest.names(
+                SearchSliceTest.json(
+                    new SearchSlice(this.index, () -> CompletableFuture.allOf()).response(
+                        new RequestLine(
+                            RqMethod.GET, "/-/v1/search?text=pkg&size=2&from=27"
+                        ).toString(),
+                        Headers.EMPTY, Flowable.empty()
+                    )
+                )
+            ),
+            Matchers.contains("pkg-27", "pkg-28")
+        );
+    }
+
+    @Test
+    void loadsIndexOnce() {
+        final AtomicInteger loads = new AtomicInteger();
+        final SearchSlice slice = new SearchSlice(
+            this.index,
+            () -> {
+                loads.incrementAndGet();
+                return CompletableFuture.allOf();
+            }
+        );
+        MatcherAssert.assertThat(
+            "Index is not loaded before the first search",
+            loads.get(),
+            new IsEqual<>(0)
+        );
+        for (int num = 0; num < 3; num = num + 1) {
+            MatcherAssert.assertThat(
+                slice,
+                new SliceHasResponse(
+                    new RsHasStatus(RsStatus.OK),
+                    new RequestLine(RqMethod.GET, "/-/v1/search?text=any")
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            "Index is loaded once",
+            loads.get(),
+            new IsEqual<>(1)
+        );
+    }
+
+    @Test
+    void loadsIndexAgainAfterFailure() {
+        final AtomicInteger loads = new AtomicInteger();
+        final SearchSlice slice = new SearchSlice(
+            this.index,
+            () -> {
+                final CompletableFuture<Void> res = new CompletableFuture<>();
+                if (loads.incrementAndGet() == 1) {
+                    res.completeExceptionally(new IllegalStateException("Failed"));
+                } else {
+                    res.complete(null);
+                }
+                return res;
+            }
+        );
+        final RequestLine line = new RequestLine(RqMethod.GET, "/-/v1/search?text=pkg-01");
+        Assertions.assertThrows(
+            CompletionException.class,
+            () -> SearchSliceTest.json(
+                slice.response(line.toString(), Headers.EMPTY, Flowable.empty())
+            )
+        );
+        MatcherAssert.assertThat(
+            SearchSliceTest.names(
+                SearchSliceTest.json(
+                    slice.response(line.toString(), Headers.EMPTY, Flowable.empty())
+                )
+            ),
+            Matchers.contains("pkg-01")
+        );
+    }
+
+    /**
+     * Json body of the response.
+     * @param response Response
+     * @return Json object
+     */
+    private static JsonObject json(final Response response) {
+        final StringBuilder body = new StringBuilder();
+        response.send(
+            (status, headers, content) -> new PublisherAs(content).asciiString()
+                .thenAccept(body::append)
+                .toCompletableFuture()
+        ).toCompletableFuture().join();
+        return Json.createReader(new StringReader(body.toString())).readObject();
+    }
+
+    /**
+     * Names of found packages.
+     * @param found Search result
+     * @return Package names
+     */
+    private static List<String> names(final JsonObject found) {
+        return found.getJsonArray("objects").getValuesAs(JsonObject.class).stream()
+            .map(obj -> obj.getJsonObject("package").getString("name"))
+            .collect(Collectors.toList());
+    }
+}
@@ -15,6 +15,12 @@ import com.artipie.http.hm.SliceHasResponse;
 import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
 import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.MetaLayout;
+import com.artipie.npm.MetaQueue;
+import com.artipie.npm.PackagePurge;
+import com.artipie.npm.PackagePurgedException;
+import java.util.concurrent.CompletableFuture;
+import javax.json.Json;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,9 +45,16 @@ final class UnpublishForceSliceTest {
     @Test
     void returnsOkAndDeletePackage() {
         new TestResource("storage").addFilesTo(this.storage, Key.ROOT);
+        final Key pkg = new Key.From("@hello/simple-npm-project");
+        final PackagePurge purge = new PackagePurge(this.storage);
         MatcherAssert.assertThat(
             "Response status is OK",
-            new UnpublishForceSlice(this.storage),
+            new UnpublishForceSlice(
+                new MetaQueue(
+                    new MetaLayout.Guarded(new MetaLayout.Whole(this.storage), purge)
+                ),
+                purge
+            ),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.OK),
                 new RequestLine(
@@ -51,10 +64,52 @@ final class UnpublishForceSliceTest {
                 Content.EMPTY
             )
         );
+        MatcherAssert.assertThat(
+            "Packument is removed before response",
+            this.storage.exists(new Key.From(pkg, "meta.json")).join(),
+            new IsEqual<>(false)
+        );
+        purge.purge(pkg).join();
         MatcherAssert.assertThat(
             "The entire package was removed",
-            this.storage.list(new Key.From("@hello/simple-npm-project"))
-                .join().isEmpty(),
+            this.storage.list(pkg).join().isEmpty(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Tombstone was removed",
+            this.storage.list(PackagePurge.ROOT).join().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void rejectsPublishUntilPurgeIsComplete() {
+        new TestResource("storage").addFilesTo(this.storage, Key.ROOT);
+        final Key pkg = new Key.From("@hello/simple-npm-project");
+        final PackagePurge purge = new PackagePurge(this.storage);
+        final MetaQueue queue = new MetaQueue(
+            new MetaLayout.Guarded(new MetaLayout.Whole(this.storage), purge)
+        );
+        new UnpublishForceSlice(queue, purge).response(
+            new RequestLine(RqMethod.DELETE, "/@hello%2fsimple-npm-project/-rev/undefined")
+                .toString(),
+            Headers.EMPTY, Content.EMPTY
+        ).send((status, headers, body) -> CompletableFuture.allOf()).toCompletableFuture()
+            .join();
+        final MetaQueue.Mutation publish = meta -> Json.createObjectBuilder()
+            .add("name", "@hello/simple-npm-project").build();
+        MatcherAssert.assertThat(
+            "Publish is rejected while package is purged",
+            queue.update(pkg, publish).handle(
+                (nothing, err) -> PackagePurgedException.causedBy(err)
+            ).join(),
+            new IsEqual<>(true)
+        );
+        purge.purge(pkg).join();
+        queue.update(pkg, publish).join();
+        MatcherAssert.assertThat(
+            "Package is published after purge",
+            this.storage.exists(new Key.From(pkg, "meta.json")).join(),
             new IsEqual<>(true)
         );
     }
@@ -62,7 +117,9 @@ final class UnpublishForceSliceTest {
     @Test
     void returnsBadRequest() {
         MatcherAssert.assertThat(
-            new UnpublishForceSlice(this.storage),
+            new UnpublishForceSlice(
+                new MetaQueue(this.storage), new PackagePurge(this.storage)
+            ),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.BAD_REQUEST),
                 new RequestLine(RqMethod.GET, "/bad/request")
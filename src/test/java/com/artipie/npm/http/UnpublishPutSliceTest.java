@@ -17,8 +17,12 @@ import com.artipie.http.rq.RequestLine;
 import com.artipie.http.rq.RqMethod;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.npm.JsonFromMeta;
+import com.artipie.npm.MetaQueue;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import javax.json.Json;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
@@ -61,7 +65,7 @@ final class UnpublishPutSliceTest {
     @Test
     void returnsNotFoundIfMetaIsNotFound() {
         MatcherAssert.assertThat(
-            new UnpublishPutSlice(this.storage),
+            new UnpublishPutSlice(new MetaQueue(this.storage)),
             new SliceHasResponse(
                 new RsHasStatus(RsStatus.NOT_FOUND),
                 new RequestLine(RqMethod.PUT, "/some/project/-rev/undefined"),
@@ -77,7 +81,7 @@ final class UnpublishPutSliceTest {
         this.saveSourceMeta();
         MatcherAssert.assertThat(
             "Response status is OK",
-            new UnpublishPutSlice(this.storage),
+            new UnpublishPutSlice(new MetaQueue(this.storage)),
             UnpublishPutSliceTest.responseMatcher()
         );
         MatcherAssert.assertThat(
@@ -96,7 +100,7 @@ final class UnpublishPutSliceTest {
         this.saveSourceMeta();
         MatcherAssert.assertThat(
             "Response status is OK",
-            new UnpublishPutSlice(this.storage),
+            new UnpublishPutSlice(new MetaQueue(this.storage)),
             UnpublishPutSliceTest.responseMatcher()
         );
         MatcherAssert.assertThat(
@@ -115,7 +119,7 @@ final class UnpublishPutSliceTest {
         this.saveSourceMeta();
         final Throwable thr = Assertions.assertThrows(
             CompletionException.class,
-            () -> new UnpublishPutSlice(this.storage)
+            () -> new UnpublishPutSlice(new MetaQueue(this.storage))
                 .response(
                     "PUT /@hello%2fsimple-npm-project/-rev/undefined HTTP/1.1",
                     new Headers.From("referer", "unpublish"),
@@ -132,6 +136,41 @@ final class UnpublishPutSliceTest {
         );
     }
 
+    @Test
+    void rejectsOutdatedRevision() {
+        this.storage.save(
+            this.meta,
+            new Content.From(
+                Json.createObjectBuilder(
+                    Json.createReader(
+                        new ByteArrayInputStream(new TestResource("json/unpublish.json").asBytes())
+                    ).readObject()
+                ).add("_rev", "2-b").build().toString().getBytes(StandardCharsets.UTF_8)
+            )
+        ).join();
+        MatcherAssert.assertThat(
+            "Response status is CONFLICT",
+            new UnpublishPutSlice(new MetaQueue(this.storage)),
+            new SliceHasResponse(
+                new RsHasStatus(RsStatus.CONFLICT),
+                new RequestLine(RqMethod.PUT, "/@hello%2fsimple-npm-project/-rev/1-a"),
+                new Headers.From("referer", "unpublish"),
+                new Content.From(
+                    new TestResource(
+                        String.format("storage/%s/meta.json", UnpublishPutSliceTest.PROJ)
+                    ).asBytes()
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Meta.json is not updated",
+            new JsonFromMeta(
+                this.storage, new Key.From(UnpublishPutSliceTest.PROJ)
+            ).json().getJsonObject("versions").keySet(),
+            Matchers.hasItem("1.0.2")
+        );
+    }
+
     private void saveSourceMeta() {
         this.storage.save(
             this.meta,
@@ -7,17 +7,25 @@ package com.artipie.npm.http;
 
 import com.artipie.asto.Storage;
 import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.http.Response;
 import com.artipie.http.Slice;
+import com.artipie.http.headers.Header;
+import com.artipie.http.hm.ResponseMatcher;
 import com.artipie.http.hm.RsHasStatus;
 import com.artipie.http.rs.RsStatus;
 import com.artipie.http.slice.KeyFromPath;
 import com.artipie.http.slice.TrimPathSlice;
+import com.artipie.npm.MetaQueue;
 import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.json.Json;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -33,8 +41,11 @@ public final class UploadSliceTest {
     @Test
     void uploadsFileToRemote() throws Exception {
         final Storage storage = new InMemoryStorage();
+        final PublishPool pool = new PublishPool();
         final Slice slice = new TrimPathSlice(
-            new UploadSlice(new CliPublish(storage), storage),
+            new UploadSlice(
+                new CliPublish(storage, new MetaQueue(storage), pool), storage, pool
+            ),
             "ctx"
         );
         final String json = Json.createObjectBuilder()
@@ -62,8 +73,11 @@ public final class UploadSliceTest {
     @Test
     void shouldFailForBadRequest() {
         final Storage storage = new InMemoryStorage();
+        final PublishPool pool = new PublishPool();
         final Slice slice = new TrimPathSlice(
-            new UploadSlice(new CliPublish(storage), storage),
+            new UploadSlice(
+                new CliPublish(storage, new MetaQueue(storage), pool), storage, pool
+            ),
             "my-repo"
         );
         Assertions.assertThrows(
@@ -77,4 +91,62 @@ public final class UploadSliceTest {
             ).toCompletableFuture().join()
         );
     }
+
+    @Test
+    void returnsUnavailableWhenPublishQueueIsFull() {
+        final Storage storage = new InMemoryStorage();
+        final CompletableFuture<Void> blocked = new CompletableFuture<>();
+        final Slice slice = new UploadSlice(
+            (prefix, artifact) -> blocked,
+            storage,
+            new PublishPool(1, 1, Duration.ofSeconds(2), new PublishPool.Metrics.Stats())
+        );
+        final Response first = slice.response(
+            "PUT /first HTTP/1.1", Collections.emptyList(), Flowable.empty()
+        );
+        final Response second = slice.response(
+            "PUT /second HTTP/1.1", Collections.emptyList(), Flowable.empty()
+        );
+        MatcherAssert.assertThat(
+            "Rejects publish which does not fit into the queue",
+            slice.response(
+                "PUT /third HTTP/1.1", Collections.emptyList(), Flowable.empty()
+            ),
+            new ResponseMatcher(
+                RsStatus.UNAVAILABLE, new Header("Retry-After", "2")
+            )
+        );
+        blocked.complete(null);
+        MatcherAssert.assertThat(
+            "Accepted publishes are completed",
+            Arrays.asList(first, second),
+            Matchers.everyItem(new RsHasStatus(RsStatus.OK))
+        );
+    }
+
+    @Test
+    void doesNotReadBodyOfRejectedPublish() {
+        final PublishPool pool = new PublishPool(
+            1, 0, Duration.ofSeconds(1), new PublishPool.Metrics.Stats()
+        );
+        final PublishPool.Slot slot = pool.reserve().join();
+        final AtomicBoolean read = new AtomicBoolean();
+        MatcherAssert.assertThat(
+            "Rejects publish when there is no place in the pool",
+            new UploadSlice(
+                (prefix, artifact) -> CompletableFuture.allOf(), new InMemoryStorage(), pool
+            ).response(
+                "PUT /pkg HTTP/1.1", Collections.emptyList(),
+                Flowable.just(ByteBuffer.wrap("{}".getBytes()))
+                    .doOnSubscribe(sub -> read.set(true))
+            ),
+            new RsHasStatus(RsStatus.UNAVAILABLE)
+        );
+        slot.release();
+        MatcherAssert.assertThat(
+            "Body of rejected publish is not read",
+            read.get(),
+            new IsEqual<>(false)
+        );
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import com.artipie.asto.Content;
+import com.artipie.http.Headers;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Test for {@link GzipVariants}.
+ * @since 0.10
+ */
+final class GzipVariantsTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "gzip|true",
+        "deflate, GZIP;q=0.5, br|true",
+        "*|true",
+        "gzip;q=0|false",
+        "gzip; q=0.000, identity|false",
+        "br, deflate|false",
+        "identity|false"
+    })
+    void checksAcceptedEncoding(final String accept, final boolean expected) {
+        MatcherAssert.assertThat(
+            GzipVariants.accepted(new Headers.From("Accept-Encoding", accept)),
+            new IsEqual<>(expected)
+        );
+    }
+
+    @Test
+    void compressesOnceAndCaches() throws IOException {
+        final GzipVariants gzip = new GzipVariants();
+        final byte[] bytes = "{\"name\":\"pkg\"}".getBytes(StandardCharsets.UTF_8);
+        final byte[] compressed = gzip.compress("pkg", new Content.From(bytes)).join();
+        MatcherAssert.assertThat(
+            "Compressed bytes are decompressed to original",
+            IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))),
+            new IsEqual<>(bytes)
+        );
+        MatcherAssert.assertThat(
+            "Compressed bytes are cached",
+            gzip.cached("pkg").get(),
+            new IsEqual<>(compressed)
+        );
+    }
+}
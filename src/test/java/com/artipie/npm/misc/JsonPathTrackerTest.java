@@ -0,0 +1,38 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link JsonPathTracker}.
+ * @since 0.10
+ */
+final class JsonPathTrackerTest {
+
+    @Test
+    void reportsValuesAtWatchedPath() {
+        final String json = String.join(
+            "",
+            "{\"a\":{\"x\":{\"v\":\"one\",\"w\":\"no\"},",
+            "\"y\":{\"v\":[\"no\"],\"s\":\"\\\"v\\\"\"},",
+            "\"z\\u0031\":{\"v\":\"two\"}},\"v\":\"no\"}"
+        );
+        final JsonPathTracker path = new JsonPathTracker("a", "*", "v");
+        final List<String> found = new ArrayList<>(2);
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int idx = 0; idx < bytes.length; idx = idx + 1) {
+            if (path.accept(bytes[idx])) {
+                found.add(path.name(1));
+            }
+        }
+        MatcherAssert.assertThat(found, Matchers.contains("x", "z1"));
+    }
+}
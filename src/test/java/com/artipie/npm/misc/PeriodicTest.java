@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Periodic}.
+ * @since 0.10
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class PeriodicTest {
+
+    /**
+     * Scheduler.
+     */
+    private ScheduledExecutorService exec;
+
+    @BeforeEach
+    void init() {
+        this.exec = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.exec.shutdownNow();
+    }
+
+    @Test
+    void runsNextTaskAfterPreviousIsComplete() throws Exception {
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch second = new CountDownLatch(2);
+        new Periodic(this.exec, Duration.ofMillis(1)).start(
+            () -> {
+                second.countDown();
+                final CompletableFuture<Void> res;
+                if (runs.incrementAndGet() == 1) {
+                    res = first;
+                } else {
+                    res = CompletableFuture.allOf();
+                }
+                return res;
+            }
+        );
+        MatcherAssert.assertThat(
+            "Next task starts before the previous one is complete",
+            second.await(100, TimeUnit.MILLISECONDS),
+            new IsEqual<>(false)
+        );
+        first.complete(null);
+        MatcherAssert.assertThat(
+            "Next task does not start after the previous one is complete",
+            second.await(5, TimeUnit.SECONDS),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void continuesAfterFailedTask() throws Exception {
+        final CountDownLatch runs = new CountDownLatch(3);
+        new Periodic(this.exec, Duration.ofMillis(1)).start(
+            () -> {
+                runs.countDown();
+                throw new IllegalStateException("Task failed");
+            }
+        );
+        MatcherAssert.assertThat(
+            runs.await(5, TimeUnit.SECONDS),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void stopsWhenCancelled() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(2);
+        final CompletableFuture<Void> stop = new Periodic(this.exec, Duration.ofMillis(1))
+            .start(
+                () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    return CompletableFuture.allOf();
+                }
+            );
+        started.await(5, TimeUnit.SECONDS);
+        stop.cancel(false);
+        TimeUnit.MILLISECONDS.sleep(50);
+        final int stopped = runs.get();
+        TimeUnit.MILLISECONDS.sleep(50);
+        MatcherAssert.assertThat(runs.get(), new IsEqual<>(stopped));
+    }
+
+    @Test
+    void failsWhenSchedulerIsShutDown() {
+        this.exec.shutdown();
+        MatcherAssert.assertThat(
+            new Periodic(this.exec, Duration.ofMillis(1))
+                .start(CompletableFuture::allOf)
+                .isCompletedExceptionally(),
+            new IsEqual<>(true)
+        );
+    }
+}
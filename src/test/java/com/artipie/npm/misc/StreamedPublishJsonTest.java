@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT) Copyright (c) 2020-2021 artipie.com
+ * https://github.com/artipie/npm-adapter/LICENSE.txt
+ */
+package com.artipie.npm.misc;
+
+import com.artipie.asto.ext.PublisherAs;
+import com.artipie.asto.test.TestResource;
+import com.artipie.npm.TgzArchive;
+import io.reactivex.Flowable;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.json.Json;
+import javax.json.JsonObject;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test for {@link StreamedPublishJson} and {@link Base64Span}.
+ * @since 0.10
+ */
+final class StreamedPublishJsonTest {
+
+    /**
+     * Attachment name.
+     */
+    private static final String TGZ = "@hello/simple-npm-project-1.0.1.tgz";
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 4096})
+    void removesAttachmentsDataFromJson(final int chunk) {
+        final byte[] bytes = new TestResource("json/cli_publish.json").asBytes();
+        final JsonObject json = new StreamedPublishJson(StreamedPublishJsonTest.chunks(bytes, chunk))
+            .scan().join().json();
+        MatcherAssert.assertThat(
+            "Attachment data is empty",
+            json.getJsonObject("_attachments").getJsonObject(StreamedPublishJsonTest.TGZ)
+                .getString("data"),
+            new IsEqual<>("")
+        );
+        MatcherAssert.assertThat(
+            "Versions are kept",
+            json.getJsonObject("versions").keySet(),
+            Matchers.contains("1.0.1")
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 64, 4096})
+    void decodesAttachmentsFromSource(final int chunk) {
+        final byte[] bytes = new TestResource("json/cli_publish.json").asBytes();
+        final StreamedPublishJson.Span span =
+            new StreamedPublishJson(StreamedPublishJsonTest.chunks(bytes, chunk))
+                .scan().join().attachments().get(StreamedPublishJsonTest.TGZ);
+        MatcherAssert.assertThat(
+            new PublisherAs(new Base64Span(StreamedPublishJsonTest.chunks(bytes, chunk), span))
+                .bytes().toCompletableFuture().join(),
+            new IsEqual<>(
+                new TgzArchive(
+                    Json.createReader(new ByteArrayInputStream(bytes)).readObject()
+                        .getJsonObject("_attachments")
+                        .getJsonObject(StreamedPublishJsonTest.TGZ)
+                        .getString("data")
+                ).bytes()
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 4096})
+    void resolvesEscapedSolidus(final int chunk) {
+        final byte[] bytes = String.join(
+            "",
+            "{\"name\":\"a\",\"_attachments\":{\"a\\/b.tgz\":",
+            "{\"data\":\"AQID\\/w==\",\"length\":4}}}"
+        ).getBytes();
+        final StreamedPublishJson.Scanned scanned =
+            new StreamedPublishJson(StreamedPublishJsonTest.chunks(bytes, chunk)).scan().join();
+        MatcherAssert.assertThat(
+            new PublisherAs(
+                new Base64Span(
+                    StreamedPublishJsonTest.chunks(bytes, chunk),
+                    scanned.attachments().get("a/b.tgz")
+                )
+            ).bytes().toCompletableFuture().join(),
+            new IsEqual<>(new byte[]{1, 2, 3, (byte) 0xff})
+        );
+    }
+
+    /**
+     * Splits bytes into publisher of chunks.
+     * @param bytes Bytes
+     * @param size Chunk size
+     * @return Publisher of chunks
+     */
+    private static Flowable<ByteBuffer> chunks(final byte[] bytes, final int size) {
+        final List<ByteBuffer> res = new ArrayList<>(bytes.length / size + 1);
+        for (int idx = 0; idx < bytes.length; idx += size) {
+            res.add(
+                ByteBuffer.wrap(Arrays.copyOfRange(bytes, idx, Math.min(idx + size, bytes.length)))
+            );
+        }
+        return Flowable.fromIterable(res);
+    }
+}
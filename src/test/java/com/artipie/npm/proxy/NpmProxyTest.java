@@ -11,13 +11,17 @@ import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
 import io.reactivex.Completable;
 import io.reactivex.Maybe;
+import io.reactivex.schedulers.Schedulers;
 import io.vertx.reactivex.core.Vertx;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
 import org.hamcrest.core.IsSame;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -78,6 +82,11 @@ public final class NpmProxyTest {
     @Mock
     private NpmRemote remote;
 
+    /**
+     * Upstream fetch metrics.
+     */
+    private NpmProxy.Metrics.Stats metrics;
+
     @Test
     public void getsPackage() throws IOException {
         final String name = "asdas";
@@ -180,16 +189,81 @@ public final class NpmProxyTest {
         Mockito.verify(this.storage).getAsset(path);
     }
 
+    @Test
+    public void sharesPackageFetchOfConcurrentRequests() throws IOException {
+        final String name = "asdas";
+        final NpmPackage expected = defaultPackage(OffsetDateTime.now());
+        Mockito.when(this.storage.getPackage(name)).thenReturn(Maybe.empty());
+        Mockito.doReturn(Maybe.just(expected).delay(300, TimeUnit.MILLISECONDS))
+            .when(this.remote).loadPackage(name);
+        Mockito.when(this.storage.save(expected)).thenReturn(Completable.complete());
+        Maybe.zip(
+            this.npm.getPackage(name).subscribeOn(Schedulers.io()),
+            this.npm.getPackage(name).subscribeOn(Schedulers.io()),
+            (first, second) -> {
+                MatcherAssert.assertThat(first, new IsSame<>(second));
+                return first;
+            }
+        ).blockingGet();
+        Mockito.verify(this.remote).loadPackage(name);
+        Mockito.verify(this.storage).save(expected);
+        MatcherAssert.assertThat(
+            this.metrics.coalescedRequests(NpmProxy.Metrics.Resource.PACKAGE),
+            new IsEqual<>(1L)
+        );
+    }
+
+    @Test
+    public void sharesAssetFetchOfConcurrentRequests() {
+        final String path = "asdas/-/asdas-1.0.0.tgz";
+        final NpmAsset loaded = defaultAsset();
+        final AtomicInteger reads = new AtomicInteger();
+        Mockito.when(this.storage.getAsset(path)).thenAnswer(
+            invocation -> {
+                final Maybe<NpmAsset> result;
+                if (reads.incrementAndGet() > 2) {
+                    result = Maybe.just(defaultAsset());
+                } else {
+                    result = Maybe.empty();
+                }
+                return result;
+            }
+        );
+        Mockito.when(
+            this.remote.loadAsset(Mockito.eq(path), Mockito.any())
+        ).thenReturn(Maybe.just(loaded).delay(300, TimeUnit.MILLISECONDS));
+        Mockito.when(this.storage.save(loaded)).thenReturn(Completable.complete());
+        Maybe.zip(
+            this.npm.getAsset(path).subscribeOn(Schedulers.io()),
+            this.npm.getAsset(path).subscribeOn(Schedulers.io()),
+            (first, second) -> first
+        ).blockingGet();
+        Mockito.verify(this.remote).loadAsset(Mockito.eq(path), Mockito.any());
+        Mockito.verify(this.storage).save(loaded);
+        MatcherAssert.assertThat(
+            "Asset fetch is shared",
+            this.metrics.coalescedRequests(NpmProxy.Metrics.Resource.ASSET),
+            new IsEqual<>(1L)
+        );
+        MatcherAssert.assertThat(
+            "Every request reads saved asset",
+            reads.get(),
+            new IsEqual<>(4)
+        );
+    }
+
     @BeforeEach
     void setUp() throws IOException {
         final YamlMapping yaml = Yaml.createYamlMappingBuilder()
             .add("metadata-ttl-minutes", "60")
             .build();
+        this.metrics = new NpmProxy.Metrics.Stats();
         this.npm = new NpmProxy(
             new NpmProxyConfig(yaml),
             NpmProxyTest.vertx,
             this.storage,
-            this.remote
+            this.remote,
+            this.metrics
         );
         Mockito.doNothing().when(this.remote).close();
     }
@@ -17,6 +17,8 @@ import com.artipie.npm.proxy.NpmProxy;
 import com.artipie.npm.proxy.NpmProxyConfig;
 import com.artipie.vertx.VertxSliceServer;
 import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
 import io.vertx.reactivex.ext.web.client.WebClient;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -101,9 +103,13 @@ final class DownloadAssetSliceTest {
                 this.tgzpath
             );
             final WebClient client = WebClient.create(this.vertx);
-            final String tgzcontent =
-                client.getAbs(url).rxSend().blockingGet()
-                .bodyAsString(StandardCharsets.ISO_8859_1.name());
+            final HttpResponse<Buffer> resp = client.getAbs(url).rxSend().blockingGet();
+            MatcherAssert.assertThat(
+                "Byte ranges are not advertised",
+                resp.getHeader("Accept-Ranges"),
+                new IsEqual<>("none")
+            );
+            final String tgzcontent = resp.bodyAsString(StandardCharsets.ISO_8859_1.name());
             final JsonObject json =
                 new TgzArchive(tgzcontent, false)
                     .packageJson()
@@ -11,20 +11,32 @@ import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.asto.memory.InMemoryStorage;
 import com.artipie.asto.test.TestResource;
+import com.artipie.http.Headers;
+import com.artipie.http.hm.IsHeader;
+import com.artipie.http.hm.RsHasBody;
+import com.artipie.http.hm.RsHasHeaders;
+import com.artipie.http.rq.RequestLine;
+import com.artipie.http.rq.RqMethod;
 import com.artipie.npm.RandomFreePort;
 import com.artipie.npm.proxy.NpmProxy;
 import com.artipie.npm.proxy.NpmProxyConfig;
+import com.artipie.npm.proxy.json.ClientContent;
 import com.artipie.vertx.VertxSliceServer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.reactivex.core.Vertx;
 import io.vertx.reactivex.ext.web.client.WebClient;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPOutputStream;
 import javax.json.Json;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -103,11 +115,60 @@ final class DownloadPackageSliceTest {
         }
     }
 
+    @Test
+    void sendsCompressedPackage() throws IOException {
+        MatcherAssert.assertThat(
+            new DownloadPackageSlice(this.npm, new PackagePath("")).response(
+                new RequestLine(RqMethod.GET, "/@hello/simple-npm-project").toString(),
+                new Headers.From(
+                    new Headers.From("Host", "localhost"), "Accept-Encoding", "gzip, br"
+                ),
+                Content.EMPTY
+            ),
+            Matchers.allOf(
+                new RsHasHeaders(
+                    new IsHeader("Content-Type", "application/json"),
+                    new IsHeader("Content-Encoding", "gzip"),
+                    new IsHeader("Vary", "Accept-Encoding"),
+                    new IsHeader("Last-Modified", "2020-05-13T16:30:30+01:00"),
+                    new IsHeader("Content-Length", Matchers.any(String.class))
+                ),
+                new RsHasBody(
+                    DownloadPackageSliceTest.gzip(
+                        new ClientContent(
+                            new String(
+                                new TestResource(
+                                    "storage/@hello/simple-npm-project/meta.json"
+                                ).asBytes(),
+                                StandardCharsets.UTF_8
+                            ),
+                            "http://localhost"
+                        ).value().getBytes(StandardCharsets.UTF_8)
+                    )
+                )
+            )
+        );
+    }
+
     @AfterEach
     void tearDown() {
         this.vertx.close();
     }
 
+    /**
+     * Gzip compressed bytes.
+     * @param bytes Bytes
+     * @return Compressed bytes
+     * @throws IOException If fails
+     */
+    private static byte[] gzip(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
     /**
      * Save files to storage from test resources.
      * @param storage Storage